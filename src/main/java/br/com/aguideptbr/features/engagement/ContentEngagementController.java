@@ -7,10 +7,14 @@ import java.util.UUID;
 
 import org.jboss.logging.Logger;
 
+import br.com.aguideptbr.features.engagement.dto.BatchEngagementRequestDTO;
+import br.com.aguideptbr.features.engagement.dto.ContentRetentionDTO;
 import br.com.aguideptbr.features.engagement.dto.CreateEngagementDTO;
+import br.com.aguideptbr.features.engagement.dto.EngagementPageDTO;
 import br.com.aguideptbr.features.engagement.dto.EngagementResponseDTO;
 import br.com.aguideptbr.features.engagement.dto.UpdateEngagementDTO;
 import br.com.aguideptbr.features.engagement.dto.UserTopContentsDTO;
+import br.com.aguideptbr.util.HyperLogLog;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
@@ -37,6 +41,8 @@ import jakarta.ws.rs.core.Response;
 @Consumes(MediaType.APPLICATION_JSON)
 public class ContentEngagementController {
 
+    private static final int BATCH_RETRY_AFTER_SECONDS = 2;
+
     private final Logger log;
     private final ContentEngagementService engagementService;
 
@@ -50,20 +56,66 @@ public class ContentEngagementController {
      * POST /api/v1/engagements
      *
      * @param dto The engagement data
-     * @return 201 Created with the engagement data
+     * @return 201 Created with the engagement data, or 200 OK with
+     *         {@code duplicate=true} when the event repeats a recent one
      */
     @POST
     public Response createEngagement(@Valid CreateEngagementDTO dto) {
         log.infof("POST /api/v1/engagements - Creating engagement: userId=%s, contentId=%s, type=%s",
                 dto.getUserId(), dto.getContentId(), dto.getEngagementType());
 
-        EngagementResponseDTO response = engagementService.createEngagement(dto);
+        if (engagementService.checkAndHold(dto)) {
+            return Response.ok(Map.of(
+                    "duplicate", true,
+                    "message", "Engagement already recorded",
+                    "timestamp", LocalDateTime.now())).build();
+        }
+
+        EngagementResponseDTO response;
+        try {
+            response = engagementService.createEngagement(dto);
+        } finally {
+            // After commit or rollback: the key is remembered only on commit
+            engagementService.releaseDuplicateHold(dto);
+        }
 
         return Response.status(Response.Status.CREATED)
                 .entity(response)
                 .build();
     }
 
+    /**
+     * Accepts a batch of engagement events for asynchronous persistence.
+     * POST /api/v1/engagements/batch
+     *
+     * @param dto The batch of events
+     * @return 202 Accepted when queued, 429 Too Many Requests when the queue is
+     *         full
+     */
+    @POST
+    @Path("/batch")
+    public Response createEngagementBatch(@Valid BatchEngagementRequestDTO dto) {
+        log.infof("POST /api/v1/engagements/batch - Ingesting %d events", dto.getEvents().size());
+
+        ContentEngagementService.BatchIngestResult result = engagementService.ingestBatch(dto);
+        if (!result.queued()) {
+            return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header("Retry-After", BATCH_RETRY_AFTER_SECONDS)
+                    .entity(Map.of(
+                            "error", "Ingestion queue full",
+                            "message", "Engagement ingestion is saturated, retry later",
+                            "timestamp", LocalDateTime.now()))
+                    .build();
+        }
+
+        return Response.accepted(Map.of(
+                "accepted", result.accepted(),
+                "duplicates", result.duplicates(),
+                "queueDepth", engagementService.getIngestionQueueDepth(),
+                "timestamp", LocalDateTime.now()))
+                .build();
+    }
+
     /**
      * Gets engagement by ID.
      * GET /api/v1/engagements/{id}
@@ -85,13 +137,29 @@ public class ContentEngagementController {
      * Updates an existing engagement.
      * PUT /api/v1/engagements/{id}
      *
+     * Progress-only heartbeats (viewDurationSeconds/completionPercentage) are
+     * buffered in memory and answered with 202 Accepted.
+     *
      * @param id  The engagement ID
      * @param dto The update data
-     * @return 200 OK with updated engagement data
+     * @return 200 OK with updated engagement data, or 202 Accepted for
+     *         buffered progress
      */
     @PUT
     @Path("/{id}")
     public Response updateEngagement(@PathParam("id") UUID id, @Valid UpdateEngagementDTO dto) {
+        if (dto.isProgressOnly()) {
+            log.debugf("PUT /api/v1/engagements/%s - Recording playback progress", id);
+
+            boolean flushed = engagementService.recordProgress(id, dto);
+
+            return Response.accepted(Map.of(
+                    "id", id,
+                    "flushed", flushed,
+                    "timestamp", LocalDateTime.now()))
+                    .build();
+        }
+
         log.infof("PUT /api/v1/engagements/%s - Updating engagement", id);
 
         EngagementResponseDTO response = engagementService.updateEngagement(id, dto);
@@ -117,43 +185,55 @@ public class ContentEngagementController {
     }
 
     /**
-     * Gets all engagements for a specific user.
-     * GET /api/v1/engagements/user/{userId}
+     * Gets a user's engagements, newest first, one page at a time.
+     * GET /api/v1/engagements/user/{userId}?cursor=&limit=&type=&status=
      *
      * @param userId The user ID
-     * @return 200 OK with list of engagements
+     * @param cursor Opaque cursor from the previous page (omit for the first)
+     * @param limit  Page size (default: 50, max: 200)
+     * @param type   Optional engagement type filter
+     * @param status Optional engagement status filter
+     * @return 200 OK with one page of engagements and the next cursor
      */
     @GET
     @Path("/user/{userId}")
-    public Response getUserEngagements(@PathParam("userId") UUID userId) {
+    public Response getUserEngagements(
+            @PathParam("userId") UUID userId,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limit") @DefaultValue("50") int limit,
+            @QueryParam("type") EngagementType type,
+            @QueryParam("status") EngagementStatus status) {
         log.infof("GET /api/v1/engagements/user/%s - Getting user engagements", userId);
 
-        List<EngagementResponseDTO> engagements = engagementService.getUserEngagements(userId);
+        EngagementPageDTO page = engagementService.getUserEngagements(userId, type, status, cursor, limit);
 
-        return Response.ok(Map.of(
-                "userId", userId,
-                "total", engagements.size(),
-                "engagements", engagements)).build();
+        return Response.ok(page).build();
     }
 
     /**
-     * Gets all engagements for a specific content.
-     * GET /api/v1/engagements/content/{contentId}
+     * Gets a content's engagements, newest first, one page at a time.
+     * GET /api/v1/engagements/content/{contentId}?cursor=&limit=&type=&status=
      *
      * @param contentId The content ID
-     * @return 200 OK with list of engagements
+     * @param cursor    Opaque cursor from the previous page (omit for the first)
+     * @param limit     Page size (default: 50, max: 200)
+     * @param type      Optional engagement type filter
+     * @param status    Optional engagement status filter
+     * @return 200 OK with one page of engagements and the next cursor
      */
     @GET
     @Path("/content/{contentId}")
-    public Response getContentEngagements(@PathParam("contentId") UUID contentId) {
+    public Response getContentEngagements(
+            @PathParam("contentId") UUID contentId,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limit") @DefaultValue("50") int limit,
+            @QueryParam("type") EngagementType type,
+            @QueryParam("status") EngagementStatus status) {
         log.infof("GET /api/v1/engagements/content/%s - Getting content engagements", contentId);
 
-        List<EngagementResponseDTO> engagements = engagementService.getContentEngagements(contentId);
+        EngagementPageDTO page = engagementService.getContentEngagements(contentId, type, status, cursor, limit);
 
-        return Response.ok(Map.of(
-                "contentId", contentId,
-                "total", engagements.size(),
-                "engagements", engagements)).build();
+        return Response.ok(page).build();
     }
 
     /**
@@ -195,11 +275,32 @@ public class ContentEngagementController {
         log.infof("GET /api/v1/engagements/content/%s/stats - Getting content stats", contentId);
 
         Map<EngagementType, Long> stats = engagementService.getContentStats(contentId);
+        long uniqueViewers = engagementService.getUniqueViewers(contentId);
 
         return Response.ok(Map.of(
                 "contentId", contentId,
                 "timestamp", LocalDateTime.now(),
-                "statistics", stats)).build();
+                "statistics", stats,
+                "uniqueViewers", uniqueViewers,
+                "uniqueViewersRelativeError", HyperLogLog.STANDARD_ERROR)).build();
+    }
+
+    /**
+     * Gets the retention distribution of a content: p25/p50/p90 of completion
+     * percentage and view duration.
+     * GET /api/v1/engagements/content/{contentId}/retention
+     *
+     * @param contentId The content ID
+     * @return 200 OK with retention percentiles
+     */
+    @GET
+    @Path("/content/{contentId}/retention")
+    public Response getContentRetention(@PathParam("contentId") UUID contentId) {
+        log.infof("GET /api/v1/engagements/content/%s/retention - Getting content retention", contentId);
+
+        ContentRetentionDTO retention = engagementService.getContentRetention(contentId);
+
+        return Response.ok(retention).build();
     }
 
     /**
@@ -4,8 +4,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.annotations.PartitionKey;
+
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -86,19 +89,25 @@ public class ContentEngagementModel extends PanacheEntityBase {
     // ══════════════════════════════════════════════════════════════
     // 📱 CONTEXTO TÉCNICO DO ACESSO (Device/Platform)
     // ══════════════════════════════════════════════════════════════
-    @Column(name = "device_type", length = 20)
+    // Strings repetidas são gravadas como ids de engagement_dictionary (V1.0.32).
+    // Não atualizáveis: só são definidas na criação do engajamento.
+    @Convert(converter = DictionaryConverter.DeviceType.class)
+    @Column(name = "device_type_id", updatable = false)
     public String deviceType; // Tipo de dispositivo (mobile, tablet, web)
 
-    @Column(name = "platform", length = 20)
+    @Convert(converter = DictionaryConverter.Platform.class)
+    @Column(name = "platform_id", updatable = false)
     public String platform; // Sistema operacional (Android, iOS, web)
 
-    @Column(name = "source", length = 50)
+    @Convert(converter = DictionaryConverter.Source.class)
+    @Column(name = "source_id", updatable = false)
     public String source; // De onde veio (home, search, recommendations, profile)
 
     @Column(name = "user_ip", length = 45)
     public String userIp; // IP do usuário (IPv4 ou IPv6)
 
-    @Column(name = "user_agent", columnDefinition = "TEXT")
+    @Convert(converter = DictionaryConverter.UserAgent.class)
+    @Column(name = "user_agent_id", updatable = false)
     public String userAgent; // User agent do navegador/app Flutter
 
     // ══════════════════════════════════════════════════════════════
@@ -116,6 +125,9 @@ public class ContentEngagementModel extends PanacheEntityBase {
     // ══════════════════════════════════════════════════════════════
     // ⏱️ TIMESTAMPS DE ENGAJAMENTO
     // ══════════════════════════════════════════════════════════════
+    // Chave de particionamento (V1.0.28): UPDATE/DELETE do Hibernate incluem
+    // engaged_at no WHERE e tocam uma única partição
+    @PartitionKey
     @Column(name = "engaged_at", nullable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private LocalDateTime engagedAt; // Quando começou a interação (clicou no vídeo)
@@ -158,6 +170,30 @@ public class ContentEngagementModel extends PanacheEntityBase {
         updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * Aplica os mesmos defaults do {@link #onCreate()} para inserções em lote
+     * feitas fora do EntityManager (o @PrePersist não é disparado nesse caso).
+     */
+    void prepareForBulkInsert(LocalDateTime now) {
+        if (id == null) {
+            id = UUID.randomUUID();
+        }
+        createdAt = now;
+        updatedAt = now;
+
+        if (engagedAt == null) {
+            engagedAt = now;
+        }
+
+        if (engagementStatus == null) {
+            engagementStatus = EngagementStatus.ACTIVE;
+        }
+
+        if (repeatCount == null) {
+            repeatCount = 1;
+        }
+    }
+
     public LocalDateTime getEngagedAt() {
         return engagedAt;
     }
@@ -231,7 +267,8 @@ public class ContentEngagementModel extends PanacheEntityBase {
         return list("engagementStatus", status);
     }
 
+    // Filtra por engaged_at (chave de particionamento) para aproveitar a poda de partições
     public static List<ContentEngagementModel> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return list("createdAt >= ?1 and createdAt <= ?2", startDate, endDate);
+        return list("engagedAt >= ?1 and engagedAt <= ?2", startDate, endDate);
     }
 }
@@ -1,16 +1,24 @@
 package br.com.aguideptbr.features.engagement;
 
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
+import org.hibernate.Session;
 import org.jboss.logging.Logger;
 
-import br.com.aguideptbr.features.engagement.dto.UserTopContentsDTO;
+import br.com.aguideptbr.features.engagement.dto.UserEngagementSummaryDTO;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Parameters;
 import jakarta.enterprise.context.ApplicationScoped;
 
 /**
@@ -20,32 +28,114 @@ import jakarta.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class ContentEngagementRepository implements PanacheRepositoryBase<ContentEngagementModel, UUID> {
 
+    /**
+     * Columns written by {@link #insertBatch(List)}, in bind order.
+     */
+    private static final String INSERT_COLUMNS = """
+            id, user_id, content_id, engagement_type, engagement_status,
+            view_duration_seconds, completion_percentage, repeat_count,
+            device_type_id, platform_id, source_id, user_ip, user_agent_id,
+            metadata, comment_text, rating,
+            engaged_at, ended_at, created_at, updated_at""";
+
+    private static final int INSERT_COLUMN_COUNT = 20;
+
+    /**
+     * Rows per multi-row INSERT statement. PostgreSQL caps bind parameters at
+     * 32767 per statement, so 20 columns x 1000 rows stays below the limit.
+     */
+    private static final int INSERT_ROWS_PER_STATEMENT = 1000;
+
     private final Logger log;
+    private final EngagementDictionary dictionary;
 
-    public ContentEngagementRepository(Logger log) {
+    public ContentEngagementRepository(Logger log, EngagementDictionary dictionary) {
         this.log = log;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Finds an engagement by ID. The table is partitioned by engaged_at
+     * (V1.0.28) and a lookup by id alone probes every partition, so
+     * engaged_at is read first from content_engagement_locator (V1.0.40) and
+     * the scan is pruned to one partition at execution time.
+     *
+     * @param id The engagement ID
+     * @return The managed engagement, or null if it does not exist
+     */
+    @Override
+    public ContentEngagementModel findById(UUID id) {
+        String sql = """
+                SELECT e.*
+                FROM content_engagement_log e
+                WHERE e.id = :id
+                  AND e.engaged_at = (SELECT l.engaged_at FROM content_engagement_locator l WHERE l.id = :id)
+                """;
+
+        @SuppressWarnings("unchecked")
+        List<ContentEngagementModel> result = getEntityManager()
+                .createNativeQuery(sql, ContentEngagementModel.class)
+                .setParameter("id", id)
+                .getResultList();
+        return result.isEmpty() ? null : result.get(0);
     }
 
     /**
-     * Finds all engagements for a specific user.
+     * Finds one page of a user's engagements, newest first.
      *
      * @param userId The user ID
-     * @return List of engagements
+     * @param type   Optional engagement type filter
+     * @param status Optional engagement status filter
+     * @param after  Cursor of the last row of the previous page, or null
+     * @param limit  Page size
+     * @return Up to {@code limit + 1} engagements (the extra row signals more
+     *         pages)
      */
-    public List<ContentEngagementModel> findByUserId(UUID userId) {
-        log.infof("Finding engagements for user: %s", userId);
-        return list("userId = ?1 ORDER BY engagedAt DESC", userId);
+    public List<ContentEngagementModel> findPageByUser(UUID userId, EngagementType type, EngagementStatus status,
+            EngagementCursor after, int limit) {
+        return findPage("userId", userId, type, status, after, limit);
     }
 
     /**
-     * Finds all engagements for a specific content.
+     * Finds one page of a content's engagements, newest first.
      *
      * @param contentId The content ID
-     * @return List of engagements
+     * @param type      Optional engagement type filter
+     * @param status    Optional engagement status filter
+     * @param after     Cursor of the last row of the previous page, or null
+     * @param limit     Page size
+     * @return Up to {@code limit + 1} engagements (the extra row signals more
+     *         pages)
+     */
+    public List<ContentEngagementModel> findPageByContent(UUID contentId, EngagementType type,
+            EngagementStatus status, EngagementCursor after, int limit) {
+        return findPage("contentId", contentId, type, status, after, limit);
+    }
+
+    /**
+     * Keyset query on (engagedAt DESC, id DESC), served by the
+     * idx_engagement_*_page indexes (V1.0.29).
      */
-    public List<ContentEngagementModel> findByContentId(UUID contentId) {
-        log.infof("Finding engagements for content: %s", contentId);
-        return list("contentId = ?1 ORDER BY engagedAt DESC", contentId);
+    private List<ContentEngagementModel> findPage(String ownerField, UUID ownerId, EngagementType type,
+            EngagementStatus status, EngagementCursor after, int limit) {
+        StringBuilder query = new StringBuilder(ownerField).append(" = :owner");
+        Parameters params = Parameters.with("owner", ownerId);
+
+        if (type != null) {
+            query.append(" AND engagementType = :type");
+            params.and("type", type);
+        }
+        if (status != null) {
+            query.append(" AND engagementStatus = :status");
+            params.and("status", status);
+        }
+        if (after != null) {
+            query.append(" AND (engagedAt < :cursorAt OR (engagedAt = :cursorAt AND id < :cursorId))");
+            params.and("cursorAt", after.getEngagedAt()).and("cursorId", after.getId());
+        }
+        query.append(" ORDER BY engagedAt DESC, id DESC");
+
+        return find(query.toString(), params).range(0, limit).list();
     }
 
     /**
@@ -97,93 +187,36 @@ public class ContentEngagementRepository implements PanacheRepositoryBase<Conten
     }
 
     /**
-     * Gets top N contents that a user interacted with the most.
-     * Groups by contentId and counts total interactions.
+     * Aggregates a user's ACTIVE engagements in a single pass over the log:
+     * total count, completion sum/count and total view duration.
+     * Fallback for users without a user_engagement_summary row yet.
      *
      * @param userId The user ID
-     * @param limit  Maximum number of contents to return
-     * @return List of UserTopContentsDTO with aggregated data
+     * @return The aggregated totals
      */
-    public List<UserTopContentsDTO> findUserTopContents(UUID userId, int limit) {
-        log.infof("Finding top %d contents for user: %s", limit, userId);
-
+    public UserEngagementSummaryDTO aggregateUserStats(UUID userId) {
         String query = """
-                SELECT
-                    e.contentId as contentId,
-                    COUNT(e.id) as totalInteractions,
-                    SUM(CASE WHEN e.engagementType = 'VIEW' OR e.engagementType = 'COMPLETE' THEN 1 ELSE 0 END) as totalViews,
-                    SUM(CASE WHEN e.engagementType = 'LIKE' THEN 1 ELSE 0 END) as totalLikes,
-                    SUM(CASE WHEN e.engagementType = 'SHARE' THEN 1 ELSE 0 END) as totalShares,
-                    AVG(COALESCE(e.completionPercentage, 0)) as avgCompletion,
-                    SUM(COALESCE(e.viewDurationSeconds, 0)) as totalViewDuration
+                SELECT COUNT(e.id),
+                       COALESCE(SUM(e.completionPercentage), 0),
+                       COUNT(e.completionPercentage),
+                       COALESCE(SUM(e.viewDurationSeconds), 0)
                 FROM ContentEngagementModel e
                 WHERE e.userId = :userId
                   AND e.engagementStatus = :status
-                GROUP BY e.contentId
-                ORDER BY totalInteractions DESC
                 """;
 
-        @SuppressWarnings("unchecked")
-        List<Object[]> results = getEntityManager()
+        Object[] row = (Object[]) getEntityManager()
                 .createQuery(query)
                 .setParameter("userId", userId)
                 .setParameter("status", EngagementStatus.ACTIVE)
-                .setMaxResults(limit)
-                .getResultList();
-
-        return results.stream()
-                .map(row -> UserTopContentsDTO.builder()
-                        .contentId((UUID) row[0])
-                        .totalInteractions(((Number) row[1]).longValue())
-                        .totalViews(((Number) row[2]).longValue())
-                        .totalLikes(((Number) row[3]).longValue())
-                        .totalShares(((Number) row[4]).longValue())
-                        .avgCompletionPercentage(((Number) row[5]).intValue())
-                        .totalViewDurationSeconds(((Number) row[6]).intValue())
-                        .build())
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Counts total engagements for a user.
-     *
-     * @param userId The user ID
-     * @return Total count
-     */
-    public long countByUser(UUID userId) {
-        return count("userId = ?1 AND engagementStatus = ?2", userId, EngagementStatus.ACTIVE);
-    }
-
-    /**
-     * Counts engagements by type for a specific content.
-     *
-     * @param contentId The content ID
-     * @return Map of engagement type to count
-     */
-    public Map<EngagementType, Long> countByTypeForContent(UUID contentId) {
-        log.infof("Counting engagements by type for content: %s", contentId);
-
-        String query = """
-                SELECT e.engagementType, COUNT(e.id)
-                FROM ContentEngagementModel e
-                WHERE e.contentId = :contentId
-                  AND e.engagementStatus = :status
-                GROUP BY e.engagementType
-                """;
-
-        @SuppressWarnings("unchecked")
-        List<Object[]> results = getEntityManager()
-                .createQuery(query)
-                .setParameter("contentId", contentId)
-                .setParameter("status", EngagementStatus.ACTIVE)
-                .getResultList();
-
-        Map<EngagementType, Long> counts = new HashMap<>();
-        for (Object[] row : results) {
-            counts.put((EngagementType) row[0], ((Number) row[1]).longValue());
-        }
+                .getSingleResult();
 
-        return counts;
+        return new UserEngagementSummaryDTO(
+                userId,
+                ((Number) row[0]).longValue(),
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                ((Number) row[3]).longValue());
     }
 
     /**
@@ -214,50 +247,234 @@ public class ContentEngagementRepository implements PanacheRepositoryBase<Conten
     }
 
     /**
-     * Gets average completion percentage for a user across all content.
+     * Returns which of the given user IDs exist in app_user.
+     * Used by batch ingestion to validate foreign keys with a single query.
      *
-     * @param userId The user ID
-     * @return Average completion percentage
+     * @param userIds Candidate user IDs
+     * @return Subset of IDs that exist
      */
-    public Double getAverageCompletionPercentage(UUID userId) {
-        String query = """
-                SELECT AVG(e.completionPercentage)
-                FROM ContentEngagementModel e
-                WHERE e.userId = :userId
-                  AND e.completionPercentage IS NOT NULL
-                  AND e.engagementStatus = :status
-                """;
+    public Set<UUID> findExistingUserIds(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        List<UUID> found = getEntityManager()
+                .createQuery("SELECT u.id FROM UserModel u WHERE u.id IN :ids", UUID.class)
+                .setParameter("ids", userIds)
+                .getResultList();
+        return new HashSet<>(found);
+    }
 
-        Number result = (Number) getEntityManager()
-                .createQuery(query)
-                .setParameter("userId", userId)
-                .setParameter("status", EngagementStatus.ACTIVE)
-                .getSingleResult();
+    /**
+     * Returns which of the given content IDs exist in content_record.
+     * Used by batch ingestion to validate foreign keys with a single query.
+     *
+     * @param contentIds Candidate content IDs
+     * @return Subset of IDs that exist
+     */
+    public Set<UUID> findExistingContentIds(Collection<UUID> contentIds) {
+        if (contentIds.isEmpty()) {
+            return Set.of();
+        }
+        List<UUID> found = getEntityManager()
+                .createQuery("SELECT c.id FROM ContentRecordModel c WHERE c.id IN :ids", UUID.class)
+                .setParameter("ids", contentIds)
+                .getResultList();
+        return new HashSet<>(found);
+    }
 
-        return result != null ? result.doubleValue() : 0.0;
+    /**
+     * Counts ACTIVE VIEW engagements per (user, content) pair, including the
+     * views of archived partitions (user_content_engagement_archived). The IN
+     * filters select a superset of the wanted pairs; callers pick the pairs
+     * they need.
+     *
+     * @param userIds    User IDs
+     * @param contentIds Content IDs
+     * @return Rows of (userId, contentId, count)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> countViewsByUserAndContent(Collection<UUID> userIds, Collection<UUID> contentIds) {
+        if (userIds.isEmpty() || contentIds.isEmpty()) {
+            return List.of();
+        }
+        return getEntityManager()
+                .createNativeQuery("""
+                        SELECT user_id, content_id, CAST(SUM(views) AS BIGINT)
+                        FROM (
+                            SELECT user_id, content_id, COUNT(*) AS views
+                            FROM content_engagement_log
+                            WHERE user_id IN (:userIds)
+                              AND content_id IN (:contentIds)
+                              AND engagement_type = 'VIEW'
+                              AND engagement_status = 'ACTIVE'
+                            GROUP BY user_id, content_id
+                            UNION ALL
+                            SELECT user_id, content_id, view_count
+                            FROM user_content_engagement_archived
+                            WHERE user_id IN (:userIds)
+                              AND content_id IN (:contentIds)
+                              AND view_count > 0
+                        ) v
+                        GROUP BY user_id, content_id
+                        """)
+                .setParameter("userIds", userIds)
+                .setParameter("contentIds", contentIds)
+                .getResultList();
     }
 
     /**
-     * Gets total view duration for a user in seconds.
+     * Inserts engagements with multi-row INSERT statements, bypassing the
+     * persistence context (no dirty checking, no per-row round trip).
+     * Must run inside a transaction. Entities are not managed afterwards;
+     * IDs and audit timestamps are assigned here because @PrePersist does not run.
      *
-     * @param userId The user ID
-     * @return Total view duration in seconds
+     * @param engagements New engagements to insert
+     * @return Number of inserted rows
      */
-    public Long getTotalViewDuration(UUID userId) {
-        String query = """
-                SELECT SUM(e.viewDurationSeconds)
-                FROM ContentEngagementModel e
-                WHERE e.userId = :userId
-                  AND e.viewDurationSeconds IS NOT NULL
-                  AND e.engagementStatus = :status
+    public int insertBatch(List<ContentEngagementModel> engagements) {
+        if (engagements.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (ContentEngagementModel engagement : engagements) {
+            engagement.prepareForBulkInsert(now);
+        }
+        // Resolve dictionary misses in bulk before borrowing the connection
+        dictionary.warmAll(engagements);
+
+        int[] inserted = { 0 };
+        Session session = getEntityManager().unwrap(Session.class);
+        session.doWork(connection -> {
+            for (int from = 0; from < engagements.size(); from += INSERT_ROWS_PER_STATEMENT) {
+                List<ContentEngagementModel> chunk = engagements.subList(from,
+                        Math.min(from + INSERT_ROWS_PER_STATEMENT, engagements.size()));
+
+                try (PreparedStatement ps = connection.prepareStatement(buildInsertSql(chunk.size()))) {
+                    int i = 1;
+                    for (ContentEngagementModel e : chunk) {
+                        ps.setObject(i++, e.id);
+                        ps.setObject(i++, e.userId);
+                        ps.setObject(i++, e.contentId);
+                        ps.setString(i++, e.engagementType.name());
+                        ps.setString(i++, e.engagementStatus.name());
+                        ps.setObject(i++, e.viewDurationSeconds, Types.INTEGER);
+                        ps.setObject(i++, e.completionPercentage, Types.INTEGER);
+                        ps.setObject(i++, e.repeatCount, Types.INTEGER);
+                        ps.setObject(i++, dictionary.idOf(EngagementDictionary.Kind.DEVICE_TYPE, e.deviceType),
+                                Types.INTEGER);
+                        ps.setObject(i++, dictionary.idOf(EngagementDictionary.Kind.PLATFORM, e.platform),
+                                Types.INTEGER);
+                        ps.setObject(i++, dictionary.idOf(EngagementDictionary.Kind.SOURCE, e.source),
+                                Types.INTEGER);
+                        ps.setString(i++, e.userIp);
+                        ps.setObject(i++, dictionary.idOf(EngagementDictionary.Kind.USER_AGENT, e.userAgent),
+                                Types.INTEGER);
+                        ps.setString(i++, e.metadata);
+                        ps.setString(i++, e.commentText);
+                        ps.setObject(i++, e.rating, Types.INTEGER);
+                        ps.setTimestamp(i++, toTimestamp(e.getEngagedAt()));
+                        ps.setTimestamp(i++, toTimestamp(e.getEndedAt()));
+                        ps.setTimestamp(i++, toTimestamp(e.getCreatedAt()));
+                        ps.setTimestamp(i++, toTimestamp(e.getUpdatedAt()));
+                    }
+                    inserted[0] += ps.executeUpdate();
+                }
+            }
+        });
+
+        log.debugf("Bulk inserted %d engagements", inserted[0]);
+        return inserted[0];
+    }
+
+    /**
+     * Applies buffered playback progress with a JDBC batch of UPDATEs
+     * (one round trip). Null values keep the stored column value, and rows
+     * no longer ACTIVE (deleted since the progress was buffered) are left
+     * untouched. Each UPDATE filters on engaged_at, the partition key, taken
+     * from the buffer or else from content_engagement_locator (V1.0.40), so
+     * it touches a single partition. Must run inside a transaction.
+     *
+     * @param progress Latest progress per engagement ID
+     * @return IDs of the rows actually updated
+     */
+    public Set<UUID> updateProgressBatch(Map<UUID, EngagementProgressBuffer.PendingProgress> progress) {
+        if (progress.isEmpty()) {
+            return Set.of();
+        }
+
+        String sql = """
+                UPDATE content_engagement_log
+                SET view_duration_seconds = COALESCE(?, view_duration_seconds),
+                    completion_percentage = COALESCE(?, completion_percentage),
+                    updated_at = ?
+                WHERE id = ?
+                  AND engaged_at = COALESCE(?,
+                      (SELECT l.engaged_at FROM content_engagement_locator l WHERE l.id = ?))
+                  AND engagement_status = 'ACTIVE'
                 """;
 
-        Number result = (Number) getEntityManager()
-                .createQuery(query)
-                .setParameter("userId", userId)
-                .setParameter("status", EngagementStatus.ACTIVE)
-                .getSingleResult();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<UUID> ids = new ArrayList<>(progress.keySet());
+        Set<UUID> updated = new HashSet<>();
+        Session session = getEntityManager().unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (UUID id : ids) {
+                    EngagementProgressBuffer.PendingProgress value = progress.get(id);
+                    ps.setObject(1, value.getViewDurationSeconds(), Types.INTEGER);
+                    ps.setObject(2, value.getCompletionPercentage(), Types.INTEGER);
+                    ps.setTimestamp(3, now);
+                    ps.setObject(4, id);
+                    ps.setObject(5, value.getEngagedAt() != null ? Timestamp.valueOf(value.getEngagedAt()) : null,
+                            Types.TIMESTAMP);
+                    ps.setObject(6, id);
+                    ps.addBatch();
+                }
+                // Counts come back in statement order
+                int[] counts = ps.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        updated.add(ids.get(i));
+                    }
+                }
+            }
+        });
+
+        return updated;
+    }
+
+    /**
+     * Stores an ingested event that could not be written (V1.0.25).
+     *
+     * @param payload The original event as JSON
+     * @param error   Message of the last write failure
+     */
+    public void insertDeadLetter(String payload, String error) {
+        getEntityManager().createNativeQuery("""
+                INSERT INTO content_engagement_dead_letter (payload, error)
+                VALUES (CAST(:payload AS jsonb), :error)
+                """)
+                .setParameter("payload", payload)
+                .setParameter("error", error)
+                .executeUpdate();
+    }
+
+    private static String buildInsertSql(int rows) {
+        String placeholders = "(" + String.join(", ", Collections.nCopies(INSERT_COLUMN_COUNT, "?")) + ")";
+        StringBuilder sql = new StringBuilder("INSERT INTO content_engagement_log (")
+                .append(INSERT_COLUMNS)
+                .append(") VALUES ");
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            sql.append(placeholders);
+        }
+        return sql.toString();
+    }
 
-        return result != null ? result.longValue() : 0L;
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
     }
 }
@@ -8,12 +8,18 @@ import java.util.UUID;
 import org.jboss.logging.Logger;
 
 import br.com.aguideptbr.features.content.ContentRecordModel;
+import br.com.aguideptbr.features.engagement.dto.BatchEngagementRequestDTO;
+import br.com.aguideptbr.features.engagement.dto.ContentRetentionDTO;
 import br.com.aguideptbr.features.engagement.dto.CreateEngagementDTO;
+import br.com.aguideptbr.features.engagement.dto.EngagementPageDTO;
 import br.com.aguideptbr.features.engagement.dto.EngagementResponseDTO;
 import br.com.aguideptbr.features.engagement.dto.UpdateEngagementDTO;
+import br.com.aguideptbr.features.engagement.dto.UserEngagementSummaryDTO;
 import br.com.aguideptbr.features.engagement.dto.UserTopContentsDTO;
 import br.com.aguideptbr.features.user.UserModel;
+import br.com.aguideptbr.util.HyperLogLog;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
@@ -25,12 +31,68 @@ import jakarta.ws.rs.core.Response;
 @ApplicationScoped
 public class ContentEngagementService {
 
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final Logger log;
     private final ContentEngagementRepository engagementRepository;
-
-    public ContentEngagementService(Logger log, ContentEngagementRepository engagementRepository) {
+    private final EngagementIngestionQueue ingestionQueue;
+    private final EngagementProgressBuffer progressBuffer;
+    private final EngagementRollupRepository rollupRepository;
+    private final ContentViewerSketchService viewerSketchService;
+    private final ContentRetentionService retentionService;
+    private final EngagementDuplicateFilter duplicateFilter;
+    private final Event<ContentViewedEvent> contentViewed;
+    private final Event<EngagementCreatedEvent> engagementCreated;
+    private final Event<ContentRetentionChangedEvent> retentionChanged;
+    private final EngagementDictionary engagementDictionary;
+
+    public ContentEngagementService(Logger log, ContentEngagementRepository engagementRepository,
+            EngagementIngestionQueue ingestionQueue, EngagementProgressBuffer progressBuffer,
+            EngagementRollupRepository rollupRepository, ContentViewerSketchService viewerSketchService,
+            ContentRetentionService retentionService, EngagementDuplicateFilter duplicateFilter,
+            Event<ContentViewedEvent> contentViewed, Event<EngagementCreatedEvent> engagementCreated,
+            Event<ContentRetentionChangedEvent> retentionChanged, EngagementDictionary engagementDictionary) {
         this.log = log;
         this.engagementRepository = engagementRepository;
+        this.rollupRepository = rollupRepository;
+        this.ingestionQueue = ingestionQueue;
+        this.progressBuffer = progressBuffer;
+        this.viewerSketchService = viewerSketchService;
+        this.retentionService = retentionService;
+        this.duplicateFilter = duplicateFilter;
+        this.contentViewed = contentViewed;
+        this.engagementCreated = engagementCreated;
+        this.retentionChanged = retentionChanged;
+        this.engagementDictionary = engagementDictionary;
+    }
+
+    /**
+     * Checks whether an event repeats one accepted recently (same idempotency
+     * key, or same view within the de-duplication window) or one being
+     * created right now. If not, the event is held until
+     * {@link #releaseDuplicateHold(CreateEngagementDTO)}, which must be called
+     * once {@link #createEngagement(CreateEngagementDTO)} has returned or
+     * failed. The event is remembered only if the create commits.
+     *
+     * @param dto The engagement data
+     * @return true if the event should be dropped
+     */
+    public boolean checkAndHold(CreateEngagementDTO dto) {
+        boolean duplicate = duplicateFilter.checkAndHold(dto);
+        if (duplicate) {
+            log.infof("Dropping duplicate engagement: userId=%s, contentId=%s, type=%s",
+                    dto.getUserId(), dto.getContentId(), dto.getEngagementType());
+        }
+        return duplicate;
+    }
+
+    /**
+     * Releases an event held by {@link #checkAndHold(CreateEngagementDTO)}.
+     *
+     * @param dto The engagement data
+     */
+    public void releaseDuplicateHold(CreateEngagementDTO dto) {
+        duplicateFilter.release(dto);
     }
 
     /**
@@ -88,40 +150,111 @@ public class ContentEngagementService {
         }
 
         // Create engagement entity
-        ContentEngagementModel engagement = new ContentEngagementModel();
-        engagement.userId = dto.getUserId();
-        engagement.contentId = dto.getContentId();
-        engagement.engagementType = dto.getEngagementType();
-        engagement.engagementStatus = dto.getEngagementStatus() != null
-                ? dto.getEngagementStatus()
-                : EngagementStatus.ACTIVE;
-        engagement.viewDurationSeconds = dto.getViewDurationSeconds();
-        engagement.completionPercentage = dto.getCompletionPercentage();
-        engagement.repeatCount = dto.getRepeatCount() != null ? dto.getRepeatCount() : 1;
-        engagement.deviceType = dto.getDeviceType();
-        engagement.platform = dto.getPlatform();
-        engagement.source = dto.getSource();
-        engagement.userIp = dto.getUserIp();
-        engagement.userAgent = dto.getUserAgent();
-        engagement.metadata = dto.getMetadata();
-        engagement.commentText = dto.getCommentText();
-        engagement.rating = dto.getRating();
-
-        if (dto.getEngagedAt() != null) {
-            engagement.setEngagedAt(dto.getEngagedAt());
-        }
-        if (dto.getEndedAt() != null) {
-            engagement.setEndedAt(dto.getEndedAt());
-        }
+        ContentEngagementModel engagement = dto.toEntity();
+        engagementDictionary.warm(engagement);
 
         engagement.persist();
+        engagementCreated.fire(new EngagementCreatedEvent(engagement, dto));
+        ContentViewedEvent viewed = ContentViewedEvent.of(engagement);
+        if (viewed != null) {
+            contentViewed.fire(viewed);
+        }
         log.infof("Engagement created successfully: id=%s", engagement.id);
 
         return new EngagementResponseDTO(engagement);
     }
 
+    /**
+     * Accepts a batch of engagement events for asynchronous persistence.
+     * Reversible types (LIKE, DISLIKE, BOOKMARK) need a duplicate check and
+     * must keep using the synchronous endpoint. Duplicates (see
+     * {@link EngagementDuplicateFilter}), including repeats inside the batch,
+     * are dropped before queueing.
+     *
+     * @param dto The batch of events
+     * @return Outcome of the ingestion
+     */
+    public BatchIngestResult ingestBatch(BatchEngagementRequestDTO dto) {
+        List<CreateEngagementDTO> events = dto.getEvents();
+
+        for (CreateEngagementDTO event : events) {
+            if (event.getEngagementType().isReversible()) {
+                throw new WebApplicationException(
+                        Response.status(Response.Status.BAD_REQUEST)
+                                .entity(Map.of(
+                                        "error", "Unsupported engagement type",
+                                        "message", event.getEngagementType()
+                                                + " cannot be sent in a batch; use POST /api/v1/engagements",
+                                        "timestamp", LocalDateTime.now()))
+                                .build());
+            }
+        }
+
+        EngagementDuplicateFilter.BatchCheck check = duplicateFilter.checkAndRememberBatch(events,
+                ingestionQueue::offerAll);
+        List<CreateEngagementDTO> unique = check.unique();
+        int duplicates = events.size() - unique.size();
+        boolean queued = check.accepted();
+        log.debugf("Engagement batch %s: events=%d, duplicates=%d",
+                queued ? "queued" : "rejected", events.size(), duplicates);
+        return new BatchIngestResult(queued, queued ? unique.size() : 0, duplicates);
+    }
+
+    /**
+     * Outcome of {@link #ingestBatch}.
+     *
+     * @param queued     false if the ingestion queue was full
+     * @param accepted   Events queued for persistence
+     * @param duplicates Events dropped as duplicates
+     */
+    public record BatchIngestResult(boolean queued, int accepted, int duplicates) {
+    }
+
+    /**
+     * @return Number of engagement events waiting to be written
+     */
+    public int getIngestionQueueDepth() {
+        return ingestionQueue.depth();
+    }
+
+    /**
+     * Records a playback progress heartbeat without touching the database.
+     * The engagement's existence is checked only the first time it is seen;
+     * afterwards the latest values are kept in {@link EngagementProgressBuffer}
+     * and written on its next flush (or immediately on a 25/50/75/100%
+     * milestone).
+     *
+     * @param engagementId The engagement ID
+     * @param dto          Progress-only update (see
+     *                     {@link UpdateEngagementDTO#isProgressOnly()})
+     * @return true if the progress was written immediately
+     */
+    public boolean recordProgress(UUID engagementId, UpdateEngagementDTO dto) {
+        if (!progressBuffer.isTracked(engagementId)) {
+            ContentEngagementModel engagement = engagementRepository.findById(engagementId);
+            if (engagement == null) {
+                throw new WebApplicationException(
+                        Response.status(Response.Status.NOT_FOUND)
+                                .entity(Map.of(
+                                        "error", "Engagement not found",
+                                        "message", "Engagement with ID " + engagementId + " does not exist",
+                                        "timestamp", LocalDateTime.now()))
+                                .build());
+            }
+            UUID histogramContentId = engagement.engagementStatus == EngagementStatus.ACTIVE
+                    ? engagement.contentId
+                    : null;
+            progressBuffer.track(engagementId, histogramContentId, engagement.getEngagedAt(),
+                    engagement.viewDurationSeconds, engagement.completionPercentage);
+        }
+
+        return progressBuffer.record(engagementId, dto.getViewDurationSeconds(), dto.getCompletionPercentage());
+    }
+
     /**
      * Updates an existing engagement.
+     * Any playback progress still buffered for it is applied first, so a
+     * session end ({@code endedAt}) always persists the final progress.
      *
      * @param engagementId The engagement ID
      * @param dto          The update data
@@ -142,6 +275,21 @@ public class ContentEngagementService {
                             .build());
         }
 
+        boolean wasActive = engagement.engagementStatus == EngagementStatus.ACTIVE;
+        Integer previousDuration = engagement.viewDurationSeconds;
+        Integer previousCompletion = engagement.completionPercentage;
+
+        // Apply buffered progress first; explicit values in the DTO win
+        EngagementProgressBuffer.PendingProgress buffered = progressBuffer.take(engagementId);
+        if (buffered != null) {
+            if (buffered.getViewDurationSeconds() != null) {
+                engagement.viewDurationSeconds = buffered.getViewDurationSeconds();
+            }
+            if (buffered.getCompletionPercentage() != null) {
+                engagement.completionPercentage = buffered.getCompletionPercentage();
+            }
+        }
+
         // Update fields if provided
         if (dto.getEngagementStatus() != null) {
             engagement.engagementStatus = dto.getEngagementStatus();
@@ -169,6 +317,10 @@ public class ContentEngagementService {
         }
 
         engagement.persist();
+        boolean active = engagement.engagementStatus == EngagementStatus.ACTIVE;
+        retentionChanged.fire(new ContentRetentionChangedEvent(engagement.contentId,
+                wasActive ? previousDuration : null, wasActive ? previousCompletion : null,
+                active ? engagement.viewDurationSeconds : null, active ? engagement.completionPercentage : null));
         log.infof("Engagement updated successfully: id=%s", engagementId);
 
         return new EngagementResponseDTO(engagement);
@@ -194,6 +346,14 @@ public class ContentEngagementService {
                             .build());
         }
 
+        // Buffered heartbeats must not be flushed onto the removed row
+        progressBuffer.take(engagementId);
+
+        if (engagement.engagementStatus == EngagementStatus.ACTIVE) {
+            retentionChanged.fire(new ContentRetentionChangedEvent(engagement.contentId,
+                    engagement.viewDurationSeconds, engagement.completionPercentage, null, null));
+        }
+
         // Soft delete: mark as REMOVED instead of actual deletion
         engagement.engagementStatus = EngagementStatus.REMOVED;
         engagement.persist();
@@ -225,33 +385,61 @@ public class ContentEngagementService {
     }
 
     /**
-     * Gets all engagements for a user.
+     * Gets one page of a user's engagements, newest first.
      *
      * @param userId The user ID
-     * @return List of engagements
+     * @param type   Optional type filter
+     * @param status Optional status filter
+     * @param cursor Opaque cursor from the previous page, or null
+     * @param limit  Requested page size (clamped to 1..{@value #MAX_PAGE_SIZE})
+     * @return The page
      */
-    public List<EngagementResponseDTO> getUserEngagements(UUID userId) {
+    public EngagementPageDTO getUserEngagements(UUID userId, EngagementType type, EngagementStatus status,
+            String cursor, int limit) {
         log.infof("Getting engagements for user: %s", userId);
 
-        List<ContentEngagementModel> engagements = engagementRepository.findByUserId(userId);
-        return engagements.stream()
-                .map(EngagementResponseDTO::new)
-                .toList();
+        int pageSize = clampPageSize(limit);
+        List<ContentEngagementModel> rows = engagementRepository.findPageByUser(
+                userId, type, status, EngagementCursor.decode(cursor), pageSize);
+        return toPage(rows, pageSize);
     }
 
     /**
-     * Gets all engagements for a content.
+     * Gets one page of a content's engagements, newest first.
      *
      * @param contentId The content ID
-     * @return List of engagements
+     * @param type      Optional type filter
+     * @param status    Optional status filter
+     * @param cursor    Opaque cursor from the previous page, or null
+     * @param limit     Requested page size (clamped to 1..{@value #MAX_PAGE_SIZE})
+     * @return The page
      */
-    public List<EngagementResponseDTO> getContentEngagements(UUID contentId) {
+    public EngagementPageDTO getContentEngagements(UUID contentId, EngagementType type, EngagementStatus status,
+            String cursor, int limit) {
         log.infof("Getting engagements for content: %s", contentId);
 
-        List<ContentEngagementModel> engagements = engagementRepository.findByContentId(contentId);
-        return engagements.stream()
-                .map(EngagementResponseDTO::new)
-                .toList();
+        int pageSize = clampPageSize(limit);
+        List<ContentEngagementModel> rows = engagementRepository.findPageByContent(
+                contentId, type, status, EngagementCursor.decode(cursor), pageSize);
+        return toPage(rows, pageSize);
+    }
+
+    private static int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Builds a page from a query that fetched {@code pageSize + 1} rows.
+     */
+    private static EngagementPageDTO toPage(List<ContentEngagementModel> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<ContentEngagementModel> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? EngagementCursor.after(page.get(page.size() - 1)).encode() : null;
+
+        return new EngagementPageDTO(
+                page.stream().map(EngagementResponseDTO::new).toList(),
+                nextCursor,
+                pageSize);
     }
 
     /**
@@ -265,18 +453,8 @@ public class ContentEngagementService {
     public List<UserTopContentsDTO> getUserTopContents(UUID userId, int limit) {
         log.infof("Getting top %d contents for user: %s", limit, userId);
 
-        // Get aggregated data from repository
-        List<UserTopContentsDTO> topContents = engagementRepository.findUserTopContents(userId, limit);
-
-        // Enrich with content details
-        for (UserTopContentsDTO dto : topContents) {
-            ContentRecordModel content = ContentRecordModel.findById(dto.getContentId());
-            if (content != null) {
-                dto.setContentTitle(content.title);
-                dto.setContentUrl(content.videoUrl);
-                dto.setThumbnailUrl(content.videoThumbnailUrl);
-            }
-        }
+        // Aggregated data and content details come from a single query
+        List<UserTopContentsDTO> topContents = rollupRepository.findUserTopContents(userId, limit);
 
         log.infof("Found %d top contents for user: %s", topContents.size(), userId);
         return topContents;
@@ -284,13 +462,39 @@ public class ContentEngagementService {
 
     /**
      * Gets engagement statistics for a content (counts by type).
+     * Read from the daily rollup, so it lags the log by up to one
+     * {@link EngagementRollupJob} run.
      *
      * @param contentId The content ID
      * @return Map of engagement type to count
      */
     public Map<EngagementType, Long> getContentStats(UUID contentId) {
         log.infof("Getting stats for content: %s", contentId);
-        return engagementRepository.countByTypeForContent(contentId);
+        return rollupRepository.countByTypeForContent(contentId);
+    }
+
+    /**
+     * Estimates how many distinct users viewed (VIEW or COMPLETE) a content.
+     * Approximate, with a relative standard error of
+     * {@link HyperLogLog#STANDARD_ERROR}.
+     *
+     * @param contentId The content ID
+     * @return Estimated number of unique viewers
+     */
+    public long getUniqueViewers(UUID contentId) {
+        return viewerSketchService.estimateUniqueViewers(contentId);
+    }
+
+    /**
+     * Gets the retention distribution of a content (p25/p50/p90 of completion
+     * and view duration), read from the incrementally maintained histograms.
+     *
+     * @param contentId The content ID
+     * @return Retention percentiles
+     */
+    public ContentRetentionDTO getContentRetention(UUID contentId) {
+        log.infof("Getting retention for content: %s", contentId);
+        return retentionService.getRetention(contentId);
     }
 
     /**
@@ -302,17 +506,29 @@ public class ContentEngagementService {
     public Map<String, Object> getUserStats(UUID userId) {
         log.infof("Getting stats for user: %s", userId);
 
-        long totalEngagements = engagementRepository.countByUser(userId);
-        Double avgCompletion = engagementRepository.getAverageCompletionPercentage(userId);
-        Long totalViewDuration = engagementRepository.getTotalViewDuration(userId);
+        UserEngagementSummaryDTO summary = getUserEngagementSummary(userId);
+        long totalViewDuration = summary.getTotalViewDurationSeconds();
 
         return Map.of(
-                "totalEngagements", totalEngagements,
-                "averageCompletionPercentage", avgCompletion,
+                "totalEngagements", summary.getTotalEngagements(),
+                "averageCompletionPercentage", summary.getAverageCompletionPercentage(),
                 "totalViewDurationSeconds", totalViewDuration,
                 "totalViewDurationMinutes", totalViewDuration / 60);
     }
 
+    /**
+     * Gets the totals of a user's ACTIVE engagements.
+     * Reads the user_engagement_summary row; users not yet picked up by
+     * {@link EngagementRollupJob} fall back to a single aggregate query.
+     *
+     * @param userId The user ID
+     * @return The summary
+     */
+    public UserEngagementSummaryDTO getUserEngagementSummary(UUID userId) {
+        return rollupRepository.findUserSummary(userId)
+                .orElseGet(() -> engagementRepository.aggregateUserStats(userId));
+    }
+
     /**
      * Gets recent engagements for a user.
      *
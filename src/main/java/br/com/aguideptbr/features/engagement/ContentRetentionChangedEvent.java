@@ -0,0 +1,19 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.util.UUID;
+
+/**
+ * CDI event fired when an update, delete or progress flush moves an
+ * engagement's values in the retention histograms of its content. Applied by
+ * {@link ContentRetentionService} after the transaction commits. New
+ * engagements are counted from {@link EngagementCreatedEvent} instead.
+ *
+ * @param contentId     The content ID
+ * @param oldDuration   Duration to remove, or null
+ * @param oldCompletion Completion to remove, or null
+ * @param newDuration   Duration to add, or null
+ * @param newCompletion Completion to add, or null
+ */
+record ContentRetentionChangedEvent(UUID contentId, Integer oldDuration, Integer oldCompletion,
+        Integer newDuration, Integer newCompletion) {
+}
@@ -0,0 +1,103 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hibernate.Session;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Reads and updates content_retention_histogram (V1.0.31).
+ * Histograms use the {@link RetentionHistogram} layout.
+ */
+@ApplicationScoped
+public class ContentRetentionRepository {
+
+    static final String METRIC_COMPLETION = "COMPLETION";
+    static final String METRIC_VIEW_DURATION = "VIEW_DURATION";
+
+    private final EntityManager entityManager;
+
+    public ContentRetentionRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Adds histogram deltas with one batched upsert statement. Only non-zero
+     * buckets are written; rows are touched in (content, bucket) order so
+     * concurrent flushes from several nodes cannot deadlock.
+     *
+     * @param deltas Delta histogram per content, ordered by content ID
+     * @return Number of bucket rows written
+     */
+    public int addDeltas(List<Map.Entry<UUID, long[]>> deltas) {
+        String sql = """
+                INSERT INTO content_retention_histogram (content_id, metric, bucket, sample_count, updated_at)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (content_id, metric, bucket) DO UPDATE
+                SET sample_count = content_retention_histogram.sample_count + EXCLUDED.sample_count,
+                    updated_at = EXCLUDED.updated_at
+                """;
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] written = { 0 };
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (Map.Entry<UUID, long[]> entry : deltas) {
+                    long[] counts = entry.getValue();
+                    for (int i = 0; i < RetentionHistogram.SIZE; i++) {
+                        if (counts[i] == 0) {
+                            continue;
+                        }
+                        boolean completion = i < RetentionHistogram.DURATION_OFFSET;
+                        ps.setObject(1, entry.getKey());
+                        ps.setString(2, completion ? METRIC_COMPLETION : METRIC_VIEW_DURATION);
+                        ps.setShort(3, (short) (completion ? i : i - RetentionHistogram.DURATION_OFFSET));
+                        ps.setLong(4, counts[i]);
+                        ps.setTimestamp(5, now);
+                        ps.addBatch();
+                        written[0]++;
+                    }
+                }
+                if (written[0] > 0) {
+                    ps.executeBatch();
+                }
+            }
+        });
+
+        return written[0];
+    }
+
+    /**
+     * Reads the histograms of a content.
+     *
+     * @param contentId The content ID
+     * @return Histogram in the {@link RetentionHistogram} layout (all zero if
+     *         the content has no samples)
+     */
+    public long[] findHistogram(UUID contentId) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("""
+                SELECT metric, bucket, sample_count
+                FROM content_retention_histogram
+                WHERE content_id = :contentId
+                """)
+                .setParameter("contentId", contentId)
+                .getResultList();
+
+        long[] counts = new long[RetentionHistogram.SIZE];
+        for (Object[] row : rows) {
+            int bucket = ((Number) row[1]).intValue();
+            int index = METRIC_COMPLETION.equals(row[0]) ? bucket : RetentionHistogram.DURATION_OFFSET + bucket;
+            counts[index] = ((Number) row[2]).longValue();
+        }
+        return counts;
+    }
+}
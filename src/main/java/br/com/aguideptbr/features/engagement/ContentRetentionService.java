@@ -0,0 +1,165 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntUnaryOperator;
+
+import org.jboss.logging.Logger;
+
+import br.com.aguideptbr.features.engagement.dto.ContentRetentionDTO;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.transaction.Transactional;
+
+/**
+ * Maintains completion and view-duration histograms per content.
+ *
+ * Every change to an ACTIVE engagement's values is applied as +1/-1 to a
+ * per-content delta histogram ({@link RetentionHistogram}) in memory, once
+ * the transaction that made it commits ({@link EngagementCreatedEvent},
+ * {@link ContentRetentionChangedEvent}). A scheduled flush adds the deltas to
+ * content_retention_histogram, so the retention endpoint never scans
+ * content_engagement_log.
+ */
+@ApplicationScoped
+public class ContentRetentionService {
+
+    private static final double[] QUANTILES = { 0.25, 0.50, 0.90 };
+
+    private final Logger log;
+    private final ContentRetentionRepository retentionRepository;
+    private final Map<UUID, long[]> pendingDeltas = new ConcurrentHashMap<>();
+
+    public ContentRetentionService(Logger log, ContentRetentionRepository retentionRepository) {
+        this.log = log;
+        this.retentionRepository = retentionRepository;
+    }
+
+    /**
+     * Adds the values of a committed new engagement (ignored unless ACTIVE).
+     *
+     * @param event The engagement created
+     */
+    void onCreated(@Observes(during = TransactionPhase.AFTER_SUCCESS) EngagementCreatedEvent event) {
+        ContentEngagementModel engagement = event.engagement();
+        if (engagement.engagementStatus == EngagementStatus.ACTIVE) {
+            apply(engagement.contentId, engagement.viewDurationSeconds, engagement.completionPercentage, 1);
+        }
+    }
+
+    /**
+     * Moves committed values of an engagement: the old ones are removed and
+     * the new ones added.
+     *
+     * @param event The change
+     */
+    void onChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ContentRetentionChangedEvent event) {
+        if (event.contentId() == null) {
+            return;
+        }
+        pendingDeltas.compute(event.contentId(), (id, counts) -> {
+            long[] target = counts != null ? counts : new long[RetentionHistogram.SIZE];
+            RetentionHistogram.add(target, event.oldDuration(), event.oldCompletion(), -1);
+            RetentionHistogram.add(target, event.newDuration(), event.newCompletion(), 1);
+            return target;
+        });
+    }
+
+    /**
+     * Computes p25/p50/p90 of completion and view duration for a content,
+     * including deltas not yet flushed by this node.
+     *
+     * @param contentId The content ID
+     * @return Retention percentiles
+     */
+    public ContentRetentionDTO getRetention(UUID contentId) {
+        long[] counts = retentionRepository.findHistogram(contentId);
+        pendingDeltas.computeIfPresent(contentId, (id, pending) -> {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += pending[i];
+            }
+            return pending;
+        });
+
+        return new ContentRetentionDTO(contentId,
+                percentiles(counts, 0, RetentionHistogram.COMPLETION_BUCKETS, bucket -> bucket),
+                percentiles(counts, RetentionHistogram.DURATION_OFFSET, RetentionHistogram.SIZE,
+                        RetentionHistogram::durationUpperBound));
+    }
+
+    @Scheduled(every = "${engagement.retention-histogram.flush-interval:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Adds pending deltas to content_retention_histogram.
+     *
+     * @return Number of contents flushed
+     */
+    @Transactional
+    public int flush() {
+        List<Map.Entry<UUID, long[]>> drained = new ArrayList<>();
+        for (UUID contentId : new ArrayList<>(pendingDeltas.keySet())) {
+            long[] counts = pendingDeltas.remove(contentId);
+            if (counts != null) {
+                drained.add(Map.entry(contentId, counts));
+            }
+        }
+        if (drained.isEmpty()) {
+            return 0;
+        }
+
+        drained.sort(Map.Entry.comparingByKey());
+        try {
+            int rows = retentionRepository.addDeltas(drained);
+            log.debugf("Retention histograms flushed: contents=%d, buckets=%d", drained.size(), rows);
+        } catch (RuntimeException e) {
+            // Deltas are additive: fold them back for the next flush
+            drained.forEach(entry -> pendingDeltas.merge(entry.getKey(), entry.getValue(), (current, failed) -> {
+                for (int i = 0; i < current.length; i++) {
+                    current[i] += failed[i];
+                }
+                return current;
+            }));
+            throw e;
+        }
+        return drained.size();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.errorf(e, "Failed to flush retention histograms on shutdown");
+        }
+    }
+
+    private void apply(UUID contentId, Integer viewDurationSeconds, Integer completionPercentage, int delta) {
+        if (contentId == null || (viewDurationSeconds == null && completionPercentage == null)) {
+            return;
+        }
+        pendingDeltas.compute(contentId, (id, counts) -> {
+            long[] target = counts != null ? counts : new long[RetentionHistogram.SIZE];
+            RetentionHistogram.add(target, viewDurationSeconds, completionPercentage, delta);
+            return target;
+        });
+    }
+
+    private static ContentRetentionDTO.Percentiles percentiles(long[] counts, int from, int to,
+            IntUnaryOperator bucketValue) {
+        long samples = RetentionHistogram.total(counts, from, to);
+        Integer[] values = new Integer[QUANTILES.length];
+        for (int q = 0; q < QUANTILES.length; q++) {
+            int bucket = RetentionHistogram.percentileBucket(counts, from, to, QUANTILES[q]);
+            values[q] = bucket >= 0 ? bucketValue.applyAsInt(bucket) : null;
+        }
+        return new ContentRetentionDTO.Percentiles(samples, values[0], values[1], values[2]);
+    }
+}
@@ -0,0 +1,28 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * CDI event fired for every persisted VIEW engagement.
+ * Observers should use {@code TransactionPhase.AFTER_SUCCESS} so rolled back
+ * inserts are never projected.
+ *
+ * @param userId    The viewer
+ * @param contentId The content viewed
+ * @param viewedAt  When the view started (engagedAt)
+ */
+public record ContentViewedEvent(UUID userId, UUID contentId, LocalDateTime viewedAt) {
+
+    /**
+     * @param engagement A persisted engagement
+     * @return The event, or null if the engagement is not a user's VIEW
+     */
+    static ContentViewedEvent of(ContentEngagementModel engagement) {
+        if (engagement.engagementType != EngagementType.VIEW || engagement.userId == null
+                || engagement.contentId == null) {
+            return null;
+        }
+        return new ContentViewedEvent(engagement.userId, engagement.contentId, engagement.getEngagedAt());
+    }
+}
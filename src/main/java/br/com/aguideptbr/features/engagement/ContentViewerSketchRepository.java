@@ -0,0 +1,167 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import br.com.aguideptbr.util.HyperLogLog;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Persists HyperLogLog viewer sketches (V1.0.30).
+ *
+ * Merges are read-modify-write under a row lock: the row is created empty if
+ * missing, locked with SELECT ... FOR UPDATE, merged in memory and written
+ * back. Callers must run inside a transaction.
+ */
+@ApplicationScoped
+public class ContentViewerSketchRepository {
+
+    private static final byte[] EMPTY_SKETCH = new HyperLogLog().toBytes();
+
+    private final EntityManager entityManager;
+
+    public ContentViewerSketchRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Merges a sketch into the all-time sketch of a content.
+     *
+     * @param contentId The content ID
+     * @param sketch    Viewers to add
+     */
+    public void mergeTotal(UUID contentId, HyperLogLog sketch) {
+        entityManager.createNativeQuery("""
+                INSERT INTO content_viewer_sketch (content_id, sketch)
+                VALUES (:contentId, :sketch)
+                ON CONFLICT (content_id) DO NOTHING
+                """)
+                .setParameter("contentId", contentId)
+                .setParameter("sketch", EMPTY_SKETCH)
+                .executeUpdate();
+
+        byte[] stored = (byte[]) entityManager.createNativeQuery(
+                "SELECT sketch FROM content_viewer_sketch WHERE content_id = :contentId FOR UPDATE")
+                .setParameter("contentId", contentId)
+                .getSingleResult();
+
+        HyperLogLog merged = HyperLogLog.fromBytes(stored);
+        merged.merge(sketch);
+
+        entityManager.createNativeQuery("""
+                UPDATE content_viewer_sketch
+                SET sketch = :sketch, updated_at = CURRENT_TIMESTAMP
+                WHERE content_id = :contentId
+                """)
+                .setParameter("contentId", contentId)
+                .setParameter("sketch", merged.toBytes())
+                .executeUpdate();
+    }
+
+    /**
+     * Merges a sketch into the daily sketch of a content.
+     *
+     * @param contentId The content ID
+     * @param day       The day (engaged_at)
+     * @param sketch    Viewers to add
+     */
+    public void mergeDaily(UUID contentId, LocalDate day, HyperLogLog sketch) {
+        entityManager.createNativeQuery("""
+                INSERT INTO content_viewer_sketch_daily (content_id, day, sketch)
+                VALUES (:contentId, :day, :sketch)
+                ON CONFLICT (content_id, day) DO NOTHING
+                """)
+                .setParameter("contentId", contentId)
+                .setParameter("day", day)
+                .setParameter("sketch", EMPTY_SKETCH)
+                .executeUpdate();
+
+        byte[] stored = (byte[]) entityManager.createNativeQuery("""
+                SELECT sketch FROM content_viewer_sketch_daily
+                WHERE content_id = :contentId AND day = :day
+                FOR UPDATE
+                """)
+                .setParameter("contentId", contentId)
+                .setParameter("day", day)
+                .getSingleResult();
+
+        HyperLogLog merged = HyperLogLog.fromBytes(stored);
+        merged.merge(sketch);
+
+        entityManager.createNativeQuery("""
+                UPDATE content_viewer_sketch_daily
+                SET sketch = :sketch, updated_at = CURRENT_TIMESTAMP
+                WHERE content_id = :contentId AND day = :day
+                """)
+                .setParameter("contentId", contentId)
+                .setParameter("day", day)
+                .setParameter("sketch", merged.toBytes())
+                .executeUpdate();
+    }
+
+    /**
+     * Reads the all-time sketch of a content.
+     *
+     * @param contentId The content ID
+     * @return The sketch (empty if the content has no viewers yet)
+     */
+    public HyperLogLog findTotal(UUID contentId) {
+        @SuppressWarnings("unchecked")
+        List<byte[]> rows = entityManager.createNativeQuery(
+                "SELECT sketch FROM content_viewer_sketch WHERE content_id = :contentId")
+                .setParameter("contentId", contentId)
+                .getResultList();
+
+        return HyperLogLog.fromBytes(rows.isEmpty() ? null : rows.get(0));
+    }
+
+    /**
+     * Finds the next content IDs after a given one, in ID order. Used to split
+     * the backfill into ranges of content_id.
+     *
+     * @param after Exclusive lower bound
+     * @param limit Maximum number of IDs
+     * @return Content IDs in ascending order
+     */
+    public List<UUID> findContentIdsAfter(UUID after, int limit) {
+        return entityManager
+                .createQuery("SELECT c.id FROM ContentRecordModel c WHERE c.id > :after ORDER BY c.id", UUID.class)
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Streams (content_id, day, user_id) of the ACTIVE VIEW/COMPLETE
+     * engagements of a content_id range created up to {@code until}, ordered
+     * by content and day. Used to build sketches for the existing history.
+     *
+     * @param after Exclusive lower bound on content_id
+     * @param upTo  Inclusive upper bound on content_id
+     * @param until Inclusive upper bound on created_at
+     * @return Stream of rows; close it when done
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<Object[]> streamViewers(UUID after, UUID upTo, LocalDateTime until) {
+        return entityManager.createNativeQuery("""
+                SELECT content_id, CAST(engaged_at AS DATE) AS day, user_id
+                FROM content_engagement_log
+                WHERE engagement_type IN ('VIEW', 'COMPLETE')
+                  AND engagement_status = 'ACTIVE'
+                  AND user_id IS NOT NULL
+                  AND content_id > :after
+                  AND content_id <= :upTo
+                  AND created_at <= :until
+                ORDER BY content_id, day
+                """)
+                .setParameter("after", after)
+                .setParameter("upTo", upTo)
+                .setParameter("until", until)
+                .setHint("org.hibernate.fetchSize", 5000)
+                .getResultStream();
+    }
+}
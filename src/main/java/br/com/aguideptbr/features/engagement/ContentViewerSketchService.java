@@ -0,0 +1,256 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import br.com.aguideptbr.util.HyperLogLog;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.transaction.Transactional;
+
+/**
+ * Approximate unique-viewer counts per content using HyperLogLog sketches.
+ *
+ * VIEW and COMPLETE engagements are added to in-memory sketches (per content
+ * and per content/day) once their insert commits. A scheduled flush merges them into the persisted
+ * sketches, so counts from every node and day combine without double
+ * counting. Estimates have a relative standard error of
+ * {@link HyperLogLog#STANDARD_ERROR} (about 1.6%).
+ */
+@ApplicationScoped
+public class ContentViewerSketchService {
+
+    static final String BACKFILL_JOB_NAME = "viewer-sketch-backfill";
+
+    /**
+     * Smallest UUID: the backfill starts after it.
+     */
+    static final UUID FIRST_KEY = new UUID(0L, 0L);
+
+    private final Logger log;
+    private final ContentViewerSketchRepository sketchRepository;
+    private final EngagementRollupRepository rollupRepository;
+    private final int backfillChunkSize;
+
+    private final Map<UUID, HyperLogLog> pendingTotals = new ConcurrentHashMap<>();
+    private final Map<DailyKey, HyperLogLog> pendingDaily = new ConcurrentHashMap<>();
+
+    private volatile boolean backfillDone;
+
+    public ContentViewerSketchService(
+            Logger log,
+            ContentViewerSketchRepository sketchRepository,
+            EngagementRollupRepository rollupRepository,
+            @ConfigProperty(name = "engagement.viewers.backfill-chunk-size", defaultValue = "500") int backfillChunkSize) {
+        this.log = log;
+        this.sketchRepository = sketchRepository;
+        this.rollupRepository = rollupRepository;
+        this.backfillChunkSize = backfillChunkSize;
+    }
+
+    /**
+     * Records a committed new engagement if it counts as a view (ACTIVE
+     * VIEW/COMPLETE with a known user).
+     *
+     * @param event The engagement created
+     */
+    void onCreated(@Observes(during = TransactionPhase.AFTER_SUCCESS) EngagementCreatedEvent event) {
+        ContentEngagementModel engagement = event.engagement();
+        if (engagement.userId == null || engagement.contentId == null
+                || engagement.engagementStatus != EngagementStatus.ACTIVE
+                || (engagement.engagementType != EngagementType.VIEW
+                        && engagement.engagementType != EngagementType.COMPLETE)) {
+            return;
+        }
+
+        LocalDate day = engagement.getEngagedAt() != null
+                ? engagement.getEngagedAt().toLocalDate()
+                : LocalDate.now();
+
+        pendingTotals.compute(engagement.contentId, (id, sketch) -> add(sketch, engagement.userId));
+        pendingDaily.compute(new DailyKey(engagement.contentId, day), (key, sketch) -> add(sketch, engagement.userId));
+    }
+
+    /**
+     * Estimates the number of distinct users who viewed a content, including
+     * views not yet flushed by this node.
+     *
+     * @param contentId The content ID
+     * @return Estimated distinct viewers
+     */
+    public long estimateUniqueViewers(UUID contentId) {
+        HyperLogLog sketch = sketchRepository.findTotal(contentId);
+        pendingTotals.computeIfPresent(contentId, (id, pending) -> {
+            sketch.merge(pending);
+            return pending;
+        });
+        return sketch.estimate();
+    }
+
+    /**
+     * Merges pending sketches into the database.
+     */
+    @Scheduled(every = "${engagement.viewers.flush-interval:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    public void flush() {
+        List<Map.Entry<UUID, HyperLogLog>> totals = drain(pendingTotals);
+        List<Map.Entry<DailyKey, HyperLogLog>> daily = drain(pendingDaily);
+        if (totals.isEmpty() && daily.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Fixed lock order avoids deadlocks between nodes
+            totals.sort(Map.Entry.comparingByKey());
+            daily.sort(Map.Entry.comparingByKey());
+            totals.forEach(entry -> sketchRepository.mergeTotal(entry.getKey(), entry.getValue()));
+            daily.forEach(entry -> sketchRepository.mergeDaily(
+                    entry.getKey().contentId(), entry.getKey().day(), entry.getValue()));
+        } catch (RuntimeException e) {
+            // Keep the views for the next flush; merging is idempotent
+            totals.forEach(entry -> pendingTotals.merge(entry.getKey(), entry.getValue(), ContentViewerSketchService::union));
+            daily.forEach(entry -> pendingDaily.merge(entry.getKey(), entry.getValue(), ContentViewerSketchService::union));
+            throw e;
+        }
+
+        log.debugf("Viewer sketches flushed: contents=%d, contentDays=%d", totals.size(), daily.size());
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.errorf(e, "Failed to flush viewer sketches on shutdown");
+        }
+    }
+
+    /**
+     * Builds sketches for the log rows that existed before live recording
+     * (V1.0.30), one chunk of contents per transaction, until done. Progress
+     * is kept in the 'viewer-sketch-backfill' watermark row, so a restart
+     * resumes after the last finished chunk.
+     */
+    @Scheduled(every = "${engagement.viewers.backfill-interval:1m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void backfill() {
+        while (!backfillDone && backfillChunk()) {
+            // next chunk
+        }
+    }
+
+    /**
+     * Builds sketches for the next {@code engagement.viewers.backfill-chunk-size}
+     * contents. Rows are streamed ordered by content and day so only one
+     * content is held in memory at a time. Re-running a chunk after a crash
+     * is harmless: merging sketches is idempotent.
+     *
+     * @return true if more contents remain
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    boolean backfillChunk() {
+        EngagementRollupRepository.ChunkedJobProgress progress = rollupRepository.lockChunkedJob(BACKFILL_JOB_NAME);
+        if (progress == null) {
+            LocalDateTime until = LocalDateTime.now();
+            log.infof("Building viewer sketches for existing engagements up to %s", until);
+            rollupRepository.startChunkedJob(BACKFILL_JOB_NAME, until, FIRST_KEY);
+            progress = rollupRepository.lockChunkedJob(BACKFILL_JOB_NAME);
+        }
+        if (progress.resumeAfter() == null) {
+            backfillDone = true;
+            return false;
+        }
+
+        List<UUID> contentIds = sketchRepository.findContentIdsAfter(progress.resumeAfter(), backfillChunkSize);
+        if (contentIds.isEmpty()) {
+            rollupRepository.saveChunkedJobProgress(BACKFILL_JOB_NAME, null);
+            backfillDone = true;
+            log.infof("Viewer sketches built for existing engagements up to %s", progress.watermark());
+            return false;
+        }
+        UUID upTo = contentIds.get(contentIds.size() - 1);
+
+        UUID currentContent = null;
+        LocalDate currentDay = null;
+        HyperLogLog total = new HyperLogLog();
+        HyperLogLog day = new HyperLogLog();
+
+        try (Stream<Object[]> rows = sketchRepository.streamViewers(progress.resumeAfter(), upTo,
+                progress.watermark())) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                UUID contentId = (UUID) row[0];
+                LocalDate rowDay = row[1] instanceof Date date ? date.toLocalDate() : (LocalDate) row[1];
+
+                if (!contentId.equals(currentContent) || !rowDay.equals(currentDay)) {
+                    if (currentContent != null) {
+                        sketchRepository.mergeDaily(currentContent, currentDay, day);
+                        day = new HyperLogLog();
+                    }
+                    if (currentContent != null && !contentId.equals(currentContent)) {
+                        sketchRepository.mergeTotal(currentContent, total);
+                        total = new HyperLogLog();
+                    }
+                    currentContent = contentId;
+                    currentDay = rowDay;
+                }
+
+                UUID userId = (UUID) row[2];
+                total.add(userId);
+                day.add(userId);
+            }
+        }
+
+        if (currentContent != null) {
+            sketchRepository.mergeDaily(currentContent, currentDay, day);
+            sketchRepository.mergeTotal(currentContent, total);
+        }
+
+        rollupRepository.saveChunkedJobProgress(BACKFILL_JOB_NAME, upTo);
+        log.debugf("Viewer sketches built for contents up to %s", upTo);
+        return true;
+    }
+
+    private static HyperLogLog add(HyperLogLog sketch, UUID userId) {
+        HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+        target.add(userId);
+        return target;
+    }
+
+    private static HyperLogLog union(HyperLogLog a, HyperLogLog b) {
+        a.merge(b);
+        return a;
+    }
+
+    private static <K> List<Map.Entry<K, HyperLogLog>> drain(Map<K, HyperLogLog> pending) {
+        List<Map.Entry<K, HyperLogLog>> drained = new ArrayList<>();
+        for (K key : new ArrayList<>(pending.keySet())) {
+            HyperLogLog sketch = pending.remove(key);
+            if (sketch != null) {
+                drained.add(Map.entry(key, sketch));
+            }
+        }
+        return drained;
+    }
+
+    record DailyKey(UUID contentId, LocalDate day) implements Comparable<DailyKey> {
+        @Override
+        public int compareTo(DailyKey other) {
+            int byContent = contentId.compareTo(other.contentId);
+            return byContent != 0 ? byContent : day.compareTo(other.day);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.aguideptbr.features.engagement;
+
+import io.quarkus.arc.Arc;
+import jakarta.persistence.AttributeConverter;
+
+/**
+ * Maps a String entity field to an engagement_dictionary id column.
+ * One subclass per {@link EngagementDictionary.Kind}, because JPA converters
+ * cannot be parameterized. Writes only read the dictionary cache, so the
+ * values of a new entity must be warmed before it is persisted; reads load
+ * ids missing from the cache (see {@link EngagementDictionary#valueOf}).
+ */
+public abstract class DictionaryConverter implements AttributeConverter<String, Integer> {
+
+    private final EngagementDictionary.Kind kind;
+
+    protected DictionaryConverter(EngagementDictionary.Kind kind) {
+        this.kind = kind;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String attribute) {
+        return dictionary().idOf(kind, attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer dbData) {
+        return dictionary().valueOf(dbData);
+    }
+
+    // Hibernate instantiates converters itself, so the bean is looked up
+    EngagementDictionary dictionary() {
+        return Arc.container().instance(EngagementDictionary.class).get();
+    }
+
+    public static class UserAgent extends DictionaryConverter {
+        public UserAgent() {
+            super(EngagementDictionary.Kind.USER_AGENT);
+        }
+    }
+
+    public static class Platform extends DictionaryConverter {
+        public Platform() {
+            super(EngagementDictionary.Kind.PLATFORM);
+        }
+    }
+
+    public static class DeviceType extends DictionaryConverter {
+        public DeviceType() {
+            super(EngagementDictionary.Kind.DEVICE_TYPE);
+        }
+    }
+
+    public static class Source extends DictionaryConverter {
+        public Source() {
+            super(EngagementDictionary.Kind.SOURCE);
+        }
+    }
+}
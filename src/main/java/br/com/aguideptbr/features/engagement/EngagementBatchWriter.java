@@ -0,0 +1,140 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.aguideptbr.features.engagement.dto.CreateEngagementDTO;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.transaction.Transactional;
+
+/**
+ * Writes a drained batch of engagement events to content_engagement_log.
+ * Foreign keys are validated with one IN query per referenced table and the
+ * rows are written with multi-row INSERTs, all in a single transaction.
+ * Also writes coalesced playback progress from {@link EngagementProgressBuffer}
+ * and dead-letters events that {@link EngagementIngestionQueue} gave up on.
+ */
+@ApplicationScoped
+public class EngagementBatchWriter {
+
+    private final Logger log;
+    private final ContentEngagementRepository engagementRepository;
+    private final Event<ContentViewedEvent> contentViewed;
+    private final Event<EngagementCreatedEvent> engagementCreated;
+    private final Event<ContentRetentionChangedEvent> retentionChanged;
+    private final ObjectMapper objectMapper;
+
+    public EngagementBatchWriter(Logger log, ContentEngagementRepository engagementRepository,
+            Event<ContentViewedEvent> contentViewed, Event<EngagementCreatedEvent> engagementCreated,
+            Event<ContentRetentionChangedEvent> retentionChanged, ObjectMapper objectMapper) {
+        this.log = log;
+        this.engagementRepository = engagementRepository;
+        this.contentViewed = contentViewed;
+        this.engagementCreated = engagementCreated;
+        this.retentionChanged = retentionChanged;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Persists a batch of events. Events referencing unknown users or contents
+     * are dropped (and logged) instead of failing the whole batch.
+     *
+     * @param events The events to persist
+     * @return Number of rows inserted
+     */
+    @Transactional
+    public int write(List<CreateEngagementDTO> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Set<UUID> userIds = new HashSet<>();
+        Set<UUID> contentIds = new HashSet<>();
+        for (CreateEngagementDTO event : events) {
+            userIds.add(event.getUserId());
+            contentIds.add(event.getContentId());
+        }
+
+        Set<UUID> existingUsers = engagementRepository.findExistingUserIds(userIds);
+        Set<UUID> existingContents = engagementRepository.findExistingContentIds(contentIds);
+
+        List<ContentEngagementModel> rows = new ArrayList<>(events.size());
+        List<EngagementCreatedEvent> created = new ArrayList<>(events.size());
+        int dropped = 0;
+        for (CreateEngagementDTO event : events) {
+            if (existingUsers.contains(event.getUserId()) && existingContents.contains(event.getContentId())) {
+                ContentEngagementModel row = event.toEntity();
+                rows.add(row);
+                created.add(new EngagementCreatedEvent(row, event));
+            } else {
+                dropped++;
+            }
+        }
+
+        if (dropped > 0) {
+            log.warnf("Dropped %d engagement events referencing unknown users or contents", dropped);
+        }
+
+        int inserted = engagementRepository.insertBatch(rows);
+        created.forEach(engagementCreated::fire);
+        for (ContentEngagementModel row : rows) {
+            ContentViewedEvent event = ContentViewedEvent.of(row);
+            if (event != null) {
+                contentViewed.fire(event);
+            }
+        }
+        log.debugf("Engagement batch written: inserted=%d, dropped=%d", inserted, dropped);
+        return inserted;
+    }
+
+    /**
+     * Writes coalesced playback progress with one batched UPDATE statement.
+     * Retention histograms are moved (after commit) only for the rows actually
+     * updated, so progress of an engagement removed meanwhile is not counted.
+     *
+     * @param progress Latest progress per engagement ID
+     * @return Number of rows updated
+     */
+    @Transactional
+    public int writeProgress(Map<UUID, EngagementProgressBuffer.PendingProgress> progress) {
+        Set<UUID> updated = engagementRepository.updateProgressBatch(progress);
+        progress.forEach((engagementId, value) -> {
+            if (updated.contains(engagementId)) {
+                retentionChanged.fire(new ContentRetentionChangedEvent(value.getContentId(),
+                        value.getPersistedDuration(), value.getPersistedCompletion(),
+                        value.getViewDurationSeconds(), value.getCompletionPercentage()));
+            }
+        });
+        log.debugf("Playback progress flushed: engagements=%d, updated=%d", progress.size(), updated.size());
+        return updated.size();
+    }
+
+    /**
+     * Stores an event that could not be written in content_engagement_dead_letter.
+     *
+     * @param event The event that failed
+     * @param error The last write failure
+     */
+    @Transactional
+    public void deadLetter(CreateEngagementDTO event, RuntimeException error) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize engagement event", e);
+        }
+        engagementRepository.insertDeadLetter(payload, String.valueOf(error.getMessage()));
+        log.errorf("Engagement event dead-lettered: user=%s, content=%s, type=%s",
+                event.getUserId(), event.getContentId(), event.getEngagementType());
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.aguideptbr.features.engagement;
+
+import br.com.aguideptbr.features.engagement.dto.CreateEngagementDTO;
+
+/**
+ * CDI event fired for every engagement inserted into content_engagement_log,
+ * by the synchronous endpoint and by {@link EngagementBatchWriter}.
+ * In-memory state derived from new engagements must be updated from
+ * {@code TransactionPhase.AFTER_SUCCESS} observers, so a rolled back insert
+ * leaves no trace.
+ *
+ * @param engagement The persisted engagement
+ * @param request    The event it was created from
+ */
+record EngagementCreatedEvent(ContentEngagementModel engagement, CreateEngagementDTO request) {
+}
@@ -0,0 +1,81 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Position in an engagement history ordered by (engaged_at DESC, id DESC).
+ *
+ * Clients receive it as an opaque Base64URL string ({@code nextCursor}) and
+ * send it back unchanged to get the next page.
+ */
+public final class EngagementCursor {
+
+    private final LocalDateTime engagedAt;
+    private final UUID id;
+
+    public EngagementCursor(LocalDateTime engagedAt, UUID id) {
+        this.engagedAt = engagedAt;
+        this.id = id;
+    }
+
+    /**
+     * Builds the cursor pointing after the given engagement.
+     *
+     * @param engagement Last engagement of the current page
+     * @return The cursor
+     */
+    public static EngagementCursor after(ContentEngagementModel engagement) {
+        return new EngagementCursor(engagement.getEngagedAt(), engagement.id);
+    }
+
+    /**
+     * @return Opaque representation sent to clients
+     */
+    public String encode() {
+        String raw = engagedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a cursor received from a client.
+     *
+     * @param value The opaque cursor, or null/blank for the first page
+     * @return The cursor, or null for the first page
+     * @throws WebApplicationException 400 if the cursor is malformed
+     */
+    public static EngagementCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new EngagementCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new WebApplicationException(
+                    Response.status(Response.Status.BAD_REQUEST)
+                            .entity(Map.of(
+                                    "error", "Invalid cursor",
+                                    "message", "The cursor parameter is malformed",
+                                    "timestamp", LocalDateTime.now()))
+                            .build());
+        }
+    }
+
+    public LocalDateTime getEngagedAt() {
+        return engagedAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+}
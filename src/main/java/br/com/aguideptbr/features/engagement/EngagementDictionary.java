@@ -0,0 +1,190 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+/**
+ * Bidirectional in-memory cache of engagement_dictionary (V1.0.32).
+ *
+ * Client strings that repeat across millions of engagement rows (user agent,
+ * platform, device type, source) are stored as small integer ids. Entities
+ * keep String fields and convert through {@link DictionaryConverter}; the bulk
+ * insert path resolves ids directly.
+ *
+ * The whole dictionary is loaded at startup and new entries (created by
+ * other nodes) are picked up periodically. {@link #idOf} only reads the
+ * cache, so converters never open a connection during a flush. A row
+ * written by another node since the last refresh can carry an id that is
+ * not cached yet: {@link #valueOf} then loads that one entry (in its own
+ * transaction) instead of hydrating the field as null. Writers call
+ * {@link #warmAll} first, which resolves all misses with one statement in a
+ * separate transaction, so an id handed out is always committed even if the
+ * caller's transaction rolls back. Entries are immutable, so the cache never
+ * needs invalidation.
+ */
+@ApplicationScoped
+public class EngagementDictionary {
+
+    /**
+     * Column family a value belongs to.
+     */
+    public enum Kind {
+        USER_AGENT,
+        PLATFORM,
+        DEVICE_TYPE,
+        SOURCE
+    }
+
+    private final Logger log;
+    private final EngagementDictionaryRepository dictionaryRepository;
+    private final Map<Kind, Map<String, Integer>> idsByValue = new EnumMap<>(Kind.class);
+    private final Map<Integer, String> valuesById = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private int lastLoadedId;
+
+    public EngagementDictionary(Logger log, EngagementDictionaryRepository dictionaryRepository) {
+        this.log = log;
+        this.dictionaryRepository = dictionaryRepository;
+        for (Kind kind : Kind.values()) {
+            idsByValue.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        try {
+            refresh();
+            log.infof("Engagement dictionary loaded: entries=%d", size());
+        } catch (RuntimeException e) {
+            // Não impede a subida: o refresh periódico tenta de novo
+            log.errorf(e, "Failed to load engagement dictionary at startup");
+        }
+    }
+
+    /**
+     * Loads the entries created since the last load (by any node).
+     */
+    @Scheduled(every = "${engagement.dictionary.refresh-interval:30s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    synchronized void refresh() {
+        List<EngagementDictionaryRepository.Entry> entries = dictionaryRepository.findAfter(lastLoadedId);
+        for (EngagementDictionaryRepository.Entry entry : entries) {
+            cache(entry.kind(), entry.value(), entry.id());
+            lastLoadedId = Math.max(lastLoadedId, entry.id());
+        }
+    }
+
+    /**
+     * Cache-only lookup. Values of an entity being written must be resolved
+     * with {@link #warmAll} first.
+     *
+     * @param kind  Dictionary kind
+     * @param value The value (may be null)
+     * @return Its id, or null for a null value
+     * @throws IllegalStateException if the value was not resolved
+     */
+    public Integer idOf(Kind kind, String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer id = idsByValue.get(kind).get(value);
+        if (id == null) {
+            throw new IllegalStateException("Engagement dictionary value not resolved: kind=" + kind);
+        }
+        return id;
+    }
+
+    /**
+     * Looks an id up in the cache, loading the entry on a miss (an id
+     * created by another node after the last refresh).
+     *
+     * @param id Dictionary id (may be null)
+     * @return The value, or null for a null id
+     * @throws IllegalStateException if no entry has this id
+     */
+    public String valueOf(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        String value = valuesById.get(id);
+        if (value != null) {
+            return value;
+        }
+
+        EngagementDictionaryRepository.Entry entry = dictionaryRepository.findEntry(id);
+        if (entry == null) {
+            throw new IllegalStateException("Engagement dictionary id not found: id=" + id);
+        }
+        cache(entry.kind(), entry.value(), entry.id());
+        log.debugf("Engagement dictionary id loaded on read: id=%d", id);
+        return entry.value();
+    }
+
+    /**
+     * Resolves the ids of an engagement's strings ahead of a flush, so the
+     * converters only hit the cache.
+     *
+     * @param engagement The engagement
+     */
+    public void warm(ContentEngagementModel engagement) {
+        warmAll(List.of(engagement));
+    }
+
+    /**
+     * Resolves the ids of the engagements' strings that are not cached yet,
+     * with one statement per kind that has misses.
+     *
+     * @param engagements The engagements
+     */
+    public void warmAll(Collection<ContentEngagementModel> engagements) {
+        Map<Kind, Set<String>> misses = new EnumMap<>(Kind.class);
+        for (ContentEngagementModel engagement : engagements) {
+            addMiss(misses, Kind.USER_AGENT, engagement.userAgent);
+            addMiss(misses, Kind.PLATFORM, engagement.platform);
+            addMiss(misses, Kind.DEVICE_TYPE, engagement.deviceType);
+            addMiss(misses, Kind.SOURCE, engagement.source);
+        }
+
+        misses.forEach((kind, values) -> {
+            Map<String, Integer> ids = new HashMap<>(dictionaryRepository.upsertAll(kind, values));
+            if (ids.size() < values.size()) {
+                // Inseridos por outra transação durante o primeiro comando
+                Set<String> missing = new HashSet<>(values);
+                missing.removeAll(ids.keySet());
+                ids.putAll(dictionaryRepository.upsertAll(kind, missing));
+            }
+            ids.forEach((value, id) -> cache(kind, value, id));
+            log.debugf("New engagement dictionary entries: kind=%s, values=%d", kind, values.size());
+        });
+    }
+
+    /**
+     * @return Number of cached ids
+     */
+    public int size() {
+        return valuesById.size();
+    }
+
+    private void addMiss(Map<Kind, Set<String>> misses, Kind kind, String value) {
+        if (value != null && !idsByValue.get(kind).containsKey(value)) {
+            misses.computeIfAbsent(kind, k -> new HashSet<>()).add(value);
+        }
+    }
+
+    private void cache(Kind kind, String value, int id) {
+        idsByValue.get(kind).putIfAbsent(value, id);
+        valuesById.putIfAbsent(id, value);
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Session;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+/**
+ * Reads and inserts engagement_dictionary entries (V1.0.32).
+ *
+ * Every method runs in its own transaction: an id handed out is committed
+ * even if the caller's transaction rolls back.
+ */
+@ApplicationScoped
+public class EngagementDictionaryRepository {
+
+    /**
+     * A dictionary row.
+     *
+     * @param id    Dictionary id
+     * @param kind  Dictionary kind
+     * @param value The value
+     */
+    public record Entry(int id, EngagementDictionary.Kind kind, String value) {
+    }
+
+    private final EntityManager entityManager;
+
+    public EngagementDictionaryRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Returns the ids of the given values, inserting the missing ones, with a
+     * single statement. A value inserted concurrently by another transaction
+     * may be missing from the result; call again for those.
+     *
+     * @param kind   Dictionary kind
+     * @param values The values
+     * @return Ids by value
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Map<String, Integer> upsertAll(EngagementDictionary.Kind kind, Collection<String> values) {
+        Map<String, Integer> ids = new HashMap<>();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("""
+                    WITH input AS (
+                        SELECT DISTINCT unnest(?::text[]) AS value
+                    ),
+                    inserted AS (
+                        INSERT INTO engagement_dictionary (kind, value)
+                        SELECT ?, value FROM input
+                        ON CONFLICT (kind, md5(value)) DO NOTHING
+                        RETURNING id, value
+                    )
+                    SELECT id, value FROM inserted
+                    UNION ALL
+                    SELECT d.id, d.value
+                    FROM engagement_dictionary d
+                    JOIN input i ON md5(d.value) = md5(i.value)
+                    WHERE d.kind = ?
+                    """)) {
+                Array array = connection.createArrayOf("text", values.toArray());
+                ps.setArray(1, array);
+                ps.setString(2, kind.name());
+                ps.setString(3, kind.name());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ids.put(rs.getString(2), rs.getInt(1));
+                    }
+                }
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * @param afterId Exclusive lower bound on id
+     * @return Entries with a greater id, in id order
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public List<Entry> findAfter(int afterId) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager
+                .createNativeQuery("SELECT id, kind, value FROM engagement_dictionary WHERE id > :afterId ORDER BY id")
+                .setParameter("afterId", afterId)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new Entry(((Number) row[0]).intValue(),
+                        EngagementDictionary.Kind.valueOf((String) row[1]),
+                        (String) row[2]))
+                .toList();
+    }
+
+    /**
+     * @param id Dictionary id
+     * @return The entry, or null if no entry has this id
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Entry findEntry(int id) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager
+                .createNativeQuery("SELECT id, kind, value FROM engagement_dictionary WHERE id = :id")
+                .setParameter("id", id)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new Entry(((Number) row[0]).intValue(),
+                        EngagementDictionary.Kind.valueOf((String) row[1]),
+                        (String) row[2]))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,181 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import br.com.aguideptbr.features.engagement.dto.CreateEngagementDTO;
+import br.com.aguideptbr.util.RotatingBloomFilter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+/**
+ * Drops duplicate engagement events (mobile retries, double-fired player
+ * events) before they reach the database.
+ *
+ * An event's key is its client idempotency key when present; otherwise, for
+ * view-related types only, (userId, contentId, type, window bucket of
+ * engagedAt). Keys are remembered in a {@link RotatingBloomFilter}, so memory
+ * is fixed and a small, configurable fraction of legitimate events
+ * (false-positive rate) is dropped too. The filter is per node: a retry routed
+ * to another node is not detected.
+ *
+ * A single event is remembered only after its transaction commits (see
+ * {@link EngagementCreatedEvent}); until then its key is held as in flight,
+ * so a concurrent copy is still dropped but a retry after a failed create is
+ * accepted.
+ */
+@ApplicationScoped
+public class EngagementDuplicateFilter {
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final RotatingBloomFilter filter;
+    private final Set<UUID> inFlight = new HashSet<>();
+    private final Object lock = new Object();
+
+    public EngagementDuplicateFilter(
+            Logger log,
+            @ConfigProperty(name = "engagement.dedup.enabled", defaultValue = "true") boolean enabled,
+            @ConfigProperty(name = "engagement.dedup.window", defaultValue = "10m") Duration window,
+            @ConfigProperty(name = "engagement.dedup.false-positive-rate", defaultValue = "0.001") double falsePositiveRate,
+            @ConfigProperty(name = "engagement.dedup.expected-events", defaultValue = "1000000") long expectedEvents) {
+        this.enabled = enabled;
+        this.windowMillis = window.toMillis();
+        this.filter = new RotatingBloomFilter(expectedEvents, falsePositiveRate, window);
+        log.infof("Engagement duplicate filter: enabled=%s, window=%s, fpp=%s, bits=%d, hashes=%d",
+                enabled, window, falsePositiveRate, filter.bitSize(), filter.hashFunctions());
+    }
+
+    /**
+     * Checks an event and, if it is not a duplicate, holds its key as in
+     * flight in the same step, so two concurrent copies of the same event
+     * cannot both pass. Every call that returns false must be followed by
+     * {@link #release} once the create has finished; the key is remembered
+     * only if the create commits.
+     *
+     * @param event The event
+     * @return true if an event with the same key was probably seen within the
+     *         window or is being created (the event should be dropped)
+     */
+    public boolean checkAndHold(CreateEngagementDTO event) {
+        UUID key = key(event);
+        if (key == null) {
+            return false;
+        }
+        synchronized (lock) {
+            return filter.mightContain(key.getMostSignificantBits(), key.getLeastSignificantBits())
+                    || !inFlight.add(key);
+        }
+    }
+
+    /**
+     * Releases a key held by {@link #checkAndHold}, whether the create
+     * committed or failed.
+     *
+     * @param event The event
+     */
+    public void release(CreateEngagementDTO event) {
+        UUID key = key(event);
+        if (key == null) {
+            return;
+        }
+        synchronized (lock) {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * Remembers the key of a committed engagement.
+     *
+     * @param event The engagement created
+     */
+    void onCreated(@Observes(during = TransactionPhase.AFTER_SUCCESS) EngagementCreatedEvent event) {
+        UUID key = key(event.request());
+        if (key == null) {
+            return;
+        }
+        synchronized (lock) {
+            filter.add(key.getMostSignificantBits(), key.getLeastSignificantBits());
+        }
+    }
+
+    /**
+     * Drops the duplicates of a batch, including repeats inside it, and hands
+     * the remaining events to {@code accept}. They are remembered only if
+     * {@code accept} returns true, so a rejected batch can be retried. Runs
+     * under the same lock as {@link #checkAndHold}, so {@code accept} must be
+     * fast (e.g. an in-memory enqueue).
+     *
+     * @param events The events
+     * @param accept Takes the unique events; returns false to reject them
+     * @return The unique events and whether they were accepted
+     */
+    public BatchCheck checkAndRememberBatch(List<CreateEngagementDTO> events,
+            Predicate<List<CreateEngagementDTO>> accept) {
+        List<CreateEngagementDTO> unique = new ArrayList<>(events.size());
+        List<UUID> keys = new ArrayList<>(events.size());
+        Set<UUID> batchKeys = new HashSet<>();
+        synchronized (lock) {
+            for (CreateEngagementDTO event : events) {
+                UUID key = key(event);
+                if (key == null) {
+                    unique.add(event);
+                } else if (batchKeys.add(key) && !inFlight.contains(key)
+                        && !filter.mightContain(key.getMostSignificantBits(), key.getLeastSignificantBits())) {
+                    unique.add(event);
+                    keys.add(key);
+                }
+            }
+
+            boolean accepted = unique.isEmpty() || accept.test(unique);
+            if (accepted) {
+                keys.forEach(key -> filter.add(key.getMostSignificantBits(), key.getLeastSignificantBits()));
+            }
+            return new BatchCheck(unique, accepted);
+        }
+    }
+
+    /**
+     * Outcome of {@link #checkAndRememberBatch}.
+     *
+     * @param unique   Events that are not duplicates
+     * @param accepted false if {@code accept} rejected them
+     */
+    public record BatchCheck(List<CreateEngagementDTO> unique, boolean accepted) {
+    }
+
+    /**
+     * 128-bit key (MD5 based UUID) of the event, or null if the event is not
+     * subject to de-duplication.
+     */
+    UUID key(CreateEngagementDTO event) {
+        if (!enabled) {
+            return null;
+        }
+
+        String raw;
+        if (event.getIdempotencyKey() != null && !event.getIdempotencyKey().isBlank()) {
+            raw = "key|" + event.getUserId() + "|" + event.getIdempotencyKey();
+        } else if (event.getEngagementType().isViewRelated()) {
+            LocalDateTime engagedAt = event.getEngagedAt() != null ? event.getEngagedAt() : LocalDateTime.now();
+            long bucket = engagedAt.toInstant(ZoneOffset.UTC).toEpochMilli() / windowMillis;
+            raw = "view|" + event.getUserId() + "|" + event.getContentId() + "|" + event.getEngagementType()
+                    + "|" + bucket;
+        } else {
+            return null;
+        }
+        return UUID.nameUUIDFromBytes(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
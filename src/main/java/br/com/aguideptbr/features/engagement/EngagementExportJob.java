@@ -0,0 +1,278 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Incremental export of content_engagement_log changes for offline analytics.
+ *
+ * Writes one gzip-compressed CSV file per updated_at day and run, in
+ * Hive-style partition directories:
+ * {@code <directory>/updated_date=YYYY-MM-DD/part-<from>-<to>.csv.gz}. The
+ * layout can be queried directly by DuckDB/Spark/pandas (or converted to
+ * Parquet) instead of paging through the REST API. CSV is deliberate: a
+ * Parquet or Arrow writer would pull the Hadoop/Arrow stacks into the
+ * service, and typed columnar files are one DuckDB {@code COPY} away.
+ *
+ * Rows are selected by updated_at, like {@link EngagementRollupJob}, so late
+ * inserts, progress updates and soft deletes are exported too. A row changed
+ * again appears again in a later file; consumers keep the version with the
+ * newest updated_at per id. Rows are read with a server-side cursor
+ * (non-autocommit connection, large fetch size) in a read-only transaction,
+ * one day at a time through idx_engagement_updated_at. Progress is an
+ * updated_at watermark in engagement_rollup_watermark, saved after every day,
+ * so an interrupted run resumes where it stopped and no change is written
+ * twice.
+ *
+ * Known gap: the upper bound trails the clock by
+ * {@code engagement.export.lag}, so a change whose transaction commits more
+ * than that after its updated_at is never exported. Rows of detached
+ * (archived) partitions are not exported either.
+ *
+ * A session advisory lock keeps concurrent runs (other nodes) out. User IP,
+ * metadata and comment text are not exported.
+ */
+@ApplicationScoped
+public class EngagementExportJob {
+
+    static final String JOB_NAME = "engagement-export";
+
+    static final String EXPORT_QUERY = """
+            SELECT e.id, e.user_id, e.content_id, e.engagement_type, e.engagement_status,
+                   e.view_duration_seconds, e.completion_percentage, e.repeat_count, e.rating,
+                   dt.value AS device_type, pl.value AS platform, src.value AS source, ua.value AS user_agent,
+                   e.engaged_at, e.ended_at, e.created_at, e.updated_at
+            FROM content_engagement_log e
+            LEFT JOIN engagement_dictionary dt ON dt.id = e.device_type_id
+            LEFT JOIN engagement_dictionary pl ON pl.id = e.platform_id
+            LEFT JOIN engagement_dictionary src ON src.id = e.source_id
+            LEFT JOIN engagement_dictionary ua ON ua.id = e.user_agent_id
+            WHERE e.updated_at > ? AND e.updated_at <= ?
+            """;
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final Logger log;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final Path directory;
+    private final int fetchSize;
+    private final Duration lag;
+
+    public EngagementExportJob(
+            Logger log,
+            DataSource dataSource,
+            @ConfigProperty(name = "engagement.export.enabled", defaultValue = "false") boolean enabled,
+            @ConfigProperty(name = "engagement.export.directory", defaultValue = "export/engagements") String directory,
+            @ConfigProperty(name = "engagement.export.fetch-size", defaultValue = "10000") int fetchSize,
+            @ConfigProperty(name = "engagement.export.lag", defaultValue = "1h") Duration lag) {
+        this.log = log;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.fetchSize = fetchSize;
+        this.lag = lag;
+    }
+
+    @Scheduled(cron = "${engagement.export.cron:0 30 2 * * ?}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledExport() {
+        if (enabled) {
+            export();
+        }
+    }
+
+    /**
+     * Exports every row with updated_at in (watermark, now - lag].
+     *
+     * @return Number of rows exported
+     */
+    public long export() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(lag);
+
+        try (Connection connection = dataSource.getConnection()) {
+            if (!tryLock(connection)) {
+                log.info("Engagement export already running elsewhere, skipping");
+                return 0;
+            }
+            try {
+                return exportUpTo(connection, cutoff);
+            } finally {
+                unlock(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Engagement export failed", e);
+        }
+    }
+
+    private long exportUpTo(Connection connection, LocalDateTime cutoff) throws SQLException {
+        LocalDateTime watermark = readWatermark(connection);
+        if (watermark == null) {
+            watermark = findFirstUpdatedAt(connection);
+            if (watermark == null) {
+                return 0;
+            }
+            watermark = watermark.minusNanos(1000); // updated_at > watermark must include the first row
+        }
+
+        long total = 0;
+        connection.setAutoCommit(false);
+        try {
+            while (watermark.isBefore(cutoff)) {
+                // Day of the first row still to export; its last microsecond closes the window
+                LocalDate day = watermark.plusNanos(1000).toLocalDate();
+                LocalDateTime dayEnd = day.plusDays(1).atStartOfDay().minusNanos(1000);
+                LocalDateTime to = dayEnd.isAfter(cutoff) ? cutoff : dayEnd;
+
+                total += exportDay(connection, watermark, to);
+                saveWatermark(connection, to);
+                connection.commit();
+                watermark = to;
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        log.infof("Engagement export finished: rows=%d, watermark=%s", total, watermark);
+        return total;
+    }
+
+    private long exportDay(Connection connection, LocalDateTime from, LocalDateTime to) throws SQLException {
+        LocalDate day = to.toLocalDate();
+        Path partition = directory.resolve("updated_date=" + day);
+        String name = "part-" + FILE_TIMESTAMP.format(from) + "-" + FILE_TIMESTAMP.format(to) + ".csv.gz";
+        Path target = partition.resolve(name);
+        Path temp = partition.resolve(name + ".tmp");
+
+        long rows = 0;
+        try (PreparedStatement ps = connection.prepareStatement(EXPORT_QUERY)) {
+            // Server-side cursor: pgjdbc streams in fetchSize chunks when autocommit is off
+            ps.setFetchSize(fetchSize);
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.isBeforeFirst()) {
+                    return 0;
+                }
+                Files.createDirectories(partition);
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16), StandardCharsets.UTF_8))) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int columns = meta.getColumnCount();
+                    for (int c = 1; c <= columns; c++) {
+                        writer.write(c > 1 ? "," : "");
+                        writer.write(meta.getColumnLabel(c));
+                    }
+                    writer.write('\n');
+
+                    while (rs.next()) {
+                        for (int c = 1; c <= columns; c++) {
+                            if (c > 1) {
+                                writer.write(',');
+                            }
+                            writeCsvValue(writer, rs.getObject(c));
+                        }
+                        writer.write('\n');
+                        rows++;
+                    }
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + target, e);
+        }
+
+        log.debugf("Exported %d engagements to %s", rows, target);
+        return rows;
+    }
+
+    static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof Timestamp timestamp ? timestamp.toLocalDateTime().toString() : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private LocalDateTime readWatermark(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT watermark FROM engagement_rollup_watermark WHERE job_name = ?")) {
+            ps.setString(1, JOB_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getTimestamp(1).toLocalDateTime() : null;
+            }
+        }
+    }
+
+    private LocalDateTime findFirstUpdatedAt(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT MIN(updated_at) FROM content_engagement_log");
+                ResultSet rs = ps.executeQuery()) {
+            Timestamp first = rs.next() ? rs.getTimestamp(1) : null;
+            return first != null ? first.toLocalDateTime() : null;
+        }
+    }
+
+    private void saveWatermark(Connection connection, LocalDateTime watermark) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("""
+                INSERT INTO engagement_rollup_watermark (job_name, watermark, updated_at)
+                VALUES (?, ?, CURRENT_TIMESTAMP)
+                ON CONFLICT (job_name)
+                DO UPDATE SET watermark = EXCLUDED.watermark, updated_at = EXCLUDED.updated_at
+                """)) {
+            ps.setString(1, JOB_NAME);
+            ps.setTimestamp(2, Timestamp.valueOf(watermark));
+            ps.executeUpdate();
+        }
+    }
+
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+            ps.setString(1, JOB_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+            ps.setString(1, JOB_NAME);
+            ps.execute();
+        }
+    }
+}
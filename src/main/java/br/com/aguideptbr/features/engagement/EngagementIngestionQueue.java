@@ -0,0 +1,170 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import br.com.aguideptbr.features.engagement.dto.CreateEngagementDTO;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+/**
+ * Bounded in-memory buffer between the batch endpoint and the database.
+ *
+ * Requests only enqueue events; a scheduled job drains the queue and hands
+ * fixed-size batches to {@link EngagementBatchWriter}. When the queue is full
+ * the whole request is rejected so the client can back off and retry.
+ *
+ * A batch that fails to write is kept and retried first on the next flushes
+ * (nothing else is drained meanwhile). After
+ * {@code engagement.ingestion.max-attempts} its events are written one by one
+ * and the ones that still fail are dead-lettered, so accepted events are
+ * never silently dropped.
+ *
+ * Events still in memory are lost if the process dies abruptly; a graceful
+ * shutdown drains the queue before exiting.
+ */
+@ApplicationScoped
+public class EngagementIngestionQueue {
+
+    private final Logger log;
+    private final EngagementBatchWriter batchWriter;
+    private final BlockingQueue<CreateEngagementDTO> queue;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Object flushLock = new Object();
+
+    // Guarded by flushLock
+    private List<CreateEngagementDTO> failedBatch = List.of();
+    private int failedAttempts;
+
+    public EngagementIngestionQueue(
+            Logger log,
+            EngagementBatchWriter batchWriter,
+            @ConfigProperty(name = "engagement.ingestion.queue-capacity", defaultValue = "50000") int capacity,
+            @ConfigProperty(name = "engagement.ingestion.batch-size", defaultValue = "1000") int batchSize,
+            @ConfigProperty(name = "engagement.ingestion.max-attempts", defaultValue = "5") int maxAttempts) {
+        this.log = log;
+        this.batchWriter = batchWriter;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Enqueues all events or none of them.
+     *
+     * @param events The events to enqueue
+     * @return true if accepted, false if the queue has no room (backpressure)
+     */
+    public synchronized boolean offerAll(List<CreateEngagementDTO> events) {
+        if (queue.remainingCapacity() < events.size()) {
+            log.warnf("Engagement ingestion queue full: depth=%d, rejected=%d", queue.size(), events.size());
+            return false;
+        }
+        queue.addAll(events);
+        return true;
+    }
+
+    /**
+     * @return Number of events waiting to be written, including a failed batch
+     *         waiting for retry
+     */
+    public int depth() {
+        synchronized (flushLock) {
+            return queue.size() + failedBatch.size();
+        }
+    }
+
+    @Scheduled(every = "${engagement.ingestion.flush-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Retries the pending failed batch, if any, and then drains the queue in
+     * batches of {@code engagement.ingestion.batch-size}. Stops at the first
+     * failing batch, which is kept for the next flush.
+     *
+     * @return Number of rows inserted
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            int inserted = 0;
+            if (!failedBatch.isEmpty()) {
+                Integer retried = retryFailedBatch();
+                if (retried == null) {
+                    return 0;
+                }
+                inserted += retried;
+            }
+
+            List<CreateEngagementDTO> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                try {
+                    inserted += batchWriter.write(batch);
+                } catch (RuntimeException e) {
+                    log.errorf(e, "Failed to write engagement batch of %d events, will retry", batch.size());
+                    failedBatch = batch;
+                    failedAttempts = 1;
+                    return inserted;
+                }
+                batch.clear();
+            }
+            return inserted;
+        }
+    }
+
+    /**
+     * @return Rows inserted, or null if the batch is still pending
+     */
+    private Integer retryFailedBatch() {
+        if (failedAttempts < maxAttempts) {
+            try {
+                int inserted = batchWriter.write(failedBatch);
+                failedBatch = List.of();
+                return inserted;
+            } catch (RuntimeException e) {
+                failedAttempts++;
+                log.errorf(e, "Retry %d/%d of engagement batch of %d events failed",
+                        failedAttempts, maxAttempts, failedBatch.size());
+                return null;
+            }
+        }
+
+        // Out of attempts: isolate the events that cannot be written
+        int inserted = 0;
+        for (int i = 0; i < failedBatch.size(); i++) {
+            CreateEngagementDTO event = failedBatch.get(i);
+            try {
+                inserted += batchWriter.write(List.of(event));
+            } catch (RuntimeException e) {
+                try {
+                    batchWriter.deadLetter(event, e);
+                } catch (RuntimeException deadLetterFailure) {
+                    failedBatch = new ArrayList<>(failedBatch.subList(i, failedBatch.size()));
+                    log.errorf(deadLetterFailure, "Failed to dead-letter engagement event, %d events kept for retry",
+                            failedBatch.size());
+                    return null;
+                }
+            }
+        }
+        failedBatch = List.of();
+        return inserted;
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        log.infof("Draining engagement ingestion queue before shutdown: depth=%d", depth());
+        flush();
+        int left = depth();
+        if (left > 0) {
+            log.errorf("Engagement ingestion queue stopped with %d unwritten events", left);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package br.com.aguideptbr.features.engagement;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+/**
+ * Maintains the monthly partitions of content_engagement_log (V1.0.28).
+ *
+ * Creates partitions ahead of time so inserts never fall into the DEFAULT
+ * partition, and archives (detaches and renames) partitions older than the
+ * retention period. Before a partition is detached its ACTIVE rows are summed
+ * into user_content_engagement_archived (V1.0.28), which the rollup recompute
+ * adds to the live log, so archived months stay counted in
+ * user_content_engagement and user_engagement_summary. content_engagement_daily
+ * keeps its archived days untouched. Entries of archived rows are then
+ * removed from content_engagement_locator (V1.0.40).
+ */
+@ApplicationScoped
+public class EngagementPartitionJob {
+
+    private final Logger log;
+    private final EntityManager entityManager;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public EngagementPartitionJob(
+            Logger log,
+            EntityManager entityManager,
+            @ConfigProperty(name = "engagement.partition.months-ahead", defaultValue = "3") int monthsAhead,
+            @ConfigProperty(name = "engagement.retention.months", defaultValue = "24") int retentionMonths) {
+        this.log = log;
+        this.entityManager = entityManager;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            // Não impede a subida da aplicação: a partição DEFAULT recebe as linhas
+            log.errorf(e, "Engagement partition maintenance failed at startup");
+        }
+    }
+
+    /**
+     * Creates upcoming partitions and archives expired ones.
+     * A retention of 0 disables archiving.
+     */
+    @Scheduled(cron = "${engagement.partition.cron:0 15 3 * * ?}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    public void maintain() {
+        Number created = (Number) entityManager
+                .createNativeQuery("SELECT engagement_ensure_partitions(:monthsAhead)")
+                .setParameter("monthsAhead", monthsAhead)
+                .getSingleResult();
+
+        int archived = 0;
+        if (retentionMonths > 0) {
+            archived = ((Number) entityManager
+                    .createNativeQuery("SELECT engagement_archive_partitions(:retentionMonths)")
+                    .setParameter("retentionMonths", retentionMonths)
+                    .getSingleResult()).intValue();
+        }
+
+        int unlocated = 0;
+        if (archived > 0) {
+            // Rows still in the DEFAULT partition keep their entries
+            unlocated = entityManager.createNativeQuery("""
+                    DELETE FROM content_engagement_locator l
+                    WHERE l.engaged_at < date_trunc('month', CURRENT_DATE) - make_interval(months => :retentionMonths)
+                      AND NOT EXISTS (
+                          SELECT 1 FROM content_engagement_log e
+                          WHERE e.id = l.id AND e.engaged_at = l.engaged_at)
+                    """)
+                    .setParameter("retentionMonths", retentionMonths)
+                    .executeUpdate();
+        }
+
+        if (created.intValue() > 0 || archived > 0) {
+            log.infof("Engagement partitions maintained: created=%d, archived=%d, locator entries removed=%d",
+                    created.intValue(), archived, unlocated);
+        }
+    }
+}
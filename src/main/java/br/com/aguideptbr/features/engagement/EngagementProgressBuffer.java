@@ -0,0 +1,253 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+/**
+ * Coalesces playback progress heartbeats in memory.
+ *
+ * Only the latest viewDurationSeconds/completionPercentage per engagement is
+ * kept; intermediate values overwrite each other. Pending progress is written
+ * by a scheduled flush, immediately when completion crosses a milestone
+ * (25/50/75/100%), or when the session ends through a regular update.
+ * A crash loses at most one flush interval of progress.
+ */
+@ApplicationScoped
+public class EngagementProgressBuffer {
+
+    static final int MILESTONE_STEP = 25;
+
+    private final Logger log;
+    private final EngagementBatchWriter batchWriter;
+    private final long idleEvictionMillis;
+    private final Map<UUID, PendingProgress> pending = new ConcurrentHashMap<>();
+
+    public EngagementProgressBuffer(
+            Logger log,
+            EngagementBatchWriter batchWriter,
+            @ConfigProperty(name = "engagement.progress.idle-eviction", defaultValue = "5m") Duration idleEviction) {
+        this.log = log;
+        this.batchWriter = batchWriter;
+        this.idleEvictionMillis = idleEviction.toMillis();
+    }
+
+    /**
+     * @param engagementId The engagement ID
+     * @return true if the engagement is already tracked (its existence was
+     *         checked when it was first seen)
+     */
+    public boolean isTracked(UUID engagementId) {
+        return pending.containsKey(engagementId);
+    }
+
+    /**
+     * Starts tracking an engagement whose row is known to exist.
+     *
+     * @param engagementId         The engagement ID
+     * @param contentId            Content whose retention histogram follows the
+     *                             progress, or null if it should not
+     * @param engagedAt            Partition key of the row, so the flush
+     *                             UPDATE touches a single partition
+     * @param persistedDuration    View duration currently stored in the database
+     * @param persistedCompletion  Completion currently stored in the database
+     */
+    public void track(UUID engagementId, UUID contentId, LocalDateTime engagedAt, Integer persistedDuration,
+            Integer persistedCompletion) {
+        pending.putIfAbsent(engagementId, PendingProgress.clean(contentId, engagedAt, persistedDuration,
+                persistedCompletion, System.currentTimeMillis()));
+    }
+
+    /**
+     * Records the latest progress for a tracked engagement. Null values keep the
+     * previous pending value. If completion crosses a milestone the entry is
+     * written right away.
+     *
+     * @param engagementId         The engagement ID
+     * @param viewDurationSeconds  New view duration, or null
+     * @param completionPercentage New completion percentage, or null
+     * @return true if the update was written immediately (milestone crossed)
+     */
+    public boolean record(UUID engagementId, Integer viewDurationSeconds, Integer completionPercentage) {
+        long now = System.currentTimeMillis();
+        PendingProgress updated = pending.compute(engagementId, (id, current) -> {
+            PendingProgress base = current != null ? current : PendingProgress.clean(null, null, null, null, now);
+            return base.update(viewDurationSeconds, completionPercentage, now);
+        });
+
+        if (crossesMilestone(updated.persistedCompletion, updated.completionPercentage)) {
+            flush(List.of(engagementId));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes an engagement from the buffer and returns its unwritten progress,
+     * so a synchronous update can merge it into the same UPDATE.
+     *
+     * @param engagementId The engagement ID
+     * @return Unwritten progress, or null if nothing is pending
+     */
+    public PendingProgress take(UUID engagementId) {
+        PendingProgress removed = pending.remove(engagementId);
+        return removed != null && removed.dirty ? removed : null;
+    }
+
+    @Scheduled(every = "${engagement.progress.flush-interval:5s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledFlush() {
+        flushAll();
+    }
+
+    /**
+     * Writes all pending progress and evicts entries idle for longer than
+     * {@code engagement.progress.idle-eviction}.
+     *
+     * @return Number of engagements written
+     */
+    public int flushAll() {
+        int written = flush(new ArrayList<>(pending.keySet()));
+
+        long cutoff = System.currentTimeMillis() - idleEvictionMillis;
+        pending.entrySet().removeIf(entry -> !entry.getValue().dirty && entry.getValue().lastTouchedMillis < cutoff);
+
+        return written;
+    }
+
+    /**
+     * @return Number of engagements currently tracked
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        log.infof("Flushing pending playback progress before shutdown: tracked=%d", pending.size());
+        flushAll();
+    }
+
+    private int flush(List<UUID> engagementIds) {
+        Map<UUID, PendingProgress> snapshot = new HashMap<>();
+        for (UUID id : engagementIds) {
+            pending.computeIfPresent(id, (key, current) -> {
+                if (current.dirty) {
+                    snapshot.put(key, current);
+                    return current.markWritten();
+                }
+                return current;
+            });
+        }
+
+        if (snapshot.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            return batchWriter.writeProgress(snapshot);
+        } catch (RuntimeException e) {
+            log.errorf(e, "Failed to flush playback progress for %d engagements", snapshot.size());
+            // Put values back unless a newer heartbeat already replaced them
+            snapshot.forEach((id, value) -> pending.computeIfPresent(id,
+                    (key, current) -> current.version == value.version ? value : current));
+            return 0;
+        }
+    }
+
+    static boolean crossesMilestone(Integer previous, Integer current) {
+        if (current == null) {
+            return false;
+        }
+        int before = previous != null ? previous : 0;
+        return current / MILESTONE_STEP > before / MILESTONE_STEP;
+    }
+
+    /**
+     * Latest progress known for an engagement. Immutable; replaced on every
+     * heartbeat so concurrent flushes can detect newer values via
+     * {@code version}.
+     */
+    public static final class PendingProgress {
+
+        final UUID contentId;
+        final LocalDateTime engagedAt;
+        final Integer viewDurationSeconds;
+        final Integer completionPercentage;
+        final Integer persistedDuration;
+        final Integer persistedCompletion;
+        final boolean dirty;
+        final long version;
+        final long lastTouchedMillis;
+
+        private PendingProgress(UUID contentId, LocalDateTime engagedAt, Integer viewDurationSeconds,
+                Integer completionPercentage, Integer persistedDuration, Integer persistedCompletion, boolean dirty,
+                long version, long lastTouchedMillis) {
+            this.contentId = contentId;
+            this.engagedAt = engagedAt;
+            this.viewDurationSeconds = viewDurationSeconds;
+            this.completionPercentage = completionPercentage;
+            this.persistedDuration = persistedDuration;
+            this.persistedCompletion = persistedCompletion;
+            this.dirty = dirty;
+            this.version = version;
+            this.lastTouchedMillis = lastTouchedMillis;
+        }
+
+        static PendingProgress clean(UUID contentId, LocalDateTime engagedAt, Integer persistedDuration,
+                Integer persistedCompletion, long now) {
+            return new PendingProgress(contentId, engagedAt, persistedDuration, persistedCompletion,
+                    persistedDuration, persistedCompletion, false, 0, now);
+        }
+
+        PendingProgress update(Integer duration, Integer completion, long now) {
+            return new PendingProgress(contentId, engagedAt,
+                    duration != null ? duration : viewDurationSeconds,
+                    completion != null ? completion : completionPercentage,
+                    persistedDuration, persistedCompletion, true, version + 1, now);
+        }
+
+        PendingProgress markWritten() {
+            return new PendingProgress(contentId, engagedAt, viewDurationSeconds, completionPercentage,
+                    viewDurationSeconds, completionPercentage, false, version, lastTouchedMillis);
+        }
+
+        public Integer getViewDurationSeconds() {
+            return viewDurationSeconds;
+        }
+
+        public Integer getCompletionPercentage() {
+            return completionPercentage;
+        }
+
+        public UUID getContentId() {
+            return contentId;
+        }
+
+        /**
+         * @return engaged_at of the row, or null if it was never tracked
+         */
+        public LocalDateTime getEngagedAt() {
+            return engagedAt;
+        }
+
+        public Integer getPersistedDuration() {
+            return persistedDuration;
+        }
+
+        public Integer getPersistedCompletion() {
+            return persistedCompletion;
+        }
+    }
+}
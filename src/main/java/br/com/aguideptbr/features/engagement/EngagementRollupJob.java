@@ -0,0 +1,64 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+
+/**
+ * Periodic delta job that keeps the engagement rollup tables up to date.
+ *
+ * Each run folds the log rows whose updated_at is newer than the stored
+ * watermark into the rollups. The upper bound trails the clock by
+ * {@code engagement.rollup.safety-lag} so rows from transactions still in
+ * flight (whose updated_at is already in the past) are not skipped.
+ */
+@ApplicationScoped
+public class EngagementRollupJob {
+
+    static final String JOB_NAME = "engagement-rollup";
+
+    private final Logger log;
+    private final EngagementRollupRepository rollupRepository;
+    private final Duration safetyLag;
+
+    public EngagementRollupJob(
+            Logger log,
+            EngagementRollupRepository rollupRepository,
+            @ConfigProperty(name = "engagement.rollup.safety-lag", defaultValue = "30s") Duration safetyLag) {
+        this.log = log;
+        this.rollupRepository = rollupRepository;
+        this.safetyLag = safetyLag;
+    }
+
+    /**
+     * Refreshes the rollups for rows changed since the last run.
+     */
+    @Scheduled(every = "${engagement.rollup.interval:30s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    public void refresh() {
+        LocalDateTime to = LocalDateTime.now().minus(safetyLag);
+        LocalDateTime from = rollupRepository.lockWatermark(JOB_NAME);
+        if (from == null) {
+            from = LocalDateTime.of(1970, 1, 1, 0, 0);
+        }
+        if (!to.isAfter(from)) {
+            return;
+        }
+
+        int daily = rollupRepository.refreshContentDaily(from, to);
+        int userContent = rollupRepository.refreshUserContent(from, to);
+        int userSummary = rollupRepository.refreshUserSummary(from, to);
+        rollupRepository.saveWatermark(JOB_NAME, to);
+
+        if (daily > 0 || userContent > 0 || userSummary > 0) {
+            log.infof("Engagement rollups refreshed up to %s: contentDaily=%d, userContent=%d, userSummary=%d",
+                    to, daily, userContent, userSummary);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package br.com.aguideptbr.features.engagement;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+
+import br.com.aguideptbr.features.engagement.dto.UserEngagementSummaryDTO;
+import br.com.aguideptbr.features.engagement.dto.UserTopContentsDTO;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Reads and refreshes the engagement rollup tables (V1.0.26, V1.0.27):
+ * content_engagement_daily, user_content_engagement,
+ * user_engagement_summary and engagement_rollup_watermark.
+ *
+ * Refresh methods recompute every key touched by log rows whose updated_at
+ * falls in (from, to]. Recomputing (instead of adding deltas) keeps the
+ * rollups correct when engagements are updated or soft deleted. Only live
+ * months are recomputed: rows of archived partitions are added from
+ * user_content_engagement_archived (V1.0.28).
+ */
+@ApplicationScoped
+public class EngagementRollupRepository {
+
+    /**
+     * (content_id, day) keys touched in the window.
+     */
+    private static final String TOUCHED_CONTENT_DAYS = """
+            SELECT DISTINCT content_id, CAST(engaged_at AS DATE) AS day
+            FROM content_engagement_log
+            WHERE updated_at > :from AND updated_at <= :to
+              AND content_id IS NOT NULL
+            """;
+
+    /**
+     * (user_id, content_id) keys touched in the window.
+     */
+    private static final String TOUCHED_USER_CONTENTS = """
+            SELECT DISTINCT user_id, content_id
+            FROM content_engagement_log
+            WHERE updated_at > :from AND updated_at <= :to
+              AND user_id IS NOT NULL
+              AND content_id IS NOT NULL
+            """;
+
+    /**
+     * Users touched in the window.
+     */
+    private static final String TOUCHED_USERS = """
+            SELECT DISTINCT user_id
+            FROM content_engagement_log
+            WHERE updated_at > :from AND updated_at <= :to
+              AND user_id IS NOT NULL
+            """;
+
+    private final Logger log;
+    private final EntityManager entityManager;
+
+    public EngagementRollupRepository(Logger log, EntityManager entityManager) {
+        this.log = log;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Reads a job watermark and locks its row until the transaction ends, so
+     * only one instance refreshes the rollups at a time.
+     *
+     * @param jobName The job name
+     * @return The watermark, or null if the job has never run
+     */
+    public LocalDateTime lockWatermark(String jobName) {
+        @SuppressWarnings("unchecked")
+        List<Object> result = entityManager
+                .createNativeQuery(
+                        "SELECT watermark FROM engagement_rollup_watermark WHERE job_name = :job FOR UPDATE")
+                .setParameter("job", jobName)
+                .getResultList();
+
+        if (result.isEmpty()) {
+            return null;
+        }
+        Object value = result.get(0);
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    /**
+     * Stores a job watermark.
+     *
+     * @param jobName   The job name
+     * @param watermark Last updated_at folded into the rollups
+     */
+    public void saveWatermark(String jobName, LocalDateTime watermark) {
+        entityManager.createNativeQuery("""
+                INSERT INTO engagement_rollup_watermark (job_name, watermark, updated_at)
+                VALUES (:job, :watermark, CURRENT_TIMESTAMP)
+                ON CONFLICT (job_name)
+                DO UPDATE SET watermark = EXCLUDED.watermark, updated_at = EXCLUDED.updated_at
+                """)
+                .setParameter("job", jobName)
+                .setParameter("watermark", watermark)
+                .executeUpdate();
+    }
+
+    /**
+     * Progress of a job that walks a key range in chunks.
+     *
+     * @param watermark   Upper bound on the rows the job covers
+     * @param resumeAfter Last key processed, or null when the job is done
+     */
+    public record ChunkedJobProgress(LocalDateTime watermark, UUID resumeAfter) {
+    }
+
+    /**
+     * Creates the progress row of a chunked job if it does not exist yet.
+     *
+     * @param jobName     The job name
+     * @param watermark   Upper bound on the rows the job covers
+     * @param resumeAfter Key to start after
+     */
+    public void startChunkedJob(String jobName, LocalDateTime watermark, UUID resumeAfter) {
+        entityManager.createNativeQuery("""
+                INSERT INTO engagement_rollup_watermark (job_name, watermark, resume_after, updated_at)
+                VALUES (:job, :watermark, :resumeAfter, CURRENT_TIMESTAMP)
+                ON CONFLICT (job_name) DO NOTHING
+                """)
+                .setParameter("job", jobName)
+                .setParameter("watermark", watermark)
+                .setParameter("resumeAfter", resumeAfter)
+                .executeUpdate();
+    }
+
+    /**
+     * Reads the progress of a chunked job and locks its row until the
+     * transaction ends, so only one instance processes a chunk at a time.
+     *
+     * @param jobName The job name
+     * @return The progress, or null if the job has never started
+     */
+    public ChunkedJobProgress lockChunkedJob(String jobName) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> result = entityManager
+                .createNativeQuery("""
+                        SELECT watermark, resume_after
+                        FROM engagement_rollup_watermark
+                        WHERE job_name = :job
+                        FOR UPDATE
+                        """)
+                .setParameter("job", jobName)
+                .getResultList();
+
+        if (result.isEmpty()) {
+            return null;
+        }
+        Object[] row = result.get(0);
+        LocalDateTime watermark = row[0] instanceof Timestamp timestamp
+                ? timestamp.toLocalDateTime()
+                : (LocalDateTime) row[0];
+        return new ChunkedJobProgress(watermark, (UUID) row[1]);
+    }
+
+    /**
+     * Stores the last key processed by a chunked job.
+     *
+     * @param jobName     The job name
+     * @param resumeAfter Last key processed, or null when the job is done
+     */
+    public void saveChunkedJobProgress(String jobName, UUID resumeAfter) {
+        entityManager.createNativeQuery("""
+                UPDATE engagement_rollup_watermark
+                SET resume_after = :resumeAfter, updated_at = CURRENT_TIMESTAMP
+                WHERE job_name = :job
+                """)
+                .setParameter("job", jobName)
+                .setParameter("resumeAfter", resumeAfter)
+                .executeUpdate();
+    }
+
+    /**
+     * Recomputes content_engagement_daily for the (content, day) keys touched
+     * in the window.
+     *
+     * @param from Exclusive lower bound on updated_at
+     * @param to   Inclusive upper bound on updated_at
+     * @return Number of rollup rows written
+     */
+    public int refreshContentDaily(LocalDateTime from, LocalDateTime to) {
+        entityManager.createNativeQuery("""
+                DELETE FROM content_engagement_daily d
+                USING (%s) t
+                WHERE d.content_id = t.content_id AND d.day = t.day
+                """.formatted(TOUCHED_CONTENT_DAYS))
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+
+        int written = entityManager.createNativeQuery("""
+                INSERT INTO content_engagement_daily (
+                    content_id, day, engagement_type,
+                    engagement_count, total_view_duration_seconds, completion_sum, completion_count,
+                    refreshed_at)
+                SELECT e.content_id,
+                       t.day,
+                       e.engagement_type,
+                       COUNT(*),
+                       COALESCE(SUM(e.view_duration_seconds), 0),
+                       COALESCE(SUM(e.completion_percentage), 0),
+                       COUNT(e.completion_percentage),
+                       CURRENT_TIMESTAMP
+                FROM (%s) t
+                JOIN content_engagement_log e
+                  ON e.content_id = t.content_id
+                 AND e.engaged_at >= t.day
+                 AND e.engaged_at < t.day + 1
+                WHERE e.engagement_status = 'ACTIVE'
+                GROUP BY e.content_id, t.day, e.engagement_type
+                """.formatted(TOUCHED_CONTENT_DAYS))
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+
+        log.debugf("content_engagement_daily refreshed: rows=%d, window=(%s, %s]", written, from, to);
+        return written;
+    }
+
+    /**
+     * Recomputes user_content_engagement for the (user, content) keys touched
+     * in the window: live log rows plus the frozen totals of archived
+     * partitions (user_content_engagement_archived, V1.0.28).
+     *
+     * @param from Exclusive lower bound on updated_at
+     * @param to   Inclusive upper bound on updated_at
+     * @return Number of rollup rows written
+     */
+    public int refreshUserContent(LocalDateTime from, LocalDateTime to) {
+        entityManager.createNativeQuery("""
+                DELETE FROM user_content_engagement u
+                USING (%s) t
+                WHERE u.user_id = t.user_id AND u.content_id = t.content_id
+                """.formatted(TOUCHED_USER_CONTENTS))
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+
+        int written = entityManager.createNativeQuery("""
+                INSERT INTO user_content_engagement (
+                    user_id, content_id,
+                    total_interactions, total_views, total_likes, total_shares,
+                    completion_sum, completion_count, total_view_duration_seconds, last_engaged_at,
+                    refreshed_at)
+                SELECT t.user_id,
+                       t.content_id,
+                       l.total_interactions + COALESCE(a.total_interactions, 0),
+                       l.total_views + COALESCE(a.total_views, 0),
+                       l.total_likes + COALESCE(a.total_likes, 0),
+                       l.total_shares + COALESCE(a.total_shares, 0),
+                       l.completion_sum + COALESCE(a.completion_sum, 0),
+                       l.completion_count + COALESCE(a.completion_count, 0),
+                       l.total_view_duration_seconds + COALESCE(a.total_view_duration_seconds, 0),
+                       GREATEST(l.last_engaged_at, a.last_engaged_at),
+                       CURRENT_TIMESTAMP
+                FROM (%s) t
+                CROSS JOIN LATERAL (
+                    SELECT COUNT(*) AS total_interactions,
+                           COUNT(*) FILTER (WHERE e.engagement_type IN ('VIEW', 'COMPLETE')) AS total_views,
+                           COUNT(*) FILTER (WHERE e.engagement_type = 'LIKE') AS total_likes,
+                           COUNT(*) FILTER (WHERE e.engagement_type = 'SHARE') AS total_shares,
+                           COALESCE(SUM(COALESCE(e.completion_percentage, 0)), 0) AS completion_sum,
+                           COUNT(e.completion_percentage) AS completion_count,
+                           COALESCE(SUM(COALESCE(e.view_duration_seconds, 0)), 0) AS total_view_duration_seconds,
+                           MAX(e.engaged_at) AS last_engaged_at
+                    FROM content_engagement_log e
+                    WHERE e.user_id = t.user_id
+                      AND e.content_id = t.content_id
+                      AND e.engagement_status = 'ACTIVE'
+                ) l
+                LEFT JOIN user_content_engagement_archived a
+                  ON a.user_id = t.user_id
+                 AND a.content_id = t.content_id
+                WHERE l.total_interactions > 0 OR a.user_id IS NOT NULL
+                """.formatted(TOUCHED_USER_CONTENTS))
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+
+        log.debugf("user_content_engagement refreshed: rows=%d, window=(%s, %s]", written, from, to);
+        return written;
+    }
+
+    /**
+     * Recomputes user_engagement_summary for the users touched in the window,
+     * from their user_content_engagement rows. Must run after
+     * {@link #refreshUserContent(LocalDateTime, LocalDateTime)}.
+     *
+     * @param from Exclusive lower bound on updated_at
+     * @param to   Inclusive upper bound on updated_at
+     * @return Number of summary rows written
+     */
+    public int refreshUserSummary(LocalDateTime from, LocalDateTime to) {
+        entityManager.createNativeQuery("""
+                DELETE FROM user_engagement_summary s
+                USING (%s) t
+                WHERE s.user_id = t.user_id
+                """.formatted(TOUCHED_USERS))
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+
+        int written = entityManager.createNativeQuery("""
+                INSERT INTO user_engagement_summary (
+                    user_id, total_engagements, completion_sum, completion_count,
+                    total_view_duration_seconds, distinct_contents, last_engaged_at, refreshed_at)
+                SELECT u.user_id,
+                       SUM(u.total_interactions),
+                       SUM(u.completion_sum),
+                       SUM(u.completion_count),
+                       SUM(u.total_view_duration_seconds),
+                       COUNT(*),
+                       MAX(u.last_engaged_at),
+                       CURRENT_TIMESTAMP
+                FROM (%s) t
+                JOIN user_content_engagement u ON u.user_id = t.user_id
+                GROUP BY u.user_id
+                """.formatted(TOUCHED_USERS))
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+
+        log.debugf("user_engagement_summary refreshed: rows=%d, window=(%s, %s]", written, from, to);
+        return written;
+    }
+
+    /**
+     * Reads a user's engagement summary row.
+     *
+     * @param userId The user ID
+     * @return The summary, or empty if the user has no row yet
+     */
+    public Optional<UserEngagementSummaryDTO> findUserSummary(UUID userId) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("""
+                SELECT total_engagements, completion_sum, completion_count, total_view_duration_seconds
+                FROM user_engagement_summary
+                WHERE user_id = :userId
+                """)
+                .setParameter("userId", userId)
+                .getResultList();
+
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        return Optional.of(new UserEngagementSummaryDTO(
+                userId,
+                ((Number) row[0]).longValue(),
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                ((Number) row[3]).longValue()));
+    }
+
+    /**
+     * Counts ACTIVE engagements by type for a content, from the daily rollup.
+     *
+     * @param contentId The content ID
+     * @return Map of engagement type to count
+     */
+    public Map<EngagementType, Long> countByTypeForContent(UUID contentId) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("""
+                SELECT engagement_type, SUM(engagement_count)
+                FROM content_engagement_daily
+                WHERE content_id = :contentId
+                GROUP BY engagement_type
+                """)
+                .setParameter("contentId", contentId)
+                .getResultList();
+
+        Map<EngagementType, Long> counts = new EnumMap<>(EngagementType.class);
+        for (Object[] row : rows) {
+            counts.put(EngagementType.valueOf((String) row[0]), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the contents a user interacted with the most, from the
+     * user x content rollup joined with content_record in a single query
+     * (title, URL and thumbnail included).
+     *
+     * @param userId The user ID
+     * @param limit  Maximum number of contents to return
+     * @return Aggregated data per content
+     */
+    public List<UserTopContentsDTO> findUserTopContents(UUID userId, int limit) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("""
+                SELECT u.content_id, u.total_interactions, u.total_views, u.total_likes, u.total_shares,
+                       u.completion_sum, u.total_view_duration_seconds,
+                       c.title, c.video_url, c.video_thumbnail_url
+                FROM user_content_engagement u
+                LEFT JOIN content_record c ON c.id = u.content_id
+                WHERE u.user_id = :userId
+                ORDER BY u.total_interactions DESC, u.last_engaged_at DESC
+                LIMIT :limit
+                """)
+                .setParameter("userId", userId)
+                .setParameter("limit", limit)
+                .getResultList();
+
+        return rows.stream()
+                .map(row -> {
+                    long interactions = ((Number) row[1]).longValue();
+                    long completionSum = ((Number) row[5]).longValue();
+                    return UserTopContentsDTO.builder()
+                            .contentId((UUID) row[0])
+                            .totalInteractions(interactions)
+                            .totalViews(((Number) row[2]).longValue())
+                            .totalLikes(((Number) row[3]).longValue())
+                            .totalShares(((Number) row[4]).longValue())
+                            .avgCompletionPercentage(interactions > 0 ? (int) (completionSum / interactions) : 0)
+                            .totalViewDurationSeconds(((Number) row[6]).intValue())
+                            .contentTitle((String) row[7])
+                            .contentUrl((String) row[8])
+                            .thumbnailUrl((String) row[9])
+                            .build();
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.aguideptbr.features.engagement;
+
+/**
+ * Bucket layout of the per-content retention histograms (V1.0.31).
+ *
+ * A histogram is a single {@code long[]} of {@link #SIZE} counters:
+ * <ul>
+ * <li>[0, 101): completionPercentage, one bucket per percent</li>
+ * <li>[101, 549): viewDurationSeconds, log-linear buckets (HDR style): exact
+ * below 32s, then 16 sub-buckets per power of two, so a bucket is never
+ * wider than 1/16 (6.25%) of its values</li>
+ * </ul>
+ * {@code engagement_duration_bucket()} in V1.0.31 mirrors
+ * {@link #durationBucket(int)}; keep them in sync.
+ */
+public final class RetentionHistogram {
+
+    public static final int COMPLETION_BUCKETS = 101;
+
+    static final int DURATION_LINEAR_LIMIT = 32;
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Powers of two from 2^5 up to 2^30 (largest positive int)
+    public static final int DURATION_BUCKETS = DURATION_LINEAR_LIMIT + (31 - 5) * SUB_BUCKETS;
+
+    public static final int DURATION_OFFSET = COMPLETION_BUCKETS;
+    public static final int SIZE = COMPLETION_BUCKETS + DURATION_BUCKETS;
+
+    private RetentionHistogram() {
+    }
+
+    /**
+     * @param completionPercentage Completion (clamped to 0-100)
+     * @return Bucket index within the completion range
+     */
+    public static int completionBucket(int completionPercentage) {
+        return Math.max(0, Math.min(100, completionPercentage));
+    }
+
+    /**
+     * @param seconds View duration (negative values count as 0)
+     * @return Bucket index within the duration range
+     */
+    public static int durationBucket(int seconds) {
+        if (seconds < DURATION_LINEAR_LIMIT) {
+            return Math.max(0, seconds);
+        }
+        int exponent = 31 - Integer.numberOfLeadingZeros(seconds);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return DURATION_LINEAR_LIMIT + (exponent - 5) * SUB_BUCKETS + ((seconds >> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @param bucket Bucket index within the duration range
+     * @return Largest duration (seconds) that falls into the bucket
+     */
+    public static int durationUpperBound(int bucket) {
+        if (bucket < DURATION_LINEAR_LIMIT) {
+            return bucket;
+        }
+        int octave = (bucket - DURATION_LINEAR_LIMIT) / SUB_BUCKETS;
+        int subBucket = (bucket - DURATION_LINEAR_LIMIT) % SUB_BUCKETS;
+        int shift = octave + 5 - SUB_BUCKET_BITS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+        return (int) Math.min(Integer.MAX_VALUE, lower + (1L << shift) - 1);
+    }
+
+    /**
+     * Adds (or, with a negative delta, removes) one engagement's values.
+     *
+     * @param counts               Histogram of {@link #SIZE} counters
+     * @param viewDurationSeconds  Duration, or null to skip
+     * @param completionPercentage Completion, or null to skip
+     * @param delta                +1 or -1
+     */
+    public static void add(long[] counts, Integer viewDurationSeconds, Integer completionPercentage, int delta) {
+        if (completionPercentage != null) {
+            counts[completionBucket(completionPercentage)] += delta;
+        }
+        if (viewDurationSeconds != null) {
+            counts[DURATION_OFFSET + durationBucket(viewDurationSeconds)] += delta;
+        }
+    }
+
+    /**
+     * Number of samples in a range. Negative counters (a removal flushed
+     * before the matching addition) count as zero.
+     *
+     * @param counts Histogram
+     * @param from   First bucket (inclusive)
+     * @param to     Last bucket (exclusive)
+     * @return Sample count
+     */
+    public static long total(long[] counts, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += Math.max(0, counts[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Smallest bucket at which the cumulative count reaches the given
+     * fraction of the samples in the range.
+     *
+     * @param counts   Histogram
+     * @param from     First bucket (inclusive)
+     * @param to       Last bucket (exclusive)
+     * @param quantile Quantile in (0, 1]
+     * @return Bucket index relative to {@code from}, or -1 if the range is empty
+     */
+    public static int percentileBucket(long[] counts, int from, int to, double quantile) {
+        long total = total(counts, from, to);
+        if (total == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long cumulative = 0;
+        for (int i = from; i < to; i++) {
+            cumulative += Math.max(0, counts[i]);
+            if (cumulative >= rank) {
+                return i - from;
+            }
+        }
+        return to - from - 1;
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.aguideptbr.features.engagement.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO for submitting several engagement events in a single request.
+ * Intended for high-volume, append-only events (VIEW, PARTIAL_VIEW, SHARE...)
+ * that clients buffer locally and send periodically.
+ */
+public class BatchEngagementRequestDTO {
+
+    public static final int MAX_EVENTS = 500;
+
+    @NotEmpty(message = "At least one event is required")
+    @Size(max = MAX_EVENTS, message = "A batch cannot contain more than " + MAX_EVENTS + " events")
+    private List<@Valid CreateEngagementDTO> events;
+
+    // Constructors
+    public BatchEngagementRequestDTO() {
+    }
+
+    public BatchEngagementRequestDTO(List<CreateEngagementDTO> events) {
+        this.events = events;
+    }
+
+    // Getters and Setters
+    public List<CreateEngagementDTO> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<CreateEngagementDTO> events) {
+        this.events = events;
+    }
+}
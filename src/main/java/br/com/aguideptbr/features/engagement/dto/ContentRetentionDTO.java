@@ -0,0 +1,116 @@
+package br.com.aguideptbr.features.engagement.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO with the retention distribution of a content: percentiles of the
+ * completion percentage and of the view duration of its ACTIVE engagements.
+ * Duration percentiles are bucket upper bounds (within 6.25% of the exact
+ * value).
+ */
+public class ContentRetentionDTO {
+
+    private UUID contentId;
+    private Percentiles completionPercentage;
+    private Percentiles viewDurationSeconds;
+    private LocalDateTime timestamp;
+
+    // Constructors
+    public ContentRetentionDTO() {
+    }
+
+    public ContentRetentionDTO(UUID contentId, Percentiles completionPercentage, Percentiles viewDurationSeconds) {
+        this.contentId = contentId;
+        this.completionPercentage = completionPercentage;
+        this.viewDurationSeconds = viewDurationSeconds;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public UUID getContentId() {
+        return contentId;
+    }
+
+    public void setContentId(UUID contentId) {
+        this.contentId = contentId;
+    }
+
+    public Percentiles getCompletionPercentage() {
+        return completionPercentage;
+    }
+
+    public void setCompletionPercentage(Percentiles completionPercentage) {
+        this.completionPercentage = completionPercentage;
+    }
+
+    public Percentiles getViewDurationSeconds() {
+        return viewDurationSeconds;
+    }
+
+    public void setViewDurationSeconds(Percentiles viewDurationSeconds) {
+        this.viewDurationSeconds = viewDurationSeconds;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Sample count and p25/p50/p90 of one metric (percentiles are null when
+     * there are no samples).
+     */
+    public static class Percentiles {
+
+        private long samples;
+        private Integer p25;
+        private Integer p50;
+        private Integer p90;
+
+        public Percentiles() {
+        }
+
+        public Percentiles(long samples, Integer p25, Integer p50, Integer p90) {
+            this.samples = samples;
+            this.p25 = p25;
+            this.p50 = p50;
+            this.p90 = p90;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        public void setSamples(long samples) {
+            this.samples = samples;
+        }
+
+        public Integer getP25() {
+            return p25;
+        }
+
+        public void setP25(Integer p25) {
+            this.p25 = p25;
+        }
+
+        public Integer getP50() {
+            return p50;
+        }
+
+        public void setP50(Integer p50) {
+            this.p50 = p50;
+        }
+
+        public Integer getP90() {
+            return p90;
+        }
+
+        public void setP90(Integer p90) {
+            this.p90 = p90;
+        }
+    }
+}
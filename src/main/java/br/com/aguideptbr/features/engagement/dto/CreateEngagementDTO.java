@@ -3,11 +3,13 @@ package br.com.aguideptbr.features.engagement.dto;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import br.com.aguideptbr.features.engagement.ContentEngagementModel;
 import br.com.aguideptbr.features.engagement.EngagementStatus;
 import br.com.aguideptbr.features.engagement.EngagementType;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 /**
  * DTO for creating new content engagement records.
@@ -56,6 +58,10 @@ public class CreateEngagementDTO {
     private LocalDateTime engagedAt;
     private LocalDateTime endedAt;
 
+    // Client-generated key; retries with the same key are dropped as duplicates
+    @Size(max = 100, message = "Idempotency key must have at most 100 characters")
+    private String idempotencyKey;
+
     // Constructors
     public CreateEngagementDTO() {
     }
@@ -68,6 +74,40 @@ public class CreateEngagementDTO {
         this.repeatCount = 1;
     }
 
+    /**
+     * Converts this DTO to a new (not yet persisted) engagement entity.
+     * Shared by the single-event endpoint and the batch ingestion writer.
+     *
+     * @return The engagement entity
+     */
+    public ContentEngagementModel toEntity() {
+        ContentEngagementModel engagement = new ContentEngagementModel();
+        engagement.userId = userId;
+        engagement.contentId = contentId;
+        engagement.engagementType = engagementType;
+        engagement.engagementStatus = engagementStatus != null ? engagementStatus : EngagementStatus.ACTIVE;
+        engagement.viewDurationSeconds = viewDurationSeconds;
+        engagement.completionPercentage = completionPercentage;
+        engagement.repeatCount = repeatCount != null ? repeatCount : 1;
+        engagement.deviceType = deviceType;
+        engagement.platform = platform;
+        engagement.source = source;
+        engagement.userIp = userIp;
+        engagement.userAgent = userAgent;
+        engagement.metadata = metadata;
+        engagement.commentText = commentText;
+        engagement.rating = rating;
+
+        if (engagedAt != null) {
+            engagement.setEngagedAt(engagedAt);
+        }
+        if (endedAt != null) {
+            engagement.setEndedAt(endedAt);
+        }
+
+        return engagement;
+    }
+
     // Getters and Setters
     public UUID getUserId() {
         return userId;
@@ -204,4 +244,12 @@ public class CreateEngagementDTO {
     public void setEndedAt(LocalDateTime endedAt) {
         this.endedAt = endedAt;
     }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
 }
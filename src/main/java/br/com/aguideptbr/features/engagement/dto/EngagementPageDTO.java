@@ -0,0 +1,60 @@
+package br.com.aguideptbr.features.engagement.dto;
+
+import java.util.List;
+
+/**
+ * One page of an engagement history, newest first.
+ * Pass {@code nextCursor} back as {@code ?cursor=} to get the next page;
+ * it is null on the last page.
+ */
+public class EngagementPageDTO {
+
+    private List<EngagementResponseDTO> engagements;
+    private String nextCursor;
+    private boolean hasMore;
+    private int limit;
+
+    // Constructors
+    public EngagementPageDTO() {
+    }
+
+    public EngagementPageDTO(List<EngagementResponseDTO> engagements, String nextCursor, int limit) {
+        this.engagements = engagements;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.limit = limit;
+    }
+
+    // Getters and Setters
+    public List<EngagementResponseDTO> getEngagements() {
+        return engagements;
+    }
+
+    public void setEngagements(List<EngagementResponseDTO> engagements) {
+        this.engagements = engagements;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -2,6 +2,8 @@ package br.com.aguideptbr.features.engagement.dto;
 
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import br.com.aguideptbr.features.engagement.EngagementStatus;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -37,6 +39,23 @@ public class UpdateEngagementDTO {
     public UpdateEngagementDTO() {
     }
 
+    /**
+     * Playback heartbeats only carry viewing progress. Those updates can be
+     * coalesced in memory instead of hitting the database on every call.
+     *
+     * @return true if only viewDurationSeconds/completionPercentage are set
+     */
+    @JsonIgnore
+    public boolean isProgressOnly() {
+        return (viewDurationSeconds != null || completionPercentage != null)
+                && engagementStatus == null
+                && repeatCount == null
+                && metadata == null
+                && commentText == null
+                && rating == null
+                && endedAt == null;
+    }
+
     // Getters and Setters
     public EngagementStatus getEngagementStatus() {
         return engagementStatus;
@@ -0,0 +1,78 @@
+package br.com.aguideptbr.features.engagement.dto;
+
+import java.util.UUID;
+
+/**
+ * DTO with the totals of a user's ACTIVE engagements.
+ * Read from user_engagement_summary, or computed in a single aggregate query
+ * when the summary row does not exist yet.
+ */
+public class UserEngagementSummaryDTO {
+
+    private UUID userId;
+    private long totalEngagements;
+    private long completionSum;
+    private long completionCount;
+    private long totalViewDurationSeconds;
+
+    // Constructors
+    public UserEngagementSummaryDTO() {
+    }
+
+    public UserEngagementSummaryDTO(UUID userId, long totalEngagements, long completionSum, long completionCount,
+            long totalViewDurationSeconds) {
+        this.userId = userId;
+        this.totalEngagements = totalEngagements;
+        this.completionSum = completionSum;
+        this.completionCount = completionCount;
+        this.totalViewDurationSeconds = totalViewDurationSeconds;
+    }
+
+    /**
+     * @return Average of the non-null completion percentages (0.0 if none)
+     */
+    public double getAverageCompletionPercentage() {
+        return completionCount > 0 ? (double) completionSum / completionCount : 0.0;
+    }
+
+    // Getters and Setters
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public long getTotalEngagements() {
+        return totalEngagements;
+    }
+
+    public void setTotalEngagements(long totalEngagements) {
+        this.totalEngagements = totalEngagements;
+    }
+
+    public long getCompletionSum() {
+        return completionSum;
+    }
+
+    public void setCompletionSum(long completionSum) {
+        this.completionSum = completionSum;
+    }
+
+    public long getCompletionCount() {
+        return completionCount;
+    }
+
+    public void setCompletionCount(long completionCount) {
+        this.completionCount = completionCount;
+    }
+
+    public long getTotalViewDurationSeconds() {
+        return totalViewDurationSeconds;
+    }
+
+    public void setTotalViewDurationSeconds(long totalViewDurationSeconds) {
+        this.totalViewDurationSeconds = totalViewDurationSeconds;
+    }
+}
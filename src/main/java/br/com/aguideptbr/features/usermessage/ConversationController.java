@@ -1,20 +1,22 @@
 package br.com.aguideptbr.features.usermessage;
 
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import org.jboss.logging.Logger;
 
+import br.com.aguideptbr.features.usermessage.ConversationRepository.InboxFilter;
 import br.com.aguideptbr.features.usermessage.dto.ClearConversationResponse;
 import br.com.aguideptbr.features.usermessage.dto.ConversationDetailResponse;
-import br.com.aguideptbr.features.usermessage.dto.ConversationSummaryDTO;
+import br.com.aguideptbr.features.usermessage.dto.ConversationPageResponse;
 import br.com.aguideptbr.features.usermessage.dto.CreateDirectConversationRequest;
 import br.com.aguideptbr.features.usermessage.dto.CreateGroupRequest;
 import br.com.aguideptbr.features.usermessage.dto.MuteStatusResponse;
+import br.com.aguideptbr.features.usermessage.dto.ReadStatusResponse;
 import br.com.aguideptbr.util.SecurityUtils;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.validation.Valid;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.DefaultValue;
@@ -35,10 +37,13 @@ import jakarta.ws.rs.core.Response;
  * Endpoints:
  * - POST /api/v1/conversations/direct - Criar conversa direta (1-1)
  * - POST /api/v1/conversations/group - Criar grupo
- * - GET /api/v1/conversations - Listar conversas do usuário (inbox)
+ * - GET /api/v1/conversations - Listar conversas do usuário (inbox, paginado
+ * por cursor, com filtros)
  * - GET /api/v1/conversations/{conversationId} - Detalhes da conversa
  * - PUT /api/v1/conversations/{conversationId}/archive - Arquivar/desarquivar
  * - PUT /api/v1/conversations/{conversationId}/pin - Fixar/desfixar
+ * - PUT /api/v1/conversations/{conversationId}/read?upTo= - Marcar como lidas
+ * até uma mensagem
  * - POST /api/v1/conversations/{conversationId}/participants - Adicionar
  * participante
  * - DELETE /api/v1/conversations/{conversationId}/participants/{userId} -
@@ -122,24 +127,43 @@ public class ConversationController {
     }
 
     /**
-     * Lista conversas do usuário (inbox).
+     * Lista conversas do usuário (inbox), paginadas por cursor.
      *
-     * GET /api/v1/conversations?includeArchived=false
+     * GET /api/v1/conversations?includeArchived=false&unreadOnly=false
+     * &type=GROUP&muted=false&size=30&cursor=...
+     *
+     * {@code type} e {@code muted} são opcionais (ausentes = sem filtro). Para a
+     * próxima página, reenvie os mesmos filtros com {@code cursor=nextCursor}.
      */
     @GET
     @RolesAllowed({ "USER", "ADMIN", "FREE", "PREMIUM_USER", "CHANNEL_OWNER", "MANAGER" })
     public Response getUserConversations(
             @QueryParam("includeArchived") @DefaultValue("false") boolean includeArchived,
+            @QueryParam("unreadOnly") @DefaultValue("false") boolean unreadOnly,
+            @QueryParam("type") ConversationType type,
+            @QueryParam("muted") Boolean muted,
+            @QueryParam("size") @DefaultValue("30") int size,
+            @QueryParam("cursor") String cursor,
             @HeaderParam("Authorization") String authHeader) {
 
-        log.infof("GET /api/v1/conversations - includeArchived=%b", includeArchived);
+        log.infof("GET /api/v1/conversations - includeArchived=%b, unreadOnly=%b, type=%s, muted=%s, size=%d",
+                includeArchived, unreadOnly, type, muted, size);
+
+        if (size < 1 || size > 100) {
+            log.warnf("Invalid inbox page size: %d", size);
+            throw new BadRequestException("Size must be between 1 and 100");
+        }
 
         UUID userId = SecurityUtils.extractUserIdFromToken(authHeader);
 
-        List<ConversationSummaryDTO> response = conversationService.getUserConversationSummaries(userId,
-                includeArchived);
+        ConversationPageResponse response = conversationService.getUserConversationPage(
+                userId,
+                new InboxFilter(includeArchived, unreadOnly, type, muted),
+                ConversationCursor.decode(cursor),
+                size);
 
-        log.infof("Found %d conversations for user %s", response.size(), userId);
+        log.infof("Found %d conversations for user %s (hasMore=%b)",
+                response.getConversations().size(), userId, response.isHasMore());
         return Response.ok(response).build();
     }
 
@@ -267,6 +291,43 @@ public class ConversationController {
         return Response.ok(responseBody).build();
     }
 
+    /**
+     * Marca como lidas todas as mensagens da conversa até {@code upTo}
+     * (inclusive), avançando o marco de leitura do usuário. Substitui N chamadas
+     * a PUT /messages/{id}/read ao abrir uma conversa.
+     *
+     * PUT /api/v1/conversations/{conversationId}/read?upTo={messageId}
+     * Resposta: { "conversationId", "lastReadMessageId", "lastReadAt",
+     * "unreadCount" }
+     */
+    @PUT
+    @Path("/{conversationId}/read")
+    @RolesAllowed({ "USER", "ADMIN", "FREE", "PREMIUM_USER", "CHANNEL_OWNER", "MANAGER" })
+    public Response markReadUpTo(
+            @PathParam("conversationId") UUID conversationId,
+            @QueryParam("upTo") UUID upToMessageId,
+            @HeaderParam("Authorization") String authHeader) {
+
+        log.infof("PUT /api/v1/conversations/%s/read - upTo=%s", conversationId, upToMessageId);
+
+        if (upToMessageId == null) {
+            throw new BadRequestException("Parâmetro upTo é obrigatório");
+        }
+
+        UUID userId = SecurityUtils.extractUserIdFromToken(authHeader);
+
+        ConversationParticipantModel participant = conversationService.markReadUpTo(conversationId, userId,
+                upToMessageId);
+
+        ReadStatusResponse responseBody = new ReadStatusResponse(
+                conversationId,
+                participant.lastReadMessage != null ? participant.lastReadMessage.id : null,
+                participant.lastReadAt,
+                participant.unreadCount);
+
+        return Response.ok(responseBody).build();
+    }
+
     /**
      * Adiciona um participante ao grupo.
      *
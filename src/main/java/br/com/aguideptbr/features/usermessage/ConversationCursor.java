@@ -0,0 +1,76 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Posição no inbox paginado, ordenado por (is_pinned, last_activity_at,
+ * conversation_id) decrescente no participante (idx_participant_inbox,
+ * V1.0.39).
+ *
+ * Conversas que recebem mensagens enquanto o cliente pagina sobem para o
+ * topo e não reaparecem nas páginas seguintes; o cliente as recebe pelo SSE
+ * ou ao recarregar a primeira página. O cursor é uma string Base64URL opaca
+ * ({@code nextCursor}) reenviada em {@code ?cursor=} com os mesmos filtros.
+ */
+public final class ConversationCursor {
+
+    private final boolean pinned;
+    private final LocalDateTime lastActivityAt;
+    private final UUID conversationId;
+
+    public ConversationCursor(boolean pinned, LocalDateTime lastActivityAt, UUID conversationId) {
+        this.pinned = pinned;
+        this.lastActivityAt = lastActivityAt;
+        this.conversationId = conversationId;
+    }
+
+    /**
+     * @return Representação opaca enviada ao cliente
+     */
+    public String encode() {
+        String raw = (pinned ? "1" : "0") + "|" + lastActivityAt + "|" + conversationId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Interpreta o cursor recebido do cliente.
+     *
+     * @param value Cursor opaco; vazio significa "primeira página"
+     * @return Cursor, ou null para a primeira página
+     * @throws BadRequestException se o cursor for inválido
+     */
+    public static ConversationCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !(parts[0].equals("0") || parts[0].equals("1"))) {
+                throw new IllegalArgumentException("Unexpected cursor layout");
+            }
+            return new ConversationCursor(
+                    parts[0].equals("1"),
+                    LocalDateTime.parse(parts[1]),
+                    UUID.fromString(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor de conversas inválido");
+        }
+    }
+
+    public boolean isPinned() {
+        return pinned;
+    }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    public UUID getConversationId() {
+        return conversationId;
+    }
+}
@@ -0,0 +1,209 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+/**
+ * Índice em memória (por nó) dos participantes ativos de cada conversa, com
+ * os papéis em bits. Substitui os COUNTs de isUserParticipant / isUserAdmin /
+ * isUserCreator nas checagens de autorização.
+ *
+ * - Carregado sob demanda: uma consulta por conversa na primeira checagem.
+ * - Cada conversa guarda os ids ordenados em um long[] (2 longs por UUID) e
+ * um byte de papéis por membro; busca binária, sem objetos por membro.
+ * - Invalidado por {@link ConversationMembershipEvent} após o fim da
+ * transação (commit ou rollback) e, nos demais nós, via
+ * {@link MessageNotifyBridge}.
+ * - Uma carga concorrente com uma invalidação não é guardada (contador de
+ * gerações), para não reter um estado anterior ao commit.
+ */
+@ApplicationScoped
+public class ConversationMembershipCache {
+
+    static final byte MEMBER = 1;
+    static final byte ADMIN = 2;
+    static final byte CREATOR = 4;
+
+    private static final Comparator<UUID> ORDER = Comparator
+            .comparingLong(UUID::getMostSignificantBits)
+            .thenComparingLong(UUID::getLeastSignificantBits);
+
+    /**
+     * Membros ativos de uma conversa: ids ordenados (msb, lsb intercalados) e
+     * papéis na mesma posição.
+     */
+    static final class Members {
+
+        private final long[] ids;
+        private final byte[] roles;
+
+        Members(long[] ids, byte[] roles) {
+            this.ids = ids;
+            this.roles = roles;
+        }
+
+        byte rolesOf(UUID userId) {
+            int low = 0;
+            int high = roles.length - 1;
+            long msb = userId.getMostSignificantBits();
+            long lsb = userId.getLeastSignificantBits();
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Long.compare(ids[2 * mid], msb);
+                if (cmp == 0) {
+                    cmp = Long.compare(ids[2 * mid + 1], lsb);
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return roles[mid];
+                }
+            }
+            return 0;
+        }
+
+        UUID userIdAt(int index) {
+            return new UUID(ids[2 * index], ids[2 * index + 1]);
+        }
+
+        int size() {
+            return roles.length;
+        }
+    }
+
+    private final Map<UUID, Members> conversations = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ConversationParticipantRepository participantRepository;
+    private final int maxConversations;
+
+    public ConversationMembershipCache(
+            ConversationParticipantRepository participantRepository,
+            @ConfigProperty(name = "messaging.membership-cache.max-conversations", defaultValue = "20000") int maxConversations) {
+        this.participantRepository = participantRepository;
+        this.maxConversations = maxConversations;
+    }
+
+    /**
+     * @return true se o usuário é participante ativo da conversa
+     */
+    public boolean isParticipant(UUID userId, UUID conversationId) {
+        return (members(conversationId).rolesOf(userId) & MEMBER) != 0;
+    }
+
+    /**
+     * @return true se o usuário é administrador ativo da conversa
+     */
+    public boolean isAdmin(UUID userId, UUID conversationId) {
+        return (members(conversationId).rolesOf(userId) & ADMIN) != 0;
+    }
+
+    /**
+     * @return true se o usuário é criador (e ainda participa) da conversa
+     */
+    public boolean isCreator(UUID userId, UUID conversationId) {
+        return (members(conversationId).rolesOf(userId) & CREATOR) != 0;
+    }
+
+    /**
+     * @return true se o usuário é administrador ou criador da conversa
+     */
+    public boolean isAdminOrCreator(UUID userId, UUID conversationId) {
+        return (members(conversationId).rolesOf(userId) & (ADMIN | CREATOR)) != 0;
+    }
+
+    /**
+     * @return IDs dos participantes ativos da conversa
+     */
+    public List<UUID> memberIds(UUID conversationId) {
+        Members members = members(conversationId);
+        List<UUID> ids = new ArrayList<>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            ids.add(members.userIdAt(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Descarta a entrada de uma conversa (recarregada na próxima checagem).
+     *
+     * @param conversationId ID da conversa
+     */
+    public void invalidate(UUID conversationId) {
+        generation.incrementAndGet();
+        conversations.remove(conversationId);
+    }
+
+    /**
+     * Descarta todas as entradas.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        conversations.clear();
+    }
+
+    void onMembershipChanged(
+            @Observes(during = TransactionPhase.AFTER_COMPLETION) ConversationMembershipEvent event) {
+        invalidate(event.conversationId());
+    }
+
+    private Members members(UUID conversationId) {
+        Members cached = conversations.get(conversationId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedAt = generation.get();
+        Members loaded = load(conversationId);
+        if (generation.get() == loadedAt) {
+            evictIfFull();
+            conversations.put(conversationId, loaded);
+        }
+        return loaded;
+    }
+
+    private Members load(UUID conversationId) {
+        List<Object[]> rows = participantRepository.findActiveMemberRoles(conversationId);
+        Object[][] sorted = rows.toArray(Object[][]::new);
+        Arrays.sort(sorted, (a, b) -> ORDER.compare((UUID) a[0], (UUID) b[0]));
+
+        long[] ids = new long[sorted.length * 2];
+        byte[] roles = new byte[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            UUID userId = (UUID) sorted[i][0];
+            ids[2 * i] = userId.getMostSignificantBits();
+            ids[2 * i + 1] = userId.getLeastSignificantBits();
+            byte bits = MEMBER;
+            if (Boolean.TRUE.equals(sorted[i][1])) {
+                bits |= ADMIN;
+            }
+            if (Boolean.TRUE.equals(sorted[i][2])) {
+                bits |= CREATOR;
+            }
+            roles[i] = bits;
+        }
+        return new Members(ids, roles);
+    }
+
+    private void evictIfFull() {
+        Iterator<UUID> iterator = conversations.keySet().iterator();
+        while (conversations.size() >= maxConversations && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.util.UUID;
+
+/**
+ * Evento CDI disparado quando os participantes ativos de uma conversa ou seus
+ * papéis (admin/criador) mudam. Invalida o {@link ConversationMembershipCache}
+ * deste nó após a transação e dos demais nós via NOTIFY.
+ *
+ * @param conversationId Conversa alterada
+ */
+public record ConversationMembershipEvent(UUID conversationId) {
+}
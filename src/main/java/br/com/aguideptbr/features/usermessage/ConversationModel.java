@@ -68,6 +68,14 @@ public class ConversationModel extends PanacheEntityBase {
     @Column(name = "conversation_type", length = 20, nullable = false)
     public ConversationType conversationType = ConversationType.DIRECT;
 
+    /**
+     * Chave do par de usuários de uma conversa DIRECT (ver
+     * {@link #directPairKey(UUID, UUID)}); null para grupos e canais.
+     * Única entre conversas ativas (V1.0.37).
+     */
+    @Column(name = "direct_pair_key", length = 73, updatable = false)
+    public String directPairKey;
+
     /**
      * Data da última mensagem enviada nesta conversa.
      * Atualizado automaticamente ao enviar mensagem.
@@ -128,6 +136,21 @@ public class ConversationModel extends PanacheEntityBase {
 
     // ========== Métodos de Negócio ==========
 
+    /**
+     * Chave canônica de uma conversa direta: os dois ids em ordem textual,
+     * separados por ':'. A mesma ordem do PostgreSQL para uuid::text, usada na
+     * carga da V1.0.37.
+     *
+     * @param user1Id ID de um usuário
+     * @param user2Id ID do outro usuário
+     * @return Chave independente da ordem dos argumentos
+     */
+    public static String directPairKey(UUID user1Id, UUID user2Id) {
+        String first = user1Id.toString();
+        String second = user2Id.toString();
+        return first.compareTo(second) <= 0 ? first + ":" + second : second + ":" + first;
+    }
+
     /**
      * Verifica se é uma conversa direta (1-1).
      */
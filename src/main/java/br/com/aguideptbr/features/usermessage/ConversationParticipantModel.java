@@ -15,6 +15,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 /**
@@ -64,6 +65,14 @@ public class ConversationParticipantModel extends PanacheEntityBase {
     @Column(name = "last_read_at")
     public LocalDateTime lastReadAt;
 
+    /**
+     * Envio (sentAt) da última mensagem lida: o marco de leitura. Mensagens
+     * com sentAt posterior são não lidas. Independe da linha da mensagem, que
+     * pode ter sido arquivada.
+     */
+    @Column(name = "last_read_sent_at")
+    public LocalDateTime lastReadSentAt;
+
     /**
      * Se true, este usuário é administrador da conversa.
      * Aplicável apenas para grupos e canais.
@@ -114,6 +123,23 @@ public class ConversationParticipantModel extends PanacheEntityBase {
     @Column(name = "cleared_at")
     public LocalDateTime clearedAt;
 
+    /**
+     * Mensagens de outros participantes ainda não lidas por este usuário.
+     * Mantido apenas por UPDATEs atômicos em ConversationParticipantRepository
+     * (updatable = false evita que o flush da entidade sobrescreva o contador).
+     */
+    @Column(name = "unread_count", nullable = false, updatable = false)
+    public int unreadCount = 0;
+
+    /**
+     * Envio da última mensagem da conversa (cópia de
+     * ConversationModel.lastMessageAt), ou a entrada enquanto não há mensagens.
+     * Ordena o inbox paginado (idx_participant_inbox, V1.0.39). Mantido por
+     * UPDATEs atômicos em ConversationParticipantRepository.
+     */
+    @Column(name = "last_activity_at", nullable = false, updatable = false)
+    public LocalDateTime lastActivityAt;
+
     /**
      * Data de entrada do usuário na conversa.
      */
@@ -130,6 +156,15 @@ public class ConversationParticipantModel extends PanacheEntityBase {
     @Column(name = "left_at")
     public LocalDateTime leftAt;
 
+    @PrePersist
+    protected void onCreate() {
+        if (lastActivityAt == null) {
+            lastActivityAt = conversation != null && conversation.lastMessageAt != null
+                    ? conversation.lastMessageAt
+                    : LocalDateTime.now();
+        }
+    }
+
     // ========== Métodos de Negócio ==========
 
     /**
@@ -158,6 +193,7 @@ public class ConversationParticipantModel extends PanacheEntityBase {
      */
     public void markAsRead(UserMessageModel message) {
         this.lastReadMessage = message;
+        this.lastReadSentAt = message.sentAt;
         this.lastReadAt = LocalDateTime.now();
     }
 
@@ -1,5 +1,6 @@
 package br.com.aguideptbr.features.usermessage;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -34,6 +35,22 @@ public class ConversationParticipantRepository implements PanacheRepositoryBase<
         return list("conversation.id = ?1 and leftAt is null", conversationId);
     }
 
+    /**
+     * Lista os participantes ativos de uma conversa com seus papéis.
+     * Usado para carregar o ConversationMembershipCache.
+     *
+     * @param conversationId ID da conversa
+     * @return Linhas (userId, isAdmin, isCreator)
+     */
+    public List<Object[]> findActiveMemberRoles(UUID conversationId) {
+        return getEntityManager().createQuery(
+                "SELECT p.user.id, p.isAdmin, p.isCreator FROM ConversationParticipantModel p "
+                        + "WHERE p.conversation.id = ?1 AND p.leftAt IS NULL",
+                Object[].class)
+                .setParameter(1, conversationId)
+                .getResultList();
+    }
+
     /**
      * Verifica se um usuário é participante de uma conversa.
      *
@@ -95,7 +112,7 @@ public class ConversationParticipantRepository implements PanacheRepositoryBase<
                 "  WHERE m.conversation.id = p.conversation.id " +
                 "  AND m.sender.id != ?1 " +
                 "  AND m.deletedAt IS NULL " +
-                "  AND (p.lastReadMessage IS NULL OR m.sentAt > p.lastReadAt)" +
+                "  AND (p.lastReadSentAt IS NULL OR m.sentAt > p.lastReadSentAt)" +
                 ")", userId);
     }
 
@@ -145,4 +162,139 @@ public class ConversationParticipantRepository implements PanacheRepositoryBase<
                 conversationId, currentUserId)
                 .firstResult();
     }
+
+    // ========== Contador de não lidas (unread_count) ==========
+
+    /**
+     * Soma as mensagens não lidas de um usuário em todas as conversas ativas.
+     *
+     * @param userId ID do usuário
+     * @return Total de mensagens não lidas
+     */
+    public long sumUnreadCount(UUID userId) {
+        Number total = (Number) getEntityManager().createNativeQuery("""
+                SELECT COALESCE(SUM(p.unread_count), 0)
+                FROM app_conversation_participant p
+                JOIN app_conversation c ON c.id = p.conversation_id
+                WHERE p.user_id = :userId
+                  AND p.left_at IS NULL
+                  AND p.unread_count > 0
+                  AND c.deleted_at IS NULL
+                """)
+                .setParameter("userId", userId)
+                .getSingleResult();
+        return total.longValue();
+    }
+
+    /**
+     * Lê o contador de não lidas de um participante.
+     *
+     * @param userId         ID do usuário
+     * @param conversationId ID da conversa
+     * @return Mensagens não lidas (0 se não participa)
+     */
+    public long findUnreadCount(UUID userId, UUID conversationId) {
+        List<Integer> counts = getEntityManager().createQuery(
+                "SELECT p.unreadCount FROM ConversationParticipantModel p "
+                        + "WHERE p.user.id = ?1 AND p.conversation.id = ?2 AND p.leftAt IS NULL",
+                Integer.class)
+                .setParameter(1, userId)
+                .setParameter(2, conversationId)
+                .getResultList();
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    /**
+     * Registra mensagens enviadas em um único UPDATE dos participantes ativos:
+     * incrementa o contador de não lidas de todos menos o remetente e avança
+     * last_activity_at (ordem do inbox), sem nunca retrocedê-lo.
+     *
+     * @param conversationId ID da conversa
+     * @param senderId       ID do remetente (contador não é incrementado)
+     * @param messages       Quantidade de mensagens do remetente
+     * @param lastSentAt     Envio da mensagem mais recente
+     * @return Número de participantes atualizados
+     */
+    public int recordMessagesSent(UUID conversationId, UUID senderId, int messages, LocalDateTime lastSentAt) {
+        return update("unreadCount = unreadCount + CASE WHEN user.id = ?2 THEN 0 ELSE ?3 END, "
+                + "lastActivityAt = CASE WHEN lastActivityAt < ?4 THEN ?4 ELSE lastActivityAt END "
+                + "WHERE conversation.id = ?1 AND leftAt IS NULL",
+                conversationId, senderId, messages, lastSentAt);
+    }
+
+    /**
+     * Decrementa o contador de quem ainda não havia lido uma mensagem excluída,
+     * com a mesma regra do recálculo em {@link #advanceReadWatermark}: enviada
+     * depois do marco de leitura (last_read_sent_at) e da limpeza.
+     *
+     * @param conversationId ID da conversa
+     * @param senderId       ID do remetente da mensagem
+     * @param sentAt         Envio da mensagem excluída
+     * @return Número de participantes atualizados
+     */
+    public int decrementUnreadCount(UUID conversationId, UUID senderId, LocalDateTime sentAt) {
+        return update("unreadCount = unreadCount - 1 "
+                + "WHERE conversation.id = ?1 AND user.id != ?2 AND leftAt IS NULL AND unreadCount > 0 "
+                + "AND (lastReadSentAt IS NULL OR lastReadSentAt < ?3) AND (clearedAt IS NULL OR clearedAt < ?3)",
+                conversationId, senderId, sentAt);
+    }
+
+    /**
+     * Zera o contador de um participante (ex.: limpeza do histórico).
+     *
+     * @param userId         ID do usuário
+     * @param conversationId ID da conversa
+     */
+    public void resetUnreadCount(UUID userId, UUID conversationId) {
+        update("unreadCount = 0 WHERE user.id = ?1 AND conversation.id = ?2", userId, conversationId);
+    }
+
+    /**
+     * Avança o marco de leitura (last_read_message_id / last_read_sent_at) até
+     * a mensagem informada e recalcula unread_count, em um único UPDATE.
+     *
+     * O marco só anda para frente: se o participante já leu uma mensagem
+     * posterior, nada muda. Mensagens de outra conversa são ignoradas.
+     *
+     * @param userId         ID do usuário
+     * @param conversationId ID da conversa
+     * @param upToMessageId  Última mensagem lida
+     * @return 1 se o marco avançou, 0 caso contrário
+     */
+    public int advanceReadWatermark(UUID userId, UUID conversationId, UUID upToMessageId) {
+        return getEntityManager().createNativeQuery("""
+                UPDATE app_conversation_participant p
+                SET last_read_message_id = m.id,
+                    last_read_sent_at = m.sent_at,
+                    last_read_at = CURRENT_TIMESTAMP,
+                    unread_count = (
+                        SELECT COUNT(*)
+                        FROM app_user_message x
+                        WHERE x.conversation_id = p.conversation_id
+                          AND x.sender_id <> p.user_id
+                          AND x.deleted_at IS NULL
+                          AND x.sent_at > m.sent_at
+                          AND (p.cleared_at IS NULL OR x.sent_at > p.cleared_at))
+                FROM app_user_message m
+                WHERE m.id = :messageId
+                  AND m.conversation_id = :conversationId
+                  AND p.conversation_id = :conversationId
+                  AND p.user_id = :userId
+                  AND p.left_at IS NULL
+                  AND (p.last_read_sent_at IS NULL OR m.sent_at > p.last_read_sent_at)
+                """)
+                .setParameter("messageId", upToMessageId)
+                .setParameter("conversationId", conversationId)
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
+    /**
+     * Recarrega o participante do banco (após UPDATEs nativos).
+     *
+     * @param participant Participante gerenciado
+     */
+    public void refresh(ConversationParticipantModel participant) {
+        getEntityManager().refresh(participant);
+    }
 }
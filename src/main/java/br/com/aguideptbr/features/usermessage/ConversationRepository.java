@@ -1,10 +1,14 @@
 package br.com.aguideptbr.features.usermessage;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import br.com.aguideptbr.features.usermessage.dto.ConversationSummaryDTO;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Query;
 
 /**
  * Repository para operações de banco de dados com conversas.
@@ -14,37 +18,134 @@ import jakarta.enterprise.context.ApplicationScoped;
 public class ConversationRepository implements PanacheRepositoryBase<ConversationModel, UUID> {
 
     /**
-     * Busca conversas de um usuário (via participantes), ordenadas por última
-     * mensagem.
+     * Filtros do inbox paginado.
      *
-     * @param userId ID do usuário
-     * @return Lista de conversas do usuário
+     * @param includeArchived true para incluir conversas arquivadas
+     * @param unreadOnly      true para apenas conversas com não lidas
+     * @param type            Tipo da conversa, ou null para todos
+     * @param muted           true/false para silenciadas ou não, null para ambas
      */
-    public List<ConversationModel> findByUserId(UUID userId) {
-        return find("SELECT c FROM ConversationModel c " +
-                "JOIN c.participants p " +
-                "WHERE p.user.id = ?1 " +
-                "AND p.leftAt IS NULL " +
-                "AND c.deletedAt IS NULL " +
-                "ORDER BY p.isPinned DESC, c.lastMessageAt DESC NULLS LAST", userId)
-                .list();
+    public record InboxFilter(boolean includeArchived, boolean unreadOnly, ConversationType type, Boolean muted) {
     }
 
     /**
-     * Busca conversas ativas de um usuário (não arquivadas).
+     * Conversa do inbox com a posição usada como cursor.
+     *
+     * @param summary  Summary exibido no inbox
+     * @param position Posição desta linha na ordem do inbox
+     */
+    public record InboxEntry(ConversationSummaryDTO summary, ConversationCursor position) {
+    }
+
+    /**
+     * Busca uma página do inbox de um usuário.
+     *
+     * A página é lida por keyset em idx_participant_inbox (ou
+     * idx_participant_inbox_unread com {@code unreadOnly}), na ordem
+     * (is_pinned, last_activity_at, conversation_id) decrescente, e só então
+     * última mensagem e nome do outro participante em conversas DIRECT são
+     * resolvidos com LEFT JOIN LATERAL, para as linhas da página apenas.
+     * O contador de não lidas vem da coluna unread_count do participante.
      *
      * @param userId ID do usuário
-     * @return Lista de conversas ativas
+     * @param filter Filtros do inbox
+     * @param after  Cursor da última conversa da página anterior, ou null
+     * @param limit  Tamanho da página
+     * @return Até {@code limit + 1} conversas (a extra indica que há mais)
      */
-    public List<ConversationModel> findActiveByUserId(UUID userId) {
-        return find("SELECT c FROM ConversationModel c " +
-                "JOIN c.participants p " +
-                "WHERE p.user.id = ?1 " +
-                "AND p.leftAt IS NULL " +
-                "AND p.isArchived = false " +
-                "AND c.deletedAt IS NULL " +
-                "ORDER BY p.isPinned DESC, c.lastMessageAt DESC NULLS LAST", userId)
-                .list();
+    public List<InboxEntry> findInboxPage(UUID userId, InboxFilter filter, ConversationCursor after, int limit) {
+        String filters = (filter.includeArchived() ? "" : "AND p.is_archived = FALSE ")
+                + (filter.unreadOnly() ? "AND p.unread_count > 0 " : "")
+                + (filter.type() != null ? "AND c.conversation_type = :type " : "")
+                + (filter.muted() != null ? "AND p.is_muted = :muted " : "")
+                + (after != null
+                        ? "AND (p.is_pinned, p.last_activity_at, p.conversation_id) "
+                                + "< (:afterPinned, :afterActivityAt, :afterId) "
+                        : "");
+
+        Query query = getEntityManager().createNativeQuery("""
+                WITH page AS (
+                    SELECT p.conversation_id, p.user_id, p.is_pinned, p.is_archived, p.unread_count,
+                           p.last_activity_at
+                    FROM app_conversation_participant p
+                    JOIN app_conversation c ON c.id = p.conversation_id
+                    WHERE p.user_id = :userId
+                      AND p.left_at IS NULL
+                      AND c.deleted_at IS NULL
+                      %s
+                    ORDER BY p.is_pinned DESC, p.last_activity_at DESC, p.conversation_id DESC
+                    LIMIT :limit
+                )
+                SELECT c.id, c.name, c.conversation_type, c.icon_url, c.last_message_at, c.created_at,
+                       page.is_pinned, page.is_archived,
+                       last_message.preview,
+                       page.unread_count,
+                       other.name, other.surname,
+                       page.last_activity_at
+                FROM page
+                JOIN app_conversation c ON c.id = page.conversation_id
+                LEFT JOIN LATERAL (
+                    SELECT LEFT(m.txt_content, 100) AS preview
+                    FROM app_user_message m
+                    WHERE m.conversation_id = c.id AND m.deleted_at IS NULL
+                    ORDER BY m.sent_at DESC
+                    LIMIT 1
+                ) last_message ON TRUE
+                LEFT JOIN LATERAL (
+                    SELECT u.name, u.surname
+                    FROM app_conversation_participant op
+                    JOIN app_user u ON u.id = op.user_id
+                    WHERE c.conversation_type = 'DIRECT'
+                      AND op.conversation_id = c.id
+                      AND op.user_id <> page.user_id
+                      AND op.left_at IS NULL
+                    LIMIT 1
+                ) other ON TRUE
+                ORDER BY page.is_pinned DESC, page.last_activity_at DESC, page.conversation_id DESC
+                """.formatted(filters))
+                .setParameter("userId", userId)
+                .setParameter("limit", limit + 1);
+        if (filter.type() != null) {
+            query.setParameter("type", filter.type().name());
+        }
+        if (filter.muted() != null) {
+            query.setParameter("muted", filter.muted());
+        }
+        if (after != null) {
+            query.setParameter("afterPinned", after.isPinned())
+                    .setParameter("afterActivityAt", after.getLastActivityAt())
+                    .setParameter("afterId", after.getConversationId());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        return rows.stream()
+                .map(row -> new InboxEntry(toSummary(row),
+                        new ConversationCursor((Boolean) row[6], toLocalDateTime(row[12]), (UUID) row[0])))
+                .toList();
+    }
+
+    private static ConversationSummaryDTO toSummary(Object[] row) {
+        ConversationSummaryDTO dto = new ConversationSummaryDTO();
+        dto.setId((UUID) row[0]);
+        dto.setName((String) row[1]);
+        dto.setType(ConversationType.valueOf((String) row[2]));
+        dto.setIconUrl((String) row[3]);
+        dto.setLastMessageAt(toLocalDateTime(row[4]));
+        dto.setCreatedAt(toLocalDateTime(row[5]));
+        dto.setIsPinned((Boolean) row[6]);
+        dto.setIsArchived((Boolean) row[7]);
+        dto.setLastMessagePreview((String) row[8]);
+        dto.setUnreadCount(((Number) row[9]).longValue());
+        if (row[10] != null) {
+            // Mesmo formato de UserModel.getFullName()
+            dto.setDisplayName(row[10] + " " + row[11]);
+        }
+        return dto;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
     }
 
     /**
@@ -55,18 +156,34 @@ public class ConversationRepository implements PanacheRepositoryBase<Conversatio
      * @return Conversa existente ou null
      */
     public ConversationModel findDirectConversation(UUID user1Id, UUID user2Id) {
-        return find("SELECT c FROM ConversationModel c " +
-                "WHERE c.conversationType = ?1 " +
-                "AND c.deletedAt IS NULL " +
-                "AND EXISTS (SELECT p1 FROM ConversationParticipantModel p1 WHERE p1.conversation.id = c.id AND p1.user.id = ?2) "
-                +
-                "AND EXISTS (SELECT p2 FROM ConversationParticipantModel p2 WHERE p2.conversation.id = c.id AND p2.user.id = ?3) "
-                +
-                "AND (SELECT COUNT(p) FROM ConversationParticipantModel p WHERE p.conversation.id = c.id AND p.leftAt IS NULL) = 2",
-                ConversationType.DIRECT, user1Id, user2Id)
+        // Uma leitura no índice único idx_conversation_direct_pair_key
+        return find("directPairKey = ?1 and deletedAt is null", ConversationModel.directPairKey(user1Id, user2Id))
                 .firstResult();
     }
 
+    /**
+     * Cria a conversa DIRECT de um par de usuários, a menos que outra
+     * transação já a tenha criado (INSERT ... ON CONFLICT DO NOTHING no índice
+     * único de direct_pair_key). Se houver uma criação concorrente ainda não
+     * confirmada, o INSERT aguarda o commit dela.
+     *
+     * @param user1Id ID do primeiro usuário
+     * @param user2Id ID do segundo usuário
+     * @return ID da conversa criada, ou null se o par já tinha conversa ativa
+     */
+    public UUID insertDirectConversationIfAbsent(UUID user1Id, UUID user2Id) {
+        @SuppressWarnings("unchecked")
+        List<UUID> ids = getEntityManager().createNativeQuery("""
+                INSERT INTO app_conversation (id, conversation_type, direct_pair_key)
+                VALUES (gen_random_uuid(), 'DIRECT', :pairKey)
+                ON CONFLICT (direct_pair_key) WHERE deleted_at IS NULL DO NOTHING
+                RETURNING id
+                """)
+                .setParameter("pairKey", ConversationModel.directPairKey(user1Id, user2Id))
+                .getResultList();
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
     /**
      * Busca conversas pelo nome (para grupos e canais).
      *
@@ -96,6 +213,20 @@ public class ConversationRepository implements PanacheRepositoryBase<Conversatio
         return find("id = ?1 and deletedAt is null", conversationId).firstResult();
     }
 
+    /**
+     * Avança last_message_at sem carregar a conversa (envio em lote). Nunca
+     * retrocede o valor já gravado.
+     *
+     * @param conversationId ID da conversa
+     * @param lastMessageAt  Envio da mensagem mais recente do lote
+     * @return 1 se a conversa foi atualizada, 0 caso contrário
+     */
+    public int advanceLastMessageAt(UUID conversationId, LocalDateTime lastMessageAt) {
+        return update("lastMessageAt = ?2, updatedAt = ?3 "
+                + "WHERE id = ?1 AND (lastMessageAt IS NULL OR lastMessageAt < ?2)",
+                conversationId, lastMessageAt, LocalDateTime.now());
+    }
+
     /**
      * Busca conversa com participantes carregados (eager loading).
      * Também carrega o {@code user} de cada participante via JOIN FETCH para
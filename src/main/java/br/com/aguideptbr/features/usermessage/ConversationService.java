@@ -8,8 +8,11 @@ import java.util.UUID;
 import org.jboss.logging.Logger;
 
 import br.com.aguideptbr.features.user.UserModel;
-import br.com.aguideptbr.features.usermessage.dto.ConversationSummaryDTO;
+import br.com.aguideptbr.features.usermessage.ConversationRepository.InboxEntry;
+import br.com.aguideptbr.features.usermessage.ConversationRepository.InboxFilter;
+import br.com.aguideptbr.features.usermessage.dto.ConversationPageResponse;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
@@ -24,7 +27,7 @@ import jakarta.ws.rs.NotFoundException;
  * - Gerenciamento de participantes (adicionar/remover)
  * - Arquivamento e fixação de conversas (por usuário)
  * - Listagem de conversas (inbox)
- * - Contadores de mensagens não lidas
+ * - Contadores de mensagens não lidas e marco de leitura
  * - Validação de permissões
  */
 @ApplicationScoped
@@ -33,7 +36,9 @@ public class ConversationService {
     private final ConversationRepository conversationRepository;
     private final ConversationParticipantRepository participantRepository;
     private final UserMessageRepository messageRepository;
-    private final UserBlockRepository blockRepository;
+    private final ConversationMembershipCache membershipCache;
+    private final UserBlockGraphCache blockGraph;
+    private final Event<ConversationMembershipEvent> membershipEvents;
     private final Logger log;
 
     @Inject
@@ -41,12 +46,16 @@ public class ConversationService {
             ConversationRepository conversationRepository,
             ConversationParticipantRepository participantRepository,
             UserMessageRepository messageRepository,
-            UserBlockRepository blockRepository,
+            ConversationMembershipCache membershipCache,
+            UserBlockGraphCache blockGraph,
+            Event<ConversationMembershipEvent> membershipEvents,
             Logger log) {
         this.conversationRepository = conversationRepository;
         this.participantRepository = participantRepository;
         this.messageRepository = messageRepository;
-        this.blockRepository = blockRepository;
+        this.membershipCache = membershipCache;
+        this.blockGraph = blockGraph;
+        this.membershipEvents = membershipEvents;
         this.log = log;
     }
 
@@ -83,7 +92,7 @@ public class ConversationService {
 
         // Verificar bloqueio em qualquer direção (fail-fast, antes de carregar
         // entidades)
-        if (blockRepository.isBlockedInAnyDirection(user1Id, user2Id)) {
+        if (blockGraph.isBlockedInAnyDirection(user1Id, user2Id)) {
             throw new jakarta.ws.rs.WebApplicationException(
                     jakarta.ws.rs.core.Response.status(409)
                             .entity(Map.of(
@@ -99,16 +108,6 @@ public class ConversationService {
             throw new NotFoundException("Um ou mais usuários não encontrados");
         }
 
-        // Verificar bloqueio em qualquer direção
-        if (blockRepository.isBlockedInAnyDirection(user1Id, user2Id)) {
-            throw new jakarta.ws.rs.WebApplicationException(
-                    jakarta.ws.rs.core.Response.status(409)
-                            .entity(Map.of(
-                                    "error", "BUSINESS_RULE",
-                                    "message", "Não é possível iniciar conversa com este usuário"))
-                            .build());
-        }
-
         // Verificar se já existe conversa direta entre eles
         ConversationModel existingConversation = conversationRepository.findDirectConversation(user1Id, user2Id);
         if (existingConversation != null) {
@@ -119,11 +118,14 @@ public class ConversationService {
             return conversationRepository.findByIdWithParticipants(existingConversation.id);
         }
 
-        // Criar nova conversa
-        ConversationModel conversation = new ConversationModel();
-        conversation.conversationType = ConversationType.DIRECT;
-        conversation.name = null; // Conversas diretas não têm nome
-        conversationRepository.persist(conversation);
+        // Criar nova conversa; se uma requisição concorrente criou antes, usa a dela
+        UUID conversationId = conversationRepository.insertDirectConversationIfAbsent(user1Id, user2Id);
+        if (conversationId == null) {
+            existingConversation = conversationRepository.findDirectConversation(user1Id, user2Id);
+            log.infof("Direct conversation created concurrently: id=%s", existingConversation.id);
+            return conversationRepository.findByIdWithParticipants(existingConversation.id);
+        }
+        ConversationModel conversation = conversationRepository.findById(conversationId);
 
         // Adicionar participantes
         createParticipant(conversation, user1, false, false);
@@ -220,8 +222,7 @@ public class ConversationService {
         }
 
         // Validar solicitante é admin ou creator
-        if (!participantRepository.isUserAdmin(requesterId, conversationId) &&
-                !participantRepository.isUserCreator(requesterId, conversationId)) {
+        if (!membershipCache.isAdminOrCreator(requesterId, conversationId)) {
             throw new ForbiddenException("Apenas administradores podem adicionar participantes");
         }
 
@@ -232,7 +233,7 @@ public class ConversationService {
         }
 
         // Verificar se já é participante
-        if (participantRepository.isUserParticipant(userId, conversationId)) {
+        if (membershipCache.isParticipant(userId, conversationId)) {
             throw new BadRequestException("Usuário já é participante desta conversa");
         }
 
@@ -270,8 +271,7 @@ public class ConversationService {
 
         // Validar permissão: admin/creator pode remover qualquer um, usuário pode sair
         boolean isSelfLeaving = userId.equals(requesterId);
-        boolean isAdminOrCreator = participantRepository.isUserAdmin(requesterId, conversationId) ||
-                participantRepository.isUserCreator(requesterId, conversationId);
+        boolean isAdminOrCreator = membershipCache.isAdminOrCreator(requesterId, conversationId);
 
         if (!isSelfLeaving && !isAdminOrCreator) {
             throw new ForbiddenException("Você não tem permissão para remover este participante");
@@ -279,6 +279,7 @@ public class ConversationService {
 
         // Remover participante (marca como saído)
         participantRepository.markAsLeft(userId, conversationId);
+        membershipEvents.fire(new ConversationMembershipEvent(conversationId));
 
         log.infof("Participant removed successfully");
     }
@@ -406,85 +407,73 @@ public class ConversationService {
 
         participant.clearedAt = LocalDateTime.now();
         participantRepository.persist(participant);
+        participantRepository.resetUnreadCount(userId, conversationId);
 
         log.infof("Conversation %s cleared at: %s for user %s", conversationId, participant.clearedAt, userId);
         return participant;
     }
 
     /**
-     * Busca conversas de um usuário (inbox).
+     * Marca como lidas todas as mensagens até {@code upToMessageId} (inclusive).
      *
-     * @param userId          ID do usuário
-     * @param includeArchived true para incluir conversas arquivadas
-     * @return Lista de conversas
+     * O estado de leitura é o marco do participante (lastReadMessage /
+     * lastReadSentAt); os flags is_read das mensagens não são alterados. Um único
+     * UPDATE avança o marco e recalcula o contador de não lidas; marcos
+     * anteriores ao atual são ignorados (idempotente).
+     *
+     * @param conversationId ID da conversa
+     * @param userId         ID do usuário
+     * @param upToMessageId  Última mensagem lida
+     * @return participante atualizado (lastReadMessage, lastReadAt, unreadCount)
+     * @throws NotFoundException  se conversa ou mensagem não existe
+     * @throws ForbiddenException se usuário não é participante
      */
-    public List<ConversationModel> getUserConversations(UUID userId, boolean includeArchived) {
-        log.infof("Getting user conversations: user=%s, includeArchived=%b", userId, includeArchived);
+    @Transactional
+    public ConversationParticipantModel markReadUpTo(UUID conversationId, UUID userId, UUID upToMessageId) {
+        log.infof("Marking read up to: conversation=%s, user=%s, message=%s", conversationId, userId, upToMessageId);
 
-        if (includeArchived) {
-            return conversationRepository.findByUserId(userId);
-        } else {
-            return conversationRepository.findActiveByUserId(userId);
+        ConversationParticipantModel participant = participantRepository.findByUserAndConversation(userId,
+                conversationId);
+        if (participant == null || !participant.isActive()) {
+            throw new ForbiddenException("Você não é participante desta conversa");
         }
+
+        if (participantRepository.advanceReadWatermark(userId, conversationId, upToMessageId) == 0) {
+            // Nada mudou: marco já estava à frente ou a mensagem não é desta conversa
+            UserMessageModel message = messageRepository.findById(upToMessageId);
+            if (message == null || !message.conversation.id.equals(conversationId)) {
+                throw new NotFoundException("Mensagem não encontrada nesta conversa");
+            }
+            return participant;
+        }
+
+        participantRepository.refresh(participant);
+        return participant;
     }
 
     /**
-     * Retorna summaries enriquecidos para inbox com campos usados no frontend.
+     * Retorna uma página do inbox com campos usados no frontend.
+     *
+     * Tudo (última mensagem, não lidas, displayName do DIRECT) vem de uma única
+     * consulta por keyset; o custo depende do tamanho da página, não do número
+     * de conversas do usuário.
      *
-     * @Transactional garante que todas as operações Hibernate (incluindo o JOIN
-     *                FETCH
-     *                em findOtherParticipantWithUser) compartilhem a mesma sessão,
-     *                evitando
-     *                LazyInitializationException e garantindo que displayName seja
-     *                populado.
+     * @param userId ID do usuário
+     * @param filter Filtros do inbox
+     * @param after  Cursor recebido na página anterior, ou null
+     * @param size   Tamanho da página
+     * @return Página do inbox com o cursor da próxima
      */
-    @Transactional
-    public List<ConversationSummaryDTO> getUserConversationSummaries(UUID userId, boolean includeArchived) {
-        List<ConversationModel> conversations = getUserConversations(userId, includeArchived);
-
-        return conversations.stream()
-                .map(conversation -> {
-                    ConversationParticipantModel participant = participantRepository.findByUserAndConversation(userId,
-                            conversation.id);
-                    UserMessageModel lastMessage = messageRepository.findLastByConversation(conversation.id);
-                    long unreadCount = messageRepository.countUnreadByUserAfterClearedAt(
-                            userId, conversation.id,
-                            participant != null ? participant.clearedAt : null);
-
-                    String preview = lastMessage != null ? lastMessage.txtContent : null;
-                    if (preview != null && preview.length() > 100) {
-                        preview = preview.substring(0, 100);
-                    }
+    public ConversationPageResponse getUserConversationPage(
+            UUID userId, InboxFilter filter, ConversationCursor after, int size) {
+        log.infof("Getting user conversation page: user=%s, filter=%s, size=%d", userId, filter, size);
 
-                    boolean isPinned = participant != null && participant.isPinned;
-                    boolean isArchived = participant != null && participant.isArchived;
-
-                    String displayName = null;
-                    if (conversation.conversationType == ConversationType.DIRECT) {
-                        ConversationParticipantModel other = participantRepository
-                                .findOtherParticipantWithUser(userId, conversation.id);
-                        if (other != null && other.user != null) {
-                            displayName = other.user.getFullName();
-                            log.debugf("displayName resolved for DIRECT conversation %s: '%s'",
-                                    conversation.id, displayName);
-                        } else {
-                            log.warnf("Could not resolve displayName for DIRECT conversation %s: "
-                                    + "otherParticipant=%s, user=%s",
-                                    conversation.id,
-                                    other != null ? other.id : "null",
-                                    other != null ? other.user : "null");
-                        }
-                    }
+        List<InboxEntry> entries = conversationRepository.findInboxPage(userId, filter, after, size);
+        boolean hasMore = entries.size() > size;
+        List<InboxEntry> page = hasMore ? entries.subList(0, size) : entries;
 
-                    return new ConversationSummaryDTO(
-                            conversation,
-                            unreadCount,
-                            preview,
-                            isPinned,
-                            isArchived,
-                            displayName);
-                })
-                .toList();
+        String nextCursor = hasMore ? page.get(page.size() - 1).position().encode() : null;
+        return new ConversationPageResponse(page.stream().map(InboxEntry::summary).toList(), nextCursor, hasMore);
     }
 
     /**
@@ -506,7 +495,7 @@ public class ConversationService {
         }
 
         // Validar usuário é participante
-        if (!participantRepository.isUserParticipant(userId, conversationId)) {
+        if (!membershipCache.isParticipant(userId, conversationId)) {
             throw new ForbiddenException("Você não é participante desta conversa");
         }
 
@@ -521,16 +510,7 @@ public class ConversationService {
      */
     public long getTotalUnreadCount(UUID userId) {
         log.infof("Getting total unread count: user=%s", userId);
-
-        // Buscar todas as conversas do usuário
-        List<ConversationModel> conversations = conversationRepository.findByUserId(userId);
-
-        long totalUnread = 0;
-        for (ConversationModel conversation : conversations) {
-            totalUnread += messageRepository.countUnreadByUser(userId, conversation.id);
-        }
-
-        return totalUnread;
+        return participantRepository.sumUnreadCount(userId);
     }
 
     // ========== Métodos Privados ==========
@@ -559,5 +539,6 @@ public class ConversationService {
         // Keep in-memory collection in sync so the response DTO reflects the
         // newly added participants without requiring a DB re-fetch.
         conversation.participants.add(participant);
+        membershipEvents.fire(new ConversationMembershipEvent(conversation.id));
     }
 }
@@ -0,0 +1,89 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.time.LocalDateTime;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Move mensagens frias de app_user_message para app_user_message_archive
+ * (V1.0.38), mantendo a tabela quente e seus índices restritos ao histórico
+ * recente.
+ *
+ * - Mensagens enviadas há mais de {@code messaging.archive.hot-days} dias.
+ * - Mensagens excluídas (soft delete) há mais de
+ * {@code messaging.archive.deleted-grace-days} dias. A carência deve cobrir o
+ * tempo que um cliente pode ficar sem sincronizar: depois de arquivada, a
+ * exclusão não aparece mais na sincronização incremental.
+ *
+ * Mensagens que ainda são o marco de leitura (last_read_message_id) de algum
+ * participante ficam na tabela quente até o marco avançar.
+ *
+ * Cada lote roda na própria transação; lotes usam SKIP LOCKED, então o job
+ * pode rodar em vários nós. Mensagens arquivadas continuam visíveis no
+ * histórico da conversa ({@link UserMessageRepository#findHistory}), mas não
+ * na busca, na sincronização nem em edição/leitura/exclusão.
+ */
+@ApplicationScoped
+public class MessageArchiveJob {
+
+    // Critério desativado: nenhuma mensagem é anterior a esta data
+    private static final LocalDateTime NEVER = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final Logger log;
+    private final UserMessageRepository messageRepository;
+    private final int hotDays;
+    private final int deletedGraceDays;
+    private final int batchSize;
+
+    public MessageArchiveJob(
+            Logger log,
+            UserMessageRepository messageRepository,
+            @ConfigProperty(name = "messaging.archive.hot-days", defaultValue = "365") int hotDays,
+            @ConfigProperty(name = "messaging.archive.deleted-grace-days", defaultValue = "30") int deletedGraceDays,
+            @ConfigProperty(name = "messaging.archive.batch-size", defaultValue = "5000") int batchSize) {
+        this.log = log;
+        this.messageRepository = messageRepository;
+        this.hotDays = hotDays;
+        this.deletedGraceDays = deletedGraceDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${messaging.archive.cron:0 45 3 * * ?}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void archive() {
+        archiveNow();
+    }
+
+    /**
+     * Move lotes até não restar mensagem elegível.
+     * Valores 0 desativam o respectivo critério.
+     *
+     * @return Total de mensagens movidas
+     */
+    public long archiveNow() {
+        if (hotDays <= 0 && deletedGraceDays <= 0) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime hotBefore = hotDays > 0 ? now.minusDays(hotDays) : NEVER;
+        LocalDateTime deletedBefore = deletedGraceDays > 0 ? now.minusDays(deletedGraceDays) : NEVER;
+
+        long total = 0;
+        int moved;
+        do {
+            moved = QuarkusTransaction.requiringNew()
+                    .call(() -> messageRepository.archiveBatch(hotBefore, deletedBefore, batchSize));
+            total += moved;
+        } while (moved >= batchSize);
+
+        if (total > 0) {
+            log.infof("Messages archived: moved=%d, hotBefore=%s, deletedBefore=%s", total, hotBefore, deletedBefore);
+        }
+        return total;
+    }
+}
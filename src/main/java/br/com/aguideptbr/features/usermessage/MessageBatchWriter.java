@@ -0,0 +1,81 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.transaction.Transactional;
+
+/**
+ * Grava um lote de mensagens já validadas pelo {@link MessageSendPipeline} em
+ * uma única transação:
+ * - INSERTs multi-linha em app_user_message
+ * - um UPDATE de last_message_at por conversa do lote
+ * - um UPDATE de unread_count/last_activity_at por (conversa, remetente)
+ * - um {@link MessageEvent} por mensagem (entrega após o commit)
+ *
+ * As atualizações seguem a ordem dos ids, para que lotes concorrentes de nós
+ * diferentes travem as linhas sempre na mesma ordem.
+ */
+@ApplicationScoped
+public class MessageBatchWriter {
+
+    private final UserMessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
+    private final ConversationParticipantRepository participantRepository;
+    private final Event<MessageEvent> messageEvents;
+    private final Logger log;
+
+    public MessageBatchWriter(
+            UserMessageRepository messageRepository,
+            ConversationRepository conversationRepository,
+            ConversationParticipantRepository participantRepository,
+            Event<MessageEvent> messageEvents,
+            Logger log) {
+        this.messageRepository = messageRepository;
+        this.conversationRepository = conversationRepository;
+        this.participantRepository = participantRepository;
+        this.messageEvents = messageEvents;
+        this.log = log;
+    }
+
+    /**
+     * Persiste o lote. Qualquer falha desfaz o lote inteiro.
+     *
+     * @param messages Mensagens montadas por {@link MessageService#prepareMessage}
+     */
+    @Transactional
+    public void write(List<UserMessageModel> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        messageRepository.insertBatch(messages);
+
+        Map<UUID, LocalDateTime> lastMessageAt = new TreeMap<>();
+        Map<UUID, Map<UUID, Integer>> sentBySender = new TreeMap<>();
+        for (UserMessageModel message : messages) {
+            UUID conversationId = message.conversation.id;
+            lastMessageAt.merge(conversationId, message.sentAt, (a, b) -> a.isAfter(b) ? a : b);
+            sentBySender.computeIfAbsent(conversationId, id -> new TreeMap<>())
+                    .merge(message.sender.id, 1, Integer::sum);
+        }
+
+        lastMessageAt.forEach(conversationRepository::advanceLastMessageAt);
+        sentBySender.forEach((conversationId, senders) -> senders.forEach(
+                (senderId, count) -> participantRepository.recordMessagesSent(
+                        conversationId, senderId, count, lastMessageAt.get(conversationId))));
+
+        for (UserMessageModel message : messages) {
+            messageEvents.fire(MessageEvent.of(MessageEvent.Type.CREATED, message));
+        }
+
+        log.debugf("Message batch written: messages=%d, conversations=%d", messages.size(), lastMessageAt.size());
+    }
+}
@@ -6,7 +6,10 @@ import java.util.UUID;
 
 import org.jboss.logging.Logger;
 
+import br.com.aguideptbr.features.usermessage.dto.MessageHistoryResponse;
 import br.com.aguideptbr.features.usermessage.dto.MessageResponse;
+import br.com.aguideptbr.features.usermessage.dto.MessageSearchResponse;
+import br.com.aguideptbr.features.usermessage.dto.MessageSyncResponse;
 import br.com.aguideptbr.features.usermessage.dto.SendMessageRequest;
 import br.com.aguideptbr.util.PaginatedResponse;
 import br.com.aguideptbr.util.SecurityUtils;
@@ -24,8 +27,11 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 
 /**
  * Controller REST para gerenciamento de mensagens.
@@ -33,14 +39,17 @@ import jakarta.ws.rs.core.Response;
  * Endpoints:
  * - POST /api/v1/messages - Enviar mensagem
  * - GET /api/v1/messages/conversation/{conversationId} - Listar mensagens
- * (paginado)
+ * (paginado, ou incremental com ?after=)
  * - GET /api/v1/messages/{messageId} - Buscar mensagem por ID
  * - PUT /api/v1/messages/{messageId}/read - Marcar como lida
  * - PUT /api/v1/messages/{messageId} - Editar mensagem
  * - DELETE /api/v1/messages/{messageId} - Deletar mensagem
  * - GET /api/v1/messages/conversation/{conversationId}/search - Buscar
  * mensagens
+ * - GET /api/v1/messages/search - Buscar mensagens em todas as conversas
  * - GET /api/v1/messages/{messageId}/replies - Buscar respostas (thread)
+ * - GET /api/v1/messages/conversation/{conversationId}/stream - Eventos em
+ * tempo real (SSE), substitui o polling da listagem
  */
 @Path("/api/v1/messages")
 @Produces(MediaType.APPLICATION_JSON)
@@ -48,10 +57,15 @@ import jakarta.ws.rs.core.Response;
 public class MessageController {
 
     private final MessageService messageService;
+    private final MessageSendPipeline sendPipeline;
+    private final MessageStreamHub streamHub;
     private final Logger log;
 
-    public MessageController(MessageService messageService, Logger log) {
+    public MessageController(MessageService messageService, MessageSendPipeline sendPipeline,
+            MessageStreamHub streamHub, Logger log) {
         this.messageService = messageService;
+        this.sendPipeline = sendPipeline;
+        this.streamHub = streamHub;
         this.log = log;
     }
 
@@ -72,12 +86,20 @@ public class MessageController {
 
         UUID senderId = SecurityUtils.extractUserIdFromToken(authHeader);
 
-        UserMessageModel message = messageService.sendMessage(
-                senderId,
-                request.getConversationId(),
-                request.getContent(),
-                request.getMessageType(),
-                request.getParentMessageId());
+        // Com o pipeline ativo, o envio é gravado em lote junto com envios concorrentes
+        UserMessageModel message = sendPipeline.isEnabled()
+                ? sendPipeline.send(
+                        senderId,
+                        request.getConversationId(),
+                        request.getContent(),
+                        request.getMessageType(),
+                        request.getParentMessageId())
+                : messageService.sendMessage(
+                        senderId,
+                        request.getConversationId(),
+                        request.getContent(),
+                        request.getMessageType(),
+                        request.getParentMessageId());
 
         MessageResponse response = new MessageResponse(message);
 
@@ -85,10 +107,84 @@ public class MessageController {
         return Response.status(Response.Status.CREATED).entity(response).build();
     }
 
+    private Response syncMessages(UUID conversationId, MessageSyncCursor cursor, int size, String authHeader) {
+        log.infof("GET /api/v1/messages/conversation/%s - sync, size=%d", conversationId, size);
+
+        UUID userId = SecurityUtils.extractUserIdFromToken(authHeader);
+
+        List<UserMessageModel> changed = messageService.syncMessages(conversationId, userId, cursor, size);
+        boolean hasMore = changed.size() > size;
+        List<UserMessageModel> page = hasMore ? changed.subList(0, size) : changed;
+
+        // Sem alterações: o cliente mantém o mesmo cursor
+        String nextCursor = !page.isEmpty()
+                ? MessageSyncCursor.after(page.get(page.size() - 1)).encode()
+                : cursor != null ? cursor.encode() : null;
+
+        List<MessageResponse> messages = page.stream()
+                .map(MessageResponse::new)
+                .toList();
+
+        log.infof("Synced %d changed messages for conversation %s", messages.size(), conversationId);
+        return Response.ok(new MessageSyncResponse(messages, nextCursor, hasMore)).build();
+    }
+
+    private Response messageHistory(UUID conversationId, MessageHistoryCursor before, int size, String authHeader) {
+        log.infof("GET /api/v1/messages/conversation/%s - history, size=%d", conversationId, size);
+
+        UUID userId = SecurityUtils.extractUserIdFromToken(authHeader);
+
+        List<UserMessageModel> history = messageService.getMessageHistory(conversationId, userId, before, size);
+        boolean hasMore = history.size() > size;
+        List<UserMessageModel> page = hasMore ? history.subList(0, size) : history;
+        String nextCursor = hasMore ? MessageHistoryCursor.before(page.get(page.size() - 1)).encode() : null;
+
+        List<MessageResponse> messages = page.stream()
+                .map(MessageResponse::new)
+                .toList();
+
+        log.infof("Found %d messages for conversation %s", messages.size(), conversationId);
+        return Response.ok(new MessageHistoryResponse(messages, nextCursor, hasMore)).build();
+    }
+
+    /**
+     * Abre um canal SSE com as mensagens criadas, editadas e excluídas na
+     * conversa. Cada evento tem nome CREATED, UPDATED ou DELETED e um
+     * MessageResponse em JSON. Use a listagem paginada apenas para o histórico
+     * inicial; novas mensagens chegam por aqui.
+     *
+     * GET /api/v1/messages/conversation/{conversationId}/stream
+     */
+    @GET
+    @Path("/conversation/{conversationId}/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RolesAllowed({ "USER", "ADMIN", "FREE", "PREMIUM_USER", "CHANNEL_OWNER", "MANAGER" })
+    public void streamConversation(
+            @PathParam("conversationId") UUID conversationId,
+            @HeaderParam("Authorization") String authHeader,
+            @Context SseEventSink sink,
+            @Context Sse sse) {
+
+        log.infof("GET /api/v1/messages/conversation/%s/stream", conversationId);
+
+        UUID userId = SecurityUtils.extractUserIdFromToken(authHeader);
+        messageService.validateStreamAccess(conversationId, userId);
+
+        streamHub.subscribe(conversationId, userId, sink, sse);
+    }
+
     /**
      * Lista mensagens de uma conversa (paginado).
      *
      * GET /api/v1/messages/conversation/{conversationId}?page=0&size=20
+     *
+     * Com {@code ?after=<cursor>} faz a sincronização incremental: devolve só
+     * o que mudou desde o cursor (sem OFFSET e sem COUNT). {@code ?after=}
+     * vazio sincroniza desde o início e devolve o primeiro cursor.
+     *
+     * Com {@code ?before=<cursor>} pagina o histórico por cursor, da mensagem
+     * mais recente para a mais antiga, incluindo as arquivadas (sem OFFSET e
+     * sem COUNT). {@code ?before=} vazio devolve a primeira página.
      */
     @GET
     @Path("/conversation/{conversationId}")
@@ -97,6 +193,8 @@ public class MessageController {
             @PathParam("conversationId") UUID conversationId,
             @QueryParam("page") @DefaultValue("0") int page,
             @QueryParam("size") @DefaultValue("20") int size,
+            @QueryParam("after") String after,
+            @QueryParam("before") String before,
             @HeaderParam("Authorization") String authHeader) {
 
         if (page < 0) {
@@ -117,6 +215,13 @@ public class MessageController {
             throw new BadRequestException("Size must be between 1 and 100");
         }
 
+        if (after != null) {
+            return syncMessages(conversationId, MessageSyncCursor.decode(after), size, authHeader);
+        }
+        if (before != null) {
+            return messageHistory(conversationId, MessageHistoryCursor.decode(before), size, authHeader);
+        }
+
         log.infof("GET /api/v1/messages/conversation/%s - page=%d, size=%d", conversationId, page, size);
 
         UUID userId = SecurityUtils.extractUserIdFromToken(authHeader);
@@ -161,6 +266,8 @@ public class MessageController {
 
     /**
      * Marca uma mensagem como lida.
+     * Para marcar várias de uma vez, use PUT
+     * /api/v1/conversations/{conversationId}/read?upTo={messageId}.
      *
      * PUT /api/v1/messages/{messageId}/read
      */
@@ -230,9 +337,10 @@ public class MessageController {
     }
 
     /**
-     * Busca mensagens por texto em uma conversa.
+     * Busca mensagens por texto em uma conversa (português, sem acentos),
+     * ordenadas por relevância e recência, com trecho destacado.
      *
-     * GET /api/v1/messages/conversation/{conversationId}/search?query=text
+     * GET /api/v1/messages/conversation/{conversationId}/search?query=text&size=20&cursor=
      */
     @GET
     @Path("/conversation/{conversationId}/search")
@@ -240,21 +348,55 @@ public class MessageController {
     public Response searchMessages(
             @PathParam("conversationId") UUID conversationId,
             @QueryParam("query") String query,
+            @QueryParam("size") @DefaultValue("20") int size,
+            @QueryParam("cursor") String cursor,
             @HeaderParam("Authorization") String authHeader) {
 
         log.infof("GET /api/v1/messages/conversation/%s/search?query=%s", conversationId, query);
+        validateSearchSize(size);
 
         UUID userId = SecurityUtils.extractUserIdFromToken(authHeader);
 
-        List<UserMessageModel> messages = messageService.searchMessages(conversationId, query, userId);
-        List<MessageResponse> response = messages.stream()
-                .map(MessageResponse::new)
-                .toList();
+        MessageSearchResponse response = messageService.searchMessages(
+                conversationId, query, userId, MessageSearchCursor.decode(cursor), size);
+
+        log.infof("Found %d messages matching query '%s'", response.getResults().size(), query);
+        return Response.ok(response).build();
+    }
+
+    /**
+     * Busca mensagens por texto em todas as conversas ativas do usuário.
+     *
+     * GET /api/v1/messages/search?query=text&size=20&cursor=
+     */
+    @GET
+    @Path("/search")
+    @RolesAllowed({ "USER", "ADMIN", "FREE", "PREMIUM_USER", "CHANNEL_OWNER", "MANAGER" })
+    public Response searchInbox(
+            @QueryParam("query") String query,
+            @QueryParam("size") @DefaultValue("20") int size,
+            @QueryParam("cursor") String cursor,
+            @HeaderParam("Authorization") String authHeader) {
 
-        log.infof("Found %d messages matching query '%s'", response.size(), query);
+        log.infof("GET /api/v1/messages/search?query=%s", query);
+        validateSearchSize(size);
+
+        UUID userId = SecurityUtils.extractUserIdFromToken(authHeader);
+
+        MessageSearchResponse response = messageService.searchInbox(
+                query, userId, MessageSearchCursor.decode(cursor), size);
+
+        log.infof("Found %d inbox messages matching query '%s'", response.getResults().size(), query);
         return Response.ok(response).build();
     }
 
+    private void validateSearchSize(int size) {
+        if (size < 1 || size > 100) {
+            log.warnf("Invalid search page size: %d", size);
+            throw new BadRequestException("Size must be between 1 and 100");
+        }
+    }
+
     /**
      * Busca respostas a uma mensagem (thread).
      *
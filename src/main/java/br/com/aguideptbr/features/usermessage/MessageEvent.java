@@ -0,0 +1,30 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.util.UUID;
+
+import br.com.aguideptbr.features.usermessage.dto.MessageResponse;
+
+/**
+ * Evento CDI disparado por MessageService quando uma mensagem é criada,
+ * editada ou excluída.
+ *
+ * Observadores de entrega em tempo real devem usar
+ * {@code TransactionPhase.AFTER_SUCCESS}, para nunca publicar uma alteração
+ * que sofreu rollback.
+ *
+ * @param type           Tipo da alteração
+ * @param conversationId Conversa da mensagem
+ * @param message        Mensagem já convertida (montada dentro da transação)
+ */
+public record MessageEvent(Type type, UUID conversationId, MessageResponse message) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    static MessageEvent of(Type type, UserMessageModel message) {
+        return new MessageEvent(type, message.conversation.id, new MessageResponse(message));
+    }
+}
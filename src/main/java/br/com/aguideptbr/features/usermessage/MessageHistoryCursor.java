@@ -0,0 +1,78 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Posição no histórico de uma conversa, ordenado por (sent_at, id)
+ * decrescente sobre a tabela quente e o arquivo (app_user_message_archive,
+ * V1.0.38).
+ *
+ * Diferente de page/size, o cursor não depende de quantas mensagens estão em
+ * cada tabela: uma mensagem movida pelo {@link MessageArchiveJob} entre duas
+ * páginas continua na mesma posição e não é repetida nem pulada. O cliente
+ * recebe o cursor como string Base64URL opaca ({@code nextCursor}) e o
+ * reenvia em {@code ?before=}.
+ */
+public final class MessageHistoryCursor {
+
+    private final LocalDateTime sentAt;
+    private final UUID id;
+
+    public MessageHistoryCursor(LocalDateTime sentAt, UUID id) {
+        this.sentAt = sentAt;
+        this.id = id;
+    }
+
+    /**
+     * Cria o cursor posicionado antes da mensagem informada.
+     *
+     * @param message Última (mais antiga) mensagem devolvida
+     * @return Cursor
+     */
+    public static MessageHistoryCursor before(UserMessageModel message) {
+        return new MessageHistoryCursor(message.sentAt, message.id);
+    }
+
+    /**
+     * @return Representação opaca enviada ao cliente
+     */
+    public String encode() {
+        String raw = sentAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Interpreta o cursor recebido do cliente.
+     *
+     * @param value Cursor opaco; vazio significa "mensagens mais recentes"
+     * @return Cursor, ou null para a primeira página
+     * @throws BadRequestException se o cursor for inválido
+     */
+    public static MessageHistoryCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new MessageHistoryCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor de histórico inválido");
+        }
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+}
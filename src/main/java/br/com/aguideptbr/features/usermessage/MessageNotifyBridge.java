@@ -0,0 +1,278 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import br.com.aguideptbr.features.usermessage.dto.MessageResponse;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+/**
+ * Liga os eventos de mensagem ao {@link MessageStreamHub} local e aos demais
+ * nós via PostgreSQL LISTEN/NOTIFY.
+ *
+ * - Dentro da transação do envio/edição/exclusão é emitido um
+ * {@code pg_notify}; o PostgreSQL só o entrega após o COMMIT.
+ * - Após o commit, o evento é publicado diretamente no hub deste nó.
+ * - Uma thread dedicada escuta o canal e, para eventos de outros nós com
+ * assinantes locais, recarrega a mensagem e publica no hub. Ela usa uma
+ * conexão própria aberta com {@link DriverManager} (mesma URL e credenciais
+ * do datasource), fora do pool: a conexão fica presa enquanto o nó estiver
+ * no ar e não pode reduzir o pool das requisições.
+ *
+ * Alterações de participantes ({@link ConversationMembershipEvent}) e de
+ * bloqueios ({@link UserBlockEvent}) usam canais próprios: em todos os nós
+ * invalidam o {@link ConversationMembershipCache} / {@link UserBlockGraphCache}
+ * e fecham os streams SSE de quem perdeu o acesso. Ao (re)conectar o listener
+ * esses caches são descartados e todos os streams locais rechecados, pois
+ * invalidações podem ter sido perdidas enquanto a conexão estava fora.
+ *
+ * O payload leva apenas ids (limite de 8000 bytes do NOTIFY).
+ */
+@ApplicationScoped
+public class MessageNotifyBridge {
+
+    static final String CHANNEL = "user_message_events";
+    static final String MEMBERSHIP_CHANNEL = "conversation_membership_events";
+    static final String BLOCK_CHANNEL = "user_block_events";
+
+    private static final int POLL_TIMEOUT_MS = 5_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Logger log;
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final MessageStreamHub hub;
+    private final UserMessageRepository messageRepository;
+    private final ConversationMembershipCache membershipCache;
+    private final UserBlockGraphCache blockGraph;
+    private final boolean enabled;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public MessageNotifyBridge(
+            Logger log,
+            @ConfigProperty(name = "quarkus.datasource.jdbc.url") String jdbcUrl,
+            @ConfigProperty(name = "quarkus.datasource.username") String username,
+            @ConfigProperty(name = "quarkus.datasource.password") String password,
+            MessageStreamHub hub,
+            UserMessageRepository messageRepository,
+            ConversationMembershipCache membershipCache,
+            UserBlockGraphCache blockGraph,
+            @ConfigProperty(name = "messaging.stream.notify-enabled", defaultValue = "true") boolean enabled) {
+        this.log = log;
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.hub = hub;
+        this.messageRepository = messageRepository;
+        this.membershipCache = membershipCache;
+        this.blockGraph = blockGraph;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Emite o NOTIFY na mesma transação da alteração.
+     */
+    void notifyNodes(@Observes MessageEvent event) {
+        if (!enabled) {
+            return;
+        }
+        messageRepository.getEntityManager()
+                .createNativeQuery("SELECT pg_notify(:channel, :payload)")
+                .setParameter("channel", CHANNEL)
+                .setParameter("payload", String.join(":",
+                        nodeId, event.type().name(), event.conversationId().toString(),
+                        event.message().getId().toString()))
+                .getSingleResult();
+    }
+
+    /**
+     * Emite o NOTIFY de alteração de participantes na mesma transação.
+     */
+    void notifyMembershipChanged(@Observes ConversationMembershipEvent event) {
+        if (!enabled) {
+            return;
+        }
+        messageRepository.getEntityManager()
+                .createNativeQuery("SELECT pg_notify(:channel, :payload)")
+                .setParameter("channel", MEMBERSHIP_CHANNEL)
+                .setParameter("payload", nodeId + ":" + event.conversationId())
+                .getSingleResult();
+    }
+
+    /**
+     * Emite o NOTIFY de bloqueio/desbloqueio na mesma transação.
+     */
+    void notifyBlockChanged(@Observes UserBlockEvent event) {
+        if (!enabled) {
+            return;
+        }
+        messageRepository.getEntityManager()
+                .createNativeQuery("SELECT pg_notify(:channel, :payload)")
+                .setParameter("channel", BLOCK_CHANNEL)
+                .setParameter("payload", String.join(":",
+                        nodeId, event.blockerUserId().toString(), event.blockedUserId().toString()))
+                .getSingleResult();
+    }
+
+    /**
+     * Entrega local, somente após o commit.
+     */
+    void publishLocally(@Observes(during = TransactionPhase.AFTER_SUCCESS) MessageEvent event) {
+        hub.publish(event.type(), event.conversationId(), event.message());
+    }
+
+    /**
+     * Fecha, após o commit, os streams locais de quem deixou a conversa.
+     */
+    void revokeLocally(@Observes(during = TransactionPhase.AFTER_SUCCESS) ConversationMembershipEvent event) {
+        revoke(event.conversationId());
+    }
+
+    /**
+     * Rechecagem local dos streams dos dois usuários após o commit do
+     * bloqueio/desbloqueio.
+     */
+    void revokeLocally(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserBlockEvent event) {
+        revokeOf(event.blockerUserId(), event.blockedUserId());
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "message-notify-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + MEMBERSHIP_CHANNEL);
+                    statement.execute("LISTEN " + BLOCK_CHANNEL);
+                }
+                membershipCache.invalidateAll();
+                blockGraph.invalidateAll();
+                revokeAll();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.infof("Listening for message events on channel %s (node %s)", CHANNEL, nodeId);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            if (MEMBERSHIP_CHANNEL.equals(notification.getName())) {
+                                dispatchMembership(notification.getParameter());
+                            } else if (BLOCK_CHANNEL.equals(notification.getName())) {
+                                dispatchBlock(notification.getParameter());
+                            } else {
+                                dispatch(notification.getParameter());
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warnf(e, "Message event listener failed, reconnecting in %d ms", RECONNECT_DELAY_MS);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void dispatch(String payload) {
+        String[] parts = payload.split(":");
+        if (parts.length != 4 || nodeId.equals(parts[0])) {
+            return; // Eventos deste nó já foram entregues em publishLocally
+        }
+        MessageEvent.Type type = MessageEvent.Type.valueOf(parts[1]);
+        UUID conversationId = UUID.fromString(parts[2]);
+        UUID messageId = UUID.fromString(parts[3]);
+        if (!hub.hasSubscribers(conversationId)) {
+            return;
+        }
+
+        MessageResponse message = QuarkusTransaction.requiringNew().call(() -> {
+            UserMessageModel model = messageRepository.findById(messageId);
+            return model != null ? new MessageResponse(model) : null;
+        });
+        if (message != null) {
+            hub.publish(type, conversationId, message);
+        }
+    }
+
+    void dispatchMembership(String payload) {
+        String[] parts = payload.split(":");
+        if (parts.length != 2 || nodeId.equals(parts[0])) {
+            return; // Este nó já invalidou ao fim da própria transação
+        }
+        UUID conversationId = UUID.fromString(parts[1]);
+        membershipCache.invalidate(conversationId);
+        revoke(conversationId);
+    }
+
+    void dispatchBlock(String payload) {
+        String[] parts = payload.split(":");
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        UUID blockerId = UUID.fromString(parts[1]);
+        UUID blockedId = UUID.fromString(parts[2]);
+        blockGraph.invalidate(blockerId);
+        blockGraph.invalidate(blockedId);
+        revokeOf(blockerId, blockedId);
+    }
+
+    // A rechecagem pode recarregar participantes do banco: transação própria
+    private void revoke(UUID conversationId) {
+        if (hub.hasSubscribers(conversationId)) {
+            membershipCache.invalidate(conversationId);
+            QuarkusTransaction.requiringNew().run(() -> hub.dropRevoked(conversationId));
+        }
+    }
+
+    private void revokeOf(UUID... userIds) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            for (UUID userId : userIds) {
+                hub.dropRevokedOf(userId);
+            }
+        });
+    }
+
+    private void revokeAll() {
+        QuarkusTransaction.requiringNew().run(hub::dropAllRevoked);
+    }
+}
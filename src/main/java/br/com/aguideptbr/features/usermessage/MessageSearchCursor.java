@@ -0,0 +1,78 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Posição na busca de mensagens, ordenada por (score, id) decrescente.
+ *
+ * A recência do score é medida a partir do acerto mais recente da primeira
+ * página ({@code newestAt}, ver {@link UserMessageRepository#searchMessages}).
+ * O cursor leva essa referência junto com o score calculado, então as páginas
+ * seguintes recalculam os mesmos scores mesmo que novas mensagens cheguem. O
+ * cliente recebe o cursor como string Base64URL opaca ({@code nextCursor}) e
+ * o reenvia em {@code ?cursor=} com a mesma {@code query}.
+ */
+public final class MessageSearchCursor {
+
+    private final double score;
+    private final UUID id;
+    private final LocalDateTime newestAt;
+
+    public MessageSearchCursor(double score, UUID id, LocalDateTime newestAt) {
+        this.score = score;
+        this.id = id;
+        this.newestAt = newestAt;
+    }
+
+    /**
+     * @return Representação opaca enviada ao cliente
+     */
+    public String encode() {
+        // Double.toString preserva o valor exato (round-trip)
+        String raw = score + "|" + id + "|" + newestAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Interpreta o cursor recebido do cliente.
+     *
+     * @param value Cursor opaco; vazio significa "primeira página"
+     * @return Cursor, ou null para a primeira página
+     * @throws BadRequestException se o cursor for inválido
+     */
+    public static MessageSearchCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected score|id|newestAt");
+            }
+            return new MessageSearchCursor(
+                    Double.parseDouble(parts[0]),
+                    UUID.fromString(parts[1]),
+                    LocalDateTime.parse(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor de busca inválido");
+        }
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public LocalDateTime getNewestAt() {
+        return newestAt;
+    }
+}
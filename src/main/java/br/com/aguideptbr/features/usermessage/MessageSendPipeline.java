@@ -0,0 +1,266 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Envio de mensagens com group commit (opt-in via
+ * {@code messaging.send-pipeline.enabled}).
+ *
+ * Em conversas movimentadas, cada envio em sua própria transação serializa no
+ * UPDATE de app_conversation.last_message_at. Aqui a validação continua na
+ * thread da requisição ({@link MessageService#prepareMessage}), mas a gravação
+ * é enfileirada: uma thread dedicada junta os envios que chegam em até
+ * {@code linger-ms} (no máximo {@code max-batch}) e os grava numa única
+ * transação via {@link MessageBatchWriter}. Cada requisição aguarda o commit
+ * do seu lote e recebe a própria mensagem persistida.
+ *
+ * - Fila cheia: o envio é recusado com 429 para o cliente tentar de novo.
+ * - Lote com falha: as mensagens são regravadas uma a uma, para que uma
+ * mensagem inválida não derrube as demais.
+ * - Timeout ({@code timeout-ms}): responde 503, mas a mensagem ainda pode ser
+ * gravada; o cliente a recebe pela sincronização/SSE.
+ * - Shutdown: novos envios são recusados e a fila é esvaziada antes de sair.
+ */
+@ApplicationScoped
+public class MessageSendPipeline {
+
+    private static final long POLL_TIMEOUT_MS = 200;
+    private static final long SHUTDOWN_WAIT_MS = 10_000;
+
+    private final MessageService messageService;
+    private final MessageBatchWriter batchWriter;
+    private final Logger log;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final long timeoutMs;
+    private final BlockingQueue<PendingSend> queue;
+
+    private volatile boolean accepting;
+    private Thread writer;
+
+    /**
+     * Envio aguardando gravação.
+     *
+     * @param message Mensagem validada, ainda não persistida
+     * @param result  Completado após o commit do lote
+     */
+    record PendingSend(UserMessageModel message, CompletableFuture<UserMessageModel> result) {
+    }
+
+    public MessageSendPipeline(
+            MessageService messageService,
+            MessageBatchWriter batchWriter,
+            Logger log,
+            @ConfigProperty(name = "messaging.send-pipeline.enabled", defaultValue = "false") boolean enabled,
+            @ConfigProperty(name = "messaging.send-pipeline.max-batch", defaultValue = "256") int maxBatch,
+            @ConfigProperty(name = "messaging.send-pipeline.linger-ms", defaultValue = "5") long lingerMs,
+            @ConfigProperty(name = "messaging.send-pipeline.queue-capacity", defaultValue = "10000") int capacity,
+            @ConfigProperty(name = "messaging.send-pipeline.timeout-ms", defaultValue = "5000") long timeoutMs) {
+        this.messageService = messageService;
+        this.batchWriter = batchWriter;
+        this.log = log;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.timeoutMs = timeoutMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.accepting = enabled;
+    }
+
+    /**
+     * @return true se os envios devem passar pelo pipeline
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Valida, enfileira e aguarda a gravação de uma mensagem.
+     *
+     * @param senderId        ID do usuário remetente
+     * @param conversationId  ID da conversa
+     * @param content         Conteúdo da mensagem
+     * @param messageType     Tipo de mensagem
+     * @param parentMessageId ID da mensagem pai, null se mensagem original
+     * @return Mensagem persistida
+     * @throws WebApplicationException 429 se a fila está cheia, 503 se o commit
+     *                                 não ocorreu dentro do timeout
+     */
+    public UserMessageModel send(
+            UUID senderId,
+            UUID conversationId,
+            String content,
+            MessageType messageType,
+            UUID parentMessageId) {
+
+        // Validação na própria transação; a espera abaixo não segura conexão do pool
+        UserMessageModel message = messageService.prepareMessage(
+                senderId, conversationId, content, messageType, parentMessageId);
+
+        try {
+            return submit(message).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Falha ao gravar mensagem", e.getCause());
+        } catch (TimeoutException e) {
+            log.warnf("Send pipeline timeout: conversation=%s, depth=%d", conversationId, queue.size());
+            throw rejected(Response.Status.SERVICE_UNAVAILABLE, "SEND_TIMEOUT",
+                    "Envio ainda não confirmado, sincronize a conversa antes de reenviar");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw rejected(Response.Status.SERVICE_UNAVAILABLE, "SEND_TIMEOUT",
+                    "Envio ainda não confirmado, sincronize a conversa antes de reenviar");
+        }
+    }
+
+    /**
+     * Enfileira uma mensagem já validada.
+     *
+     * @param message Mensagem montada por {@link MessageService#prepareMessage}
+     * @return Future completado com a mensagem após o commit do lote
+     * @throws WebApplicationException 429 se a fila está cheia ou o nó está
+     *                                 encerrando
+     */
+    CompletableFuture<UserMessageModel> submit(UserMessageModel message) {
+        PendingSend pending = new PendingSend(message, new CompletableFuture<>());
+        if (!accepting || !queue.offer(pending)) {
+            log.warnf("Send pipeline rejected message: accepting=%s, depth=%d", accepting, queue.size());
+            throw rejected(Response.Status.TOO_MANY_REQUESTS, "SEND_QUEUE_FULL",
+                    "Muitos envios no momento, tente novamente");
+        }
+        return pending.result();
+    }
+
+    /**
+     * Aguarda até {@code pollMs} pelo primeiro envio e então junta os que
+     * chegarem dentro de {@code linger-ms}, até {@code max-batch}.
+     *
+     * @param pollMs Espera máxima pelo primeiro envio
+     * @return Lote (vazio se nada chegou)
+     */
+    List<PendingSend> nextBatch(long pollMs) throws InterruptedException {
+        PendingSend first = queue.poll(pollMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return List.of();
+        }
+
+        List<PendingSend> batch = new ArrayList<>(maxBatch);
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatch) {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0) {
+                break;
+            }
+            PendingSend next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /**
+     * Grava um lote e completa os futures. Se o lote falhar, regrava cada
+     * mensagem em sua própria transação.
+     *
+     * @param batch Envios a gravar
+     */
+    void flush(List<PendingSend> batch) {
+        try {
+            batchWriter.write(batch.stream().map(PendingSend::message).toList());
+            batch.forEach(pending -> pending.result().complete(pending.message()));
+            return;
+        } catch (RuntimeException e) {
+            log.errorf(e, "Message batch of %d failed, retrying one by one", batch.size());
+        }
+
+        for (PendingSend pending : batch) {
+            try {
+                batchWriter.write(List.of(pending.message()));
+                pending.result().complete(pending.message());
+            } catch (RuntimeException e) {
+                log.errorf(e, "Failed to write message to conversation %s", pending.message().conversation.id);
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * @return Envios aguardando gravação
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        writer = new Thread(this::drain, "message-send-pipeline");
+        writer.setDaemon(true);
+        writer.start();
+        log.infof("Message send pipeline started: max-batch=%d, linger=%dms",
+                maxBatch, TimeUnit.NANOSECONDS.toMillis(lingerNanos));
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        accepting = false;
+        if (writer == null) {
+            return;
+        }
+        log.infof("Draining message send pipeline before shutdown: depth=%d", queue.size());
+        try {
+            writer.join(SHUTDOWN_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        while (accepting || !queue.isEmpty()) {
+            try {
+                List<PendingSend> batch = nextBatch(POLL_TIMEOUT_MS);
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.errorf(e, "Unexpected error in message send pipeline");
+            }
+        }
+    }
+
+    private static WebApplicationException rejected(Response.Status status, String error, String message) {
+        return new WebApplicationException(
+                Response.status(status)
+                        .entity(Map.of("error", error, "message", message))
+                        .build());
+    }
+}
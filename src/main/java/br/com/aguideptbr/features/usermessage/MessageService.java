@@ -1,13 +1,23 @@
 package br.com.aguideptbr.features.usermessage;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import br.com.aguideptbr.features.usermessage.UserMessageRepository.SearchMatch;
+import br.com.aguideptbr.features.usermessage.dto.MessageResponse;
+import br.com.aguideptbr.features.usermessage.dto.MessageSearchHit;
+import br.com.aguideptbr.features.usermessage.dto.MessageSearchResponse;
+
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
@@ -25,6 +35,7 @@ import jakarta.ws.rs.core.Response;
  * - Edição e exclusão de mensagens
  * - Busca e paginação de mensagens
  * - Threads (respostas a mensagens)
+ * - Eventos para entrega em tempo real ({@link MessageEvent})
  * - Validação de permissões
  */
 @ApplicationScoped
@@ -33,21 +44,30 @@ public class MessageService {
     private final UserMessageRepository messageRepository;
     private final ConversationRepository conversationRepository;
     private final ConversationParticipantRepository participantRepository;
-    private final UserBlockRepository blockRepository;
+    private final ConversationMembershipCache membershipCache;
+    private final UserBlockGraphCache blockGraph;
+    private final Event<MessageEvent> messageEvents;
     private final Logger log;
+    private final Duration syncSafetyLag;
 
     @Inject
     public MessageService(
             UserMessageRepository messageRepository,
             ConversationRepository conversationRepository,
             ConversationParticipantRepository participantRepository,
-            UserBlockRepository blockRepository,
-            Logger log) {
+            ConversationMembershipCache membershipCache,
+            UserBlockGraphCache blockGraph,
+            Event<MessageEvent> messageEvents,
+            Logger log,
+            @ConfigProperty(name = "messaging.sync.safety-lag", defaultValue = "10s") Duration syncSafetyLag) {
         this.messageRepository = messageRepository;
         this.conversationRepository = conversationRepository;
         this.participantRepository = participantRepository;
-        this.blockRepository = blockRepository;
+        this.membershipCache = membershipCache;
+        this.blockGraph = blockGraph;
+        this.messageEvents = messageEvents;
         this.log = log;
+        this.syncSafetyLag = syncSafetyLag;
     }
 
     /**
@@ -72,6 +92,48 @@ public class MessageService {
             MessageType messageType,
             UUID parentMessageId) {
 
+        UserMessageModel message = prepareMessage(senderId, conversationId, content, messageType, parentMessageId);
+
+        messageRepository.persist(message);
+
+        // Atualizar data da última mensagem na conversa
+        ConversationModel conversation = message.conversation;
+        conversation.lastMessageAt = message.sentAt;
+        conversationRepository.persist(conversation);
+
+        // Não lidas dos demais participantes e ordem do inbox (mesma transação)
+        participantRepository.recordMessagesSent(conversationId, senderId, 1, message.sentAt);
+
+        // Entrega em tempo real (SSE) após o commit
+        messageEvents.fire(MessageEvent.of(MessageEvent.Type.CREATED, message));
+
+        log.infof("Message sent successfully: id=%s", message.id);
+        return message;
+    }
+
+    /**
+     * Valida um envio e monta a mensagem, sem persisti-la.
+     * Usado por {@link #sendMessage} e pelo {@link MessageSendPipeline}, que
+     * grava a mensagem depois, em lote.
+     *
+     * @param senderId        ID do usuário remetente
+     * @param conversationId  ID da conversa
+     * @param content         Conteúdo da mensagem
+     * @param messageType     Tipo de mensagem (TEXT, IMAGE, LINK, VIDEO, FILE)
+     * @param parentMessageId ID da mensagem pai, null se mensagem original
+     * @return Mensagem não persistida, com sentAt preenchido
+     * @throws NotFoundException   se conversa não existe
+     * @throws ForbiddenException  se usuário não é participante
+     * @throws BadRequestException se dados inválidos
+     */
+    @Transactional
+    public UserMessageModel prepareMessage(
+            UUID senderId,
+            UUID conversationId,
+            String content,
+            MessageType messageType,
+            UUID parentMessageId) {
+
         log.infof("Sending message: sender=%s, conversation=%s, type=%s", senderId, conversationId, messageType);
 
         // Validar conversa existe
@@ -82,17 +144,16 @@ public class MessageService {
         }
 
         // Validar usuário é participante
-        if (!participantRepository.isUserParticipant(senderId, conversationId)) {
+        if (!membershipCache.isParticipant(senderId, conversationId)) {
             log.warnf("Send message denied: user %s is not participant of conversation %s", senderId, conversationId);
             throw new ForbiddenException("Você não é participante desta conversa");
         }
 
         // Para conversas DIRECT, verificar bloqueio entre os participantes
         if (conversation.conversationType == ConversationType.DIRECT) {
-            List<ConversationParticipantModel> participants = participantRepository.findByConversation(conversationId);
-            for (ConversationParticipantModel p : participants) {
-                if (!p.user.id.equals(senderId) && blockRepository.isBlockedInAnyDirection(senderId, p.user.id)) {
-                    log.warnf("Send message denied: block detected between %s and %s", senderId, p.user.id);
+            for (UUID memberId : membershipCache.memberIds(conversationId)) {
+                if (!memberId.equals(senderId) && blockGraph.isBlockedInAnyDirection(senderId, memberId)) {
+                    log.warnf("Send message denied: block detected between %s and %s", senderId, memberId);
                     throw new WebApplicationException(
                             Response.status(409)
                                     .entity(Map.of(
@@ -131,19 +192,14 @@ public class MessageService {
         message.messageType = messageType;
         message.parentMessage = parentMessage;
         message.sentAt = LocalDateTime.now();
-
-        messageRepository.persist(message);
-
-        // Atualizar data da última mensagem na conversa
-        conversation.lastMessageAt = message.sentAt;
-        conversationRepository.persist(conversation);
-
-        log.infof("Message sent successfully: id=%s", message.id);
         return message;
     }
 
     /**
      * Marca uma mensagem como lida.
+     * Também avança o marco de leitura do participante até ela (ver
+     * ConversationService#markReadUpTo); o flag is_read é mantido para clientes
+     * antigos.
      *
      * @param messageId ID da mensagem
      * @param userId    ID do usuário que leu
@@ -161,7 +217,7 @@ public class MessageService {
         }
 
         // Validar usuário é participante
-        if (!participantRepository.isUserParticipant(userId, message.conversation.id)) {
+        if (!membershipCache.isParticipant(userId, message.conversation.id)) {
             throw new ForbiddenException("Você não é participante desta conversa");
         }
 
@@ -176,13 +232,8 @@ public class MessageService {
         message.readAt = LocalDateTime.now();
         messageRepository.persist(message);
 
-        // Atualizar registro de participante
-        ConversationParticipantModel participant = participantRepository.findByUserAndConversation(userId,
-                message.conversation.id);
-        if (participant != null) {
-            participant.markAsRead(message);
-            participantRepository.persist(participant);
-        }
+        // Avançar o marco de leitura do participante (nunca retrocede)
+        participantRepository.advanceReadWatermark(userId, message.conversation.id, messageId);
 
         log.debugf("Message marked as read successfully");
     }
@@ -222,6 +273,7 @@ public class MessageService {
         message.isEdited = true;
         message.editedAt = LocalDateTime.now();
         messageRepository.persist(message);
+        messageEvents.fire(MessageEvent.of(MessageEvent.Type.UPDATED, message));
 
         log.infof("Message edited successfully");
         return message;
@@ -253,12 +305,18 @@ public class MessageService {
         // Soft delete
         message.softDelete();
         messageRepository.persist(message);
+        participantRepository.decrementUnreadCount(message.conversation.id, userId, message.sentAt);
+        messageEvents.fire(MessageEvent.of(MessageEvent.Type.DELETED, message));
 
         log.infof("Message deleted successfully");
     }
 
     /**
      * Busca mensagens de uma conversa (paginadas).
+     * Inclui as mensagens arquivadas (app_user_message_archive, ver
+     * {@link MessageArchiveJob}) na mesma ordem, lidas no mesmo comando que a
+     * tabela quente. Páginas profundas pagam o OFFSET; prefira
+     * {@link #getMessageHistory}.
      *
      * @param conversationId ID da conversa
      * @param userId         ID do usuário solicitante
@@ -277,6 +335,39 @@ public class MessageService {
         log.infof("Getting messages: conversation=%s, user=%s, page=%d, size=%d",
                 conversationId, userId, page, size);
 
+        ConversationParticipantModel participant = requireHistoryAccess(conversationId, userId);
+
+        // Respeitar marco de limpeza do participante
+        return messageRepository.findHistory(conversationId, participant.clearedAt, null, (long) page * size,
+                size);
+    }
+
+    /**
+     * Busca o histórico de uma conversa por cursor (keyset em (sentAt, id)),
+     * incluindo as mensagens arquivadas. Sem OFFSET e sem COUNT.
+     *
+     * @param conversationId ID da conversa
+     * @param userId         ID do usuário solicitante
+     * @param before         Cursor da página anterior (null = mais recentes)
+     * @param size           Tamanho da página
+     * @return Até {@code size + 1} mensagens (a extra indica que há mais)
+     * @throws NotFoundException  se conversa não existe
+     * @throws ForbiddenException se usuário não é participante
+     */
+    public List<UserMessageModel> getMessageHistory(
+            UUID conversationId,
+            UUID userId,
+            MessageHistoryCursor before,
+            int size) {
+
+        log.infof("Getting message history: conversation=%s, user=%s, before=%s", conversationId, userId,
+                before != null ? before.getSentAt() : null);
+
+        ConversationParticipantModel participant = requireHistoryAccess(conversationId, userId);
+        return messageRepository.findHistory(conversationId, participant.clearedAt, before, 0, size + 1);
+    }
+
+    private ConversationParticipantModel requireHistoryAccess(UUID conversationId, UUID userId) {
         // Validar conversa existe
         if (conversationRepository.findByIdActive(conversationId) == null) {
             log.warnf("Get messages denied: conversation %s not found", conversationId);
@@ -290,17 +381,77 @@ public class MessageService {
             log.warnf("Get messages denied: user %s is not participant of conversation %s", userId, conversationId);
             throw new ForbiddenException("Você não é participante desta conversa");
         }
+        return participant;
+    }
 
-        // Respeitar marco de limpeza do participante
-        return messageRepository.findByConversationAfterClearedAt(conversationId, participant.clearedAt, page, size);
+    /**
+     * Sincronização incremental: mensagens alteradas desde o cursor.
+     *
+     * updated_at é gravado pela JVM antes do commit, então uma transação lenta
+     * pode confirmar uma alteração com updated_at menor que um cursor já
+     * entregue. A janela termina em {@code now - messaging.sync.safety-lag}
+     * (mesma ideia do watermark dos rollups de engajamento): alterações mais
+     * recentes chegam pelo SSE e entram numa sincronização seguinte.
+     *
+     * @param conversationId ID da conversa
+     * @param userId         ID do usuário solicitante
+     * @param after          Cursor da última sincronização (null = desde o
+     *                       início)
+     * @param size           Máximo de mensagens
+     * @return Até {@code size + 1} mensagens (a extra indica que há mais)
+     * @throws NotFoundException  se conversa não existe
+     * @throws ForbiddenException se usuário não é participante
+     */
+    public List<UserMessageModel> syncMessages(
+            UUID conversationId,
+            UUID userId,
+            MessageSyncCursor after,
+            int size) {
+
+        log.infof("Syncing messages: conversation=%s, user=%s, after=%s", conversationId, userId,
+                after != null ? after.getUpdatedAt() : null);
+
+        if (conversationRepository.findByIdActive(conversationId) == null) {
+            throw new NotFoundException("Conversa não encontrada");
+        }
+
+        ConversationParticipantModel participant = participantRepository.findByUserAndConversation(userId,
+                conversationId);
+        if (participant == null || !participant.isActive()) {
+            log.warnf("Sync denied: user %s is not participant of conversation %s", userId, conversationId);
+            throw new ForbiddenException("Você não é participante desta conversa");
+        }
+
+        LocalDateTime upTo = LocalDateTime.now().minus(syncSafetyLag);
+        return messageRepository.findChangedAfter(conversationId, participant.clearedAt, after, upTo, size + 1);
+    }
+
+    /**
+     * Valida que o usuário pode acompanhar uma conversa em tempo real.
+     *
+     * @param conversationId ID da conversa
+     * @param userId         ID do usuário solicitante
+     * @throws NotFoundException  se conversa não existe
+     * @throws ForbiddenException se usuário não é participante
+     */
+    public void validateStreamAccess(UUID conversationId, UUID userId) {
+        if (conversationRepository.findByIdActive(conversationId) == null) {
+            throw new NotFoundException("Conversa não encontrada");
+        }
+        if (!membershipCache.isParticipant(userId, conversationId)) {
+            log.warnf("Stream denied: user %s is not participant of conversation %s", userId, conversationId);
+            throw new ForbiddenException("Você não é participante desta conversa");
+        }
     }
 
     /**
-     * Conta o total de mensagens ativas em uma conversa.
+     * Conta o total de mensagens ativas em uma conversa, incluindo as
+     * arquivadas.
      * Usado para metadata de paginação (totalElements/totalPages).
      */
     public long countTotalMessages(UUID conversationId) {
-        return messageRepository.countByConversation(conversationId);
+        return messageRepository.countByConversation(conversationId)
+                + messageRepository.countArchivedByConversation(conversationId);
     }
 
     /**
@@ -309,11 +460,15 @@ public class MessageService {
      * @param conversationId ID da conversa
      * @param query          Texto a buscar
      * @param userId         ID do usuário solicitante
-     * @return Lista de mensagens que contêm o texto
-     * @throws NotFoundException  se conversa não existe
-     * @throws ForbiddenException se usuário não é participante
+     * @param after          Cursor da página anterior, ou null
+     * @param size           Tamanho da página
+     * @return Página de resultados, por relevância e recência
+     * @throws NotFoundException   se conversa não existe
+     * @throws ForbiddenException  se usuário não é participante
+     * @throws BadRequestException se a query estiver vazia
      */
-    public List<UserMessageModel> searchMessages(UUID conversationId, String query, UUID userId) {
+    public MessageSearchResponse searchMessages(
+            UUID conversationId, String query, UUID userId, MessageSearchCursor after, int size) {
         log.infof("Searching messages: conversation=%s, query=%s, user=%s", conversationId, query, userId);
 
         // Validar conversa existe
@@ -322,16 +477,26 @@ public class MessageService {
         }
 
         // Validar usuário é participante
-        if (!participantRepository.isUserParticipant(userId, conversationId)) {
+        if (!membershipCache.isParticipant(userId, conversationId)) {
             throw new ForbiddenException("Você não é participante desta conversa");
         }
 
-        // Validar query
-        if (query == null || query.trim().isEmpty()) {
-            throw new BadRequestException("Texto de busca não pode estar vazio");
-        }
+        return search(userId, conversationId, query, after, size);
+    }
 
-        return messageRepository.searchInConversation(conversationId, query);
+    /**
+     * Busca mensagens por texto em todas as conversas ativas do usuário.
+     *
+     * @param query  Texto a buscar
+     * @param userId ID do usuário solicitante
+     * @param after  Cursor da página anterior, ou null
+     * @param size   Tamanho da página
+     * @return Página de resultados, por relevância e recência
+     * @throws BadRequestException se a query estiver vazia
+     */
+    public MessageSearchResponse searchInbox(String query, UUID userId, MessageSearchCursor after, int size) {
+        log.infof("Searching inbox: query=%s, user=%s", query, userId);
+        return search(userId, null, query, after, size);
     }
 
     /**
@@ -353,7 +518,7 @@ public class MessageService {
         }
 
         // Validar usuário é participante
-        if (!participantRepository.isUserParticipant(userId, parentMessage.conversation.id)) {
+        if (!membershipCache.isParticipant(userId, parentMessage.conversation.id)) {
             throw new ForbiddenException("Você não é participante desta conversa");
         }
 
@@ -368,6 +533,38 @@ public class MessageService {
      * @return Número de mensagens não lidas
      */
     public long countUnreadMessages(UUID userId, UUID conversationId) {
-        return messageRepository.countUnreadByUser(userId, conversationId);
+        return participantRepository.findUnreadCount(userId, conversationId);
+    }
+
+    // ========== Métodos Privados ==========
+
+    private MessageSearchResponse search(
+            UUID userId, UUID conversationId, String query, MessageSearchCursor after, int size) {
+        // Validar query
+        if (query == null || query.trim().isEmpty()) {
+            throw new BadRequestException("Texto de busca não pode estar vazio");
+        }
+
+        List<SearchMatch> matches = messageRepository.searchMessages(userId, conversationId, query.trim(), after,
+                size + 1);
+        boolean hasMore = matches.size() > size;
+        List<SearchMatch> page = hasMore ? matches.subList(0, size) : matches;
+
+        Map<UUID, UserMessageModel> messages = messageRepository
+                .findByIdsWithSender(page.stream().map(SearchMatch::messageId).toList())
+                .stream()
+                .collect(Collectors.toMap(message -> message.id, Function.identity()));
+
+        List<MessageSearchHit> results = page.stream()
+                .filter(match -> messages.containsKey(match.messageId()))
+                .map(match -> new MessageSearchHit(
+                        new MessageResponse(messages.get(match.messageId())), match.snippet()))
+                .toList();
+
+        SearchMatch last = page.isEmpty() ? null : page.get(page.size() - 1);
+        String nextCursor = hasMore
+                ? new MessageSearchCursor(last.score(), last.messageId(), last.newestAt()).encode()
+                : null;
+        return new MessageSearchResponse(results, nextCursor, hasMore);
     }
 }
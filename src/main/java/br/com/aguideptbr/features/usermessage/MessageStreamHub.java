@@ -0,0 +1,187 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.logging.Logger;
+
+import br.com.aguideptbr.features.usermessage.dto.MessageResponse;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+/**
+ * Hub em memória de conexões SSE, indexado por conversa.
+ *
+ * Cada nó mantém apenas as conexões abertas nele; eventos de outros nós
+ * chegam via {@link MessageNotifyBridge} (LISTEN/NOTIFY). Conexões fechadas
+ * são removidas no próximo envio ou no heartbeat periódico.
+ *
+ * O acesso é checado ao abrir o stream e novamente a cada alteração de
+ * participantes ou bloqueio ({@link #dropRevoked(UUID)},
+ * {@link #dropRevokedOf(UUID)}): conexões de quem deixou a conversa são
+ * fechadas antes de receber novos eventos.
+ */
+@ApplicationScoped
+public class MessageStreamHub {
+
+    private record Subscriber(UUID userId, SseEventSink sink, Sse sse) {
+    }
+
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Logger log;
+    private final ConversationMembershipCache membershipCache;
+
+    public MessageStreamHub(Logger log, ConversationMembershipCache membershipCache) {
+        this.log = log;
+        this.membershipCache = membershipCache;
+    }
+
+    /**
+     * Registra uma conexão SSE para receber os eventos de uma conversa.
+     *
+     * @param conversationId ID da conversa
+     * @param userId         ID do usuário conectado
+     * @param sink           Conexão SSE
+     * @param sse            Fábrica de eventos SSE
+     */
+    public void subscribe(UUID conversationId, UUID userId, SseEventSink sink, Sse sse) {
+        subscribers.computeIfAbsent(conversationId, id -> ConcurrentHashMap.newKeySet())
+                .add(new Subscriber(userId, sink, sse));
+        log.debugf("SSE subscribed: user=%s, conversation=%s", userId, conversationId);
+    }
+
+    /**
+     * @param conversationId ID da conversa
+     * @return true se há conexões abertas neste nó para a conversa
+     */
+    public boolean hasSubscribers(UUID conversationId) {
+        Set<Subscriber> set = subscribers.get(conversationId);
+        return set != null && !set.isEmpty();
+    }
+
+    /**
+     * Envia o evento para todas as conexões abertas da conversa neste nó.
+     *
+     * @param type           Tipo da alteração
+     * @param conversationId ID da conversa
+     * @param message        Mensagem alterada
+     */
+    public void publish(MessageEvent.Type type, UUID conversationId, MessageResponse message) {
+        Set<Subscriber> set = subscribers.get(conversationId);
+        if (set == null) {
+            return;
+        }
+        for (Subscriber subscriber : set) {
+            OutboundSseEvent event = subscriber.sse().newEventBuilder()
+                    .name(type.name())
+                    .id(message.getId() != null ? message.getId().toString() : null)
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(MessageResponse.class, message)
+                    .build();
+            send(conversationId, set, subscriber, event);
+        }
+    }
+
+    /**
+     * Fecha as conexões da conversa cujos usuários não são mais participantes
+     * ativos. Consulta o {@link ConversationMembershipCache}: chamar com o
+     * cache já invalidado e dentro de uma transação.
+     *
+     * @param conversationId ID da conversa
+     * @return Número de conexões fechadas
+     */
+    public int dropRevoked(UUID conversationId) {
+        Set<Subscriber> set = subscribers.get(conversationId);
+        if (set == null) {
+            return 0;
+        }
+        int dropped = 0;
+        for (Subscriber subscriber : set) {
+            if (!membershipCache.isParticipant(subscriber.userId(), conversationId)) {
+                drop(conversationId, set, subscriber);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Refaz a checagem de acesso de todas as conexões de um usuário.
+     *
+     * @param userId ID do usuário
+     * @return Número de conexões fechadas
+     */
+    public int dropRevokedOf(UUID userId) {
+        int dropped = 0;
+        for (Map.Entry<UUID, Set<Subscriber>> entry : subscribers.entrySet()) {
+            for (Subscriber subscriber : entry.getValue()) {
+                if (subscriber.userId().equals(userId)
+                        && !membershipCache.isParticipant(userId, entry.getKey())) {
+                    drop(entry.getKey(), entry.getValue(), subscriber);
+                    dropped++;
+                }
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Refaz a checagem de acesso de todas as conexões deste nó (após perder
+     * invalidações, ex.: reconexão do listener).
+     *
+     * @return Número de conexões fechadas
+     */
+    public int dropAllRevoked() {
+        int dropped = 0;
+        for (UUID conversationId : subscribers.keySet()) {
+            dropped += dropRevoked(conversationId);
+        }
+        return dropped;
+    }
+
+    /**
+     * Comentário SSE periódico: mantém proxies/load balancers com a conexão
+     * aberta e detecta clientes que desconectaram sem aviso.
+     */
+    @Scheduled(every = "${messaging.stream.heartbeat-interval:25s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void heartbeat() {
+        subscribers.forEach((conversationId, set) -> {
+            for (Subscriber subscriber : set) {
+                send(conversationId, set, subscriber, subscriber.sse().newEventBuilder().comment("ping").build());
+            }
+        });
+    }
+
+    private void send(UUID conversationId, Set<Subscriber> set, Subscriber subscriber, OutboundSseEvent event) {
+        if (subscriber.sink().isClosed()) {
+            remove(conversationId, set, subscriber);
+            return;
+        }
+        subscriber.sink().send(event).whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.debugf("SSE send failed, dropping subscriber: user=%s, conversation=%s",
+                        subscriber.userId(), conversationId);
+                remove(conversationId, set, subscriber);
+                subscriber.sink().close();
+            }
+        });
+    }
+
+    private void drop(UUID conversationId, Set<Subscriber> set, Subscriber subscriber) {
+        log.infof("SSE access revoked, closing stream: user=%s, conversation=%s",
+                subscriber.userId(), conversationId);
+        remove(conversationId, set, subscriber);
+        subscriber.sink().close();
+    }
+
+    private void remove(UUID conversationId, Set<Subscriber> set, Subscriber subscriber) {
+        set.remove(subscriber);
+        subscribers.computeIfPresent(conversationId, (id, current) -> current.isEmpty() ? null : current);
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Posição na sincronização incremental de uma conversa, ordenada por
+ * (updated_at, id) crescente.
+ *
+ * Como edições, leituras e exclusões (soft delete) também atualizam
+ * updated_at, avançar o cursor devolve tudo o que mudou desde a última
+ * sincronização, não apenas mensagens novas. O cliente recebe o cursor como
+ * string Base64URL opaca ({@code nextCursor}) e o reenvia em {@code ?after=}.
+ */
+public final class MessageSyncCursor {
+
+    private final LocalDateTime updatedAt;
+    private final UUID id;
+
+    public MessageSyncCursor(LocalDateTime updatedAt, UUID id) {
+        this.updatedAt = updatedAt;
+        this.id = id;
+    }
+
+    /**
+     * Cria o cursor posicionado depois da mensagem informada.
+     *
+     * @param message Última mensagem devolvida
+     * @return Cursor
+     */
+    public static MessageSyncCursor after(UserMessageModel message) {
+        return new MessageSyncCursor(message.updatedAt, message.id);
+    }
+
+    /**
+     * @return Representação opaca enviada ao cliente
+     */
+    public String encode() {
+        String raw = updatedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Interpreta o cursor recebido do cliente.
+     *
+     * @param value Cursor opaco; vazio significa "desde o início"
+     * @return Cursor, ou null para sincronizar desde o início
+     * @throws BadRequestException se o cursor for inválido
+     */
+    public static MessageSyncCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new MessageSyncCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor de sincronização inválido");
+        }
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+}
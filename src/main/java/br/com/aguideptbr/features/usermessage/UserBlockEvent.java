@@ -0,0 +1,14 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.util.UUID;
+
+/**
+ * Evento CDI disparado quando um bloqueio é criado ou removido. Invalida o
+ * {@link UserBlockGraphCache} dos dois usuários neste nó após a transação e
+ * nos demais nós via NOTIFY.
+ *
+ * @param blockerUserId Usuário que bloqueou/desbloqueou
+ * @param blockedUserId Usuário bloqueado/desbloqueado
+ */
+public record UserBlockEvent(UUID blockerUserId, UUID blockedUserId) {
+}
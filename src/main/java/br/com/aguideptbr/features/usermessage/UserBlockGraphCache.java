@@ -0,0 +1,129 @@
+package br.com.aguideptbr.features.usermessage;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+/**
+ * Grafo de bloqueios em memória (por nó): para cada usuário, os ids que ele
+ * bloqueou e os ids que o bloquearam. Substitui os COUNTs de
+ * isBlockedInAnyDirection no envio de mensagens e na criação de conversas
+ * diretas.
+ *
+ * - Carregado sob demanda: uma consulta por usuário (bloqueios nas duas
+ * direções).
+ * - Invalidado por {@link UserBlockEvent} (os dois usuários) após o fim da
+ * transação e, nos demais nós, via {@link MessageNotifyBridge}.
+ * - Uma carga concorrente com uma invalidação não é guardada (contador de
+ * gerações), como no {@link ConversationMembershipCache}.
+ */
+@ApplicationScoped
+public class UserBlockGraphCache {
+
+    /**
+     * Arestas de um usuário.
+     *
+     * @param blocked   Usuários que ele bloqueou
+     * @param blockedBy Usuários que o bloquearam
+     */
+    record Edges(Set<UUID> blocked, Set<UUID> blockedBy) {
+    }
+
+    private final Map<UUID, Edges> users = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final UserBlockRepository blockRepository;
+    private final int maxUsers;
+
+    public UserBlockGraphCache(
+            UserBlockRepository blockRepository,
+            @ConfigProperty(name = "messaging.block-cache.max-users", defaultValue = "50000") int maxUsers) {
+        this.blockRepository = blockRepository;
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Verifica se existe bloqueio em qualquer direção entre dois usuários.
+     * Consulta apenas as arestas do primeiro usuário.
+     *
+     * @param userOneId ID do primeiro usuário
+     * @param userTwoId ID do segundo usuário
+     * @return true se um dos dois bloqueou o outro
+     */
+    public boolean isBlockedInAnyDirection(UUID userOneId, UUID userTwoId) {
+        Edges edges = edges(userOneId);
+        return edges.blocked().contains(userTwoId) || edges.blockedBy().contains(userTwoId);
+    }
+
+    /**
+     * Descarta as arestas de um usuário (recarregadas na próxima checagem).
+     *
+     * @param userId ID do usuário
+     */
+    public void invalidate(UUID userId) {
+        generation.incrementAndGet();
+        users.remove(userId);
+    }
+
+    /**
+     * Descarta todas as entradas.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        users.clear();
+    }
+
+    void onBlockChanged(@Observes(during = TransactionPhase.AFTER_COMPLETION) UserBlockEvent event) {
+        invalidate(event.blockerUserId());
+        invalidate(event.blockedUserId());
+    }
+
+    private Edges edges(UUID userId) {
+        Edges cached = users.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedAt = generation.get();
+        Edges loaded = load(userId);
+        if (generation.get() == loadedAt) {
+            evictIfFull();
+            users.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    private Edges load(UUID userId) {
+        List<Object[]> rows = blockRepository.findEdgesOf(userId);
+        Set<UUID> blocked = new HashSet<>();
+        Set<UUID> blockedBy = new HashSet<>();
+        for (Object[] row : rows) {
+            UUID blockerId = (UUID) row[0];
+            UUID blockedId = (UUID) row[1];
+            if (userId.equals(blockerId)) {
+                blocked.add(blockedId);
+            } else {
+                blockedBy.add(blockerId);
+            }
+        }
+        return new Edges(Set.copyOf(blocked), Set.copyOf(blockedBy));
+    }
+
+    private void evictIfFull() {
+        Iterator<UUID> iterator = users.keySet().iterator();
+        while (users.size() >= maxUsers && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -29,6 +29,22 @@ public class UserBlockRepository implements PanacheRepositoryBase<UserBlockModel
                 userOneId, userTwoId) > 0;
     }
 
+    /**
+     * Lista os bloqueios em que o usuário aparece, em qualquer direção.
+     * Usado para carregar o UserBlockGraphCache.
+     *
+     * @param userId ID do usuário
+     * @return Linhas (blockerId, blockedId)
+     */
+    public List<Object[]> findEdgesOf(UUID userId) {
+        return getEntityManager().createQuery(
+                "SELECT b.blocker.id, b.blocked.id FROM UserBlockModel b "
+                        + "WHERE b.blocker.id = ?1 OR b.blocked.id = ?1",
+                Object[].class)
+                .setParameter(1, userId)
+                .getResultList();
+    }
+
     /**
      * Busca o registro de bloqueio (para delete).
      */
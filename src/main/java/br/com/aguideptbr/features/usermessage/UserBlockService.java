@@ -8,6 +8,7 @@ import org.jboss.logging.Logger;
 
 import br.com.aguideptbr.features.user.UserModel;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
@@ -22,15 +23,20 @@ import jakarta.ws.rs.core.Response;
  * - Usuário não pode bloquear a si mesmo
  * - Bloquear usuário já bloqueado retorna 409
  * - Desbloquear usuário não bloqueado retorna 404
+ *
+ * Cada alteração dispara {@link UserBlockEvent} para invalidar o
+ * {@link UserBlockGraphCache}.
  */
 @ApplicationScoped
 public class UserBlockService {
 
     private final UserBlockRepository blockRepository;
+    private final Event<UserBlockEvent> blockEvents;
     private final Logger log;
 
-    public UserBlockService(UserBlockRepository blockRepository, Logger log) {
+    public UserBlockService(UserBlockRepository blockRepository, Event<UserBlockEvent> blockEvents, Logger log) {
         this.blockRepository = blockRepository;
+        this.blockEvents = blockEvents;
         this.log = log;
     }
 
@@ -74,6 +80,7 @@ public class UserBlockService {
         block.blocker = blocker;
         block.blocked = blockedUser;
         blockRepository.persist(block);
+        blockEvents.fire(new UserBlockEvent(blockerUserId, blockedUserId));
 
         log.infof("User %s blocked by %s", blockedUserId, blockerUserId);
         return block;
@@ -96,6 +103,7 @@ public class UserBlockService {
         }
 
         blockRepository.delete(block);
+        blockEvents.fire(new UserBlockEvent(blockerUserId, blockedUserId));
         log.infof("User %s unblocked by %s", blockedUserId, blockerUserId);
     }
 
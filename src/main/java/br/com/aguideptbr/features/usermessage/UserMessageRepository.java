@@ -1,12 +1,18 @@
 package br.com.aguideptbr.features.usermessage;
 
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.Session;
+
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Parameters;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Query;
 
 /**
  * Repository para operações de banco de dados com mensagens.
@@ -15,6 +21,29 @@ import jakarta.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class UserMessageRepository implements PanacheRepositoryBase<UserMessageModel, UUID> {
 
+    /**
+     * Colunas gravadas por {@link #insertBatch(List)}, na ordem dos parâmetros.
+     */
+    private static final String INSERT_COLUMNS = """
+            id, conversation_id, sender_id, parent_message_id, txt_content, message_type,
+            is_read, sent_at, is_edited, created_at, updated_at""";
+
+    private static final int INSERT_COLUMN_COUNT = 11;
+
+    /**
+     * Linhas por INSERT multi-linha (11 colunas x 1000 fica abaixo do limite de
+     * 32767 parâmetros do PostgreSQL).
+     */
+    private static final int INSERT_ROWS_PER_STATEMENT = 1000;
+
+    /**
+     * Colunas comuns a app_user_message e app_user_message_archive, lidas por
+     * {@link #findHistory}.
+     */
+    private static final String HISTORY_COLUMNS = """
+            id, conversation_id, sender_id, parent_message_id, txt_content, message_type,
+            is_read, read_at, sent_at, is_edited, edited_at, created_at, updated_at, deleted_at""";
+
     /**
      * Busca mensagens de uma conversa (paginadas, ordenadas por data decrescente).
      *
@@ -53,6 +82,202 @@ public class UserMessageRepository implements PanacheRepositoryBase<UserMessageM
                 .list();
     }
 
+    /**
+     * Busca o histórico de uma conversa na tabela quente e em
+     * app_user_message_archive (V1.0.38), em ordem (sentAt, id) decrescente.
+     *
+     * As duas tabelas são lidas no mesmo comando (UNION ALL), então uma
+     * mensagem movida pelo {@link MessageArchiveJob} aparece exatamente uma
+     * vez. Cada ramo usa seu índice (conversation_id, sent_at DESC) e lê no
+     * máximo {@code offset + limit} linhas.
+     *
+     * As entidades são desanexadas do contexto de persistência: as
+     * arquivadas não existem em app_user_message e todas servem apenas para
+     * leitura.
+     *
+     * @param conversationId ID da conversa
+     * @param clearedAt      Marco de limpeza do participante (null = sem filtro)
+     * @param before         Cursor da página anterior, ou null (mais recentes)
+     * @param offset         Mensagens a pular depois do cursor (0 com cursor)
+     * @param limit          Máximo de mensagens
+     * @return Mensagens visíveis para o participante
+     */
+    public List<UserMessageModel> findHistory(
+            UUID conversationId, LocalDateTime clearedAt, MessageHistoryCursor before, long offset, int limit) {
+        StringBuilder filters = new StringBuilder("conversation_id = :conversationId AND deleted_at IS NULL");
+        if (clearedAt != null) {
+            filters.append(" AND sent_at > :clearedAt");
+        }
+        if (before != null) {
+            filters.append(" AND sent_at <= :cursorAt AND (sent_at < :cursorAt OR id < :cursorId)");
+        }
+
+        Query query = getEntityManager().createNativeQuery("""
+                SELECT %1$s
+                FROM (
+                    (SELECT %1$s FROM app_user_message
+                     WHERE %2$s
+                     ORDER BY sent_at DESC, id DESC
+                     LIMIT :branchLimit)
+                    UNION ALL
+                    (SELECT %1$s FROM app_user_message_archive
+                     WHERE %2$s
+                     ORDER BY sent_at DESC, id DESC
+                     LIMIT :branchLimit)
+                ) history
+                ORDER BY sent_at DESC, id DESC
+                OFFSET :offset LIMIT :limit
+                """.formatted(HISTORY_COLUMNS, filters), UserMessageModel.class)
+                .setParameter("conversationId", conversationId)
+                .setParameter("branchLimit", offset + limit)
+                .setParameter("offset", offset)
+                .setParameter("limit", limit);
+        if (clearedAt != null) {
+            query.setParameter("clearedAt", clearedAt);
+        }
+        if (before != null) {
+            query.setParameter("cursorAt", before.getSentAt());
+            query.setParameter("cursorId", before.getId());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<UserMessageModel> messages = query.getResultList();
+        messages.forEach(getEntityManager()::detach);
+        return messages;
+    }
+
+    /**
+     * Conta mensagens ativas de uma conversa no arquivo.
+     *
+     * @param conversationId ID da conversa
+     * @return Número de mensagens arquivadas
+     */
+    public long countArchivedByConversation(UUID conversationId) {
+        return ((Number) getEntityManager().createNativeQuery("""
+                SELECT COUNT(*) FROM app_user_message_archive
+                WHERE conversation_id = :conversationId AND deleted_at IS NULL
+                """)
+                .setParameter("conversationId", conversationId)
+                .getSingleResult()).longValue();
+    }
+
+    /**
+     * Move um lote de mensagens para o arquivo (message_archive_batch,
+     * V1.0.38). Deve rodar na própria transação.
+     *
+     * @param hotBefore     Mensagens enviadas antes disso são movidas
+     * @param deletedBefore Mensagens excluídas antes disso são movidas
+     * @param batchSize     Máximo de mensagens no lote
+     * @return Quantas mensagens foram movidas
+     */
+    public int archiveBatch(LocalDateTime hotBefore, LocalDateTime deletedBefore, int batchSize) {
+        return ((Number) getEntityManager()
+                .createNativeQuery("SELECT message_archive_batch(:hotBefore, :deletedBefore, :batchSize)")
+                .setParameter("hotBefore", hotBefore)
+                .setParameter("deletedBefore", deletedBefore)
+                .setParameter("batchSize", batchSize)
+                .getSingleResult()).intValue();
+    }
+
+    /**
+     * Insere mensagens novas com INSERTs multi-linha, fora do EntityManager
+     * (usado por {@link MessageBatchWriter}). Gera id, createdAt e updatedAt;
+     * as entidades continuam não gerenciadas. Deve rodar dentro de uma
+     * transação.
+     *
+     * @param messages Mensagens já validadas, com conversation, sender e sentAt
+     * @return Número de linhas inseridas
+     */
+    public int insertBatch(List<UserMessageModel> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (UserMessageModel message : messages) {
+            if (message.id == null) {
+                message.id = UUID.randomUUID();
+            }
+            message.createdAt = now;
+            message.updatedAt = now;
+        }
+
+        int[] inserted = { 0 };
+        Session session = getEntityManager().unwrap(Session.class);
+        session.doWork(connection -> {
+            for (int from = 0; from < messages.size(); from += INSERT_ROWS_PER_STATEMENT) {
+                List<UserMessageModel> chunk = messages.subList(from,
+                        Math.min(from + INSERT_ROWS_PER_STATEMENT, messages.size()));
+
+                try (PreparedStatement ps = connection.prepareStatement(buildInsertSql(chunk.size()))) {
+                    int i = 1;
+                    for (UserMessageModel m : chunk) {
+                        ps.setObject(i++, m.id);
+                        ps.setObject(i++, m.conversation.id);
+                        ps.setObject(i++, m.sender.id);
+                        ps.setObject(i++, m.parentMessage != null ? m.parentMessage.id : null);
+                        ps.setString(i++, m.txtContent);
+                        ps.setString(i++, m.messageType.name());
+                        ps.setBoolean(i++, m.isRead);
+                        ps.setTimestamp(i++, Timestamp.valueOf(m.sentAt));
+                        ps.setBoolean(i++, m.isEdited);
+                        ps.setTimestamp(i++, Timestamp.valueOf(m.createdAt));
+                        ps.setTimestamp(i++, Timestamp.valueOf(m.updatedAt));
+                    }
+                    inserted[0] += ps.executeUpdate();
+                }
+            }
+        });
+        return inserted[0];
+    }
+
+    private static String buildInsertSql(int rows) {
+        String placeholders = "(" + "?, ".repeat(INSERT_COLUMN_COUNT - 1) + "?)";
+        StringBuilder sql = new StringBuilder("INSERT INTO app_user_message (")
+                .append(INSERT_COLUMNS)
+                .append(") VALUES ");
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            sql.append(placeholders);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Busca mensagens alteradas (criadas, editadas, lidas ou excluídas) depois
+     * do cursor, em ordem (updatedAt, id). Inclui mensagens com soft delete para
+     * que o cliente remova sua cópia local. Usa idx_message_conversation_sync
+     * (V1.0.34) e não executa COUNT.
+     *
+     * @param conversationId ID da conversa
+     * @param clearedAt      Marco de limpeza do participante (null = sem filtro)
+     * @param after          Cursor da última sincronização, ou null (desde o
+     *                       início)
+     * @param upTo           Fim da janela: alterações com updatedAt posterior
+     *                       ficam para a próxima sincronização
+     * @param limit          Máximo de mensagens
+     * @return Até {@code limit + 1} mensagens (a extra indica que há mais)
+     */
+    public List<UserMessageModel> findChangedAfter(
+            UUID conversationId, LocalDateTime clearedAt, MessageSyncCursor after, LocalDateTime upTo, int limit) {
+        StringBuilder query = new StringBuilder("conversation.id = :conversationId AND updatedAt <= :upTo");
+        Parameters params = Parameters.with("conversationId", conversationId).and("upTo", upTo);
+
+        if (clearedAt != null) {
+            query.append(" AND sentAt > :clearedAt");
+            params.and("clearedAt", clearedAt);
+        }
+        if (after != null) {
+            query.append(" AND (updatedAt > :cursorAt OR (updatedAt = :cursorAt AND id > :cursorId))");
+            params.and("cursorAt", after.getUpdatedAt()).and("cursorId", after.getId());
+        }
+        query.append(" ORDER BY updatedAt, id");
+
+        return find(query.toString(), params).range(0, limit).list();
+    }
+
     /**
      * Conta mensagens não lidas de um usuário em uma conversa, respeitando
      * cleared_at.
@@ -92,16 +317,145 @@ public class UserMessageRepository implements PanacheRepositoryBase<UserMessageM
     }
 
     /**
-     * Busca mensagens por texto em uma conversa (full-text search simplificado).
+     * Resultado da busca textual: id da mensagem, score, trecho destacado e o
+     * sent_at de referência da recência (acerto mais recente da busca).
+     */
+    public record SearchMatch(UUID messageId, double score, String snippet, LocalDateTime newestAt) {
+    }
+
+    /**
+     * Peso máximo da recência no score. ts_rank_cd normalizado vai de 0 a 1,
+     * então a recência desempata e favorece acertos parecidos, mas não supera
+     * uma diferença grande de relevância.
+     */
+    static final double RECENCY_WEIGHT = 0.3;
+
+    /**
+     * Meia-vida da recência: a cada 30 dias de distância do acerto mais
+     * recente, o bônus cai pela metade.
+     */
+    static final double RECENCY_HALF_LIFE_SECONDS = 30 * 24 * 3600;
+
+    private static final String HEADLINE_OPTIONS = "StartSel=<mark>, StopSel=</mark>, MaxWords=24, MinWords=8, "
+            + "ShortWord=2, MaxFragments=2, FragmentDelimiter=\" … \"";
+
+    /**
+     * Busca textual (português, sem acentos) nas conversas ativas do usuário,
+     * usando o índice GIN idx_message_content_search_pt (V1.0.36).
      *
-     * @param conversationId ID da conversa
+     * A consulta aceita a sintaxe de websearch_to_tsquery ("frase exata",
+     * OR, -termo). Score = ts_rank_cd normalizado (0..1) +
+     * {@link #RECENCY_WEIGHT} × 0,5^(idade / {@link #RECENCY_HALF_LIFE_SECONDS}),
+     * com a idade medida a partir do acerto mais recente da busca. Essa
+     * referência é calculada na primeira página e volta no cursor, então os
+     * scores não mudam entre páginas nem dependem de now(). Respeita
+     * cleared_at e ignora mensagens excluídas.
+     *
+     * O trecho (ts_headline) só é calculado para a página. O texto é escapado
+     * para HTML antes do destaque, então as únicas tags no trecho são as
+     * {@code <mark>} inseridas pelo próprio ts_headline.
+     *
+     * @param userId         ID do usuário (escopo: conversas em que participa)
+     * @param conversationId Restringe a uma conversa; null busca em todas
      * @param query          Texto a buscar
-     * @return Lista de mensagens que contêm o texto
+     * @param after          Cursor da página anterior, ou null
+     * @param limit          Máximo de resultados
+     * @return Resultados em ordem de (score, id) decrescente
      */
-    public List<UserMessageModel> searchInConversation(UUID conversationId, String query) {
-        return list(
-                "conversation.id = ?1 and LOWER(txtContent) LIKE LOWER(?2) and deletedAt is null ORDER BY sentAt DESC",
-                conversationId, "%" + query + "%");
+    public List<SearchMatch> searchMessages(
+            UUID userId, UUID conversationId, String query, MessageSearchCursor after, int limit) {
+        String conversationFilter = conversationId != null ? "AND m.conversation_id = :conversationId" : "";
+        // Páginas seguintes reutilizam a referência da primeira (mensagens novas não deslocam os scores)
+        String newest = after != null ? "CAST(:newestAt AS timestamp)" : "MAX(h.sent_at)";
+        String cursorFilter = after != null
+                ? "AND (s.score, s.id) < (CAST(:cursorScore AS float8), CAST(:cursorId AS uuid))"
+                : "";
+
+        Query search = getEntityManager().createNativeQuery("""
+                WITH q AS (
+                    SELECT websearch_to_tsquery('portuguese_unaccent', :query) AS query
+                ),
+                hits AS (
+                    SELECT m.id, m.txt_content, m.sent_at,
+                           CAST(ts_rank_cd(to_tsvector('portuguese_unaccent', m.txt_content), q.query, 32) AS float8)
+                               AS rank
+                    FROM app_user_message m
+                    JOIN app_conversation_participant p ON p.conversation_id = m.conversation_id
+                    JOIN app_conversation c ON c.id = m.conversation_id
+                    CROSS JOIN q
+                    WHERE p.user_id = :userId
+                      AND p.left_at IS NULL
+                      AND c.deleted_at IS NULL
+                      AND m.deleted_at IS NULL
+                      AND (p.cleared_at IS NULL OR m.sent_at > p.cleared_at)
+                      AND to_tsvector('portuguese_unaccent', m.txt_content) @@ q.query
+                      %s
+                ),
+                ref AS (
+                    SELECT %s AS newest_at FROM hits h
+                ),
+                scored AS (
+                    SELECT h.id, h.txt_content,
+                           h.rank + :recencyWeight * power(0.5,
+                               GREATEST(CAST(EXTRACT(EPOCH FROM (ref.newest_at - h.sent_at)) AS float8), 0)
+                                   / :halfLifeSeconds) AS score
+                    FROM hits h CROSS JOIN ref
+                ),
+                page AS (
+                    SELECT s.id, s.txt_content, s.score
+                    FROM scored s
+                    WHERE TRUE %s
+                    ORDER BY s.score DESC, s.id DESC
+                    LIMIT :limit
+                )
+                SELECT page.id, page.score,
+                       ts_headline('portuguese_unaccent',
+                               replace(replace(replace(replace(replace(page.txt_content,
+                                       '&', '&amp;'), '<', '&lt;'), '>', '&gt;'), '"', '&quot;'), '''', '&#39;'),
+                               q.query, :headlineOptions),
+                       ref.newest_at
+                FROM page CROSS JOIN q CROSS JOIN ref
+                ORDER BY page.score DESC, page.id DESC
+                """.formatted(conversationFilter, newest, cursorFilter))
+                .setParameter("query", query)
+                .setParameter("recencyWeight", RECENCY_WEIGHT)
+                .setParameter("halfLifeSeconds", RECENCY_HALF_LIFE_SECONDS)
+                .setParameter("userId", userId)
+                .setParameter("limit", limit)
+                .setParameter("headlineOptions", HEADLINE_OPTIONS);
+
+        if (conversationId != null) {
+            search.setParameter("conversationId", conversationId);
+        }
+        if (after != null) {
+            search.setParameter("newestAt", after.getNewestAt())
+                    .setParameter("cursorScore", after.getScore())
+                    .setParameter("cursorId", after.getId());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = search.getResultList();
+        return rows.stream()
+                .map(row -> new SearchMatch((UUID) row[0], ((Number) row[1]).doubleValue(), (String) row[2],
+                        toLocalDateTime(row[3])))
+                .toList();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    /**
+     * Carrega mensagens por id com o remetente (uma consulta).
+     *
+     * @param messageIds IDs das mensagens
+     * @return Mensagens encontradas, sem ordem definida
+     */
+    public List<UserMessageModel> findByIdsWithSender(List<UUID> messageIds) {
+        if (messageIds.isEmpty()) {
+            return List.of();
+        }
+        return find("SELECT m FROM UserMessageModel m JOIN FETCH m.sender WHERE m.id IN ?1", messageIds).list();
     }
 
     /**
@@ -0,0 +1,54 @@
+package br.com.aguideptbr.features.usermessage.dto;
+
+import java.util.List;
+
+/**
+ * Página do inbox (GET /api/v1/conversations).
+ *
+ * {@code conversations} vem ordenado por fixação e atividade mais recente. Se
+ * {@code hasMore} for true, repita a requisição com os mesmos filtros e
+ * {@code ?cursor=nextCursor} para a próxima página.
+ */
+public class ConversationPageResponse {
+
+    private List<ConversationSummaryDTO> conversations;
+    private String nextCursor;
+    private boolean hasMore;
+
+    // Construtores
+
+    public ConversationPageResponse() {
+    }
+
+    public ConversationPageResponse(List<ConversationSummaryDTO> conversations, String nextCursor, boolean hasMore) {
+        this.conversations = conversations;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters e Setters
+
+    public List<ConversationSummaryDTO> getConversations() {
+        return conversations;
+    }
+
+    public void setConversations(List<ConversationSummaryDTO> conversations) {
+        this.conversations = conversations;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.aguideptbr.features.usermessage.dto;
+
+import java.util.List;
+
+/**
+ * Página do histórico de uma conversa
+ * (GET /api/v1/messages/conversation/{id}?before=).
+ *
+ * {@code messages} vem da mais recente para a mais antiga, incluindo
+ * mensagens arquivadas. Reenvie {@code nextCursor} em {@code ?before=} para
+ * buscar as anteriores enquanto {@code hasMore} for true.
+ */
+public class MessageHistoryResponse {
+
+    private List<MessageResponse> messages;
+    private String nextCursor;
+    private boolean hasMore;
+
+    // Construtores
+
+    public MessageHistoryResponse() {
+    }
+
+    public MessageHistoryResponse(List<MessageResponse> messages, String nextCursor, boolean hasMore) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters e Setters
+
+    public List<MessageResponse> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<MessageResponse> messages) {
+        this.messages = messages;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
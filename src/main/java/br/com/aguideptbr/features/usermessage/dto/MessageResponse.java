@@ -24,6 +24,7 @@ public class MessageResponse {
     private Boolean isEdited;
     private LocalDateTime editedAt;
     private LocalDateTime createdAt;
+    private LocalDateTime deletedAt; // Preenchido apenas na sincronização/eventos de exclusão
 
     public MessageResponse(UserMessageModel message) {
         this.id = message.id;
@@ -38,6 +39,10 @@ public class MessageResponse {
         this.isEdited = message.isEdited;
         this.editedAt = message.editedAt;
         this.createdAt = message.createdAt;
+        this.deletedAt = message.deletedAt;
+        if (message.deletedAt != null) {
+            this.content = null; // Não expor o texto de mensagens excluídas
+        }
     }
 
     // Construtores
@@ -142,4 +147,12 @@ public class MessageResponse {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
 }
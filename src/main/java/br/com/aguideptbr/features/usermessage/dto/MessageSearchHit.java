@@ -0,0 +1,42 @@
+package br.com.aguideptbr.features.usermessage.dto;
+
+/**
+ * Resultado de busca: a mensagem e um trecho com os termos encontrados
+ * marcados com {@code <mark>...</mark>}.
+ *
+ * O trecho é gerado a partir do texto original, sem escape de HTML; o
+ * cliente deve escapar o conteúdo antes de interpretar as marcações.
+ */
+public class MessageSearchHit {
+
+    private MessageResponse message;
+    private String snippet;
+
+    // Construtores
+
+    public MessageSearchHit() {
+    }
+
+    public MessageSearchHit(MessageResponse message, String snippet) {
+        this.message = message;
+        this.snippet = snippet;
+    }
+
+    // Getters e Setters
+
+    public MessageResponse getMessage() {
+        return message;
+    }
+
+    public void setMessage(MessageResponse message) {
+        this.message = message;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.aguideptbr.features.usermessage.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados da busca de mensagens
+ * (GET /api/v1/messages/conversation/{id}/search e GET /api/v1/messages/search).
+ *
+ * {@code results} vem ordenado por relevância e recência. Se {@code hasMore}
+ * for true, repita a busca com {@code ?cursor=nextCursor} para a próxima
+ * página.
+ */
+public class MessageSearchResponse {
+
+    private List<MessageSearchHit> results;
+    private String nextCursor;
+    private boolean hasMore;
+
+    // Construtores
+
+    public MessageSearchResponse() {
+    }
+
+    public MessageSearchResponse(List<MessageSearchHit> results, String nextCursor, boolean hasMore) {
+        this.results = results;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters e Setters
+
+    public List<MessageSearchHit> getResults() {
+        return results;
+    }
+
+    public void setResults(List<MessageSearchHit> results) {
+        this.results = results;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.aguideptbr.features.usermessage.dto;
+
+import java.util.List;
+
+/**
+ * Resposta da sincronização incremental de uma conversa
+ * (GET /api/v1/messages/conversation/{id}?after=).
+ *
+ * {@code messages} traz mensagens novas, editadas, lidas e excluídas
+ * ({@code deletedAt} preenchido) desde o cursor, da mais antiga para a mais
+ * recente. Reenvie {@code nextCursor} na próxima sincronização; se
+ * {@code hasMore} for true, repita imediatamente para buscar o restante.
+ */
+public class MessageSyncResponse {
+
+    private List<MessageResponse> messages;
+    private String nextCursor;
+    private boolean hasMore;
+
+    // Construtores
+
+    public MessageSyncResponse() {
+    }
+
+    public MessageSyncResponse(List<MessageResponse> messages, String nextCursor, boolean hasMore) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters e Setters
+
+    public List<MessageResponse> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<MessageResponse> messages) {
+        this.messages = messages;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -18,6 +18,7 @@ public class ParticipantDTO {
     private Boolean isCreator;
     private LocalDateTime joinedAt;
     private LocalDateTime lastReadAt;
+    private UUID lastReadMessageId; // Marco de leitura (recibos de leitura)
 
     public ParticipantDTO(ConversationParticipantModel participant) {
         this.userId = participant.user.id;
@@ -27,6 +28,7 @@ public class ParticipantDTO {
         this.isCreator = participant.isCreator;
         this.joinedAt = participant.joinedAt;
         this.lastReadAt = participant.lastReadAt;
+        this.lastReadMessageId = participant.lastReadMessage != null ? participant.lastReadMessage.id : null;
     }
 
     // Construtores
@@ -91,4 +93,12 @@ public class ParticipantDTO {
     public void setLastReadAt(LocalDateTime lastReadAt) {
         this.lastReadAt = lastReadAt;
     }
+
+    public UUID getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+
+    public void setLastReadMessageId(UUID lastReadMessageId) {
+        this.lastReadMessageId = lastReadMessageId;
+    }
 }
@@ -0,0 +1,44 @@
+package br.com.aguideptbr.features.usermessage.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Resposta do endpoint PUT /conversations/{id}/read?upTo=.
+ * Informa o marco de leitura atual do usuário e quantas mensagens seguem não
+ * lidas depois dele.
+ */
+public class ReadStatusResponse {
+
+    private UUID conversationId;
+    private UUID lastReadMessageId;
+    private LocalDateTime lastReadAt;
+    private long unreadCount;
+
+    public ReadStatusResponse() {
+    }
+
+    public ReadStatusResponse(UUID conversationId, UUID lastReadMessageId, LocalDateTime lastReadAt,
+            long unreadCount) {
+        this.conversationId = conversationId;
+        this.lastReadMessageId = lastReadMessageId;
+        this.lastReadAt = lastReadAt;
+        this.unreadCount = unreadCount;
+    }
+
+    public UUID getConversationId() {
+        return conversationId;
+    }
+
+    public UUID getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+
+    public LocalDateTime getLastReadAt() {
+        return lastReadAt;
+    }
+
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+}
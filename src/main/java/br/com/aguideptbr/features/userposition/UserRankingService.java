@@ -219,7 +219,6 @@ public class UserRankingService {
         // diretamente
 
         // Capturar valores anteriores para detecção de milestones
-        Long previousContentViews = existing.getTotalContentViews();
         Integer previousProfileCompletion = existing.getProfileCompletionPercentage() != null
                 ? existing.getProfileCompletionPercentage()
                 : 0;
@@ -227,15 +226,14 @@ public class UserRankingService {
         Boolean previousHasWhatsapp = existing.getHasWhatsapp() != null ? existing.getHasWhatsapp() : false;
         Boolean previousHasTelegram = existing.getHasTelegram() != null ? existing.getHasTelegram() : false;
 
-        // Atualizar campos com validação delegada
-        if (updatedData.getTotalContentViews() != null) {
-            validationService.validateNonNegative(updatedData.getTotalContentViews(), "totalContentViews");
-            existing.setTotalContentViews(updatedData.getTotalContentViews());
-        }
-        if (updatedData.getUniqueContentViews() != null) {
-            validationService.validateNonNegative(updatedData.getUniqueContentViews(), "uniqueContentViews");
-            existing.setUniqueContentViews(updatedData.getUniqueContentViews());
+        // totalContentViews, uniqueContentViews e lastContentViewAt são mantidos
+        // pelo servidor (UserRankingViewProjector) - valores do cliente são ignorados
+        if (updatedData.getTotalContentViews() != null || updatedData.getUniqueContentViews() != null
+                || updatedData.getLastContentViewAt() != null) {
+            log.debugf("Ignoring client-supplied content view counters for ranking: id=%s", id);
         }
+
+        // Atualizar campos com validação delegada
         if (updatedData.getAvgDailyUsageMinutes() != null) {
             validationService.validateDailyUsageMinutes(updatedData.getAvgDailyUsageMinutes());
             existing.setAvgDailyUsageMinutes(updatedData.getAvgDailyUsageMinutes());
@@ -275,14 +273,6 @@ public class UserRankingService {
             validationService.validateTimestamp(updatedData.getLastActivityAt(), "lastActivityAt");
             existing.setLastActivityAt(updatedData.getLastActivityAt());
         }
-        if (updatedData.getLastContentViewAt() != null) {
-            // Não valida limite de passado para lastContentViewAt: é um timestamp
-            // histórico legítimo (usuário inativo por dias/semanas ainda tem uma última
-            // visualização válida de qualquer data no passado).
-            // Apenas rejeita timestamps futuros (tolerância de 5 min).
-            validationService.validateTimestampNotFuture(updatedData.getLastContentViewAt(), "lastContentViewAt");
-            existing.setLastContentViewAt(updatedData.getLastContentViewAt());
-        }
         if (updatedData.getLastMessageSentAt() != null) {
             validationService.validateTimestamp(updatedData.getLastMessageSentAt(), "lastMessageSentAt");
             existing.setLastMessageSentAt(updatedData.getLastMessageSentAt());
@@ -317,13 +307,8 @@ public class UserRankingService {
         // em entidade gerenciada
         // userRankingRepository.persist(existing); <- REMOVIDO
 
-        // Verificar milestones de visualização de conteúdo (delegado para
-        // MilestoneService)
-        if (updatedData.getTotalContentViews() != null
-                && !updatedData.getTotalContentViews().equals(previousContentViews)) {
-            milestoneService.checkContentViewsMilestones(existing.getUserId(), previousContentViews,
-                    existing.getTotalContentViews());
-        }
+        // Milestones de visualização de conteúdo são verificados pelo
+        // UserRankingViewProjector ao aplicar as visualizações
 
         // Verificar milestones de completude de perfil (delegado para MilestoneService)
         if (updatedData.getProfileCompletionPercentage() != null) {
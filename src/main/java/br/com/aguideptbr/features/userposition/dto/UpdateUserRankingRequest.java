@@ -9,6 +9,10 @@ import jakarta.validation.constraints.Min;
  * DTO para atualização de ranking de usuário.
  * Todos os campos são opcionais (atualização parcial).
  * Apenas campos fornecidos serão atualizados.
+ *
+ * totalContentViews, uniqueContentViews e lastContentViewAt são aceitos por
+ * compatibilidade com versões antigas do app, mas ignorados: o servidor os
+ * calcula a partir dos engajamentos VIEW (UserRankingViewProjector).
  */
 public class UpdateUserRankingRequest {
 
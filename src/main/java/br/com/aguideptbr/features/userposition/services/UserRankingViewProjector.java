@@ -0,0 +1,192 @@
+package br.com.aguideptbr.features.userposition.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.logging.Logger;
+
+import br.com.aguideptbr.features.engagement.ContentEngagementRepository;
+import br.com.aguideptbr.features.engagement.ContentViewedEvent;
+import br.com.aguideptbr.features.userposition.UserRankingModel;
+import br.com.aguideptbr.features.userposition.UserRankingRepository;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+
+/**
+ * Projeta visualizações de conteúdo (eventos VIEW do engagement) nos
+ * contadores de app_user_ranking.
+ *
+ * Substitui o cálculo feito no app: totalContentViews, uniqueContentViews e
+ * lastContentViewAt passam a ser mantidos pelo servidor.
+ *
+ * Fluxo:
+ * 1. {@link ContentViewedEvent} é observado após o commit do INSERT e
+ * acumulado em memória por usuário
+ * 2. Um job periódico aplica os acumulados em lote: lock do ranking
+ * (PESSIMISTIC_WRITE, em ordem de userId), incremento dos contadores e
+ * verificação de milestones via
+ * {@link UserRankingMilestoneService#checkContentViewsMilestones}
+ *
+ * Uma visualização conta como ÚNICA quando todas as visualizações ACTIVE do
+ * par (usuário, conteúdo) no log estão no lote atual (primeira visualização).
+ *
+ * Usuários sem ranking são ignorados. Acumulados em memória são perdidos se o
+ * processo morrer abruptamente; o shutdown normal aplica o que estiver
+ * pendente.
+ */
+@ApplicationScoped
+public class UserRankingViewProjector {
+
+    private final Logger log;
+    private final UserRankingRepository userRankingRepository;
+    private final ContentEngagementRepository engagementRepository;
+    private final UserRankingMilestoneService milestoneService;
+    private final Map<UUID, PendingViews> pending = new ConcurrentHashMap<>();
+
+    public UserRankingViewProjector(Logger log, UserRankingRepository userRankingRepository,
+            ContentEngagementRepository engagementRepository, UserRankingMilestoneService milestoneService) {
+        this.log = log;
+        this.userRankingRepository = userRankingRepository;
+        this.engagementRepository = engagementRepository;
+        this.milestoneService = milestoneService;
+    }
+
+    /**
+     * Acumula uma visualização já persistida.
+     *
+     * @param event Visualização
+     */
+    void onContentViewed(@Observes(during = TransactionPhase.AFTER_SUCCESS) ContentViewedEvent event) {
+        pending.compute(event.userId(), (userId, views) -> {
+            PendingViews target = views != null ? views : new PendingViews();
+            target.add(event);
+            return target;
+        });
+    }
+
+    @Scheduled(every = "${ranking.views.flush-interval:5s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Aplica as visualizações pendentes em app_user_ranking.
+     *
+     * @return Quantidade de rankings atualizados
+     */
+    @Transactional
+    public int flush() {
+        Map<UUID, PendingViews> drained = new HashMap<>();
+        for (UUID userId : new ArrayList<>(pending.keySet())) {
+            PendingViews views = pending.remove(userId);
+            if (views != null) {
+                drained.put(userId, views);
+            }
+        }
+        if (drained.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            return apply(drained);
+        } catch (RuntimeException e) {
+            // Devolve os acumulados para a próxima execução
+            drained.forEach((userId, views) -> pending.merge(userId, views, PendingViews::merge));
+            throw e;
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.errorf(e, "❌ Failed to apply pending content views on shutdown: users=%d", pending.size());
+        }
+    }
+
+    private int apply(Map<UUID, PendingViews> drained) {
+        Set<UUID> contentIds = new HashSet<>();
+        drained.values().forEach(views -> contentIds.addAll(views.perContent.keySet()));
+
+        // Total de views ACTIVE por par (usuário, conteúdo) já incluindo o lote
+        Map<UUID, Map<UUID, Long>> logCounts = new HashMap<>();
+        for (Object[] row : engagementRepository.countViewsByUserAndContent(drained.keySet(), contentIds)) {
+            logCounts.computeIfAbsent((UUID) row[0], id -> new HashMap<>()).put((UUID) row[1], ((Number) row[2]).longValue());
+        }
+
+        List<UUID> userIds = new ArrayList<>(drained.keySet());
+        userIds.sort(null); // ordem fixa de lock evita deadlock entre nós
+
+        int updated = 0;
+        for (UUID userId : userIds) {
+            UserRankingModel ranking = userRankingRepository
+                    .findByUserIdWithLock(userId, LockModeType.PESSIMISTIC_WRITE)
+                    .orElse(null);
+            if (ranking == null) {
+                log.debugf("Skipping content views for user without ranking: userId=%s", userId);
+                continue;
+            }
+
+            PendingViews views = drained.get(userId);
+            Map<UUID, Long> userLogCounts = logCounts.getOrDefault(userId, Map.of());
+            long firstViews = views.perContent.entrySet().stream()
+                    .filter(entry -> userLogCounts.getOrDefault(entry.getKey(), 0L) <= entry.getValue())
+                    .count();
+
+            Long previousViews = ranking.getTotalContentViews() != null ? ranking.getTotalContentViews() : 0L;
+            long previousUnique = ranking.getUniqueContentViews() != null ? ranking.getUniqueContentViews() : 0L;
+            ranking.setTotalContentViews(previousViews + views.total);
+            ranking.setUniqueContentViews(previousUnique + firstViews);
+            if (ranking.getLastContentViewAt() == null || views.lastViewedAt.isAfter(ranking.getLastContentViewAt())) {
+                ranking.setLastContentViewAt(views.lastViewedAt);
+            }
+
+            milestoneService.checkContentViewsMilestones(userId, previousViews, ranking.getTotalContentViews());
+            updated++;
+        }
+
+        log.debugf("📊 Content views projected into rankings: users=%d, updated=%d", drained.size(), updated);
+        return updated;
+    }
+
+    /**
+     * Visualizações acumuladas de um usuário. Alterado apenas dentro de
+     * {@code ConcurrentHashMap.compute}, portanto sem concorrência.
+     */
+    static final class PendingViews {
+
+        long total;
+        LocalDateTime lastViewedAt;
+        final Map<UUID, Long> perContent = new HashMap<>();
+
+        void add(ContentViewedEvent event) {
+            total++;
+            perContent.merge(event.contentId(), 1L, Long::sum);
+            LocalDateTime viewedAt = event.viewedAt() != null ? event.viewedAt() : LocalDateTime.now();
+            if (lastViewedAt == null || viewedAt.isAfter(lastViewedAt)) {
+                lastViewedAt = viewedAt;
+            }
+        }
+
+        PendingViews merge(PendingViews other) {
+            total += other.total;
+            other.perContent.forEach((contentId, count) -> perContent.merge(contentId, count, Long::sum));
+            if (lastViewedAt == null || (other.lastViewedAt != null && other.lastViewedAt.isAfter(lastViewedAt))) {
+                lastViewedAt = other.lastViewedAt;
+            }
+            return this;
+        }
+    }
+}
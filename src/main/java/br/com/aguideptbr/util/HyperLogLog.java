@@ -0,0 +1,199 @@
+package br.com.aguideptbr.util;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * HyperLogLog sketch for approximate distinct counts (Flajolet et al., 2007).
+ *
+ * Uses 2^{@value #PRECISION} = 4096 registers and a 64-bit hash, giving a
+ * relative standard error of about 1.04 / sqrt(4096) = 1.6% at any
+ * cardinality (roughly ±3.3% for 95% of estimates). Small cardinalities use
+ * linear counting, which is exact in practice for a few hundred items.
+ *
+ * Sketches are mergeable: the union of two sets is the register-wise maximum,
+ * so sketches built on different days or nodes can be combined without
+ * double counting. Not thread-safe; callers synchronize.
+ *
+ * Serialized form (see {@link #toBytes()}): a sparse list of (register, value)
+ * pairs while few registers are set, otherwise the registers packed in 6 bits
+ * each (3072 bytes).
+ */
+public final class HyperLogLog {
+
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+
+    /**
+     * Relative standard error of {@link #estimate()}.
+     */
+    public static final double STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private static final byte FORMAT_SPARSE = 1;
+    private static final byte FORMAT_DENSE = 2;
+    private static final int HEADER_BYTES = 2;
+    private static final int DENSE_BYTES = REGISTERS * 6 / 8;
+    private static final int SPARSE_ENTRY_BYTES = 3;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * Adds a UUID to the sketch.
+     *
+     * @param value The value
+     * @return true if a register changed (the estimate may have changed)
+     */
+    public boolean add(UUID value) {
+        return addHash(hash(value));
+    }
+
+    boolean addHash(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Rank of the first 1-bit in the remaining 52 bits (1-based)
+        long remaining = hash << PRECISION;
+        int rank = remaining == 0 ? 64 - PRECISION + 1 : Long.numberOfLeadingZeros(remaining) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Merges another sketch into this one (set union).
+     *
+     * @param other The other sketch
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return Estimated number of distinct values added
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double raw = alpha * REGISTERS * REGISTERS / sum;
+
+        if (raw <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting for small cardinalities
+            return Math.round(REGISTERS * Math.log((double) REGISTERS / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    /**
+     * @return true if nothing has been added
+     */
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serializes the sketch using whichever of the sparse or dense encodings
+     * is smaller.
+     *
+     * @return The serialized sketch
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+
+        if (nonZero * SPARSE_ENTRY_BYTES < DENSE_BYTES) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + nonZero * SPARSE_ENTRY_BYTES);
+            buffer.put(FORMAT_SPARSE).put((byte) PRECISION);
+            for (int i = 0; i < REGISTERS; i++) {
+                if (registers[i] != 0) {
+                    buffer.putShort((short) i).put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+
+        byte[] bytes = new byte[HEADER_BYTES + DENSE_BYTES];
+        bytes[0] = FORMAT_DENSE;
+        bytes[1] = PRECISION;
+        // 4 registers of 6 bits -> 3 bytes
+        for (int i = 0, out = HEADER_BYTES; i < REGISTERS; i += 4, out += 3) {
+            int packed = registers[i] << 18 | registers[i + 1] << 12 | registers[i + 2] << 6 | registers[i + 3];
+            bytes[out] = (byte) (packed >>> 16);
+            bytes[out + 1] = (byte) (packed >>> 8);
+            bytes[out + 2] = (byte) packed;
+        }
+        return bytes;
+    }
+
+    /**
+     * Deserializes a sketch produced by {@link #toBytes()}.
+     *
+     * @param bytes The serialized sketch (null or empty gives an empty sketch)
+     * @return The sketch
+     * @throws IllegalArgumentException if the format or precision is unknown
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        if (bytes.length < HEADER_BYTES || bytes[1] != PRECISION) {
+            throw new IllegalArgumentException("Unsupported HyperLogLog sketch header");
+        }
+
+        if (bytes[0] == FORMAT_SPARSE) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES);
+            while (buffer.remaining() >= SPARSE_ENTRY_BYTES) {
+                int index = buffer.getShort() & 0xFFFF;
+                sketch.registers[index] = buffer.get();
+            }
+        } else if (bytes[0] == FORMAT_DENSE && bytes.length == HEADER_BYTES + DENSE_BYTES) {
+            for (int i = 0, in = HEADER_BYTES; i < REGISTERS; i += 4, in += 3) {
+                int packed = (bytes[in] & 0xFF) << 16 | (bytes[in + 1] & 0xFF) << 8 | (bytes[in + 2] & 0xFF);
+                sketch.registers[i] = (byte) (packed >>> 18 & 0x3F);
+                sketch.registers[i + 1] = (byte) (packed >>> 12 & 0x3F);
+                sketch.registers[i + 2] = (byte) (packed >>> 6 & 0x3F);
+                sketch.registers[i + 3] = (byte) (packed & 0x3F);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported HyperLogLog sketch format: " + bytes[0]);
+        }
+        return sketch;
+    }
+
+    /**
+     * 64-bit hash of a UUID (MurmurHash3 finalizer applied to both halves).
+     */
+    static long hash(UUID value) {
+        return fmix64(value.getMostSignificantBits() ^ fmix64(value.getLeastSignificantBits()));
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
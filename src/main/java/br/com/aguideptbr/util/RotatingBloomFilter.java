@@ -0,0 +1,144 @@
+package br.com.aguideptbr.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Time-windowed Bloom filter built from two generations.
+ *
+ * New keys go into the current generation; lookups check both. When the
+ * current generation is older than {@code window} it becomes the previous one
+ * and a fresh generation starts, so a key is remembered for at least one
+ * window and at most two. Memory is fixed: two bit arrays sized for
+ * {@code expectedInsertions} per window at the requested false-positive rate.
+ *
+ * Keys are given as two independent 64-bit hashes; probe positions use
+ * double hashing (Kirsch and Mitzenmacher, 2006). Thread-safe.
+ */
+public final class RotatingBloomFilter {
+
+    private final long bits;
+    private final int hashFunctions;
+    private final long windowMillis;
+
+    private long[] current;
+    private long[] previous;
+    private long currentStartedAt;
+
+    /**
+     * @param expectedInsertions Keys expected per window
+     * @param falsePositiveRate  Target false-positive rate (0 < fpp < 1)
+     * @param window             Minimum time a key is remembered
+     */
+    public RotatingBloomFilter(long expectedInsertions, double falsePositiveRate, Duration window) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1 || window.isZero()
+                || window.isNegative()) {
+            throw new IllegalArgumentException("Invalid Bloom filter configuration");
+        }
+        // m = -n ln(p) / (ln 2)^2, k = m/n ln 2
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = Math.max(64, (m + 63) / 64 * 64);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.windowMillis = window.toMillis();
+        this.current = new long[(int) (bits / 64)];
+        this.previous = new long[(int) (bits / 64)];
+        this.currentStartedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return true if the key may have been added in the last one or two
+     *         windows (false positives possible), false if it certainly was not
+     */
+    public boolean mightContain(long hash1, long hash2) {
+        return mightContain(hash1, hash2, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a key to the current generation.
+     */
+    public void add(long hash1, long hash2) {
+        add(hash1, hash2, System.currentTimeMillis());
+    }
+
+    /**
+     * Checks and adds a key atomically: two concurrent calls with the same key
+     * never both return true.
+     *
+     * @return true if the key was added, false if it may already have been
+     *         added in the last one or two windows
+     */
+    public boolean addIfAbsent(long hash1, long hash2) {
+        return addIfAbsent(hash1, hash2, System.currentTimeMillis());
+    }
+
+    synchronized boolean mightContain(long hash1, long hash2, long nowMillis) {
+        rotateIfNeeded(nowMillis);
+        return contains(current, hash1, hash2) || contains(previous, hash1, hash2);
+    }
+
+    synchronized void add(long hash1, long hash2, long nowMillis) {
+        rotateIfNeeded(nowMillis);
+        set(current, hash1, hash2);
+    }
+
+    synchronized boolean addIfAbsent(long hash1, long hash2, long nowMillis) {
+        rotateIfNeeded(nowMillis);
+        if (contains(current, hash1, hash2) || contains(previous, hash1, hash2)) {
+            return false;
+        }
+        set(current, hash1, hash2);
+        return true;
+    }
+
+    /**
+     * @return Bits per generation
+     */
+    public long bitSize() {
+        return bits;
+    }
+
+    /**
+     * @return Probes per key
+     */
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    private void set(long[] generation, long hash1, long hash2) {
+        long combined = hash1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(combined, bits);
+            generation[(int) (index >>> 6)] |= 1L << index;
+            combined += hash2;
+        }
+    }
+
+    private boolean contains(long[] generation, long hash1, long hash2) {
+        long combined = hash1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(combined, bits);
+            if ((generation[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    private void rotateIfNeeded(long nowMillis) {
+        long elapsed = nowMillis - currentStartedAt;
+        if (elapsed < windowMillis) {
+            return;
+        }
+        // Reuse the oldest generation's array instead of allocating
+        long[] recycled = previous;
+        Arrays.fill(recycled, 0L);
+        if (elapsed >= 2 * windowMillis) {
+            // Idle for more than two windows: both generations are stale
+            Arrays.fill(current, 0L);
+        }
+        previous = current;
+        current = recycled;
+        currentStartedAt = nowMillis;
+    }
+}
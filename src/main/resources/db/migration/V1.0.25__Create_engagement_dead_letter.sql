@@ -0,0 +1,29 @@
+-- ========================================
+-- CREATE ENGAGEMENT DEAD LETTER
+-- Version: 1.0.25
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. content_engagement_dead_letter: events accepted by
+--      POST /api/v1/engagements/batch that could not be written
+--
+-- EngagementIngestionQueue retries a failed batch on the next flushes. After
+-- engagement.ingestion.max-attempts it writes the events one by one and
+-- stores the ones that still fail here (the original request as JSON), so
+-- they can be inspected and replayed instead of being lost.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+CREATE TABLE IF NOT EXISTS content_engagement_dead_letter (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    payload JSONB NOT NULL,
+    error TEXT,
+    failed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_engagement_dead_letter_failed_at
+    ON content_engagement_dead_letter(failed_at);
+
+COMMENT ON TABLE content_engagement_dead_letter IS
+    'Eventos de engajamento aceitos pela fila de ingestão que falharam após todas as tentativas de gravação.';
@@ -0,0 +1,144 @@
+-- ========================================
+-- CREATE ENGAGEMENT ROLLUP TABLES
+-- Version: 1.0.26
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. content_engagement_daily: counts per content x day x engagement type
+--   2. user_content_engagement: totals per user x content
+--   3. engagement_rollup_watermark: progress of the periodic delta job
+--   4. Indexes on content_engagement_log used by the delta job
+--   5. Backfill from the existing log
+--
+-- The rollups only include ACTIVE engagements. They are refreshed by
+-- EngagementRollupJob, which recomputes every (content, day) and
+-- (user, content) key touched since the last watermark (updated_at).
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+-- ==========================================================
+-- PARTE 1: Rollup diário por conteúdo e tipo
+-- ==========================================================
+
+CREATE TABLE IF NOT EXISTS content_engagement_daily (
+    content_id                  UUID        NOT NULL,
+    day                         DATE        NOT NULL,
+    engagement_type             VARCHAR(20) NOT NULL,
+
+    engagement_count            BIGINT      NOT NULL DEFAULT 0,
+    total_view_duration_seconds BIGINT      NOT NULL DEFAULT 0,
+    completion_sum              BIGINT      NOT NULL DEFAULT 0,
+    completion_count            BIGINT      NOT NULL DEFAULT 0,
+
+    refreshed_at                TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_content_engagement_daily PRIMARY KEY (content_id, day, engagement_type)
+);
+
+COMMENT ON TABLE content_engagement_daily IS
+    'Rollup of ACTIVE engagements per content, day (engaged_at) and type. Maintained by EngagementRollupJob.';
+COMMENT ON COLUMN content_engagement_daily.completion_sum IS
+    'Sum of non-null completion_percentage values; divide by completion_count for the average.';
+
+-- ==========================================================
+-- PARTE 2: Rollup por usuário e conteúdo
+-- ==========================================================
+
+CREATE TABLE IF NOT EXISTS user_content_engagement (
+    user_id                     UUID      NOT NULL,
+    content_id                  UUID      NOT NULL,
+
+    total_interactions          BIGINT    NOT NULL DEFAULT 0,
+    total_views                 BIGINT    NOT NULL DEFAULT 0,
+    total_likes                 BIGINT    NOT NULL DEFAULT 0,
+    total_shares                BIGINT    NOT NULL DEFAULT 0,
+    completion_sum              BIGINT    NOT NULL DEFAULT 0,
+    total_view_duration_seconds BIGINT    NOT NULL DEFAULT 0,
+    last_engaged_at             TIMESTAMP,
+
+    refreshed_at                TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_user_content_engagement PRIMARY KEY (user_id, content_id)
+);
+
+-- Top contents por usuário (ORDER BY total_interactions DESC LIMIT n)
+CREATE INDEX IF NOT EXISTS idx_user_content_engagement_top
+    ON user_content_engagement(user_id, total_interactions DESC);
+
+COMMENT ON TABLE user_content_engagement IS
+    'Rollup of ACTIVE engagements per user and content. Maintained by EngagementRollupJob.';
+COMMENT ON COLUMN user_content_engagement.total_views IS
+    'VIEW + COMPLETE engagements';
+COMMENT ON COLUMN user_content_engagement.completion_sum IS
+    'Sum of COALESCE(completion_percentage, 0); divide by total_interactions for the average.';
+
+-- ==========================================================
+-- PARTE 3: Watermark dos jobs de agregação
+-- ==========================================================
+
+CREATE TABLE IF NOT EXISTS engagement_rollup_watermark (
+    job_name   VARCHAR(50) PRIMARY KEY,
+    watermark  TIMESTAMP   NOT NULL,
+    updated_at TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE engagement_rollup_watermark IS
+    'Last content_engagement_log.updated_at already folded into the rollups, per job.';
+
+-- ==========================================================
+-- PARTE 4: Índices usados pelo job incremental
+-- ==========================================================
+
+-- Linhas alteradas desde o último watermark
+CREATE INDEX IF NOT EXISTS idx_engagement_updated_at
+    ON content_engagement_log(updated_at);
+
+-- Recalcular um (content_id, dia)
+CREATE INDEX IF NOT EXISTS idx_engagement_content_engaged_at
+    ON content_engagement_log(content_id, engaged_at);
+
+-- ==========================================================
+-- PARTE 5: Carga inicial
+-- ==========================================================
+
+INSERT INTO content_engagement_daily (
+    content_id, day, engagement_type,
+    engagement_count, total_view_duration_seconds, completion_sum, completion_count)
+SELECT e.content_id,
+       CAST(e.engaged_at AS DATE),
+       e.engagement_type,
+       COUNT(*),
+       COALESCE(SUM(e.view_duration_seconds), 0),
+       COALESCE(SUM(e.completion_percentage), 0),
+       COUNT(e.completion_percentage)
+FROM content_engagement_log e
+WHERE e.engagement_status = 'ACTIVE'
+  AND e.content_id IS NOT NULL
+GROUP BY e.content_id, CAST(e.engaged_at AS DATE), e.engagement_type
+ON CONFLICT DO NOTHING;
+
+INSERT INTO user_content_engagement (
+    user_id, content_id,
+    total_interactions, total_views, total_likes, total_shares,
+    completion_sum, total_view_duration_seconds, last_engaged_at)
+SELECT e.user_id,
+       e.content_id,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE e.engagement_type IN ('VIEW', 'COMPLETE')),
+       COUNT(*) FILTER (WHERE e.engagement_type = 'LIKE'),
+       COUNT(*) FILTER (WHERE e.engagement_type = 'SHARE'),
+       SUM(COALESCE(e.completion_percentage, 0)),
+       SUM(COALESCE(e.view_duration_seconds, 0)),
+       MAX(e.engaged_at)
+FROM content_engagement_log e
+WHERE e.engagement_status = 'ACTIVE'
+  AND e.user_id IS NOT NULL
+  AND e.content_id IS NOT NULL
+GROUP BY e.user_id, e.content_id
+ON CONFLICT DO NOTHING;
+
+INSERT INTO engagement_rollup_watermark (job_name, watermark)
+SELECT 'engagement-rollup', COALESCE(MAX(updated_at), CURRENT_TIMESTAMP)
+FROM content_engagement_log
+ON CONFLICT (job_name) DO NOTHING;
@@ -0,0 +1,81 @@
+-- ========================================
+-- CREATE USER ENGAGEMENT SUMMARY
+-- Version: 1.0.27
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. Add completion_count to user_content_engagement (needed to average
+--      only non-null completion values)
+--   2. Create user_engagement_summary: one row per user with the totals
+--      returned by GET /api/v1/engagements/user/{id}/stats
+--   3. Backfill both from the existing data
+--
+-- user_engagement_summary is refreshed by EngagementRollupJob right after
+-- user_content_engagement, by re-aggregating the rollup rows of each
+-- touched user (no scan of content_engagement_log).
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+-- ==========================================================
+-- PARTE 1: completion_count no rollup usuário x conteúdo
+-- ==========================================================
+
+ALTER TABLE user_content_engagement
+    ADD COLUMN IF NOT EXISTS completion_count BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN user_content_engagement.completion_count IS
+    'Number of ACTIVE engagements with a non-null completion_percentage.';
+
+UPDATE user_content_engagement u
+SET completion_count = c.completion_count
+FROM (
+    SELECT user_id, content_id, COUNT(completion_percentage) AS completion_count
+    FROM content_engagement_log
+    WHERE engagement_status = 'ACTIVE'
+      AND user_id IS NOT NULL
+      AND content_id IS NOT NULL
+    GROUP BY user_id, content_id
+) c
+WHERE u.user_id = c.user_id
+  AND u.content_id = c.content_id;
+
+-- ==========================================================
+-- PARTE 2: Resumo por usuário
+-- ==========================================================
+
+CREATE TABLE IF NOT EXISTS user_engagement_summary (
+    user_id                     UUID      PRIMARY KEY,
+
+    total_engagements           BIGINT    NOT NULL DEFAULT 0,
+    completion_sum              BIGINT    NOT NULL DEFAULT 0,
+    completion_count            BIGINT    NOT NULL DEFAULT 0,
+    total_view_duration_seconds BIGINT    NOT NULL DEFAULT 0,
+    distinct_contents           BIGINT    NOT NULL DEFAULT 0,
+    last_engaged_at             TIMESTAMP,
+
+    refreshed_at                TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE user_engagement_summary IS
+    'Totals of ACTIVE engagements per user, derived from user_content_engagement. Maintained by EngagementRollupJob.';
+COMMENT ON COLUMN user_engagement_summary.completion_sum IS
+    'Sum of non-null completion_percentage values; divide by completion_count for the average.';
+
+-- ==========================================================
+-- PARTE 3: Carga inicial
+-- ==========================================================
+
+INSERT INTO user_engagement_summary (
+    user_id, total_engagements, completion_sum, completion_count,
+    total_view_duration_seconds, distinct_contents, last_engaged_at)
+SELECT user_id,
+       SUM(total_interactions),
+       SUM(completion_sum),
+       SUM(completion_count),
+       SUM(total_view_duration_seconds),
+       COUNT(*),
+       MAX(last_engaged_at)
+FROM user_content_engagement
+GROUP BY user_id
+ON CONFLICT (user_id) DO NOTHING;
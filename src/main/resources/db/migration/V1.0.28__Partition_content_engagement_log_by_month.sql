@@ -0,0 +1,355 @@
+-- ========================================
+-- PARTITION content_engagement_log BY MONTH
+-- Version: 1.0.28
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. Functions to create monthly partitions and archive old ones
+--   2. Recreate content_engagement_log as a table partitioned by RANGE (engaged_at)
+--      with a smaller index set
+--   3. Copy existing rows; the old table is kept as content_engagement_log_legacy
+--   4. user_content_engagement_archived: frozen totals per user x content of
+--      the archived partitions
+--
+-- Partitions are named content_engagement_log_yYYYYmMM. A DEFAULT partition
+-- catches rows outside the created months; engagement_ensure_partitions moves
+-- them into the proper partition when that month is created.
+--
+-- Retention (engagement_archive_partitions) only DETACHES partitions and
+-- renames them to content_engagement_log_archive_yYYYYmMM. Nothing is dropped:
+-- archived tables can be dumped and removed manually by ops. Before a
+-- partition is detached, its ACTIVE rows are summed into
+-- user_content_engagement_archived in the same transaction. EngagementRollupJob
+-- recomputes user_content_engagement from the live log for every touched
+-- (user, content) key and adds those frozen totals, so a new engagement on an
+-- old key does not drop the archived history from the rollup (nor from
+-- user_engagement_summary). content_engagement_daily is keyed by day and
+-- archived days are never touched again, so it needs no baseline.
+--
+-- The primary key becomes (id, engaged_at) because PostgreSQL requires the
+-- partition key in every unique constraint. Hibernate still maps id alone,
+-- and a lookup by id alone probes every partition; see V1.0.40.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY (old table renamed, not dropped)
+
+-- ==========================================================
+-- PARTE 1: Funções de manutenção de partições
+-- ==========================================================
+
+-- Totais congelados das partições arquivadas (lidos pelo EngagementRollupJob)
+CREATE TABLE IF NOT EXISTS user_content_engagement_archived (
+    user_id                     UUID      NOT NULL,
+    content_id                  UUID      NOT NULL,
+
+    total_interactions          BIGINT    NOT NULL DEFAULT 0,
+    total_views                 BIGINT    NOT NULL DEFAULT 0,
+    total_likes                 BIGINT    NOT NULL DEFAULT 0,
+    total_shares                BIGINT    NOT NULL DEFAULT 0,
+    view_count                  BIGINT    NOT NULL DEFAULT 0,
+    completion_sum              BIGINT    NOT NULL DEFAULT 0,
+    completion_count            BIGINT    NOT NULL DEFAULT 0,
+    total_view_duration_seconds BIGINT    NOT NULL DEFAULT 0,
+    last_engaged_at             TIMESTAMP,
+
+    archived_at                 TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_user_content_engagement_archived PRIMARY KEY (user_id, content_id)
+);
+
+-- Cria (se não existir) a partição mensal que contém month_start.
+-- Linhas desse mês que estejam na partição DEFAULT são movidas para ela.
+CREATE OR REPLACE FUNCTION engagement_create_month_partition(month_start DATE)
+RETURNS BOOLEAN
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    from_date DATE := date_trunc('month', month_start)::DATE;
+    to_date   DATE := (date_trunc('month', month_start) + INTERVAL '1 month')::DATE;
+    part_name TEXT := 'content_engagement_log_' || to_char(from_date, '"y"YYYY"m"MM');
+BEGIN
+    IF to_regclass(part_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format(
+        'CREATE TABLE %I (LIKE content_engagement_log INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+        part_name);
+
+    IF to_regclass('content_engagement_log_default') IS NOT NULL THEN
+        EXECUTE format(
+            'WITH moved AS (DELETE FROM content_engagement_log_default
+                            WHERE engaged_at >= %L AND engaged_at < %L RETURNING *)
+             INSERT INTO %I SELECT * FROM moved',
+            from_date, to_date, part_name);
+    END IF;
+
+    EXECUTE format(
+        'ALTER TABLE content_engagement_log ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+        part_name, from_date, to_date);
+
+    RETURN TRUE;
+END;
+$$;
+
+-- Garante partições do mês corrente até months_ahead meses à frente.
+-- Retorna quantas partições foram criadas.
+CREATE OR REPLACE FUNCTION engagement_ensure_partitions(months_ahead INT)
+RETURNS INT
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    created INT := 0;
+    i INT;
+BEGIN
+    FOR i IN 0..months_ahead LOOP
+        IF engagement_create_month_partition(
+                (date_trunc('month', CURRENT_DATE) + make_interval(months => i))::DATE) THEN
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+-- Soma as linhas ACTIVE de uma tabela (partição) aos totais arquivados.
+CREATE OR REPLACE FUNCTION engagement_fold_archived(source_table TEXT)
+RETURNS VOID
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    EXECUTE format($sql$
+        INSERT INTO user_content_engagement_archived AS a (
+            user_id, content_id,
+            total_interactions, total_views, total_likes, total_shares, view_count,
+            completion_sum, completion_count, total_view_duration_seconds, last_engaged_at)
+        SELECT user_id,
+               content_id,
+               COUNT(*),
+               COUNT(*) FILTER (WHERE engagement_type IN ('VIEW', 'COMPLETE')),
+               COUNT(*) FILTER (WHERE engagement_type = 'LIKE'),
+               COUNT(*) FILTER (WHERE engagement_type = 'SHARE'),
+               COUNT(*) FILTER (WHERE engagement_type = 'VIEW'),
+               SUM(COALESCE(completion_percentage, 0)),
+               COUNT(completion_percentage),
+               SUM(COALESCE(view_duration_seconds, 0)),
+               MAX(engaged_at)
+        FROM %I
+        WHERE engagement_status = 'ACTIVE'
+          AND user_id IS NOT NULL
+          AND content_id IS NOT NULL
+        GROUP BY user_id, content_id
+        ON CONFLICT (user_id, content_id) DO UPDATE SET
+            total_interactions = a.total_interactions + EXCLUDED.total_interactions,
+            total_views = a.total_views + EXCLUDED.total_views,
+            total_likes = a.total_likes + EXCLUDED.total_likes,
+            total_shares = a.total_shares + EXCLUDED.total_shares,
+            view_count = a.view_count + EXCLUDED.view_count,
+            completion_sum = a.completion_sum + EXCLUDED.completion_sum,
+            completion_count = a.completion_count + EXCLUDED.completion_count,
+            total_view_duration_seconds = a.total_view_duration_seconds + EXCLUDED.total_view_duration_seconds,
+            last_engaged_at = GREATEST(a.last_engaged_at, EXCLUDED.last_engaged_at),
+            archived_at = CURRENT_TIMESTAMP
+        $sql$, source_table);
+END;
+$$;
+
+-- Desanexa partições inteiramente anteriores a retention_months meses atrás
+-- e as renomeia para content_engagement_log_archive_yYYYYmMM, depois de somar
+-- suas linhas em user_content_engagement_archived.
+-- Retorna quantas partições foram arquivadas.
+CREATE OR REPLACE FUNCTION engagement_archive_partitions(retention_months INT)
+RETURNS INT
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    cutoff DATE := (date_trunc('month', CURRENT_DATE) - make_interval(months => retention_months))::DATE;
+    part RECORD;
+    archived INT := 0;
+BEGIN
+    FOR part IN
+        SELECT c.relname,
+               to_date(substring(c.relname FROM 'y(\d{4}m\d{2})$'), 'YYYY"m"MM') AS month_start
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'content_engagement_log'::regclass
+          AND c.relname ~ '^content_engagement_log_y\d{4}m\d{2}$'
+        ORDER BY c.relname
+    LOOP
+        IF part.month_start < cutoff THEN
+            PERFORM engagement_fold_archived(part.relname);
+            EXECUTE format('ALTER TABLE content_engagement_log DETACH PARTITION %I', part.relname);
+            EXECUTE format('ALTER TABLE %I RENAME TO %I',
+                part.relname,
+                replace(part.relname, 'content_engagement_log_', 'content_engagement_log_archive_'));
+            archived := archived + 1;
+        END IF;
+    END LOOP;
+    RETURN archived;
+END;
+$$;
+
+COMMENT ON FUNCTION engagement_ensure_partitions(INT) IS
+    'Creates monthly partitions of content_engagement_log from the current month up to N months ahead. Called by EngagementPartitionJob.';
+COMMENT ON FUNCTION engagement_archive_partitions(INT) IS
+    'Folds partitions older than N months into user_content_engagement_archived, then detaches and renames them to content_engagement_log_archive_*. Called by EngagementPartitionJob.';
+
+-- ==========================================================
+-- PARTE 2: Tabela particionada
+-- ==========================================================
+
+DO $$
+BEGIN
+    -- Idempotente: só converte se a tabela atual ainda não for particionada
+    IF EXISTS (
+        SELECT 1 FROM pg_class
+        WHERE relname = 'content_engagement_log' AND relkind = 'r'
+    ) THEN
+        ALTER TABLE content_engagement_log RENAME TO content_engagement_log_legacy;
+        ALTER TABLE content_engagement_log_legacy
+            RENAME CONSTRAINT content_engagement_log_pkey TO content_engagement_log_legacy_pkey;
+
+        -- Nomes de índice são globais no schema: libera os nomes antigos
+        ALTER INDEX IF EXISTS idx_engagement_user_id RENAME TO idx_engagement_legacy_user_id;
+        ALTER INDEX IF EXISTS idx_engagement_content_id RENAME TO idx_engagement_legacy_content_id;
+        ALTER INDEX IF EXISTS idx_engagement_user_content RENAME TO idx_engagement_legacy_user_content;
+        ALTER INDEX IF EXISTS idx_engagement_type RENAME TO idx_engagement_legacy_type;
+        ALTER INDEX IF EXISTS idx_engagement_status RENAME TO idx_engagement_legacy_status;
+        ALTER INDEX IF EXISTS idx_engagement_engaged_at RENAME TO idx_engagement_legacy_engaged_at;
+        ALTER INDEX IF EXISTS idx_engagement_user_content_type_status
+            RENAME TO idx_engagement_legacy_user_content_type_status;
+        ALTER INDEX IF EXISTS idx_engagement_updated_at RENAME TO idx_engagement_legacy_updated_at;
+        ALTER INDEX IF EXISTS idx_engagement_content_engaged_at
+            RENAME TO idx_engagement_legacy_content_engaged_at;
+    END IF;
+END;
+$$;
+
+CREATE TABLE IF NOT EXISTS content_engagement_log (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+
+    user_id UUID,
+    content_id UUID,
+
+    engagement_type VARCHAR(20) NOT NULL
+        CHECK (engagement_type IN (
+            'VIEW', 'LIKE', 'DISLIKE', 'SHARE', 'BOOKMARK',
+            'COMMENT', 'COMPLETE', 'PARTIAL_VIEW', 'CLICK_TO_VIEW'
+        )),
+    engagement_status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE'
+        CHECK (engagement_status IN ('ACTIVE', 'REMOVED', 'EXPIRED', 'FLAGGED')),
+
+    view_duration_seconds INT CHECK (view_duration_seconds >= 0),
+    completion_percentage INT CHECK (completion_percentage >= 0 AND completion_percentage <= 100),
+    repeat_count INT DEFAULT 1 CHECK (repeat_count >= 1),
+
+    device_type VARCHAR(20),
+    platform VARCHAR(20),
+    source VARCHAR(50),
+    user_ip VARCHAR(45),
+    user_agent TEXT,
+
+    metadata TEXT,
+    comment_text TEXT,
+    rating INT CHECK (rating >= 1 AND rating <= 5),
+
+    engaged_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    ended_at TIMESTAMP,
+
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP DEFAULT NOW(),
+
+    CONSTRAINT content_engagement_log_pkey PRIMARY KEY (id, engaged_at),
+    CONSTRAINT fk_engagement_log_user FOREIGN KEY (user_id) REFERENCES app_user(id) ON DELETE SET NULL,
+    CONSTRAINT fk_engagement_log_content FOREIGN KEY (content_id) REFERENCES content_record(id) ON DELETE SET NULL
+) PARTITION BY RANGE (engaged_at);
+
+CREATE TABLE IF NOT EXISTS content_engagement_log_default
+    PARTITION OF content_engagement_log DEFAULT;
+
+-- ==========================================================
+-- PARTE 3: Índices (4 em vez de 9)
+-- ==========================================================
+-- Filtros por período são atendidos pela poda de partições (partition
+-- pruning), por isso não há mais índice isolado em engaged_at, type ou status.
+
+-- Histórico/recentes por usuário, findByDateRange
+CREATE INDEX IF NOT EXISTS idx_engagement_user_engaged_at
+    ON content_engagement_log(user_id, engaged_at DESC);
+
+-- Histórico por conteúdo e recálculo do rollup diário
+CREATE INDEX IF NOT EXISTS idx_engagement_content_engaged_at
+    ON content_engagement_log(content_id, engaged_at DESC);
+
+-- Checagem de duplicidade (LIKE/DISLIKE/BOOKMARK) e rollup usuário x conteúdo
+CREATE INDEX IF NOT EXISTS idx_engagement_active_user_content_type
+    ON content_engagement_log(user_id, content_id, engagement_type)
+    WHERE engagement_status = 'ACTIVE';
+
+-- Janela do EngagementRollupJob
+CREATE INDEX IF NOT EXISTS idx_engagement_updated_at
+    ON content_engagement_log(updated_at);
+
+-- ==========================================================
+-- PARTE 4: Partições e cópia dos dados
+-- ==========================================================
+
+-- Uma partição por mês já existente no legado
+DO $$
+DECLARE
+    m DATE;
+BEGIN
+    IF to_regclass('content_engagement_log_legacy') IS NOT NULL THEN
+        FOR m IN
+            SELECT DISTINCT date_trunc('month', engaged_at)::DATE
+            FROM content_engagement_log_legacy
+        LOOP
+            PERFORM engagement_create_month_partition(m);
+        END LOOP;
+    END IF;
+END;
+$$;
+
+SELECT engagement_ensure_partitions(3);
+
+DO $$
+BEGIN
+    IF to_regclass('content_engagement_log_legacy') IS NOT NULL
+       AND NOT EXISTS (SELECT 1 FROM content_engagement_log) THEN
+        INSERT INTO content_engagement_log (
+            id, user_id, content_id, engagement_type, engagement_status,
+            view_duration_seconds, completion_percentage, repeat_count,
+            device_type, platform, source, user_ip, user_agent,
+            metadata, comment_text, rating,
+            engaged_at, ended_at, created_at, updated_at)
+        SELECT id, user_id, content_id, engagement_type, engagement_status,
+               view_duration_seconds, completion_percentage, repeat_count,
+               device_type, platform, source, user_ip, user_agent,
+               metadata, comment_text, rating,
+               engaged_at, ended_at, created_at, updated_at
+        FROM content_engagement_log_legacy;
+    END IF;
+END;
+$$;
+
+-- ==========================================================
+-- COMMENTS
+-- ==========================================================
+
+COMMENT ON TABLE content_engagement_log IS
+    'Logs all user interactions with content. Partitioned by month on engaged_at (V1.0.28).';
+COMMENT ON COLUMN content_engagement_log.engaged_at IS
+    'When the interaction started. Partition key.';
+COMMENT ON TABLE user_content_engagement_archived IS
+    'Totals of ACTIVE engagements per user and content in archived partitions. Written by engagement_archive_partitions, read by EngagementRollupJob.';
+COMMENT ON COLUMN user_content_engagement_archived.view_count IS
+    'VIEW engagements only (total_views also counts COMPLETE); used by the unique content view check.';
+
+DO $$
+BEGIN
+    IF to_regclass('content_engagement_log_legacy') IS NOT NULL THEN
+        COMMENT ON TABLE content_engagement_log_legacy IS
+            'Pre-partitioning copy of content_engagement_log (V1.0.28). Data already copied; drop manually after verification.';
+    END IF;
+END;
+$$;
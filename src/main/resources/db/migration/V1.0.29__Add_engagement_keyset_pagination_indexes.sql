@@ -0,0 +1,34 @@
+-- ========================================
+-- KEYSET PAGINATION INDEXES FOR ENGAGEMENT HISTORY
+-- Version: 1.0.29
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   GET /api/v1/engagements/user/{id} and /content/{id} now page with a
+--   cursor on (engaged_at DESC, id DESC), optionally filtered by type and
+--   status. These indexes return each page in order without sorting:
+--     1. (user_id | content_id, engaged_at DESC, id DESC)
+--     2. same with engagement_type, for the ?type= filter
+--   The status filter is applied on top of these scans (almost every row
+--   is ACTIVE, so a dedicated index would not be selective).
+--   The (user_id, engaged_at) and (content_id, engaged_at) indexes from
+--   V1.0.28 are superseded by (1) and removed (no data is affected).
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY (index replacement, no data change)
+
+CREATE INDEX IF NOT EXISTS idx_engagement_user_page
+    ON content_engagement_log(user_id, engaged_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_engagement_user_type_page
+    ON content_engagement_log(user_id, engagement_type, engaged_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_engagement_content_page
+    ON content_engagement_log(content_id, engaged_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_engagement_content_type_page
+    ON content_engagement_log(content_id, engagement_type, engaged_at DESC, id DESC);
+
+-- Substituídos pelos índices acima (mesmo prefixo + id)
+DROP INDEX IF EXISTS idx_engagement_user_engaged_at;
+DROP INDEX IF EXISTS idx_engagement_content_engaged_at;
@@ -0,0 +1,83 @@
+-- ========================================
+-- CREATE CONTENT RETENTION HISTOGRAM
+-- Version: 1.0.31
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. content_retention_histogram: sample counts per content, metric and bucket
+--   2. engagement_duration_bucket(): log-linear bucket of a view duration
+--   3. Backfill from the existing log
+--
+-- Metrics:
+--   COMPLETION     -> bucket = completion_percentage (0-100)
+--   VIEW_DURATION  -> bucket = engagement_duration_bucket(view_duration_seconds)
+--
+-- The histograms hold the current values of ACTIVE engagements. Each node
+-- keeps deltas in memory (ContentRetentionService) and adds them here with
+-- INSERT ... ON CONFLICT DO UPDATE, so counts from several nodes simply sum.
+-- Percentiles (p25/p50/p90) are computed from these rows by the API.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+-- ==========================================================
+-- PARTE 1: Função de bucket (espelha RetentionHistogram.durationBucket)
+-- ==========================================================
+
+-- Exato abaixo de 32s; depois 16 sub-buckets por potência de 2
+CREATE OR REPLACE FUNCTION engagement_duration_bucket(seconds INT)
+RETURNS INT
+LANGUAGE plpgsql
+IMMUTABLE
+AS $$
+DECLARE
+    exponent INT;
+BEGIN
+    IF seconds < 32 THEN
+        RETURN GREATEST(seconds, 0);
+    END IF;
+    exponent := length(ltrim(seconds::bit(32)::text, '0')) - 1;
+    RETURN 32 + (exponent - 5) * 16 + ((seconds >> (exponent - 4)) - 16);
+END;
+$$;
+
+-- ==========================================================
+-- PARTE 2: Tabela de histogramas
+-- ==========================================================
+
+CREATE TABLE IF NOT EXISTS content_retention_histogram (
+    content_id   UUID        NOT NULL,
+    metric       VARCHAR(20) NOT NULL CHECK (metric IN ('COMPLETION', 'VIEW_DURATION')),
+    bucket       SMALLINT    NOT NULL,
+    sample_count BIGINT      NOT NULL DEFAULT 0,
+    updated_at   TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_content_retention_histogram PRIMARY KEY (content_id, metric, bucket)
+);
+
+COMMENT ON TABLE content_retention_histogram IS
+    'Completion and view-duration histograms of ACTIVE engagements per content. Maintained by ContentRetentionService.';
+COMMENT ON COLUMN content_retention_histogram.bucket IS
+    'COMPLETION: percentage 0-100. VIEW_DURATION: engagement_duration_bucket(seconds), see RetentionHistogram.';
+
+-- ==========================================================
+-- PARTE 3: Carga inicial
+-- ==========================================================
+
+INSERT INTO content_retention_histogram (content_id, metric, bucket, sample_count)
+SELECT e.content_id, 'COMPLETION', LEAST(GREATEST(e.completion_percentage, 0), 100), COUNT(*)
+FROM content_engagement_log e
+WHERE e.engagement_status = 'ACTIVE'
+  AND e.content_id IS NOT NULL
+  AND e.completion_percentage IS NOT NULL
+GROUP BY 1, 3
+ON CONFLICT DO NOTHING;
+
+INSERT INTO content_retention_histogram (content_id, metric, bucket, sample_count)
+SELECT e.content_id, 'VIEW_DURATION', engagement_duration_bucket(e.view_duration_seconds), COUNT(*)
+FROM content_engagement_log e
+WHERE e.engagement_status = 'ACTIVE'
+  AND e.content_id IS NOT NULL
+  AND e.view_duration_seconds IS NOT NULL
+GROUP BY 1, 3
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,94 @@
+-- ========================================
+-- DICTIONARY-ENCODE ENGAGEMENT CLIENT COLUMNS
+-- Version: 1.0.32
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. engagement_dictionary: distinct user_agent / platform / device_type /
+--      source values with small integer ids
+--   2. *_id columns on content_engagement_log
+--   3. Backfill the ids and clear the repeated TEXT/VARCHAR values
+--
+-- The application reads and writes the *_id columns through
+-- EngagementDictionary (in-memory bidirectional cache); the API still
+-- exposes the original strings. The old columns are kept (all NULL) so a
+-- rollback only needs to reverse the backfill; VACUUM reclaims the space.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY (values moved to engagement_dictionary, columns kept)
+
+-- ==========================================================
+-- PARTE 1: Dicionário
+-- ==========================================================
+
+CREATE TABLE IF NOT EXISTS engagement_dictionary (
+    id         SERIAL      PRIMARY KEY,
+    kind       VARCHAR(20) NOT NULL
+        CHECK (kind IN ('USER_AGENT', 'PLATFORM', 'DEVICE_TYPE', 'SOURCE')),
+    value      TEXT        NOT NULL,
+    created_at TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- md5: user agents podem exceder o limite de tamanho de uma entrada de B-tree
+CREATE UNIQUE INDEX IF NOT EXISTS uk_engagement_dictionary_kind_value
+    ON engagement_dictionary(kind, md5(value));
+
+COMMENT ON TABLE engagement_dictionary IS
+    'Distinct client strings of content_engagement_log (user agent, platform, device type, source). Referenced by the *_id columns.';
+
+-- ==========================================================
+-- PARTE 2: Colunas codificadas
+-- ==========================================================
+
+ALTER TABLE content_engagement_log ADD COLUMN IF NOT EXISTS device_type_id INT;
+ALTER TABLE content_engagement_log ADD COLUMN IF NOT EXISTS platform_id INT;
+ALTER TABLE content_engagement_log ADD COLUMN IF NOT EXISTS source_id INT;
+ALTER TABLE content_engagement_log ADD COLUMN IF NOT EXISTS user_agent_id INT;
+
+COMMENT ON COLUMN content_engagement_log.user_agent_id IS 'engagement_dictionary.id (kind USER_AGENT)';
+COMMENT ON COLUMN content_engagement_log.platform_id IS 'engagement_dictionary.id (kind PLATFORM)';
+COMMENT ON COLUMN content_engagement_log.device_type_id IS 'engagement_dictionary.id (kind DEVICE_TYPE)';
+COMMENT ON COLUMN content_engagement_log.source_id IS 'engagement_dictionary.id (kind SOURCE)';
+COMMENT ON COLUMN content_engagement_log.user_agent IS 'Deprecated (V1.0.32): always NULL, see user_agent_id.';
+COMMENT ON COLUMN content_engagement_log.platform IS 'Deprecated (V1.0.32): always NULL, see platform_id.';
+COMMENT ON COLUMN content_engagement_log.device_type IS 'Deprecated (V1.0.32): always NULL, see device_type_id.';
+COMMENT ON COLUMN content_engagement_log.source IS 'Deprecated (V1.0.32): always NULL, see source_id.';
+
+-- ==========================================================
+-- PARTE 3: Carga inicial
+-- ==========================================================
+
+INSERT INTO engagement_dictionary (kind, value)
+SELECT DISTINCT 'USER_AGENT', user_agent FROM content_engagement_log WHERE user_agent IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+INSERT INTO engagement_dictionary (kind, value)
+SELECT DISTINCT 'PLATFORM', platform FROM content_engagement_log WHERE platform IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+INSERT INTO engagement_dictionary (kind, value)
+SELECT DISTINCT 'DEVICE_TYPE', device_type FROM content_engagement_log WHERE device_type IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+INSERT INTO engagement_dictionary (kind, value)
+SELECT DISTINCT 'SOURCE', source FROM content_engagement_log WHERE source IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+-- Uma única passada pela tabela; updated_at não muda para não reprocessar rollups
+UPDATE content_engagement_log e
+SET user_agent_id = (SELECT d.id FROM engagement_dictionary d
+                     WHERE d.kind = 'USER_AGENT' AND md5(d.value) = md5(e.user_agent)),
+    platform_id = (SELECT d.id FROM engagement_dictionary d
+                   WHERE d.kind = 'PLATFORM' AND md5(d.value) = md5(e.platform)),
+    device_type_id = (SELECT d.id FROM engagement_dictionary d
+                      WHERE d.kind = 'DEVICE_TYPE' AND md5(d.value) = md5(e.device_type)),
+    source_id = (SELECT d.id FROM engagement_dictionary d
+                 WHERE d.kind = 'SOURCE' AND md5(d.value) = md5(e.source)),
+    user_agent = NULL,
+    platform = NULL,
+    device_type = NULL,
+    source = NULL
+WHERE e.user_agent IS NOT NULL
+   OR e.platform IS NOT NULL
+   OR e.device_type IS NOT NULL
+   OR e.source IS NOT NULL;
@@ -0,0 +1,67 @@
+-- ========================================
+-- ADD MATERIALIZED UNREAD COUNTER TO PARTICIPANT
+-- Version: 1.0.33
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. unread_count column on app_conversation_participant
+--   2. Backfill from app_user_message (same rule as the old COUNT)
+--   3. Partial index for the badge total (SUM per user)
+--
+-- The counter is maintained by MessageService in the same transaction as
+-- the change: +1 for the other active participants on send, recount from
+-- the read point on mark-as-read, 0 on clear, -1 on deleting an unread
+-- message. The inbox and GET /conversations/unread-count read it directly.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+-- ==========================================================
+-- PARTE 1: Coluna
+-- ==========================================================
+
+ALTER TABLE app_conversation_participant
+    ADD COLUMN IF NOT EXISTS unread_count INT NOT NULL DEFAULT 0;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_constraint WHERE conname = 'check_participant_unread_count'
+    ) THEN
+        ALTER TABLE app_conversation_participant
+            ADD CONSTRAINT check_participant_unread_count CHECK (unread_count >= 0);
+    END IF;
+END;
+$$;
+
+COMMENT ON COLUMN app_conversation_participant.unread_count IS
+    'Mensagens de outros participantes ainda não lidas por este usuário (respeita cleared_at). Mantido por MessageService.';
+
+-- ==========================================================
+-- PARTE 2: Carga inicial
+-- ==========================================================
+
+UPDATE app_conversation_participant p
+SET unread_count = counts.total
+FROM (
+    SELECT p2.id, COUNT(m.id) AS total
+    FROM app_conversation_participant p2
+    JOIN app_user_message m
+      ON m.conversation_id = p2.conversation_id
+     AND m.sender_id <> p2.user_id
+     AND m.is_read = FALSE
+     AND m.deleted_at IS NULL
+     AND (p2.cleared_at IS NULL OR m.sent_at > p2.cleared_at)
+    WHERE p2.left_at IS NULL
+    GROUP BY p2.id
+) counts
+WHERE p.id = counts.id;
+
+-- ==========================================================
+-- PARTE 3: Índice do total de não lidas
+-- ==========================================================
+
+-- SUM(unread_count) por usuário lê só as conversas com pendências
+CREATE INDEX IF NOT EXISTS idx_participant_unread_count
+    ON app_conversation_participant(user_id, conversation_id) INCLUDE (unread_count)
+    WHERE left_at IS NULL AND unread_count > 0;
@@ -0,0 +1,17 @@
+-- ========================================
+-- ADD MESSAGE SYNC INDEX
+-- Version: 1.0.34
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   GET /api/v1/messages/conversation/{id}?after=<cursor> returns every
+--   message created, edited, read or soft-deleted since the cursor, seeking
+--   on (updated_at, id). idx_message_conversation_sent cannot serve it: it
+--   is ordered by sent_at and excludes deleted rows (WHERE deleted_at IS
+--   NULL), so edits and deletions would be missed.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+CREATE INDEX IF NOT EXISTS idx_message_conversation_sync
+    ON app_user_message(conversation_id, updated_at, id);
@@ -0,0 +1,29 @@
+-- ========================================
+-- ADD READ WATERMARK SENT_AT TO PARTICIPANT
+-- Version: 1.0.35
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. last_read_sent_at column on app_conversation_participant
+--   2. Backfill from the sent_at of last_read_message_id
+--
+-- Read state is a watermark on the sent_at of the last read message, not on
+-- the time of the read request (last_read_at). Keeping that sent_at on the
+-- participant lets the watermark be compared without reading the message
+-- row, and gives the unread decrement on delete the same rule as the
+-- recount.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+ALTER TABLE app_conversation_participant
+    ADD COLUMN IF NOT EXISTS last_read_sent_at TIMESTAMP;
+
+UPDATE app_conversation_participant p
+SET last_read_sent_at = m.sent_at
+FROM app_user_message m
+WHERE m.id = p.last_read_message_id
+  AND p.last_read_sent_at IS NULL;
+
+COMMENT ON COLUMN app_conversation_participant.last_read_sent_at IS
+    'sent_at de last_read_message_id: marco de leitura comparado com sent_at das mensagens. Mantido por ConversationParticipantRepository.';
@@ -0,0 +1,52 @@
+-- ========================================
+-- ADD PORTUGUESE MESSAGE SEARCH
+-- Version: 1.0.36
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. unaccent extension and the portuguese_unaccent text search
+--      configuration (Portuguese stemming, accent-insensitive)
+--   2. GIN index on to_tsvector('portuguese_unaccent', txt_content)
+--   3. Drop idx_message_content_search (English config, never used: the
+--      old search ran LOWER(txt_content) LIKE '%q%')
+--
+-- Used by UserMessageRepository.searchMessages for the conversation search
+-- and the inbox-wide search. Queries must use the exact same expression,
+-- to_tsvector('portuguese_unaccent', txt_content), to hit the index.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY (only an unused index is dropped)
+
+-- ==========================================================
+-- PARTE 1: Configuração de busca em português sem acentos
+-- ==========================================================
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'portuguese_unaccent') THEN
+        CREATE TEXT SEARCH CONFIGURATION portuguese_unaccent (COPY = portuguese);
+        -- "não", "nao" e "NÃO" viram o mesmo lexema
+        ALTER TEXT SEARCH CONFIGURATION portuguese_unaccent
+            ALTER MAPPING FOR hword, hword_part, word WITH unaccent, portuguese_stem;
+    END IF;
+END;
+$$;
+
+COMMENT ON TEXT SEARCH CONFIGURATION portuguese_unaccent IS
+    'Portuguese stemming with accents removed. Used for message search (V1.0.36).';
+
+-- ==========================================================
+-- PARTE 2: Índice de busca
+-- ==========================================================
+
+CREATE INDEX IF NOT EXISTS idx_message_content_search_pt
+    ON app_user_message USING gin(to_tsvector('portuguese_unaccent', txt_content))
+    WHERE deleted_at IS NULL;
+
+-- ==========================================================
+-- PARTE 3: Índice antigo (config 'english', sem uso)
+-- ==========================================================
+
+DROP INDEX IF EXISTS idx_message_content_search;
@@ -0,0 +1,68 @@
+-- ========================================
+-- ADD DIRECT PAIR KEY TO app_conversation
+-- Version: 1.0.37
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. direct_pair_key column: '<smaller user id>:<larger user id>' (text
+--      order of the lowercase UUIDs) for DIRECT conversations, NULL otherwise
+--   2. Backfill existing DIRECT conversations
+--   3. Partial unique index on active conversations
+--
+-- ConversationRepository.findDirectConversation becomes a single index probe
+-- and createDirectConversation inserts with ON CONFLICT DO NOTHING, so two
+-- concurrent "start chat" requests can no longer create two conversations.
+--
+-- If duplicates already exist, only the oldest active one of each pair gets
+-- the key; the others keep NULL and stay reachable by id.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+-- ==========================================================
+-- PARTE 1: Coluna
+-- ==========================================================
+
+ALTER TABLE app_conversation
+    ADD COLUMN IF NOT EXISTS direct_pair_key VARCHAR(73);
+
+COMMENT ON COLUMN app_conversation.direct_pair_key IS
+    'DIRECT only: ordered pair of participant ids, "<min>:<max>". Unique among active conversations.';
+
+-- ==========================================================
+-- PARTE 2: Carga das conversas DIRECT existentes
+-- ==========================================================
+
+WITH pairs AS (
+    SELECT p.conversation_id,
+           MIN(p.user_id::text) || ':' || MAX(p.user_id::text) AS pair_key
+    FROM app_conversation_participant p
+    JOIN app_conversation c ON c.id = p.conversation_id
+    WHERE c.conversation_type = 'DIRECT'
+      AND c.deleted_at IS NULL
+      AND c.direct_pair_key IS NULL
+    GROUP BY p.conversation_id
+    HAVING COUNT(DISTINCT p.user_id) = 2
+),
+ranked AS (
+    SELECT pairs.conversation_id, pairs.pair_key,
+           ROW_NUMBER() OVER (PARTITION BY pairs.pair_key ORDER BY c.created_at, c.id) AS position
+    FROM pairs
+    JOIN app_conversation c ON c.id = pairs.conversation_id
+)
+UPDATE app_conversation c
+SET direct_pair_key = ranked.pair_key
+FROM ranked
+WHERE c.id = ranked.conversation_id
+  AND ranked.position = 1
+  AND NOT EXISTS (
+      SELECT 1 FROM app_conversation other
+      WHERE other.direct_pair_key = ranked.pair_key AND other.deleted_at IS NULL);
+
+-- ==========================================================
+-- PARTE 3: Índice único
+-- ==========================================================
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_conversation_direct_pair_key
+    ON app_conversation(direct_pair_key)
+    WHERE deleted_at IS NULL;
@@ -0,0 +1,154 @@
+-- ========================================
+-- CREATE MESSAGE ARCHIVE
+-- Version: 1.0.38
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. app_user_message_archive: cold copy of app_user_message rows
+--   2. message_archive_batch(): moves one batch of old or long-deleted
+--      messages from app_user_message into the archive
+--   3. Indexes used by the archiver on app_user_message and
+--      app_conversation_participant
+--   4. Drop fk_message_parent (a reply's parent may now live in the archive)
+--
+-- MessageArchiveJob calls message_archive_batch() until nothing is left to
+-- move. Messages are moved (DELETE ... RETURNING + INSERT in one statement),
+-- never dropped. The paged listing of a conversation reads the archive when
+-- a page goes past the rows still in app_user_message.
+--
+-- last_read_message_id has no FK. A message still referenced as some
+-- participant's last_read_message_id stays in app_user_message until every
+-- participant pointing at it reads further, so the reference never dangles.
+--
+-- fk_message_parent was ON DELETE SET NULL: moving a parent would have
+-- cleared parent_message_id of its replies. The application only soft
+-- deletes messages, so the constraint never fired for real deletions.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY (rows are moved, not deleted; only a FK is dropped)
+
+-- ==========================================================
+-- PARTE 1: Tabela de arquivo
+-- ==========================================================
+
+CREATE TABLE IF NOT EXISTS app_user_message_archive (
+    id UUID PRIMARY KEY,
+
+    conversation_id UUID NOT NULL,
+    sender_id UUID NOT NULL,
+    parent_message_id UUID,
+
+    txt_content TEXT,
+    message_type VARCHAR(20) NOT NULL,
+
+    is_read BOOLEAN NOT NULL,
+    read_at TIMESTAMP,
+
+    sent_at TIMESTAMP NOT NULL,
+    is_edited BOOLEAN NOT NULL,
+    edited_at TIMESTAMP,
+
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    deleted_at TIMESTAMP,
+
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    -- Mesmo comportamento em cascata da tabela quente
+    CONSTRAINT fk_message_archive_conversation FOREIGN KEY (conversation_id)
+        REFERENCES app_conversation(id) ON DELETE CASCADE,
+    CONSTRAINT fk_message_archive_sender FOREIGN KEY (sender_id)
+        REFERENCES app_user(id) ON DELETE CASCADE
+);
+
+-- Histórico da conversa, lido junto com a tabela quente (mesma ordem de idx_message_conversation_sent)
+CREATE INDEX IF NOT EXISTS idx_message_archive_conversation_sent
+    ON app_user_message_archive(conversation_id, sent_at DESC)
+    WHERE deleted_at IS NULL;
+
+COMMENT ON TABLE app_user_message_archive IS
+    'Messages moved out of app_user_message by MessageArchiveJob (old history and long soft-deleted rows). V1.0.38.';
+COMMENT ON COLUMN app_user_message_archive.archived_at IS
+    'When the row was moved to the archive';
+
+-- ==========================================================
+-- PARTE 2: Índices do arquivador na tabela quente
+-- ==========================================================
+
+-- Mensagens antigas: BRIN é minúsculo e adequado a inserções em ordem de sent_at
+CREATE INDEX IF NOT EXISTS idx_message_sent_at_brin
+    ON app_user_message USING brin(sent_at);
+
+-- Mensagens excluídas há mais que o período de carência
+CREATE INDEX IF NOT EXISTS idx_message_deleted_at
+    ON app_user_message(deleted_at)
+    WHERE deleted_at IS NOT NULL;
+
+-- NOT EXISTS do arquivador: mensagens ainda usadas como marco de leitura
+CREATE INDEX IF NOT EXISTS idx_participant_last_read_message
+    ON app_conversation_participant(last_read_message_id)
+    WHERE last_read_message_id IS NOT NULL;
+
+-- ==========================================================
+-- PARTE 3: Função de movimentação em lote
+-- ==========================================================
+
+-- Move até batch_size mensagens enviadas antes de hot_before ou excluídas
+-- antes de deleted_before, exceto as que ainda são o last_read_message_id de
+-- algum participante. Linhas bloqueadas por outra transação são puladas
+-- (SKIP LOCKED), então execuções concorrentes em nós diferentes não colidem.
+-- Retorna quantas mensagens foram movidas.
+CREATE OR REPLACE FUNCTION message_archive_batch(
+    hot_before TIMESTAMP,
+    deleted_before TIMESTAMP,
+    batch_size INT)
+RETURNS INT
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    moved INT;
+BEGIN
+    WITH batch AS (
+        SELECT m.id
+        FROM app_user_message m
+        WHERE (m.sent_at < hot_before OR m.deleted_at < deleted_before)
+          AND NOT EXISTS (
+              SELECT 1
+              FROM app_conversation_participant p
+              WHERE p.last_read_message_id = m.id)
+        LIMIT batch_size
+        FOR UPDATE OF m SKIP LOCKED
+    ),
+    moved_rows AS (
+        DELETE FROM app_user_message m
+        USING batch
+        WHERE m.id = batch.id
+        RETURNING m.id, m.conversation_id, m.sender_id, m.parent_message_id,
+                  m.txt_content, m.message_type, m.is_read, m.read_at,
+                  m.sent_at, m.is_edited, m.edited_at,
+                  m.created_at, m.updated_at, m.deleted_at
+    )
+    INSERT INTO app_user_message_archive (
+        id, conversation_id, sender_id, parent_message_id,
+        txt_content, message_type, is_read, read_at,
+        sent_at, is_edited, edited_at,
+        created_at, updated_at, deleted_at)
+    SELECT id, conversation_id, sender_id, parent_message_id,
+           txt_content, message_type, is_read, read_at,
+           sent_at, is_edited, edited_at,
+           created_at, updated_at, deleted_at
+    FROM moved_rows;
+
+    GET DIAGNOSTICS moved = ROW_COUNT;
+    RETURN moved;
+END;
+$$;
+
+COMMENT ON FUNCTION message_archive_batch(TIMESTAMP, TIMESTAMP, INT) IS
+    'Moves up to N messages sent before hot_before or soft-deleted before deleted_before into app_user_message_archive, except messages still used as a read watermark. Called by MessageArchiveJob.';
+
+-- ==========================================================
+-- PARTE 4: FK da mensagem pai
+-- ==========================================================
+
+ALTER TABLE app_user_message DROP CONSTRAINT IF EXISTS fk_message_parent;
@@ -0,0 +1,58 @@
+-- ========================================
+-- ADD INBOX KEYSET ORDER TO PARTICIPANT
+-- Version: 1.0.39
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. last_activity_at column on app_conversation_participant
+--   2. Backfill from app_conversation.last_message_at (or joined_at)
+--   3. Keyset indexes for the paginated inbox (all rows / unread only)
+--
+-- The inbox was ordered by app_conversation.last_message_at, which lives on
+-- the other side of the join, so every page had to read and sort all of the
+-- user's conversations. last_activity_at copies it onto the participant row
+-- (joined_at while the conversation has no messages), so a page is a bounded
+-- scan of idx_participant_inbox on
+-- (user_id, is_pinned, last_activity_at, conversation_id).
+--
+-- Maintained by MessageService/MessageBatchWriter in the same UPDATE that
+-- increments unread_count; it never moves backwards.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+-- ==========================================================
+-- PARTE 1: Coluna e carga inicial
+-- ==========================================================
+
+ALTER TABLE app_conversation_participant
+    ADD COLUMN IF NOT EXISTS last_activity_at TIMESTAMP;
+
+UPDATE app_conversation_participant p
+SET last_activity_at = COALESCE(c.last_message_at, p.joined_at)
+FROM app_conversation c
+WHERE c.id = p.conversation_id
+  AND p.last_activity_at IS NULL;
+
+ALTER TABLE app_conversation_participant
+    ALTER COLUMN last_activity_at SET DEFAULT CURRENT_TIMESTAMP;
+
+ALTER TABLE app_conversation_participant
+    ALTER COLUMN last_activity_at SET NOT NULL;
+
+COMMENT ON COLUMN app_conversation_participant.last_activity_at IS
+    'Cópia de app_conversation.last_message_at (joined_at enquanto não há mensagens). Ordem do inbox paginado; mantido por MessageService.';
+
+-- ==========================================================
+-- PARTE 2: Índices do inbox paginado
+-- ==========================================================
+
+-- Página do inbox: WHERE user_id = ? AND (is_pinned, last_activity_at, conversation_id) < (...)
+CREATE INDEX IF NOT EXISTS idx_participant_inbox
+    ON app_conversation_participant(user_id, is_pinned DESC, last_activity_at DESC, conversation_id DESC)
+    WHERE left_at IS NULL;
+
+-- Filtro "somente não lidas" sem percorrer as conversas já lidas
+CREATE INDEX IF NOT EXISTS idx_participant_inbox_unread
+    ON app_conversation_participant(user_id, is_pinned DESC, last_activity_at DESC, conversation_id DESC)
+    WHERE left_at IS NULL AND unread_count > 0;
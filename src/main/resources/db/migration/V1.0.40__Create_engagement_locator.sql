@@ -0,0 +1,79 @@
+-- ========================================
+-- CREATE ENGAGEMENT LOCATOR (ID -> ENGAGED_AT)
+-- Version: 1.0.40
+-- Date: 2026-10-18
+-- Author: Cleidson
+-- Description:
+--   1. content_engagement_locator: engaged_at (partition key) of every
+--      engagement id
+--   2. Trigger on content_engagement_log that fills it on insert
+--   3. Backfill from the existing rows
+--
+-- content_engagement_log is partitioned by engaged_at (V1.0.28) and its
+-- primary key is (id, engaged_at). A lookup, UPDATE or DELETE by id alone
+-- cannot be pruned: PostgreSQL probes the primary key index of every live
+-- partition (24 monthly partitions with the default retention, plus DEFAULT).
+-- Single-row paths that only know the id (GET/PUT/DELETE
+-- /api/v1/engagements/{id}, the first progress heartbeat) first read
+-- engaged_at here, in the same statement, so only one partition is probed.
+-- Hibernate adds engaged_at to its UPDATEs (@PartitionKey) and buffered
+-- progress carries it, so writes are pruned without this table.
+--
+-- Cost: one extra index insert per engagement (row trigger), and the table
+-- keeps ~40 bytes per live engagement. EngagementPartitionJob deletes the
+-- entries of archived partitions.
+-- ========================================
+
+-- ✅ NON-DESTRUCTIVE ONLY
+
+-- ==========================================================
+-- PARTE 1: Tabela
+-- ==========================================================
+
+CREATE TABLE IF NOT EXISTS content_engagement_locator (
+    id         UUID      NOT NULL,
+    engaged_at TIMESTAMP NOT NULL,
+
+    CONSTRAINT pk_content_engagement_locator PRIMARY KEY (id)
+);
+
+-- Limpeza das entradas de partições arquivadas
+CREATE INDEX IF NOT EXISTS idx_engagement_locator_engaged_at
+    ON content_engagement_locator(engaged_at);
+
+COMMENT ON TABLE content_engagement_locator IS
+    'engaged_at (partition key) of each content_engagement_log id, so lookups by id prune partitions. Filled by trigger.';
+
+-- ==========================================================
+-- PARTE 2: Trigger de inserção
+-- ==========================================================
+
+-- Uma linha movida da partição DEFAULT mantém engaged_at, então o
+-- ON CONFLICT só reafirma o mesmo valor
+CREATE OR REPLACE FUNCTION engagement_locator_insert()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    INSERT INTO content_engagement_locator (id, engaged_at)
+    VALUES (NEW.id, NEW.engaged_at)
+    ON CONFLICT (id) DO UPDATE SET engaged_at = EXCLUDED.engaged_at;
+    RETURN NULL;
+END;
+$$;
+
+-- Definido na tabela particionada: vale para as partições atuais e futuras
+DROP TRIGGER IF EXISTS trg_engagement_locator_insert ON content_engagement_log;
+CREATE TRIGGER trg_engagement_locator_insert
+    AFTER INSERT ON content_engagement_log
+    FOR EACH ROW
+    EXECUTE FUNCTION engagement_locator_insert();
+
+-- ==========================================================
+-- PARTE 3: Carga inicial
+-- ==========================================================
+
+INSERT INTO content_engagement_locator (id, engaged_at)
+SELECT id, engaged_at
+FROM content_engagement_log
+ON CONFLICT (id) DO NOTHING;
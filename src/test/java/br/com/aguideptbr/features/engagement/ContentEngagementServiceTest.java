@@ -0,0 +1,108 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.aguideptbr.features.content.ContentRecordModel;
+import br.com.aguideptbr.features.content.ContentType;
+import br.com.aguideptbr.features.engagement.dto.UserTopContentsDTO;
+import br.com.aguideptbr.features.user.UserModel;
+import br.com.aguideptbr.features.user.UserRole;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+/**
+ * Integration tests for ContentEngagementService read paths.
+ *
+ * Uses Hibernate statistics (quarkus.hibernate-orm.statistics=true in test
+ * properties) to guard against N+1 queries.
+ */
+@QuarkusTest
+class ContentEngagementServiceTest {
+
+        private static final int CONTENTS = 5;
+
+        @Inject
+        ContentEngagementService engagementService;
+
+        @Inject
+        EntityManager entityManager;
+
+        @Inject
+        SessionFactory sessionFactory;
+
+        private UserModel testUser;
+        private final List<ContentRecordModel> contents = new ArrayList<>();
+
+        @BeforeEach
+        @Transactional
+        void setup() {
+                entityManager.createNativeQuery(
+                                "DELETE FROM user_content_engagement WHERE user_id IN (SELECT id FROM app_user WHERE email = 'engagement-test@example.com')")
+                                .executeUpdate();
+                UserModel.delete("email", "engagement-test@example.com");
+                ContentRecordModel.delete("channelId", "UC-engagement-test");
+
+                testUser = new UserModel();
+                testUser.name = "Engagement";
+                testUser.surname = "Test";
+                testUser.email = "engagement-test@example.com";
+                testUser.passwordHash = "$2a$10$validhash";
+                testUser.role = UserRole.FREE;
+                testUser.persist();
+
+                contents.clear();
+                for (int i = 0; i < CONTENTS; i++) {
+                        ContentRecordModel content = new ContentRecordModel();
+                        content.title = "Engagement Test " + i;
+                        content.videoUrl = "https://test.example.com/engagement/" + UUID.randomUUID();
+                        content.videoThumbnailUrl = "https://test.example.com/thumb/" + i;
+                        content.channelId = "UC-engagement-test";
+                        content.type = ContentType.VIDEO;
+                        content.persist();
+                        contents.add(content);
+
+                        // Rollup row as EngagementRollupJob would write it
+                        entityManager.createNativeQuery("""
+                                        INSERT INTO user_content_engagement (
+                                            user_id, content_id, total_interactions, total_views,
+                                            total_likes, total_shares, completion_sum, completion_count,
+                                            total_view_duration_seconds, last_engaged_at)
+                                        VALUES (:userId, :contentId, :interactions, :interactions,
+                                                0, 0, 0, 0, 60, :engagedAt)
+                                        """)
+                                        .setParameter("userId", testUser.id)
+                                        .setParameter("contentId", content.id)
+                                        .setParameter("interactions", (long) (CONTENTS - i))
+                                        .setParameter("engagedAt", LocalDateTime.now())
+                                        .executeUpdate();
+                }
+        }
+
+        @Test
+        @Transactional
+        void testGetUserTopContents_ShouldNotIssueQueryPerContent() {
+                Statistics statistics = sessionFactory.getStatistics();
+                statistics.clear();
+
+                List<UserTopContentsDTO> top = engagementService.getUserTopContents(testUser.id, 10);
+
+                assertEquals(CONTENTS, top.size());
+                assertEquals("Engagement Test 0", top.get(0).getContentTitle());
+                assertEquals("https://test.example.com/thumb/0", top.get(0).getThumbnailUrl());
+                assertTrue(statistics.getPrepareStatementCount() <= 2,
+                                "Expected at most 2 statements, got " + statistics.getPrepareStatementCount());
+        }
+}
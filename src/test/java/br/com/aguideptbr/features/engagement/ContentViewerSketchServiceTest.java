@@ -0,0 +1,143 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import br.com.aguideptbr.features.engagement.EngagementRollupRepository.ChunkedJobProgress;
+
+/**
+ * Unit tests for ContentViewerSketchService.
+ *
+ * Tests recording of committed views and the chunked backfill of the
+ * existing history.
+ * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
+ */
+class ContentViewerSketchServiceTest {
+
+    private static final int CHUNK_SIZE = 2;
+    private static final LocalDateTime UNTIL = LocalDateTime.of(2026, 10, 18, 12, 0);
+    private static final LocalDate DAY = UNTIL.toLocalDate();
+
+    private ContentViewerSketchRepository sketchRepository;
+    private EngagementRollupRepository rollupRepository;
+    private ContentViewerSketchService service;
+
+    @BeforeEach
+    void setUp() {
+        sketchRepository = Mockito.mock(ContentViewerSketchRepository.class);
+        rollupRepository = Mockito.mock(EngagementRollupRepository.class);
+        service = new ContentViewerSketchService(Mockito.mock(Logger.class), sketchRepository, rollupRepository,
+                CHUNK_SIZE);
+    }
+
+    @Nested
+    @DisplayName("backfillChunk()")
+    class BackfillChunk {
+
+        @Test
+        @DisplayName("should start the job from the first key when it has never run")
+        void shouldStartJob() {
+            when(rollupRepository.lockChunkedJob(ContentViewerSketchService.BACKFILL_JOB_NAME))
+                    .thenReturn(null)
+                    .thenReturn(new ChunkedJobProgress(UNTIL, ContentViewerSketchService.FIRST_KEY));
+            when(sketchRepository.findContentIdsAfter(ContentViewerSketchService.FIRST_KEY, CHUNK_SIZE))
+                    .thenReturn(List.of());
+
+            assertFalse(service.backfillChunk());
+
+            verify(rollupRepository).startChunkedJob(eq(ContentViewerSketchService.BACKFILL_JOB_NAME), any(),
+                    eq(ContentViewerSketchService.FIRST_KEY));
+            verify(rollupRepository).saveChunkedJobProgress(ContentViewerSketchService.BACKFILL_JOB_NAME, null);
+        }
+
+        @Test
+        @DisplayName("should merge one content range and save the last content as progress")
+        void shouldProcessOneRange() {
+            UUID after = UUID.randomUUID();
+            UUID first = UUID.randomUUID();
+            UUID last = UUID.randomUUID();
+            when(rollupRepository.lockChunkedJob(ContentViewerSketchService.BACKFILL_JOB_NAME))
+                    .thenReturn(new ChunkedJobProgress(UNTIL, after));
+            when(sketchRepository.findContentIdsAfter(after, CHUNK_SIZE)).thenReturn(List.of(first, last));
+            when(sketchRepository.streamViewers(after, last, UNTIL)).thenReturn(Stream.of(
+                    new Object[] { first, Date.valueOf(DAY), UUID.randomUUID() },
+                    new Object[] { first, Date.valueOf(DAY.plusDays(1)), UUID.randomUUID() },
+                    new Object[] { last, Date.valueOf(DAY), UUID.randomUUID() }));
+
+            assertTrue(service.backfillChunk());
+
+            verify(sketchRepository, times(3)).mergeDaily(any(), any(), any());
+            verify(sketchRepository).mergeTotal(eq(first), any());
+            verify(sketchRepository).mergeTotal(eq(last), any());
+            verify(rollupRepository).saveChunkedJobProgress(ContentViewerSketchService.BACKFILL_JOB_NAME, last);
+        }
+
+        @Test
+        @DisplayName("should stop without reading the log when the job is done")
+        void shouldSkipWhenDone() {
+            when(rollupRepository.lockChunkedJob(ContentViewerSketchService.BACKFILL_JOB_NAME))
+                    .thenReturn(new ChunkedJobProgress(UNTIL, null));
+
+            service.backfill();
+            service.backfill();
+
+            verify(rollupRepository, times(1)).lockChunkedJob(ContentViewerSketchService.BACKFILL_JOB_NAME);
+            verify(sketchRepository, never()).findContentIdsAfter(any(), Mockito.anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("onCreated()")
+    class OnCreated {
+
+        private ContentEngagementModel engagement(EngagementType type) {
+            ContentEngagementModel engagement = new ContentEngagementModel();
+            engagement.userId = UUID.randomUUID();
+            engagement.contentId = UUID.randomUUID();
+            engagement.engagementType = type;
+            engagement.engagementStatus = EngagementStatus.ACTIVE;
+            return engagement;
+        }
+
+        @Test
+        @DisplayName("should merge a committed view on the next flush")
+        void shouldFlushCommittedView() {
+            ContentEngagementModel view = engagement(EngagementType.VIEW);
+
+            service.onCreated(new EngagementCreatedEvent(view, null));
+            service.flush();
+
+            verify(sketchRepository).mergeTotal(eq(view.contentId), any());
+            verify(sketchRepository).mergeDaily(eq(view.contentId), any(), any());
+        }
+
+        @Test
+        @DisplayName("should ignore engagements that are not views")
+        void shouldIgnoreOtherTypes() {
+            service.onCreated(new EngagementCreatedEvent(engagement(EngagementType.LIKE), null));
+            service.flush();
+
+            verify(sketchRepository, never()).mergeTotal(any(), any());
+        }
+    }
+}
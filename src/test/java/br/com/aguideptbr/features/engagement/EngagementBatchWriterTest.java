@@ -0,0 +1,68 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.enterprise.event.Event;
+
+/**
+ * Unit tests for EngagementBatchWriter.
+ *
+ * Tests that playback progress only moves retention histograms for the rows
+ * the batched UPDATE actually changed.
+ * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
+ */
+class EngagementBatchWriterTest {
+
+    private ContentEngagementRepository engagementRepository;
+    private Event<ContentRetentionChangedEvent> retentionChanged;
+    private EngagementBatchWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        engagementRepository = Mockito.mock(ContentEngagementRepository.class);
+        retentionChanged = Mockito.mock(Event.class);
+        writer = new EngagementBatchWriter(Mockito.mock(Logger.class), engagementRepository,
+                Mockito.mock(Event.class), Mockito.mock(Event.class), retentionChanged, new ObjectMapper());
+    }
+
+    private static EngagementProgressBuffer.PendingProgress progress(UUID contentId, int from, int to) {
+        return EngagementProgressBuffer.PendingProgress.clean(contentId, null, from, from, 0).update(to, to, 1);
+    }
+
+    @Test
+    @DisplayName("should not move the histogram of an engagement removed before the flush")
+    void shouldSkipRowsNotUpdated() {
+        UUID active = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        UUID contentId = UUID.randomUUID();
+        Map<UUID, EngagementProgressBuffer.PendingProgress> pending = new LinkedHashMap<>();
+        pending.put(active, progress(contentId, 10, 40));
+        pending.put(removed, progress(contentId, 20, 60));
+        when(engagementRepository.updateProgressBatch(pending)).thenReturn(Set.of(active));
+
+        int updated = writer.writeProgress(pending);
+
+        assertEquals(1, updated);
+        ArgumentCaptor<ContentRetentionChangedEvent> fired = ArgumentCaptor.forClass(ContentRetentionChangedEvent.class);
+        verify(retentionChanged).fire(fired.capture());
+        assertEquals(List.of(new ContentRetentionChangedEvent(contentId, 10, 10, 40, 40)), fired.getAllValues());
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.WebApplicationException;
+
+/**
+ * Unit tests for EngagementCursor encoding.
+ */
+class EngagementCursorTest {
+
+    @Test
+    @DisplayName("should round-trip engagedAt and id through the opaque string")
+    void shouldRoundTrip() {
+        LocalDateTime engagedAt = LocalDateTime.of(2026, 10, 18, 12, 30, 15, 123456000);
+        UUID id = UUID.randomUUID();
+
+        EngagementCursor decoded = EngagementCursor.decode(new EngagementCursor(engagedAt, id).encode());
+
+        assertEquals(engagedAt, decoded.getEngagedAt());
+        assertEquals(id, decoded.getId());
+    }
+
+    @Test
+    @DisplayName("should treat a missing cursor as the first page")
+    void shouldReturnNullForBlank() {
+        assertNull(EngagementCursor.decode(null));
+        assertNull(EngagementCursor.decode(""));
+    }
+
+    @Test
+    @DisplayName("should reject a malformed cursor with 400")
+    void shouldRejectMalformedCursor() {
+        WebApplicationException ex = assertThrows(WebApplicationException.class,
+                () -> EngagementCursor.decode("not-a-cursor"));
+
+        assertEquals(400, ex.getResponse().getStatus());
+    }
+}
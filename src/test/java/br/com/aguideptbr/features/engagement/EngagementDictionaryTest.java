@@ -0,0 +1,175 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import br.com.aguideptbr.features.engagement.EngagementDictionary.Kind;
+import br.com.aguideptbr.features.engagement.EngagementDictionaryRepository.Entry;
+
+/**
+ * Unit tests for EngagementDictionary and DictionaryConverter.
+ *
+ * Tests the startup preload, bulk resolution of misses, loading of ids
+ * missing on read and the converter round trip.
+ * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
+ */
+class EngagementDictionaryTest {
+
+    private EngagementDictionaryRepository repository;
+    private EngagementDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(EngagementDictionaryRepository.class);
+        dictionary = new EngagementDictionary(Mockito.mock(Logger.class), repository);
+    }
+
+    private DictionaryConverter converter() {
+        return new DictionaryConverter.Platform() {
+            @Override
+            EngagementDictionary dictionary() {
+                return dictionary;
+            }
+        };
+    }
+
+    private static ContentEngagementModel engagement(String platform, String userAgent) {
+        ContentEngagementModel engagement = new ContentEngagementModel();
+        engagement.platform = platform;
+        engagement.userAgent = userAgent;
+        return engagement;
+    }
+
+    @Nested
+    @DisplayName("refresh()")
+    class Refresh {
+
+        @Test
+        @DisplayName("should load every entry and then only the newer ones")
+        void shouldLoadIncrementally() {
+            when(repository.findAfter(0)).thenReturn(List.of(new Entry(1, Kind.PLATFORM, "Android")));
+            when(repository.findAfter(1)).thenReturn(List.of(new Entry(2, Kind.PLATFORM, "iOS")));
+
+            dictionary.refresh();
+            dictionary.refresh();
+
+            assertEquals(1, dictionary.idOf(Kind.PLATFORM, "Android"));
+            assertEquals("iOS", dictionary.valueOf(2));
+            verify(repository).findAfter(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("warmAll()")
+    class WarmAll {
+
+        @Test
+        @DisplayName("should resolve the misses of many engagements with one call per kind")
+        void shouldResolveMissesInBulk() {
+            when(repository.findAfter(0)).thenReturn(List.of(new Entry(1, Kind.PLATFORM, "Android")));
+            dictionary.refresh();
+            when(repository.upsertAll(Kind.PLATFORM, Set.of("iOS"))).thenReturn(Map.of("iOS", 2));
+            when(repository.upsertAll(Kind.USER_AGENT, Set.of("ua-1", "ua-2")))
+                    .thenReturn(Map.of("ua-1", 3, "ua-2", 4));
+
+            dictionary.warmAll(List.of(
+                    engagement("Android", "ua-1"),
+                    engagement("iOS", "ua-2"),
+                    engagement("iOS", null)));
+
+            assertEquals(2, dictionary.idOf(Kind.PLATFORM, "iOS"));
+            assertEquals(4, dictionary.idOf(Kind.USER_AGENT, "ua-2"));
+            verify(repository, times(2)).upsertAll(any(), any());
+        }
+
+        @Test
+        @DisplayName("should ask again for values inserted concurrently by another transaction")
+        void shouldRetryMissingValues() {
+            when(repository.upsertAll(Kind.PLATFORM, Set.of("Android", "iOS"))).thenReturn(Map.of("Android", 1));
+            when(repository.upsertAll(Kind.PLATFORM, Set.of("iOS"))).thenReturn(Map.of("iOS", 2));
+
+            dictionary.warmAll(List.of(engagement("Android", null), engagement("iOS", null)));
+
+            assertEquals(2, dictionary.idOf(Kind.PLATFORM, "iOS"));
+        }
+
+        @Test
+        @DisplayName("should not call the database when every value is cached")
+        void shouldSkipCachedValues() {
+            when(repository.findAfter(0)).thenReturn(List.of(new Entry(1, Kind.PLATFORM, "Android")));
+            dictionary.refresh();
+
+            dictionary.warm(engagement("Android", null));
+
+            verify(repository, never()).upsertAll(any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("DictionaryConverter")
+    class Converter {
+
+        @Test
+        @DisplayName("should round-trip a warmed value through the converter without database access")
+        void shouldRoundTrip() {
+            when(repository.upsertAll(Kind.PLATFORM, Set.of("Android"))).thenReturn(Map.of("Android", 7));
+            dictionary.warm(engagement("Android", null));
+            DictionaryConverter converter = converter();
+
+            Integer id = converter.convertToDatabaseColumn("Android");
+
+            assertEquals(7, id);
+            assertEquals("Android", converter.convertToEntityAttribute(id));
+            assertNull(converter.convertToDatabaseColumn(null));
+            assertNull(converter.convertToEntityAttribute(null));
+            verify(repository, never()).findAfter(anyInt());
+        }
+
+        @Test
+        @DisplayName("should refuse to write a value that was not warmed")
+        void shouldRejectUnwarmedValue() {
+            DictionaryConverter converter = converter();
+
+            assertThrows(IllegalStateException.class, () -> converter.convertToDatabaseColumn("Android"));
+            verify(repository, never()).upsertAll(any(), any());
+        }
+
+        @Test
+        @DisplayName("should load an id created by another node instead of reading it as null")
+        void shouldLoadMissingId() {
+            when(repository.findEntry(9)).thenReturn(new Entry(9, Kind.PLATFORM, "iOS"));
+            DictionaryConverter converter = converter();
+
+            assertEquals("iOS", converter.convertToEntityAttribute(9));
+            assertEquals("iOS", converter.convertToEntityAttribute(9));
+            assertEquals(9, dictionary.idOf(Kind.PLATFORM, "iOS"));
+            verify(repository, times(1)).findEntry(9);
+        }
+
+        @Test
+        @DisplayName("should fail for an id that has no entry")
+        void shouldRejectUnknownId() {
+            DictionaryConverter converter = converter();
+
+            assertThrows(IllegalStateException.class, () -> converter.convertToEntityAttribute(99));
+        }
+    }
+}
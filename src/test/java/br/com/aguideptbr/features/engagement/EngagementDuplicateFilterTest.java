@@ -0,0 +1,142 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import br.com.aguideptbr.features.engagement.dto.CreateEngagementDTO;
+
+/**
+ * Unit tests for EngagementDuplicateFilter.
+ *
+ * Tests the atomic check-and-hold of single events, remembering only
+ * committed creates, and the check-and-remember of batches.
+ * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
+ */
+class EngagementDuplicateFilterTest {
+
+    private EngagementDuplicateFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new EngagementDuplicateFilter(Mockito.mock(Logger.class), true, Duration.ofMinutes(10), 0.001,
+                10_000);
+    }
+
+    private static CreateEngagementDTO view(UUID userId, UUID contentId) {
+        CreateEngagementDTO dto = new CreateEngagementDTO();
+        dto.setUserId(userId);
+        dto.setContentId(contentId);
+        dto.setEngagementType(EngagementType.VIEW);
+        dto.setEngagedAt(LocalDateTime.of(2026, 10, 18, 12, 0));
+        return dto;
+    }
+
+    @Test
+    @DisplayName("should let only one of many concurrent copies of an event pass")
+    void shouldAcceptConcurrentCopyOnce() throws Exception {
+        CreateEngagementDTO event = view(UUID.randomUUID(), UUID.randomUUID());
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (!filter.checkAndHold(event)) {
+                        accepted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, accepted.get());
+    }
+
+    @Test
+    @DisplayName("should drop repeats inside a batch and remember the accepted events")
+    void shouldRememberAcceptedBatch() {
+        CreateEngagementDTO event = view(UUID.randomUUID(), UUID.randomUUID());
+        CreateEngagementDTO other = view(UUID.randomUUID(), UUID.randomUUID());
+
+        EngagementDuplicateFilter.BatchCheck check = filter.checkAndRememberBatch(List.of(event, event, other),
+                unique -> true);
+
+        assertTrue(check.accepted());
+        assertEquals(List.of(event, other), check.unique());
+        assertTrue(filter.checkAndHold(event));
+    }
+
+    @Test
+    @DisplayName("should not remember a rejected batch so it can be retried")
+    void shouldForgetRejectedBatch() {
+        CreateEngagementDTO event = view(UUID.randomUUID(), UUID.randomUUID());
+
+        EngagementDuplicateFilter.BatchCheck check = filter.checkAndRememberBatch(List.of(event), unique -> false);
+
+        assertFalse(check.accepted());
+        assertFalse(filter.checkAndHold(event));
+    }
+
+    @Test
+    @DisplayName("should accept the retry of an event whose create failed")
+    void shouldAcceptRetryAfterFailedCreate() {
+        CreateEngagementDTO event = view(UUID.randomUUID(), UUID.randomUUID());
+
+        // First attempt: the create rolls back, so no AFTER_SUCCESS event
+        assertFalse(filter.checkAndHold(event));
+        filter.release(event);
+
+        assertFalse(filter.checkAndHold(event));
+    }
+
+    @Test
+    @DisplayName("should drop the repeat of an event whose create committed")
+    void shouldDropRepeatAfterCommittedCreate() {
+        CreateEngagementDTO event = view(UUID.randomUUID(), UUID.randomUUID());
+
+        assertFalse(filter.checkAndHold(event));
+        filter.onCreated(new EngagementCreatedEvent(event.toEntity(), event));
+        filter.release(event);
+
+        assertTrue(filter.checkAndHold(event));
+    }
+
+    @Test
+    @DisplayName("should drop a batch copy of an event that is being created")
+    void shouldDropBatchCopyOfHeldEvent() {
+        CreateEngagementDTO event = view(UUID.randomUUID(), UUID.randomUUID());
+        assertFalse(filter.checkAndHold(event));
+
+        EngagementDuplicateFilter.BatchCheck check = filter.checkAndRememberBatch(List.of(event), unique -> true);
+
+        assertTrue(check.unique().isEmpty());
+    }
+}
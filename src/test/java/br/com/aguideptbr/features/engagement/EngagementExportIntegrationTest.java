@@ -0,0 +1,217 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import javax.sql.DataSource;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.aguideptbr.features.content.ContentRecordModel;
+import br.com.aguideptbr.features.content.ContentType;
+import br.com.aguideptbr.features.user.UserModel;
+import br.com.aguideptbr.features.user.UserRole;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Integration test for EngagementExportJob.
+ *
+ * The job reads through its own connection, so the rows are committed and
+ * removed again after each test. Assertions only look at this test's rows,
+ * since other rows of the database may be exported too.
+ */
+@QuarkusTest
+class EngagementExportIntegrationTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.now().minusDays(3);
+    private static final LocalDate SECOND_DAY = LocalDate.now().minusDays(2);
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    EntityManager entityManager;
+
+    @TempDir
+    Path directory;
+
+    private UUID userId;
+    private UUID contentId;
+    private final List<UUID> engagementIds = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            UserModel user = new UserModel();
+            user.name = "Export";
+            user.surname = "Test";
+            user.email = "export-test-" + UUID.randomUUID() + "@example.com";
+            user.passwordHash = "$2a$10$validhash";
+            user.role = UserRole.FREE;
+            user.persist();
+            userId = user.id;
+
+            ContentRecordModel content = new ContentRecordModel();
+            content.title = "Export Test " + System.currentTimeMillis();
+            content.videoUrl = "https://test.example.com/export/" + UUID.randomUUID();
+            content.channelId = "UC-export-test";
+            content.channelName = "Export Test Channel";
+            content.type = ContentType.VIDEO;
+            content.persist();
+            contentId = content.id;
+            entityManager.flush();
+
+            engagementIds.add(insertView(FIRST_DAY.atTime(10, 0)));
+            engagementIds.add(insertView(SECOND_DAY.atTime(9, 0)));
+            engagementIds.add(insertView(SECOND_DAY.atTime(18, 0)));
+
+            // Start right before the test rows instead of at the oldest row of the database
+            entityManager.createNativeQuery("""
+                    INSERT INTO engagement_rollup_watermark (job_name, watermark, updated_at)
+                    VALUES (:job, :watermark, CURRENT_TIMESTAMP)
+                    ON CONFLICT (job_name)
+                    DO UPDATE SET watermark = EXCLUDED.watermark, updated_at = EXCLUDED.updated_at
+                    """)
+                    .setParameter("job", EngagementExportJob.JOB_NAME)
+                    .setParameter("watermark", FIRST_DAY.atStartOfDay())
+                    .executeUpdate();
+        });
+    }
+
+    @AfterEach
+    void cleanup() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            entityManager.createNativeQuery("DELETE FROM content_engagement_log WHERE user_id = :userId")
+                    .setParameter("userId", userId)
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM engagement_rollup_watermark WHERE job_name = :job")
+                    .setParameter("job", EngagementExportJob.JOB_NAME)
+                    .executeUpdate();
+            ContentRecordModel.deleteById(contentId);
+            UserModel.deleteById(userId);
+        });
+        engagementIds.clear();
+    }
+
+    @Test
+    void testExport_ShouldWriteOnePartitionPerUpdatedDay() throws IOException {
+        job(Duration.ofDays(1)).export();
+
+        assertEquals(List.of(engagementIds.get(0)), exportedIds(partition(FIRST_DAY)));
+        assertEquals(Set.of(engagementIds.get(1), engagementIds.get(2)),
+                Set.copyOf(exportedIds(partition(SECOND_DAY))));
+        try (Stream<Path> files = Files.list(partition(SECOND_DAY))) {
+            assertTrue(files.allMatch(file -> file.getFileName().toString()
+                    .matches("part-\\d{8}T\\d{6}-\\d{8}T\\d{6}\\.csv\\.gz")));
+        }
+    }
+
+    @Test
+    void testExport_ShouldAdvanceWatermarkAndExportChangesOnce() throws IOException {
+        EngagementExportJob job = job(Duration.ofDays(1));
+        job.export();
+        LocalDateTime watermark = readWatermark();
+        assertTrue(watermark.isAfter(LocalDateTime.now().minusDays(1).minusMinutes(1)),
+                "Watermark should reach the cutoff, got " + watermark);
+
+        // Nothing new for these rows: a second run must not export them again
+        job.export();
+        assertEquals(3, exportedIds(directory).size());
+
+        // A change (soft delete) is exported once more, as a new version
+        UUID changed = engagementIds.get(0);
+        QuarkusTransaction.requiringNew().run(() -> entityManager.createNativeQuery("""
+                UPDATE content_engagement_log
+                SET engagement_status = 'REMOVED', updated_at = :now
+                WHERE id = :id
+                """)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", changed)
+                .executeUpdate());
+        job(Duration.ZERO).export();
+        job(Duration.ZERO).export();
+
+        assertEquals(List.of(changed), exportedIds(partition(LocalDate.now())));
+        assertEquals(4, exportedIds(directory).size());
+    }
+
+    private EngagementExportJob job(Duration lag) {
+        return new EngagementExportJob(Logger.getLogger(EngagementExportJob.class), dataSource, true,
+                directory.toString(), 100, lag);
+    }
+
+    private Path partition(LocalDate day) {
+        return directory.resolve("updated_date=" + day);
+    }
+
+    /**
+     * IDs of this test's rows in every file under {@code root}.
+     */
+    private List<UUID> exportedIds(Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(file -> file.getFileName().toString().endsWith(".csv.gz")).sorted().toList();
+        }
+        List<UUID> ids = new ArrayList<>();
+        for (Path file : files) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                assertTrue(reader.readLine().startsWith("id,user_id,content_id,"));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] columns = line.split(",", -1);
+                    if (columns[1].equals(userId.toString())) {
+                        ids.add(UUID.fromString(columns[0]));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private LocalDateTime readWatermark() {
+        Object value = QuarkusTransaction.requiringNew().call(() -> entityManager.createNativeQuery(
+                "SELECT watermark FROM engagement_rollup_watermark WHERE job_name = :job")
+                .setParameter("job", EngagementExportJob.JOB_NAME)
+                .getSingleResult());
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private UUID insertView(LocalDateTime updatedAt) {
+        return (UUID) entityManager.createNativeQuery("""
+                INSERT INTO content_engagement_log (
+                    user_id, content_id, engagement_type, engagement_status, engaged_at, updated_at)
+                VALUES (:userId, :contentId, 'VIEW', 'ACTIVE', :engagedAt, :updatedAt)
+                RETURNING id
+                """)
+                .setParameter("userId", userId)
+                .setParameter("contentId", contentId)
+                .setParameter("engagedAt", updatedAt.minusMinutes(5))
+                .setParameter("updatedAt", updatedAt)
+                .getSingleResult();
+    }
+}
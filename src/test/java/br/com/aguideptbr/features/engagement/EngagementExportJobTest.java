@@ -0,0 +1,39 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class EngagementExportJobTest {
+
+    @Test
+    void writesPlainValuesUnquoted() throws IOException {
+        assertEquals("42", csv(42));
+        assertEquals("Android", csv("Android"));
+        assertEquals("", csv(null));
+    }
+
+    @Test
+    void quotesValuesWithSeparatorsQuotesOrNewlines() throws IOException {
+        assertEquals("\"Mozilla/5.0 (X11, Linux)\"", csv("Mozilla/5.0 (X11, Linux)"));
+        assertEquals("\"say \"\"hi\"\"\"", csv("say \"hi\""));
+        assertEquals("\"a\nb\"", csv("a\nb"));
+    }
+
+    @Test
+    void writesTimestampsAsIsoLocalDateTime() throws IOException {
+        Timestamp ts = Timestamp.valueOf(LocalDateTime.of(2026, 10, 18, 14, 5, 9));
+        assertEquals("2026-10-18T14:05:09", csv(ts));
+    }
+
+    private static String csv(Object value) throws IOException {
+        StringWriter writer = new StringWriter();
+        EngagementExportJob.writeCsvValue(writer, value);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import br.com.aguideptbr.features.engagement.dto.CreateEngagementDTO;
+
+/**
+ * Unit tests for EngagementIngestionQueue.
+ *
+ * Tests all-or-nothing backpressure, batched draining and retry/dead-letter
+ * of failing batches.
+ * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
+ */
+class EngagementIngestionQueueTest {
+
+    private static final int CAPACITY = 10;
+    private static final int BATCH_SIZE = 4;
+    private static final int MAX_ATTEMPTS = 2;
+
+    private EngagementBatchWriter batchWriter;
+    private EngagementIngestionQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        batchWriter = Mockito.mock(EngagementBatchWriter.class);
+        Logger log = Mockito.mock(Logger.class);
+        queue = new EngagementIngestionQueue(log, batchWriter, CAPACITY, BATCH_SIZE, MAX_ATTEMPTS);
+    }
+
+    private static List<CreateEngagementDTO> events(int count) {
+        List<CreateEngagementDTO> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new CreateEngagementDTO(UUID.randomUUID(), UUID.randomUUID(), EngagementType.VIEW));
+        }
+        return events;
+    }
+
+    // ---------------------------------------------------------------------------
+    // offerAll
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("offerAll()")
+    class OfferAll {
+
+        @Test
+        @DisplayName("should accept events while there is capacity")
+        void shouldAcceptWithinCapacity() {
+            assertTrue(queue.offerAll(events(6)));
+            assertTrue(queue.offerAll(events(4)));
+
+            assertEquals(CAPACITY, queue.depth());
+        }
+
+        @Test
+        @DisplayName("should reject the whole batch when it does not fit")
+        void shouldRejectWholeBatchWhenFull() {
+            queue.offerAll(events(8));
+
+            assertFalse(queue.offerAll(events(3)));
+            assertEquals(8, queue.depth());
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // flush
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("flush()")
+    class Flush {
+
+        @Test
+        @DisplayName("should drain the queue in batches of the configured size")
+        void shouldDrainInBatches() {
+            when(batchWriter.write(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+            queue.offerAll(events(10));
+
+            int inserted = queue.flush();
+
+            assertEquals(10, inserted);
+            assertEquals(0, queue.depth());
+            verify(batchWriter, times(3)).write(anyList());
+        }
+
+        @Test
+        @DisplayName("should not call the writer when the queue is empty")
+        void shouldSkipWhenEmpty() {
+            assertEquals(0, queue.flush());
+            verify(batchWriter, never()).write(anyList());
+        }
+
+        @Test
+        @DisplayName("should keep a failing batch and retry it before draining more")
+        void shouldRetryFailedBatch() {
+            when(batchWriter.write(anyList()))
+                    .thenThrow(new RuntimeException("db down"))
+                    .thenReturn(4, 4, 2);
+            queue.offerAll(events(10));
+
+            assertEquals(0, queue.flush());
+            assertEquals(10, queue.depth());
+
+            assertEquals(10, queue.flush());
+            assertEquals(0, queue.depth());
+            verify(batchWriter, times(4)).write(anyList());
+        }
+
+        @Test
+        @DisplayName("should dead-letter only the events that still fail after the last attempt")
+        void shouldDeadLetterAfterMaxAttempts() {
+            List<CreateEngagementDTO> events = events(4);
+            CreateEngagementDTO poison = events.get(1);
+            when(batchWriter.write(anyList())).thenAnswer(inv -> {
+                List<?> batch = inv.getArgument(0);
+                if (batch.contains(poison)) {
+                    throw new RuntimeException("value too long");
+                }
+                return batch.size();
+            });
+            queue.offerAll(events);
+
+            assertEquals(0, queue.flush());
+            assertEquals(0, queue.flush());
+            assertEquals(3, queue.flush());
+
+            assertEquals(0, queue.depth());
+            verify(batchWriter).deadLetter(eq(poison), any(RuntimeException.class));
+        }
+
+        @Test
+        @DisplayName("should keep events when dead-lettering fails too")
+        void shouldKeepEventsWhenDeadLetterFails() {
+            when(batchWriter.write(anyList())).thenThrow(new RuntimeException("db down"));
+            Mockito.doThrow(new RuntimeException("db down")).when(batchWriter).deadLetter(any(), any());
+            queue.offerAll(events(3));
+
+            queue.flush();
+            queue.flush();
+            queue.flush();
+
+            assertEquals(3, queue.depth());
+        }
+    }
+}
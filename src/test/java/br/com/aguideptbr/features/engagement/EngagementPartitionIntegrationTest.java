@@ -0,0 +1,142 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import br.com.aguideptbr.features.content.ContentRecordModel;
+import br.com.aguideptbr.features.content.ContentType;
+import br.com.aguideptbr.features.user.UserModel;
+import br.com.aguideptbr.features.user.UserRole;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Integration test for the monthly partitions of content_engagement_log
+ * (V1.0.28).
+ *
+ * Each test runs in a rolled back transaction, so the partitions created or
+ * detached here (DDL is transactional in PostgreSQL) do not leak.
+ */
+@QuarkusTest
+class EngagementPartitionIntegrationTest {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final LocalDate OLD_MONTH = LocalDate.of(2001, 1, 1);
+
+    @Inject
+    EngagementPartitionJob partitionJob;
+
+    @Inject
+    EngagementRollupRepository rollupRepository;
+
+    @Inject
+    ContentEngagementRepository engagementRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    private UUID userId;
+    private UUID contentId;
+
+    @Test
+    @TestTransaction
+    void testMaintain_ShouldCreateCurrentAndUpcomingPartitions() {
+        partitionJob.maintain();
+
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= 3; i++) {
+            assertNotNull(regclass("content_engagement_log_" + month.plusMonths(i).format(PARTITION_SUFFIX)),
+                    "Missing partition for " + month.plusMonths(i));
+        }
+    }
+
+    @Test
+    @TestTransaction
+    void testMaintain_ShouldArchiveExpiredPartitionAndKeepItInRollups() {
+        newUserAndContent();
+        String partition = "content_engagement_log_" + OLD_MONTH.format(PARTITION_SUFFIX);
+        String archive = "content_engagement_log_archive_" + OLD_MONTH.format(PARTITION_SUFFIX);
+        entityManager.createNativeQuery("DROP TABLE IF EXISTS " + archive).executeUpdate();
+        entityManager.createNativeQuery("SELECT engagement_create_month_partition(:month)")
+                .setParameter("month", OLD_MONTH)
+                .getSingleResult();
+        insertView(OLD_MONTH.atTime(10, 0));
+        insertView(OLD_MONTH.atTime(11, 0));
+
+        partitionJob.maintain();
+
+        assertNull(regclass(partition));
+        assertNotNull(regclass(archive));
+
+        // Nova view no mês corrente: o recálculo soma o histórico arquivado
+        LocalDateTime now = LocalDateTime.now();
+        insertView(now);
+        rollupRepository.refreshUserContent(now.minusHours(1), now.plusHours(1));
+
+        Object[] rollup = (Object[]) entityManager.createNativeQuery("""
+                SELECT total_interactions, total_views, last_engaged_at
+                FROM user_content_engagement
+                WHERE user_id = :userId AND content_id = :contentId
+                """)
+                .setParameter("userId", userId)
+                .setParameter("contentId", contentId)
+                .getSingleResult();
+        assertEquals(3L, ((Number) rollup[0]).longValue());
+        assertEquals(3L, ((Number) rollup[1]).longValue());
+
+        List<Object[]> views = engagementRepository.countViewsByUserAndContent(Set.of(userId), Set.of(contentId));
+        assertEquals(1, views.size());
+        assertEquals(3L, ((Number) views.get(0)[2]).longValue());
+    }
+
+    private void newUserAndContent() {
+        UserModel user = new UserModel();
+        user.name = "Partition";
+        user.surname = "Test";
+        user.email = "partition-test-" + UUID.randomUUID() + "@example.com";
+        user.passwordHash = "$2a$10$validhash";
+        user.role = UserRole.FREE;
+        user.persist();
+        userId = user.id;
+
+        ContentRecordModel content = new ContentRecordModel();
+        content.title = "Partition Test " + System.currentTimeMillis();
+        content.videoUrl = "https://test.example.com/partition/" + UUID.randomUUID();
+        content.channelId = "UC-partition-test";
+        content.channelName = "Partition Test Channel";
+        content.type = ContentType.VIDEO;
+        content.persist();
+        contentId = content.id;
+        entityManager.flush();
+    }
+
+    private void insertView(LocalDateTime engagedAt) {
+        entityManager.createNativeQuery("""
+                INSERT INTO content_engagement_log (
+                    user_id, content_id, engagement_type, engagement_status, engaged_at, updated_at)
+                VALUES (:userId, :contentId, 'VIEW', 'ACTIVE', :engagedAt, :engagedAt)
+                """)
+                .setParameter("userId", userId)
+                .setParameter("contentId", contentId)
+                .setParameter("engagedAt", engagedAt)
+                .executeUpdate();
+    }
+
+    private Object regclass(String table) {
+        return entityManager.createNativeQuery("SELECT CAST(to_regclass(:table) AS TEXT)")
+                .setParameter("table", table)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * Unit tests for EngagementPartitionJob.
+ *
+ * Tests the calls to the partition maintenance functions (V1.0.28).
+ * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
+ */
+class EngagementPartitionJobTest {
+
+    private static final String ENSURE = "SELECT engagement_ensure_partitions(:monthsAhead)";
+    private static final String ARCHIVE = "SELECT engagement_archive_partitions(:retentionMonths)";
+
+    private EntityManager entityManager;
+    private Query ensureQuery;
+    private Query archiveQuery;
+    private Query locatorQuery;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = Mockito.mock(EntityManager.class);
+        ensureQuery = query(ENSURE, 1);
+        archiveQuery = query(ARCHIVE, 2);
+        locatorQuery = Mockito.mock(Query.class);
+        when(entityManager.createNativeQuery(contains("DELETE FROM content_engagement_locator")))
+                .thenReturn(locatorQuery);
+        when(locatorQuery.setParameter(anyString(), Mockito.any())).thenReturn(locatorQuery);
+    }
+
+    private Query query(String sql, int result) {
+        Query query = Mockito.mock(Query.class);
+        when(entityManager.createNativeQuery(sql)).thenReturn(query);
+        when(query.setParameter(anyString(), Mockito.any())).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(result);
+        return query;
+    }
+
+    private EngagementPartitionJob job(int retentionMonths) {
+        return new EngagementPartitionJob(Mockito.mock(Logger.class), entityManager, 3, retentionMonths);
+    }
+
+    @Test
+    @DisplayName("should create upcoming partitions and archive the expired ones")
+    void shouldEnsureAndArchivePartitions() {
+        job(24).maintain();
+
+        verify(ensureQuery).setParameter("monthsAhead", 3);
+        verify(ensureQuery).getSingleResult();
+        verify(archiveQuery).setParameter("retentionMonths", 24);
+        verify(archiveQuery).getSingleResult();
+        verify(locatorQuery).setParameter("retentionMonths", 24);
+        verify(locatorQuery).executeUpdate();
+    }
+
+    @Test
+    @DisplayName("should keep locator entries when no partition was archived")
+    void shouldNotCleanLocatorWithoutArchive() {
+        when(archiveQuery.getSingleResult()).thenReturn(0);
+
+        job(24).maintain();
+
+        verify(locatorQuery, never()).executeUpdate();
+    }
+
+    @Test
+    @DisplayName("should only create partitions when retention is 0")
+    void shouldNotArchiveWithoutRetention() {
+        job(0).maintain();
+
+        verify(ensureQuery).getSingleResult();
+        verify(entityManager, never()).createNativeQuery(ARCHIVE);
+    }
+
+    @Test
+    @DisplayName("should not fail startup when maintenance fails")
+    void shouldSwallowFailureAtStartup() {
+        when(ensureQuery.getSingleResult()).thenThrow(new RuntimeException("db down"));
+
+        job(24).onStart(null);
+
+        verify(entityManager, never()).createNativeQuery(ARCHIVE);
+    }
+}
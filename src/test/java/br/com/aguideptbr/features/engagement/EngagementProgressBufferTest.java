@@ -0,0 +1,156 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for EngagementProgressBuffer.
+ *
+ * Tests coalescing of heartbeats, milestone flushes and merge on session end.
+ * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
+ */
+class EngagementProgressBufferTest {
+
+    private EngagementBatchWriter batchWriter;
+    private EngagementProgressBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        batchWriter = Mockito.mock(EngagementBatchWriter.class);
+        Logger log = Mockito.mock(Logger.class);
+        buffer = new EngagementProgressBuffer(log, batchWriter, Duration.ofMinutes(5));
+        when(batchWriter.writeProgress(anyMap())).thenAnswer(inv -> ((Map<?, ?>) inv.getArgument(0)).size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<UUID, EngagementProgressBuffer.PendingProgress> lastWritten(int invocations) {
+        ArgumentCaptor<Map<UUID, EngagementProgressBuffer.PendingProgress>> captor = ArgumentCaptor
+                .forClass(Map.class);
+        verify(batchWriter, times(invocations)).writeProgress(captor.capture());
+        return captor.getValue();
+    }
+
+    // ---------------------------------------------------------------------------
+    // record
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("record()")
+    class Record {
+
+        @Test
+        @DisplayName("should keep only the latest progress and write it once on flush")
+        void shouldCoalesceHeartbeats() {
+            UUID id = UUID.randomUUID();
+            buffer.track(id, null, null, null, 0);
+
+            buffer.record(id, 5, 2);
+            buffer.record(id, 10, 4);
+            buffer.record(id, 15, 6);
+
+            verify(batchWriter, never()).writeProgress(anyMap());
+
+            assertEquals(1, buffer.flushAll());
+            EngagementProgressBuffer.PendingProgress written = lastWritten(1).get(id);
+            assertEquals(15, written.getViewDurationSeconds());
+            assertEquals(6, written.getCompletionPercentage());
+        }
+
+        @Test
+        @DisplayName("should write immediately when completion crosses a milestone")
+        void shouldFlushOnMilestone() {
+            UUID id = UUID.randomUUID();
+            buffer.track(id, null, null, null, 20);
+
+            assertFalse(buffer.record(id, 100, 24));
+            assertTrue(buffer.record(id, 110, 26));
+
+            assertEquals(26, lastWritten(1).get(id).getCompletionPercentage());
+        }
+
+        @Test
+        @DisplayName("should not write again when nothing changed since the last flush")
+        void shouldSkipCleanEntries() {
+            UUID id = UUID.randomUUID();
+            buffer.track(id, null, null, null, 0);
+            buffer.record(id, 5, 2);
+
+            buffer.flushAll();
+            assertEquals(0, buffer.flushAll());
+
+            verify(batchWriter, times(1)).writeProgress(anyMap());
+        }
+
+        @Test
+        @DisplayName("should carry engaged_at to the write so the UPDATE is pruned")
+        void shouldCarryPartitionKey() {
+            UUID id = UUID.randomUUID();
+            LocalDateTime engagedAt = LocalDateTime.of(2026, 10, 18, 9, 30);
+            buffer.track(id, null, engagedAt, null, 0);
+            buffer.record(id, 5, 2);
+
+            buffer.flushAll();
+
+            assertEquals(engagedAt, lastWritten(1).get(id).getEngagedAt());
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // take / failures
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("take() and failures")
+    class TakeAndFailures {
+
+        @Test
+        @DisplayName("should hand unwritten progress to a synchronous update and stop tracking it")
+        void shouldReturnPendingProgress() {
+            UUID id = UUID.randomUUID();
+            buffer.track(id, null, null, null, 0);
+            buffer.record(id, 42, 10);
+
+            EngagementProgressBuffer.PendingProgress taken = buffer.take(id);
+
+            assertNotNull(taken);
+            assertEquals(42, taken.getViewDurationSeconds());
+            assertFalse(buffer.isTracked(id));
+            assertNull(buffer.take(id));
+        }
+
+        @Test
+        @DisplayName("should keep progress pending when the write fails")
+        void shouldRetryAfterFailure() {
+            UUID id = UUID.randomUUID();
+            buffer.track(id, null, null, null, 0);
+            buffer.record(id, 5, 2);
+            when(batchWriter.writeProgress(anyMap()))
+                    .thenThrow(new RuntimeException("db down"))
+                    .thenReturn(1);
+
+            assertEquals(0, buffer.flushAll());
+            assertEquals(1, buffer.flushAll());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for EngagementRollupJob.
+ *
+ * Tests the watermark window handling of the delta job.
+ * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
+ */
+class EngagementRollupJobTest {
+
+    private EngagementRollupRepository rollupRepository;
+    private EngagementRollupJob job;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = Mockito.mock(EngagementRollupRepository.class);
+        Logger log = Mockito.mock(Logger.class);
+        job = new EngagementRollupJob(log, rollupRepository, Duration.ofSeconds(30));
+    }
+
+    @Test
+    @DisplayName("should refresh the window (watermark, now - lag] and advance the watermark")
+    void shouldRefreshWindowAndAdvanceWatermark() {
+        LocalDateTime watermark = LocalDateTime.now().minusMinutes(5);
+        when(rollupRepository.lockWatermark(EngagementRollupJob.JOB_NAME)).thenReturn(watermark);
+
+        job.refresh();
+
+        ArgumentCaptor<LocalDateTime> to = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(rollupRepository).refreshContentDaily(eq(watermark), to.capture());
+        verify(rollupRepository).refreshUserContent(watermark, to.getValue());
+        verify(rollupRepository).refreshUserSummary(watermark, to.getValue());
+        verify(rollupRepository).saveWatermark(EngagementRollupJob.JOB_NAME, to.getValue());
+        assertTrue(to.getValue().isBefore(LocalDateTime.now().minusSeconds(29)));
+    }
+
+    @Test
+    @DisplayName("should do nothing when the watermark is already within the safety lag")
+    void shouldSkipWhenWatermarkIsRecent() {
+        when(rollupRepository.lockWatermark(EngagementRollupJob.JOB_NAME)).thenReturn(LocalDateTime.now());
+
+        job.refresh();
+
+        verify(rollupRepository, never()).refreshContentDaily(any(), any());
+        verify(rollupRepository, never()).saveWatermark(any(), any());
+    }
+}
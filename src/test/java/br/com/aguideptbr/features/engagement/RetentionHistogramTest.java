@@ -0,0 +1,83 @@
+package br.com.aguideptbr.features.engagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the retention histogram bucket layout.
+ */
+class RetentionHistogramTest {
+
+    @Nested
+    @DisplayName("durationBucket")
+    class DurationBucket {
+
+        @Test
+        @DisplayName("should keep short durations exact")
+        void shouldBeExactBelowLinearLimit() {
+            for (int seconds = 0; seconds < 32; seconds++) {
+                assertEquals(seconds, RetentionHistogram.durationBucket(seconds));
+                assertEquals(seconds, RetentionHistogram.durationUpperBound(seconds));
+            }
+        }
+
+        @Test
+        @DisplayName("should bound every duration within 1/16 of its value")
+        void shouldBoundRelativeError() {
+            int previous = -1;
+            for (int seconds = 32; seconds < 200_000; seconds += 7) {
+                int bucket = RetentionHistogram.durationBucket(seconds);
+                int upper = RetentionHistogram.durationUpperBound(bucket);
+
+                assertTrue(bucket >= previous, "buckets must be monotonic");
+                assertTrue(upper >= seconds && upper - seconds <= seconds / 16, "seconds=" + seconds);
+                previous = bucket;
+            }
+        }
+
+        @Test
+        @DisplayName("should fit the largest int in the last bucket")
+        void shouldFitMaxValue() {
+            assertEquals(RetentionHistogram.DURATION_BUCKETS - 1, RetentionHistogram.durationBucket(Integer.MAX_VALUE));
+            assertEquals(Integer.MAX_VALUE,
+                    RetentionHistogram.durationUpperBound(RetentionHistogram.DURATION_BUCKETS - 1));
+        }
+    }
+
+    @Nested
+    @DisplayName("percentileBucket")
+    class PercentileBucket {
+
+        @Test
+        @DisplayName("should compute completion percentiles from counts")
+        void shouldComputePercentiles() {
+            long[] counts = new long[RetentionHistogram.SIZE];
+            for (int completion = 1; completion <= 100; completion++) {
+                RetentionHistogram.add(counts, null, completion, 1);
+            }
+
+            assertEquals(25, RetentionHistogram.percentileBucket(counts, 0, RetentionHistogram.COMPLETION_BUCKETS, 0.25));
+            assertEquals(50, RetentionHistogram.percentileBucket(counts, 0, RetentionHistogram.COMPLETION_BUCKETS, 0.50));
+            assertEquals(90, RetentionHistogram.percentileBucket(counts, 0, RetentionHistogram.COMPLETION_BUCKETS, 0.90));
+        }
+
+        @Test
+        @DisplayName("should apply removals and ignore negative counters")
+        void shouldHandleRemovals() {
+            long[] counts = new long[RetentionHistogram.SIZE];
+            RetentionHistogram.add(counts, 120, 40, 1);
+            RetentionHistogram.add(counts, 120, 40, -1);
+            RetentionHistogram.add(counts, 600, 80, 1);
+            RetentionHistogram.add(counts, null, 10, -1);
+
+            assertEquals(1, RetentionHistogram.total(counts, 0, RetentionHistogram.COMPLETION_BUCKETS));
+            assertEquals(80, RetentionHistogram.percentileBucket(counts, 0, RetentionHistogram.COMPLETION_BUCKETS, 0.5));
+            assertEquals(-1, RetentionHistogram.percentileBucket(new long[RetentionHistogram.SIZE], 0,
+                    RetentionHistogram.COMPLETION_BUCKETS, 0.5));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Unit tests for ConversationCursor encoding.
+ */
+class ConversationCursorTest {
+
+    @Test
+    @DisplayName("should round-trip pinned, lastActivityAt and id through the opaque string")
+    void shouldRoundTrip() {
+        LocalDateTime lastActivityAt = LocalDateTime.of(2026, 10, 18, 9, 15, 0, 987654000);
+        UUID id = UUID.randomUUID();
+
+        String encoded = new ConversationCursor(true, lastActivityAt, id).encode();
+        ConversationCursor decoded = ConversationCursor.decode(encoded);
+
+        assertTrue(decoded.isPinned());
+        assertEquals(lastActivityAt, decoded.getLastActivityAt());
+        assertEquals(id, decoded.getConversationId());
+    }
+
+    @Test
+    @DisplayName("should treat an empty cursor as the first page")
+    void shouldReturnNullForBlank() {
+        assertNull(ConversationCursor.decode(""));
+    }
+
+    @Test
+    @DisplayName("should reject a malformed cursor with 400")
+    void shouldRejectMalformedCursor() {
+        BadRequestException ex = assertThrows(BadRequestException.class,
+                () -> ConversationCursor.decode("not-a-cursor"));
+
+        assertEquals(400, ex.getResponse().getStatus());
+    }
+}
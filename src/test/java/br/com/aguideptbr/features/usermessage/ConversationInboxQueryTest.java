@@ -0,0 +1,115 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.aguideptbr.features.user.UserModel;
+import br.com.aguideptbr.features.user.UserRole;
+import br.com.aguideptbr.features.usermessage.ConversationRepository.InboxFilter;
+import br.com.aguideptbr.features.usermessage.dto.ConversationSummaryDTO;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+/**
+ * Integration test for the inbox query.
+ *
+ * Uses Hibernate statistics (quarkus.hibernate-orm.statistics=true in test
+ * properties) to guard against one query per conversation.
+ */
+@QuarkusTest
+class ConversationInboxQueryTest {
+
+    private static final int CONVERSATIONS = 20;
+    private static final String EMAIL_PATTERN = "inbox-test-%@example.com";
+
+    @Inject
+    ConversationService conversationService;
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    private UserModel owner;
+
+    @BeforeEach
+    @Transactional
+    void setup() {
+        entityManager.createNativeQuery("""
+                DELETE FROM app_conversation WHERE id IN (
+                    SELECT p.conversation_id FROM app_conversation_participant p
+                    JOIN app_user u ON u.id = p.user_id
+                    WHERE u.email LIKE :pattern)
+                """)
+                .setParameter("pattern", EMAIL_PATTERN)
+                .executeUpdate();
+        UserModel.delete("email like ?1", EMAIL_PATTERN);
+
+        owner = newUser("owner");
+        for (int i = 0; i < CONVERSATIONS; i++) {
+            UserModel other = newUser("other" + i);
+
+            ConversationModel conversation = new ConversationModel();
+            conversation.conversationType = ConversationType.DIRECT;
+            conversation.lastMessageAt = LocalDateTime.now().minusMinutes(i);
+            conversation.persist();
+            newParticipant(conversation, owner);
+            newParticipant(conversation, other);
+
+            UserMessageModel message = new UserMessageModel();
+            message.conversation = conversation;
+            message.sender = other;
+            message.txtContent = "Mensagem " + i;
+            message.messageType = MessageType.TEXT;
+            message.sentAt = conversation.lastMessageAt;
+            message.persist();
+        }
+    }
+
+    @Test
+    @Transactional
+    void testGetUserConversationPage_ShouldNotIssueQueryPerConversation() {
+        entityManager.clear();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        List<ConversationSummaryDTO> inbox = conversationService
+                .getUserConversationPage(owner.id, new InboxFilter(false, false, null, null), null, 50)
+                .getConversations();
+
+        assertEquals(CONVERSATIONS, inbox.size());
+        assertEquals("Mensagem 0", inbox.get(0).getLastMessagePreview());
+        assertEquals("Inbox other0", inbox.get(0).getDisplayName());
+        assertTrue(statistics.getPrepareStatementCount() <= 1,
+                "Expected 1 statement, got " + statistics.getPrepareStatementCount());
+    }
+
+    private static UserModel newUser(String suffix) {
+        UserModel user = new UserModel();
+        user.name = "Inbox";
+        user.surname = suffix;
+        user.email = "inbox-test-" + suffix + "@example.com";
+        user.passwordHash = "$2a$10$validhash";
+        user.role = UserRole.FREE;
+        user.persist();
+        return user;
+    }
+
+    private static void newParticipant(ConversationModel conversation, UserModel user) {
+        ConversationParticipantModel participant = new ConversationParticipantModel();
+        participant.conversation = conversation;
+        participant.user = user;
+        participant.persist();
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for ConversationMembershipCache.
+ *
+ * Tests role lookups over the packed member arrays, lazy loading (one query
+ * per conversation) and invalidation.
+ */
+class ConversationMembershipCacheTest {
+
+    private ConversationParticipantRepository participantRepository;
+    private ConversationMembershipCache cache;
+    private UUID conversationId;
+    private UUID creatorId;
+    private UUID adminId;
+    private UUID memberId;
+
+    @BeforeEach
+    void setUp() {
+        participantRepository = Mockito.mock(ConversationParticipantRepository.class);
+        cache = new ConversationMembershipCache(participantRepository, 100);
+
+        conversationId = UUID.randomUUID();
+        creatorId = UUID.randomUUID();
+        adminId = UUID.randomUUID();
+        memberId = UUID.randomUUID();
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { memberId, false, false });
+        rows.add(new Object[] { creatorId, true, true });
+        rows.add(new Object[] { adminId, true, false });
+        when(participantRepository.findActiveMemberRoles(conversationId)).thenReturn(rows);
+    }
+
+    @Test
+    @DisplayName("Should resolve participant and role bits for each member")
+    void shouldResolveRoles() {
+        assertTrue(cache.isParticipant(memberId, conversationId));
+        assertFalse(cache.isAdmin(memberId, conversationId));
+        assertFalse(cache.isAdminOrCreator(memberId, conversationId));
+
+        assertTrue(cache.isAdmin(adminId, conversationId));
+        assertFalse(cache.isCreator(adminId, conversationId));
+
+        assertTrue(cache.isCreator(creatorId, conversationId));
+        assertTrue(cache.isAdminOrCreator(creatorId, conversationId));
+
+        assertFalse(cache.isParticipant(UUID.randomUUID(), conversationId));
+    }
+
+    @Test
+    @DisplayName("Should find every member among many (binary search)")
+    void shouldFindEveryMemberAmongMany() {
+        UUID groupId = UUID.randomUUID();
+        List<Object[]> rows = new ArrayList<>();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            rows.add(new Object[] { id, false, false });
+        }
+        when(participantRepository.findActiveMemberRoles(groupId)).thenReturn(rows);
+
+        for (UUID id : ids) {
+            assertTrue(cache.isParticipant(id, groupId));
+        }
+        assertFalse(cache.isParticipant(UUID.randomUUID(), groupId));
+    }
+
+    @Test
+    @DisplayName("Should load each conversation once until invalidated")
+    void shouldLoadOnceUntilInvalidated() {
+        cache.isParticipant(memberId, conversationId);
+        cache.isAdmin(adminId, conversationId);
+        verify(participantRepository, times(1)).findActiveMemberRoles(conversationId);
+
+        cache.onMembershipChanged(new ConversationMembershipEvent(conversationId));
+        cache.isParticipant(memberId, conversationId);
+        verify(participantRepository, times(2)).findActiveMemberRoles(conversationId);
+    }
+}
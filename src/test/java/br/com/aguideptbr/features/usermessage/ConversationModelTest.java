@@ -0,0 +1,36 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the DIRECT conversation pair key.
+ */
+class ConversationModelTest {
+
+    @Test
+    @DisplayName("should build the same key regardless of argument order")
+    void shouldBeOrderIndependent() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+
+        assertEquals(ConversationModel.directPairKey(a, b), ConversationModel.directPairKey(b, a));
+    }
+
+    @Test
+    @DisplayName("should order ids as text, like uuid::text in PostgreSQL (not UUID.compareTo)")
+    void shouldOrderIdsAsText() {
+        // UUID.compareTo compara longs com sinal e colocaria "f..." antes de "0..."
+        UUID high = UUID.fromString("f0000000-0000-0000-0000-000000000000");
+        UUID low = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+        assertEquals(
+                "00000000-0000-0000-0000-000000000001:f0000000-0000-0000-0000-000000000000",
+                ConversationModel.directPairKey(high, low));
+        assertEquals(73, ConversationModel.directPairKey(high, low).length());
+    }
+}
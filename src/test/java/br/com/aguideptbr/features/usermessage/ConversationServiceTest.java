@@ -6,9 +6,16 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import org.jboss.logging.Logger;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +24,11 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import br.com.aguideptbr.features.usermessage.ConversationRepository.InboxEntry;
+import br.com.aguideptbr.features.usermessage.ConversationRepository.InboxFilter;
+import br.com.aguideptbr.features.usermessage.dto.ConversationPageResponse;
+import br.com.aguideptbr.features.usermessage.dto.ConversationSummaryDTO;
+import jakarta.enterprise.event.Event;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.WebApplicationException;
@@ -24,7 +36,8 @@ import jakarta.ws.rs.WebApplicationException;
 /**
  * Unit tests for ConversationService.
  *
- * Tests mute/clear business rules and block check on conversation creation.
+ * Tests mute/clear business rules, block check on conversation creation and
+ * the number of repository round trips used to build the inbox.
  * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
  */
 class ConversationServiceTest {
@@ -32,7 +45,9 @@ class ConversationServiceTest {
     private ConversationRepository conversationRepository;
     private ConversationParticipantRepository participantRepository;
     private UserMessageRepository messageRepository;
-    private UserBlockRepository blockRepository;
+    private UserBlockGraphCache blockGraph;
+    private ConversationMembershipCache membershipCache;
+    private Event<ConversationMembershipEvent> membershipEvents;
     private ConversationService service;
 
     @BeforeEach
@@ -40,17 +55,26 @@ class ConversationServiceTest {
         conversationRepository = Mockito.mock(ConversationRepository.class);
         participantRepository = Mockito.mock(ConversationParticipantRepository.class);
         messageRepository = Mockito.mock(UserMessageRepository.class);
-        blockRepository = Mockito.mock(UserBlockRepository.class);
+        membershipCache = Mockito.mock(ConversationMembershipCache.class);
+        blockGraph = Mockito.mock(UserBlockGraphCache.class);
+        membershipEvents = mockEvent();
         Logger log = Mockito.mock(Logger.class);
 
         service = new ConversationService(
                 conversationRepository,
                 participantRepository,
                 messageRepository,
-                blockRepository,
+                membershipCache,
+                blockGraph,
+                membershipEvents,
                 log);
     }
 
+    @SuppressWarnings("unchecked")
+    private static Event<ConversationMembershipEvent> mockEvent() {
+        return Mockito.mock(Event.class);
+    }
+
     // ---------------------------------------------------------------------------
     // muteConversation
     // ---------------------------------------------------------------------------
@@ -174,6 +198,17 @@ class ConversationServiceTest {
             assertTrue(result.clearedAt.isBefore(java.time.LocalDateTime.now().plusSeconds(1)));
         }
 
+        @Test
+        @DisplayName("should reset the participant unread counter")
+        void shouldResetUnreadCount() {
+            when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
+            when(participantRepository.findByUserAndConversation(userId, conversationId)).thenReturn(participant);
+
+            service.clearConversation(conversationId, userId);
+
+            verify(participantRepository).resetUnreadCount(userId, conversationId);
+        }
+
         @Test
         @DisplayName("should update clearedAt when clearing again")
         void shouldUpdateClearedAtOnSecondClear() throws InterruptedException {
@@ -221,7 +256,7 @@ class ConversationServiceTest {
             UUID user1Id = UUID.randomUUID();
             UUID user2Id = UUID.randomUUID();
 
-            when(blockRepository.isBlockedInAnyDirection(user1Id, user2Id)).thenReturn(true);
+            when(blockGraph.isBlockedInAnyDirection(user1Id, user2Id)).thenReturn(true);
 
             WebApplicationException exception = assertThrows(
                     WebApplicationException.class,
@@ -230,4 +265,194 @@ class ConversationServiceTest {
             assertEquals(409, exception.getResponse().getStatus());
         }
     }
+
+    // ---------------------------------------------------------------------------
+    // getUserConversationPage - keyset pages
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("getUserConversationPage() - keyset pages")
+    class GetUserConversationPage {
+
+        private final InboxFilter filter = new InboxFilter(false, false, null, null);
+
+        private List<InboxEntry> entries(int count) {
+            LocalDateTime now = LocalDateTime.of(2026, 10, 18, 12, 0);
+            return IntStream.range(0, count)
+                    .mapToObj(i -> {
+                        ConversationSummaryDTO dto = new ConversationSummaryDTO();
+                        dto.setId(UUID.randomUUID());
+                        dto.setType(ConversationType.DIRECT);
+                        return new InboxEntry(dto, new ConversationCursor(false, now.minusMinutes(i), dto.getId()));
+                    })
+                    .toList();
+        }
+
+        @Test
+        @DisplayName("should build a page with a single query regardless of conversation count")
+        void shouldUseSingleQueryPerPage() {
+            UUID userId = UUID.randomUUID();
+            List<InboxEntry> rows = entries(51);
+            when(conversationRepository.findInboxPage(userId, filter, null, 50)).thenReturn(rows);
+
+            ConversationPageResponse result = service.getUserConversationPage(userId, filter, null, 50);
+
+            assertEquals(50, result.getConversations().size());
+            assertTrue(result.isHasMore());
+            assertEquals(rows.get(49).position().encode(), result.getNextCursor());
+            verify(conversationRepository, times(1)).findInboxPage(userId, filter, null, 50);
+            verifyNoMoreInteractions(conversationRepository);
+            verifyNoInteractions(participantRepository, messageRepository, blockGraph);
+        }
+
+        @Test
+        @DisplayName("should end pagination on the last page")
+        void shouldEndOnLastPage() {
+            UUID userId = UUID.randomUUID();
+            ConversationCursor after = new ConversationCursor(true, LocalDateTime.now(), UUID.randomUUID());
+            when(conversationRepository.findInboxPage(userId, filter, after, 50)).thenReturn(entries(3));
+
+            ConversationPageResponse result = service.getUserConversationPage(userId, filter, after, 50);
+
+            assertEquals(3, result.getConversations().size());
+            assertFalse(result.isHasMore());
+            assertNull(result.getNextCursor());
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // getTotalUnreadCount
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("getTotalUnreadCount()")
+    class GetTotalUnreadCount {
+
+        @Test
+        @DisplayName("should sum the materialized counters instead of counting messages")
+        void shouldSumParticipantCounters() {
+            UUID userId = UUID.randomUUID();
+            when(participantRepository.sumUnreadCount(userId)).thenReturn(7L);
+
+            assertEquals(7L, service.getTotalUnreadCount(userId));
+            verifyNoInteractions(messageRepository, conversationRepository);
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // markReadUpTo
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("markReadUpTo()")
+    class MarkReadUpTo {
+
+        private UUID conversationId;
+        private UUID userId;
+        private UUID messageId;
+        private ConversationParticipantModel participant;
+
+        @BeforeEach
+        void setUp() {
+            conversationId = UUID.randomUUID();
+            userId = UUID.randomUUID();
+            messageId = UUID.randomUUID();
+            participant = new ConversationParticipantModel();
+        }
+
+        @Test
+        @DisplayName("should advance the watermark with a single update")
+        void shouldAdvanceWatermark() {
+            when(participantRepository.findByUserAndConversation(userId, conversationId)).thenReturn(participant);
+            when(participantRepository.advanceReadWatermark(userId, conversationId, messageId)).thenReturn(1);
+
+            service.markReadUpTo(conversationId, userId, messageId);
+
+            verify(participantRepository).advanceReadWatermark(userId, conversationId, messageId);
+            verify(participantRepository).refresh(participant);
+            verifyNoInteractions(messageRepository);
+        }
+
+        @Test
+        @DisplayName("should be a no-op when the watermark is already past the message")
+        void shouldIgnoreOlderMessage() {
+            ConversationModel conversation = new ConversationModel();
+            conversation.id = conversationId;
+            UserMessageModel message = new UserMessageModel();
+            message.conversation = conversation;
+
+            when(participantRepository.findByUserAndConversation(userId, conversationId)).thenReturn(participant);
+            when(participantRepository.advanceReadWatermark(userId, conversationId, messageId)).thenReturn(0);
+            when(messageRepository.findById(messageId)).thenReturn(message);
+
+            assertEquals(participant, service.markReadUpTo(conversationId, userId, messageId));
+        }
+
+        @Test
+        @DisplayName("should throw NotFoundException when the message belongs to another conversation")
+        void shouldThrowNotFoundForForeignMessage() {
+            ConversationModel other = new ConversationModel();
+            other.id = UUID.randomUUID();
+            UserMessageModel message = new UserMessageModel();
+            message.conversation = other;
+
+            when(participantRepository.findByUserAndConversation(userId, conversationId)).thenReturn(participant);
+            when(messageRepository.findById(messageId)).thenReturn(message);
+
+            assertThrows(NotFoundException.class, () -> service.markReadUpTo(conversationId, userId, messageId));
+        }
+
+        @Test
+        @DisplayName("should throw ForbiddenException when user is not a participant")
+        void shouldThrowForbiddenWhenNotParticipant() {
+            assertThrows(ForbiddenException.class, () -> service.markReadUpTo(conversationId, userId, messageId));
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // removeParticipant - membership cache
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("removeParticipant() - membership cache")
+    class RemoveParticipant {
+
+        private UUID conversationId;
+        private UUID adminId;
+        private UUID memberId;
+
+        @BeforeEach
+        void setUp() {
+            conversationId = UUID.randomUUID();
+            adminId = UUID.randomUUID();
+            memberId = UUID.randomUUID();
+
+            ConversationModel conversation = new ConversationModel();
+            conversation.id = conversationId;
+            conversation.conversationType = ConversationType.GROUP;
+            when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
+        }
+
+        @Test
+        @DisplayName("Should check roles in the cache and fire a membership event")
+        void shouldUseCacheAndFireEvent() {
+            when(membershipCache.isAdminOrCreator(adminId, conversationId)).thenReturn(true);
+
+            service.removeParticipant(conversationId, memberId, adminId);
+
+            verify(participantRepository).markAsLeft(memberId, conversationId);
+            verify(participantRepository, Mockito.never()).isUserAdmin(adminId, conversationId);
+            verify(membershipEvents).fire(new ConversationMembershipEvent(conversationId));
+        }
+
+        @Test
+        @DisplayName("Should throw ForbiddenException when requester is not admin or creator")
+        void shouldThrowForbiddenWhenNotAdmin() {
+            assertThrows(ForbiddenException.class,
+                    () -> service.removeParticipant(conversationId, memberId, adminId));
+
+            verify(participantRepository, Mockito.never()).markAsLeft(memberId, conversationId);
+            verifyNoInteractions(membershipEvents);
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import br.com.aguideptbr.features.user.UserModel;
+import jakarta.enterprise.event.Event;
+
+/**
+ * Unit tests for MessageBatchWriter.
+ *
+ * Tests that a batch is written with one insert, one last_message_at update
+ * per conversation and one unread increment per (conversation, sender).
+ */
+class MessageBatchWriterTest {
+
+    private UserMessageRepository messageRepository;
+    private ConversationRepository conversationRepository;
+    private ConversationParticipantRepository participantRepository;
+    private Event<MessageEvent> messageEvents;
+    private MessageBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = Mockito.mock(UserMessageRepository.class);
+        conversationRepository = Mockito.mock(ConversationRepository.class);
+        participantRepository = Mockito.mock(ConversationParticipantRepository.class);
+        messageEvents = mockEvent();
+
+        writer = new MessageBatchWriter(
+                messageRepository,
+                conversationRepository,
+                participantRepository,
+                messageEvents,
+                Mockito.mock(Logger.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Event<MessageEvent> mockEvent() {
+        return Mockito.mock(Event.class);
+    }
+
+    private static UserMessageModel message(UUID conversationId, UUID senderId, LocalDateTime sentAt) {
+        UserMessageModel message = new UserMessageModel();
+        message.id = UUID.randomUUID();
+        message.conversation = new ConversationModel();
+        message.conversation.id = conversationId;
+        message.sender = new UserModel();
+        message.sender.id = senderId;
+        message.txtContent = "oi";
+        message.sentAt = sentAt;
+        return message;
+    }
+
+    @Test
+    @DisplayName("Should group conversation and unread updates per batch")
+    void shouldGroupUpdatesPerBatch() {
+        UUID busy = UUID.randomUUID();
+        UUID quiet = UUID.randomUUID();
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        LocalDateTime t0 = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+        List<UserMessageModel> batch = List.of(
+                message(busy, alice, t0),
+                message(busy, bob, t0.plusSeconds(2)),
+                message(busy, alice, t0.plusSeconds(1)),
+                message(quiet, bob, t0));
+
+        writer.write(batch);
+
+        verify(messageRepository).insertBatch(batch);
+        verify(conversationRepository).advanceLastMessageAt(busy, t0.plusSeconds(2));
+        verify(conversationRepository).advanceLastMessageAt(quiet, t0);
+        verify(participantRepository).recordMessagesSent(busy, alice, 2, t0.plusSeconds(2));
+        verify(participantRepository).recordMessagesSent(busy, bob, 1, t0.plusSeconds(2));
+        verify(participantRepository).recordMessagesSent(quiet, bob, 1, t0);
+        verify(messageEvents, times(4)).fire(any(MessageEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should do nothing for an empty batch")
+    void shouldIgnoreEmptyBatch() {
+        writer.write(List.of());
+
+        verify(messageRepository, never()).insertBatch(any());
+        verifyNoInteractions(conversationRepository, participantRepository, messageEvents);
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Unit tests for MessageHistoryCursor encoding.
+ */
+class MessageHistoryCursorTest {
+
+    @Test
+    @DisplayName("should round-trip sentAt and id through the opaque string")
+    void shouldRoundTrip() {
+        LocalDateTime sentAt = LocalDateTime.of(2026, 10, 18, 9, 15, 0, 987654000);
+        UUID id = UUID.randomUUID();
+
+        MessageHistoryCursor decoded = MessageHistoryCursor.decode(new MessageHistoryCursor(sentAt, id).encode());
+
+        assertEquals(sentAt, decoded.getSentAt());
+        assertEquals(id, decoded.getId());
+    }
+
+    @Test
+    @DisplayName("should treat an empty cursor as the newest page")
+    void shouldReturnNullForBlank() {
+        assertNull(MessageHistoryCursor.decode(""));
+    }
+
+    @Test
+    @DisplayName("should reject a malformed cursor with 400")
+    void shouldRejectMalformedCursor() {
+        BadRequestException ex = assertThrows(BadRequestException.class,
+                () -> MessageHistoryCursor.decode("not-a-cursor"));
+
+        assertEquals(400, ex.getResponse().getStatus());
+    }
+}
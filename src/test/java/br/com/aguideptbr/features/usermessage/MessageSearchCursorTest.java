@@ -0,0 +1,60 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Unit tests for MessageSearchCursor encoding.
+ */
+class MessageSearchCursorTest {
+
+    @Test
+    @DisplayName("should round-trip the exact score, id and recency reference through the opaque string")
+    void shouldRoundTrip() {
+        double score = 0.4177216935158 + 0.1 / 3;
+        UUID id = UUID.randomUUID();
+        LocalDateTime newestAt = LocalDateTime.of(2026, 10, 18, 12, 30, 5, 123456000);
+
+        MessageSearchCursor decoded = MessageSearchCursor
+                .decode(new MessageSearchCursor(score, id, newestAt).encode());
+
+        assertEquals(Double.doubleToLongBits(score), Double.doubleToLongBits(decoded.getScore()));
+        assertEquals(id, decoded.getId());
+        assertEquals(newestAt, decoded.getNewestAt());
+    }
+
+    @Test
+    @DisplayName("should treat an empty cursor as the first page")
+    void shouldReturnNullForBlank() {
+        assertNull(MessageSearchCursor.decode(" "));
+    }
+
+    @Test
+    @DisplayName("should reject a malformed cursor with 400")
+    void shouldRejectMalformedCursor() {
+        BadRequestException ex = assertThrows(BadRequestException.class,
+                () -> MessageSearchCursor.decode("not-a-cursor"));
+
+        assertEquals(400, ex.getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("should reject a cursor without the recency reference with 400")
+    void shouldRejectCursorWithoutReference() {
+        String legacy = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("687.41|" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(BadRequestException.class, () -> MessageSearchCursor.decode(legacy));
+    }
+}
@@ -0,0 +1,145 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import br.com.aguideptbr.features.user.UserModel;
+import jakarta.ws.rs.WebApplicationException;
+
+/**
+ * Unit tests for MessageSendPipeline.
+ *
+ * Tests batch assembly (max-batch), completion of each caller's future after
+ * the batch is written, the one-by-one fallback when a batch fails and
+ * backpressure when the queue is full. The writer thread is not started; the
+ * tests drive nextBatch() and flush() directly.
+ */
+class MessageSendPipelineTest {
+
+    private MessageBatchWriter batchWriter;
+    private MessageSendPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        batchWriter = Mockito.mock(MessageBatchWriter.class);
+        pipeline = newPipeline(3, 10);
+    }
+
+    private MessageSendPipeline newPipeline(int maxBatch, int capacity) {
+        return new MessageSendPipeline(
+                Mockito.mock(MessageService.class),
+                batchWriter,
+                Mockito.mock(Logger.class),
+                true,
+                maxBatch,
+                0,
+                capacity,
+                1000);
+    }
+
+    private static UserMessageModel message() {
+        UserMessageModel message = new UserMessageModel();
+        message.conversation = new ConversationModel();
+        message.conversation.id = UUID.randomUUID();
+        message.sender = new UserModel();
+        message.sender.id = UUID.randomUUID();
+        message.txtContent = "oi";
+        message.sentAt = LocalDateTime.now();
+        return message;
+    }
+
+    @Nested
+    @DisplayName("nextBatch()")
+    class NextBatch {
+
+        @Test
+        @DisplayName("should cap batches at max-batch and keep the rest queued")
+        void shouldCapAtMaxBatch() throws InterruptedException {
+            for (int i = 0; i < 5; i++) {
+                pipeline.submit(message());
+            }
+
+            assertEquals(3, pipeline.nextBatch(0).size());
+            assertEquals(2, pipeline.depth());
+            assertEquals(2, pipeline.nextBatch(0).size());
+            assertTrue(pipeline.nextBatch(0).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("flush()")
+    class Flush {
+
+        @Test
+        @DisplayName("should write the batch once and complete every future")
+        void shouldCompleteFuturesAfterWrite() throws Exception {
+            UserMessageModel first = message();
+            UserMessageModel second = message();
+            CompletableFuture<UserMessageModel> firstResult = pipeline.submit(first);
+            CompletableFuture<UserMessageModel> secondResult = pipeline.submit(second);
+
+            pipeline.flush(pipeline.nextBatch(0));
+
+            verify(batchWriter).write(List.of(first, second));
+            assertSame(first, firstResult.get());
+            assertSame(second, secondResult.get());
+        }
+
+        @Test
+        @DisplayName("should retry one by one when the batch fails")
+        void shouldRetryOneByOne() throws Exception {
+            UserMessageModel good = message();
+            UserMessageModel bad = message();
+            RuntimeException failure = new IllegalStateException("constraint violation");
+            doThrow(failure).when(batchWriter).write(argThat(batch -> batch.contains(bad)));
+
+            CompletableFuture<UserMessageModel> goodResult = pipeline.submit(good);
+            CompletableFuture<UserMessageModel> badResult = pipeline.submit(bad);
+
+            pipeline.flush(pipeline.nextBatch(0));
+
+            verify(batchWriter, times(3)).write(any());
+            assertSame(good, goodResult.get());
+            ExecutionException exception = assertThrows(ExecutionException.class, badResult::get);
+            assertSame(failure, exception.getCause());
+        }
+    }
+
+    @Nested
+    @DisplayName("submit()")
+    class Submit {
+
+        @Test
+        @DisplayName("should reject with 429 when the queue is full")
+        void shouldRejectWhenFull() {
+            pipeline = newPipeline(3, 1);
+            pipeline.submit(message());
+
+            WebApplicationException exception = assertThrows(
+                    WebApplicationException.class,
+                    () -> pipeline.submit(message()));
+
+            assertEquals(429, exception.getResponse().getStatus());
+        }
+    }
+}
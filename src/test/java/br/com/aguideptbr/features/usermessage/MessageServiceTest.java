@@ -1,23 +1,35 @@
 package br.com.aguideptbr.features.usermessage;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import org.jboss.logging.Logger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import br.com.aguideptbr.features.user.UserModel;
+import br.com.aguideptbr.features.usermessage.dto.MessageSearchResponse;
+import jakarta.enterprise.event.Event;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.WebApplicationException;
@@ -25,16 +37,21 @@ import jakarta.ws.rs.WebApplicationException;
 /**
  * Unit tests for MessageService.
  *
- * Tests block enforcement on sendMessage() for DIRECT conversations and
- * basic error-path coverage for missing conversation / non-participant.
+ * Tests block enforcement on sendMessage() for DIRECT conversations, unread
+ * counter maintenance, real-time events and basic error-path coverage for missing conversation /
+ * non-participant.
  * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
  */
 class MessageServiceTest {
 
+    private static final Duration SYNC_SAFETY_LAG = Duration.ofSeconds(10);
+
     private UserMessageRepository messageRepository;
     private ConversationRepository conversationRepository;
     private ConversationParticipantRepository participantRepository;
-    private UserBlockRepository blockRepository;
+    private UserBlockGraphCache blockGraph;
+    private ConversationMembershipCache membershipCache;
+    private Event<MessageEvent> messageEvents;
     private MessageService service;
 
     @BeforeEach
@@ -42,15 +59,25 @@ class MessageServiceTest {
         messageRepository = Mockito.mock(UserMessageRepository.class);
         conversationRepository = Mockito.mock(ConversationRepository.class);
         participantRepository = Mockito.mock(ConversationParticipantRepository.class);
-        blockRepository = Mockito.mock(UserBlockRepository.class);
+        membershipCache = Mockito.mock(ConversationMembershipCache.class);
+        blockGraph = Mockito.mock(UserBlockGraphCache.class);
+        messageEvents = mockEvent();
         Logger log = Mockito.mock(Logger.class);
 
         service = new MessageService(
                 messageRepository,
                 conversationRepository,
                 participantRepository,
-                blockRepository,
-                log);
+                membershipCache,
+                blockGraph,
+                messageEvents,
+                log,
+                SYNC_SAFETY_LAG);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Event<MessageEvent> mockEvent() {
+        return Mockito.mock(Event.class);
     }
 
     // ---------------------------------------------------------------------------
@@ -81,17 +108,10 @@ class MessageServiceTest {
         void shouldThrow409WhenBlockedInDirectConversation() {
             UUID otherUserId = UUID.randomUUID();
 
-            UserModel otherUser = new UserModel();
-            otherUser.id = otherUserId;
-
-            ConversationParticipantModel otherParticipant = new ConversationParticipantModel();
-            otherParticipant.user = otherUser;
-
             when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
-            when(participantRepository.isUserParticipant(senderId, conversationId)).thenReturn(true);
-            when(participantRepository.findByConversation(conversationId))
-                    .thenReturn(List.of(otherParticipant));
-            when(blockRepository.isBlockedInAnyDirection(senderId, otherUserId)).thenReturn(true);
+            when(membershipCache.isParticipant(senderId, conversationId)).thenReturn(true);
+            when(membershipCache.memberIds(conversationId)).thenReturn(List.of(senderId, otherUserId));
+            when(blockGraph.isBlockedInAnyDirection(senderId, otherUserId)).thenReturn(true);
 
             WebApplicationException exception = assertThrows(
                     WebApplicationException.class,
@@ -109,13 +129,57 @@ class MessageServiceTest {
             conversation.conversationType = ConversationType.GROUP;
 
             when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
-            when(participantRepository.isUserParticipant(senderId, conversationId)).thenReturn(true);
+            when(membershipCache.isParticipant(senderId, conversationId)).thenReturn(true);
 
             // Empty content → BadRequestException (content validation, not block)
             assertThrows(jakarta.ws.rs.BadRequestException.class,
                     () -> service.sendMessage(senderId, conversationId, "", MessageType.TEXT, null));
 
-            verify(blockRepository, never()).isBlockedInAnyDirection(any(), any());
+            verify(blockGraph, never()).isBlockedInAnyDirection(any(), any());
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // sendMessage - unread counters
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("sendMessage() - unread counters and events")
+    class SendMessageUnreadCounters {
+
+        @Test
+        @DisplayName("should increment the other participants' unread counters and fire CREATED")
+        void shouldIncrementUnreadCountOfOtherParticipants() {
+            UUID senderId = UUID.randomUUID();
+            UUID conversationId = UUID.randomUUID();
+            ConversationModel conversation = new ConversationModel();
+            conversation.id = conversationId;
+            conversation.conversationType = ConversationType.GROUP;
+
+            when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
+            when(membershipCache.isParticipant(senderId, conversationId)).thenReturn(true);
+
+            service.sendMessage(senderId, conversationId, "hello", MessageType.TEXT, null);
+
+            verify(participantRepository).recordMessagesSent(eq(conversationId), eq(senderId), eq(1),
+                    any(LocalDateTime.class));
+            verify(messageEvents).fire(argThat(event -> event.type() == MessageEvent.Type.CREATED
+                    && event.conversationId().equals(conversationId)
+                    && "hello".equals(event.message().getContent())));
+        }
+
+        @Test
+        @DisplayName("should not touch counters when the message is rejected")
+        void shouldNotIncrementWhenRejected() {
+            UUID senderId = UUID.randomUUID();
+            UUID conversationId = UUID.randomUUID();
+
+            when(conversationRepository.findByIdActive(conversationId)).thenReturn(null);
+
+            assertThrows(NotFoundException.class,
+                    () -> service.sendMessage(senderId, conversationId, "hello", MessageType.TEXT, null));
+            verify(participantRepository, never()).recordMessagesSent(any(), any(), anyInt(), any());
+            verify(messageEvents, never()).fire(any());
         }
     }
 
@@ -151,7 +215,7 @@ class MessageServiceTest {
             conversation.deletedAt = null;
 
             when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
-            when(participantRepository.isUserParticipant(senderId, conversationId)).thenReturn(false);
+            when(membershipCache.isParticipant(senderId, conversationId)).thenReturn(false);
 
             assertThrows(ForbiddenException.class,
                     () -> service.sendMessage(senderId, conversationId, "hello", MessageType.TEXT, null));
@@ -169,7 +233,7 @@ class MessageServiceTest {
             conversation.deletedAt = null;
 
             when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
-            when(participantRepository.isUserParticipant(senderId, conversationId)).thenReturn(true);
+            when(membershipCache.isParticipant(senderId, conversationId)).thenReturn(true);
 
             assertThrows(jakarta.ws.rs.BadRequestException.class,
                     () -> service.sendMessage(senderId, conversationId, "  ", MessageType.TEXT, null));
@@ -195,4 +259,186 @@ class MessageServiceTest {
             assertThrows(NotFoundException.class, () -> service.markAsRead(messageId, userId));
         }
     }
+
+    // ---------------------------------------------------------------------------
+    // syncMessages
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("syncMessages()")
+    class SyncMessages {
+
+        @Test
+        @DisplayName("should seek after the cursor respecting clearedAt and the safety lag, without counting")
+        void shouldSeekAfterCursor() {
+            UUID userId = UUID.randomUUID();
+            UUID conversationId = UUID.randomUUID();
+            ConversationModel conversation = new ConversationModel();
+            conversation.id = conversationId;
+            ConversationParticipantModel participant = new ConversationParticipantModel();
+            participant.clearedAt = java.time.LocalDateTime.now().minusDays(1);
+            MessageSyncCursor cursor = new MessageSyncCursor(java.time.LocalDateTime.now(), UUID.randomUUID());
+
+            when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
+            when(participantRepository.findByUserAndConversation(userId, conversationId)).thenReturn(participant);
+
+            LocalDateTime before = LocalDateTime.now().minus(SYNC_SAFETY_LAG);
+            service.syncMessages(conversationId, userId, cursor, 50);
+            LocalDateTime after = LocalDateTime.now().minus(SYNC_SAFETY_LAG);
+
+            ArgumentCaptor<LocalDateTime> upTo = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(messageRepository).findChangedAfter(eq(conversationId), eq(participant.clearedAt), eq(cursor),
+                    upTo.capture(), eq(51));
+            assertFalse(upTo.getValue().isBefore(before) || upTo.getValue().isAfter(after),
+                    "Sync window must end safety-lag before now");
+            verify(messageRepository, never()).countByConversation(any());
+        }
+
+        @Test
+        @DisplayName("should throw ForbiddenException when user is not a participant")
+        void shouldThrowForbiddenWhenNotParticipant() {
+            UUID userId = UUID.randomUUID();
+            UUID conversationId = UUID.randomUUID();
+            ConversationModel conversation = new ConversationModel();
+            conversation.id = conversationId;
+
+            when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
+
+            assertThrows(ForbiddenException.class, () -> service.syncMessages(conversationId, userId, null, 50));
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // searchInbox / searchMessages
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("searchInbox() / searchMessages()")
+    class Search {
+
+        private UUID userId;
+
+        @BeforeEach
+        void setUp() {
+            userId = UUID.randomUUID();
+        }
+
+        private UserMessageModel message(UUID id) {
+            UserModel sender = new UserModel();
+            sender.id = UUID.randomUUID();
+            ConversationModel conversation = new ConversationModel();
+            conversation.id = UUID.randomUUID();
+            UserMessageModel message = new UserMessageModel();
+            message.id = id;
+            message.sender = sender;
+            message.conversation = conversation;
+            return message;
+        }
+
+        @Test
+        @DisplayName("should return one page in rank order with a cursor after the last hit")
+        void shouldPageInRankOrder() {
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            UUID extra = UUID.randomUUID();
+            LocalDateTime newestAt = LocalDateTime.of(2026, 10, 18, 9, 0);
+            when(messageRepository.searchMessages(userId, null, "reunião", null, 3)).thenReturn(List.of(
+                    new UserMessageRepository.SearchMatch(first, 1.25, "<mark>reunião</mark> amanhã", newestAt),
+                    new UserMessageRepository.SearchMatch(second, 0.8, "a <mark>reuniao</mark>", newestAt),
+                    new UserMessageRepository.SearchMatch(extra, 0.4, "...", newestAt)));
+            // Ordem do banco não é garantida: a página segue a ordem do score
+            when(messageRepository.findByIdsWithSender(List.of(first, second)))
+                    .thenReturn(List.of(message(second), message(first)));
+
+            MessageSearchResponse response = service.searchInbox(" reunião ", userId, null, 2);
+
+            assertEquals(2, response.getResults().size());
+            assertEquals(first, response.getResults().get(0).getMessage().getId());
+            assertEquals("<mark>reunião</mark> amanhã", response.getResults().get(0).getSnippet());
+            assertEquals(second, response.getResults().get(1).getMessage().getId());
+            assertTrue(response.isHasMore());
+
+            MessageSearchCursor next = MessageSearchCursor.decode(response.getNextCursor());
+            assertEquals(0.8, next.getScore());
+            assertEquals(second, next.getId());
+            assertEquals(newestAt, next.getNewestAt());
+        }
+
+        @Test
+        @DisplayName("should reject a blank query with 400")
+        void shouldRejectBlankQuery() {
+            assertThrows(BadRequestException.class, () -> service.searchInbox("  ", userId, null, 20));
+
+            verify(messageRepository, never()).searchMessages(any(), any(), any(), any(), Mockito.anyInt());
+        }
+
+        @Test
+        @DisplayName("should throw ForbiddenException when searching a conversation the user is not in")
+        void shouldThrowForbiddenWhenNotParticipant() {
+            UUID conversationId = UUID.randomUUID();
+            ConversationModel conversation = new ConversationModel();
+            conversation.id = conversationId;
+            when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
+
+            assertThrows(ForbiddenException.class,
+                    () -> service.searchMessages(conversationId, "oi", userId, null, 20));
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // getMessagesByConversation - archive
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("getMessagesByConversation() - archive")
+    class GetMessagesWithArchive {
+
+        private UUID userId;
+        private UUID conversationId;
+        private ConversationParticipantModel participant;
+
+        @BeforeEach
+        void setUp() {
+            userId = UUID.randomUUID();
+            conversationId = UUID.randomUUID();
+            ConversationModel conversation = new ConversationModel();
+            conversation.id = conversationId;
+            participant = new ConversationParticipantModel();
+
+            when(conversationRepository.findByIdActive(conversationId)).thenReturn(conversation);
+            when(participantRepository.findByUserAndConversation(userId, conversationId)).thenReturn(participant);
+        }
+
+        private List<UserMessageModel> messages(int count) {
+            return IntStream.range(0, count).mapToObj(i -> new UserMessageModel()).toList();
+        }
+
+        @Test
+        @DisplayName("should read hot and archived messages in one query for a page")
+        void shouldPageAcrossHotAndArchive() {
+            when(messageRepository.findHistory(conversationId, null, null, 40, 20)).thenReturn(messages(20));
+
+            assertEquals(20, service.getMessagesByConversation(conversationId, userId, 2, 20).size());
+        }
+
+        @Test
+        @DisplayName("should continue from the cursor without offset and fetch one extra row")
+        void shouldPageHistoryByCursor() {
+            MessageHistoryCursor before = new MessageHistoryCursor(LocalDateTime.of(2025, 1, 10, 8, 0),
+                    UUID.randomUUID());
+            when(messageRepository.findHistory(conversationId, null, before, 0, 21)).thenReturn(messages(21));
+
+            assertEquals(21, service.getMessageHistory(conversationId, userId, before, 20).size());
+        }
+
+        @Test
+        @DisplayName("should keep hiding messages before the participant cleared the conversation")
+        void shouldRespectClearedAt() {
+            participant.clearedAt = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+            service.getMessageHistory(conversationId, userId, null, 20);
+
+            verify(messageRepository).findHistory(conversationId, participant.clearedAt, null, 0, 21);
+        }
+    }
 }
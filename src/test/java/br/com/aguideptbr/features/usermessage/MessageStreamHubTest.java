@@ -0,0 +1,88 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+/**
+ * Unit tests for MessageStreamHub.
+ *
+ * Tests that streams of users who lost access to a conversation are closed
+ * on revalidation, and the others are kept.
+ */
+class MessageStreamHubTest {
+
+    private ConversationMembershipCache membershipCache;
+    private MessageStreamHub hub;
+    private UUID conversationId;
+    private UUID memberId;
+    private UUID removedId;
+    private SseEventSink memberSink;
+    private SseEventSink removedSink;
+
+    @BeforeEach
+    void setUp() {
+        membershipCache = Mockito.mock(ConversationMembershipCache.class);
+        hub = new MessageStreamHub(Mockito.mock(Logger.class), membershipCache);
+
+        conversationId = UUID.randomUUID();
+        memberId = UUID.randomUUID();
+        removedId = UUID.randomUUID();
+        memberSink = Mockito.mock(SseEventSink.class);
+        removedSink = Mockito.mock(SseEventSink.class);
+        hub.subscribe(conversationId, memberId, memberSink, Mockito.mock(Sse.class));
+        hub.subscribe(conversationId, removedId, removedSink, Mockito.mock(Sse.class));
+
+        when(membershipCache.isParticipant(memberId, conversationId)).thenReturn(true);
+        when(membershipCache.isParticipant(removedId, conversationId)).thenReturn(false);
+    }
+
+    @Test
+    @DisplayName("Should close only the streams of users no longer in the conversation")
+    void shouldDropRevokedSubscribers() {
+        assertEquals(1, hub.dropRevoked(conversationId));
+
+        verify(removedSink).close();
+        verify(memberSink, never()).close();
+        assertTrue(hub.hasSubscribers(conversationId));
+    }
+
+    @Test
+    @DisplayName("Should recheck every stream of a user after a block change")
+    void shouldDropRevokedStreamsOfUser() {
+        UUID otherConversation = UUID.randomUUID();
+        SseEventSink otherSink = Mockito.mock(SseEventSink.class);
+        hub.subscribe(otherConversation, removedId, otherSink, Mockito.mock(Sse.class));
+        when(membershipCache.isParticipant(removedId, otherConversation)).thenReturn(true);
+
+        assertEquals(1, hub.dropRevokedOf(removedId));
+
+        verify(removedSink).close();
+        verify(otherSink, never()).close();
+        verify(membershipCache, never()).isParticipant(memberId, conversationId);
+    }
+
+    @Test
+    @DisplayName("Should remove the conversation once its last stream is dropped")
+    void shouldForgetEmptyConversation() {
+        when(membershipCache.isParticipant(memberId, conversationId)).thenReturn(false);
+
+        assertEquals(2, hub.dropAllRevoked());
+
+        assertFalse(hub.hasSubscribers(conversationId));
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Unit tests for MessageSyncCursor encoding.
+ */
+class MessageSyncCursorTest {
+
+    @Test
+    @DisplayName("should round-trip updatedAt and id through the opaque string")
+    void shouldRoundTrip() {
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 10, 18, 9, 15, 0, 987654000);
+        UUID id = UUID.randomUUID();
+
+        MessageSyncCursor decoded = MessageSyncCursor.decode(new MessageSyncCursor(updatedAt, id).encode());
+
+        assertEquals(updatedAt, decoded.getUpdatedAt());
+        assertEquals(id, decoded.getId());
+    }
+
+    @Test
+    @DisplayName("should treat an empty cursor as a sync from the beginning")
+    void shouldReturnNullForBlank() {
+        assertNull(MessageSyncCursor.decode(""));
+    }
+
+    @Test
+    @DisplayName("should reject a malformed cursor with 400")
+    void shouldRejectMalformedCursor() {
+        BadRequestException ex = assertThrows(BadRequestException.class,
+                () -> MessageSyncCursor.decode("not-a-cursor"));
+
+        assertEquals(400, ex.getResponse().getStatus());
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.aguideptbr.features.usermessage;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for UserBlockGraphCache.
+ *
+ * Tests both block directions, lazy loading (one query per user) and
+ * invalidation of both users on a block change.
+ */
+class UserBlockGraphCacheTest {
+
+    private UserBlockRepository blockRepository;
+    private UserBlockGraphCache cache;
+    private UUID userId;
+    private UUID blockedId;
+    private UUID blockerId;
+
+    @BeforeEach
+    void setUp() {
+        blockRepository = Mockito.mock(UserBlockRepository.class);
+        cache = new UserBlockGraphCache(blockRepository, 100);
+
+        userId = UUID.randomUUID();
+        blockedId = UUID.randomUUID();
+        blockerId = UUID.randomUUID();
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { userId, blockedId });
+        rows.add(new Object[] { blockerId, userId });
+        when(blockRepository.findEdgesOf(userId)).thenReturn(rows);
+    }
+
+    @Test
+    @DisplayName("Should detect blocks in both directions")
+    void shouldDetectBothDirections() {
+        assertTrue(cache.isBlockedInAnyDirection(userId, blockedId));
+        assertTrue(cache.isBlockedInAnyDirection(userId, blockerId));
+        assertFalse(cache.isBlockedInAnyDirection(userId, UUID.randomUUID()));
+    }
+
+    @Test
+    @DisplayName("Should load each user once until a block event invalidates it")
+    void shouldLoadOnceUntilInvalidated() {
+        cache.isBlockedInAnyDirection(userId, blockedId);
+        cache.isBlockedInAnyDirection(userId, blockerId);
+        verify(blockRepository, times(1)).findEdgesOf(userId);
+
+        cache.onBlockChanged(new UserBlockEvent(blockerId, userId));
+        cache.isBlockedInAnyDirection(userId, blockerId);
+        verify(blockRepository, times(2)).findEdgesOf(userId);
+    }
+}
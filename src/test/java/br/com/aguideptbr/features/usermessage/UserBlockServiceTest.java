@@ -18,6 +18,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import jakarta.enterprise.event.Event;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
 
@@ -30,13 +31,20 @@ import jakarta.ws.rs.NotFoundException;
 class UserBlockServiceTest {
 
     private UserBlockRepository blockRepository;
+    private Event<UserBlockEvent> blockEvents;
     private UserBlockService service;
 
     @BeforeEach
     void setUp() {
         blockRepository = Mockito.mock(UserBlockRepository.class);
+        blockEvents = mockEvent();
         Logger log = Mockito.mock(Logger.class);
-        service = new UserBlockService(blockRepository, log);
+        service = new UserBlockService(blockRepository, blockEvents, log);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Event<UserBlockEvent> mockEvent() {
+        return Mockito.mock(Event.class);
     }
 
     // ---------------------------------------------------------------------------
@@ -103,6 +111,7 @@ class UserBlockServiceTest {
 
             assertThrows(NotFoundException.class, () -> service.unblockUser(blockerUserId, blockedUserId));
             verify(blockRepository, never()).delete(any());
+            verify(blockEvents, never()).fire(any());
         }
 
         @Test
@@ -117,6 +126,7 @@ class UserBlockServiceTest {
             service.unblockUser(blockerUserId, blockedUserId);
 
             verify(blockRepository).delete(blockRecord);
+            verify(blockEvents).fire(new UserBlockEvent(blockerUserId, blockedUserId));
         }
     }
 
@@ -346,4 +346,38 @@ class UserRankingServiceTest {
                 assertEquals(30, updated.getTotalScore(),
                                 "Score should be 20 + 10 = 30 (threshold is inclusive)");
         }
+
+        @Test
+        @Transactional
+        void testUpdate_ClientContentViewCounters_ShouldBeIgnored() {
+                // Arrange: contadores mantidos pelo servidor (UserRankingViewProjector)
+                LocalDateTime lastView = LocalDateTime.now().minusDays(1);
+                UserRankingModel ranking = new UserRankingModel();
+                ranking.setUserId(testUser.id);
+                ranking.setTotalScore(10);
+                ranking.setTotalActiveDays(1L);
+                ranking.setLastLoginAt(LocalDateTime.now());
+                ranking.setTotalContentViews(5L);
+                ranking.setUniqueContentViews(3L);
+                ranking.setLastContentViewAt(lastView);
+                userRankingService.create(ranking);
+
+                // Act: cliente envia contadores próprios (cálculo antigo do app)
+                UserRankingModel updateData = new UserRankingModel();
+                updateData.setTotalContentViews(100L);
+                updateData.setUniqueContentViews(100L);
+                updateData.setLastContentViewAt(LocalDateTime.now());
+                updateData.setTotalPhones(1);
+
+                UserRankingModel updated = userRankingService.update(ranking.getId(), updateData);
+
+                // Assert: contadores do servidor intactos, sem milestone de 100 views
+                assertEquals(5L, updated.getTotalContentViews(), "totalContentViews must ignore the client value");
+                assertEquals(3L, updated.getUniqueContentViews(), "uniqueContentViews must ignore the client value");
+                assertEquals(lastView, updated.getLastContentViewAt(), "lastContentViewAt must ignore the client value");
+                assertEquals(1, updated.getTotalPhones(), "Other fields should still be updated");
+                List<UserRankingAuditModel> audits = auditRepository.findByUserId(testUser.id);
+                assertTrue(audits.stream().noneMatch(a -> "CONTENT_VIEWS_100".equals(a.getPointsReason())),
+                                "Client counters must not trigger content view milestones");
+        }
 }
@@ -0,0 +1,196 @@
+package br.com.aguideptbr.features.userposition.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import br.com.aguideptbr.features.engagement.ContentEngagementRepository;
+import br.com.aguideptbr.features.engagement.ContentViewedEvent;
+import br.com.aguideptbr.features.userposition.UserRankingModel;
+import br.com.aguideptbr.features.userposition.UserRankingRepository;
+import jakarta.persistence.LockModeType;
+
+/**
+ * Unit tests for UserRankingViewProjector.
+ *
+ * Tests per-user accumulation, unique-view detection against the log counts,
+ * lock ordering, milestones and retry after a failed flush.
+ * Uses plain Mockito (no @QuarkusTest) for fast isolated execution.
+ */
+class UserRankingViewProjectorTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+    private UserRankingRepository rankingRepository;
+    private ContentEngagementRepository engagementRepository;
+    private UserRankingMilestoneService milestoneService;
+    private UserRankingViewProjector projector;
+
+    @BeforeEach
+    void setUp() {
+        rankingRepository = Mockito.mock(UserRankingRepository.class);
+        engagementRepository = Mockito.mock(ContentEngagementRepository.class);
+        milestoneService = Mockito.mock(UserRankingMilestoneService.class);
+        projector = new UserRankingViewProjector(Mockito.mock(Logger.class), rankingRepository,
+                engagementRepository, milestoneService);
+    }
+
+    private UserRankingModel ranking(UUID userId, long total, long unique) {
+        UserRankingModel ranking = new UserRankingModel();
+        ranking.setUserId(userId);
+        ranking.setTotalContentViews(total);
+        ranking.setUniqueContentViews(unique);
+        when(rankingRepository.findByUserIdWithLock(userId, LockModeType.PESSIMISTIC_WRITE))
+                .thenReturn(Optional.of(ranking));
+        return ranking;
+    }
+
+    private void logCounts(List<Object[]> rows) {
+        when(engagementRepository.countViewsByUserAndContent(anyCollection(), anyCollection()))
+                .thenReturn(rows);
+    }
+
+    private static Object[] row(UUID userId, UUID contentId, long views) {
+        return new Object[] { userId, contentId, views };
+    }
+
+    private void view(UUID userId, UUID contentId, LocalDateTime at) {
+        projector.onContentViewed(new ContentViewedEvent(userId, contentId, at));
+    }
+
+    // ---------------------------------------------------------------------------
+    // unique views
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("flush() - unique views")
+    class UniqueViews {
+
+        @Test
+        @DisplayName("should count a content as unique only when every logged view is in the batch")
+        void shouldCountFirstViewsOnly() {
+            UUID user = UUID.randomUUID();
+            UUID fresh = UUID.randomUUID();
+            UUID rewatched = UUID.randomUUID();
+            UserRankingModel ranking = ranking(user, 7, 4);
+            view(user, fresh, T0);
+            view(user, fresh, T0.plusMinutes(1));
+            view(user, rewatched, T0.plusMinutes(2));
+            // fresh: 2 views in the log, both from this batch; rewatched: 3 in the log
+            logCounts(List.of(row(user, fresh, 2L), row(user, rewatched, 3L)));
+
+            assertEquals(1, projector.flush());
+
+            assertEquals(10L, ranking.getTotalContentViews());
+            assertEquals(5L, ranking.getUniqueContentViews());
+            assertEquals(T0.plusMinutes(2), ranking.getLastContentViewAt());
+        }
+
+        @Test
+        @DisplayName("should not move lastContentViewAt backwards")
+        void shouldKeepNewerLastView() {
+            UUID user = UUID.randomUUID();
+            UUID content = UUID.randomUUID();
+            UserRankingModel ranking = ranking(user, 1, 1);
+            ranking.setLastContentViewAt(T0.plusHours(1));
+            view(user, content, T0);
+            logCounts(List.<Object[]>of(row(user, content, 2L)));
+
+            projector.flush();
+
+            assertEquals(T0.plusHours(1), ranking.getLastContentViewAt());
+            assertEquals(1L, ranking.getUniqueContentViews());
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // flush
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("flush()")
+    class Flush {
+
+        @Test
+        @DisplayName("should lock rankings in userId order and check milestones with the totals")
+        void shouldLockInUserIdOrder() {
+            List<UUID> users = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                users.add(UUID.randomUUID());
+            }
+            for (UUID user : users) {
+                ranking(user, 9, 0);
+                view(user, UUID.randomUUID(), T0);
+            }
+            logCounts(List.of());
+
+            assertEquals(5, projector.flush());
+
+            List<UUID> sorted = new ArrayList<>(users);
+            sorted.sort(null);
+            InOrder inOrder = Mockito.inOrder(rankingRepository);
+            for (UUID user : sorted) {
+                inOrder.verify(rankingRepository).findByUserIdWithLock(user, LockModeType.PESSIMISTIC_WRITE);
+            }
+            verify(milestoneService).checkContentViewsMilestones(sorted.get(0), 9L, 10L);
+        }
+
+        @Test
+        @DisplayName("should skip users without ranking and apply each view once")
+        void shouldDrainPendingViews() {
+            UUID user = UUID.randomUUID();
+            UUID withoutRanking = UUID.randomUUID();
+            UserRankingModel ranking = ranking(user, 0, 0);
+            when(rankingRepository.findByUserIdWithLock(withoutRanking, LockModeType.PESSIMISTIC_WRITE))
+                    .thenReturn(Optional.empty());
+            view(user, UUID.randomUUID(), T0);
+            view(withoutRanking, UUID.randomUUID(), T0);
+            logCounts(List.of());
+
+            assertEquals(1, projector.flush());
+            assertEquals(0, projector.flush());
+            assertEquals(1L, ranking.getTotalContentViews());
+        }
+
+        @Test
+        @DisplayName("should keep the views for the next flush when applying fails")
+        void shouldRetryAfterFailure() {
+            UUID user = UUID.randomUUID();
+            UUID content = UUID.randomUUID();
+            view(user, content, T0);
+            when(engagementRepository.countViewsByUserAndContent(anyCollection(), anyCollection()))
+                    .thenThrow(new RuntimeException("db down"))
+                    .thenReturn(List.<Object[]>of(row(user, content, 2L)));
+
+            assertThrows(RuntimeException.class, () -> projector.flush());
+            verify(milestoneService, never()).checkContentViewsMilestones(any(), any(), any());
+
+            view(user, content, T0.plusMinutes(1));
+            UserRankingModel ranking = ranking(user, 0, 0);
+            assertEquals(1, projector.flush());
+
+            assertEquals(2L, ranking.getTotalContentViews());
+            assertEquals(1L, ranking.getUniqueContentViews());
+            verify(milestoneService).checkContentViewsMilestones(eq(user), eq(0L), eq(2L));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.aguideptbr.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the HyperLogLog sketch.
+ */
+class HyperLogLogTest {
+
+    @Test
+    @DisplayName("should estimate 100k distinct values within 5%")
+    void shouldEstimateLargeCardinality() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add(UUID.randomUUID());
+        }
+
+        assertEquals(100_000, sketch.estimate(), 5_000);
+    }
+
+    @Test
+    @DisplayName("should count small cardinalities almost exactly and ignore duplicates")
+    void shouldEstimateSmallCardinality() {
+        HyperLogLog sketch = new HyperLogLog();
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(UUID.randomUUID());
+        }
+        for (int repeat = 0; repeat < 5; repeat++) {
+            users.forEach(sketch::add);
+        }
+
+        assertEquals(100, sketch.estimate(), 2);
+    }
+
+    @Test
+    @DisplayName("should merge overlapping sketches without double counting")
+    void shouldMergeAsUnion() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) {
+            UUID user = UUID.randomUUID();
+            monday.add(user);
+            if (i % 2 == 0) {
+                tuesday.add(user);
+            }
+        }
+        for (int i = 0; i < 10_000; i++) {
+            tuesday.add(UUID.randomUUID());
+        }
+
+        monday.merge(tuesday);
+
+        assertEquals(30_000, monday.estimate(), 1_500);
+    }
+
+    @Test
+    @DisplayName("should round-trip through sparse and dense encodings")
+    void shouldRoundTripBytes() {
+        HyperLogLog sparse = new HyperLogLog();
+        for (int i = 0; i < 50; i++) {
+            sparse.add(UUID.randomUUID());
+        }
+        HyperLogLog dense = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            dense.add(UUID.randomUUID());
+        }
+
+        byte[] sparseBytes = sparse.toBytes();
+        byte[] denseBytes = dense.toBytes();
+
+        assertTrue(sparseBytes.length < denseBytes.length);
+        assertArrayEquals(sparseBytes, HyperLogLog.fromBytes(sparseBytes).toBytes());
+        assertArrayEquals(denseBytes, HyperLogLog.fromBytes(denseBytes).toBytes());
+        assertEquals(dense.estimate(), HyperLogLog.fromBytes(denseBytes).estimate());
+    }
+
+    @Test
+    @DisplayName("should treat null as an empty sketch and reject unknown formats")
+    void shouldHandleEmptyAndInvalidBytes() {
+        assertTrue(HyperLogLog.fromBytes(null).isEmpty());
+        assertEquals(0, HyperLogLog.fromBytes(new byte[0]).estimate());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] { 9, 12 }));
+
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add(UUID.randomUUID());
+        assertFalse(sketch.isEmpty());
+    }
+}
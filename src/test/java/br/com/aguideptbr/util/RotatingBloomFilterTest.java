@@ -0,0 +1,73 @@
+package br.com.aguideptbr.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for RotatingBloomFilter.
+ */
+class RotatingBloomFilterTest {
+
+    private static final long WINDOW_MILLIS = Duration.ofMinutes(10).toMillis();
+
+    @Test
+    @DisplayName("should stay near the configured false-positive rate")
+    void shouldRespectFalsePositiveRate() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, Duration.ofMinutes(10));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10_000; i++) {
+            UUID key = UUID.randomUUID();
+            filter.add(key.getMostSignificantBits(), key.getLeastSignificantBits(), now);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            UUID key = UUID.randomUUID();
+            if (filter.mightContain(key.getMostSignificantBits(), key.getLeastSignificantBits(), now)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("should remember keys for one window and forget them after two")
+    void shouldRotateGenerations() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.001, Duration.ofMillis(WINDOW_MILLIS));
+        long start = System.currentTimeMillis();
+        filter.add(1L, 2L, start);
+
+        assertTrue(filter.mightContain(1L, 2L, start + WINDOW_MILLIS / 2));
+        assertTrue(filter.mightContain(1L, 2L, start + WINDOW_MILLIS + 1));
+        assertFalse(filter.mightContain(1L, 2L, start + 2 * WINDOW_MILLIS + 2));
+    }
+
+    @Test
+    @DisplayName("should clear both generations after a long idle period")
+    void shouldForgetAfterIdle() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.001, Duration.ofMillis(WINDOW_MILLIS));
+        long start = System.currentTimeMillis();
+        filter.add(1L, 2L, start);
+
+        assertFalse(filter.mightContain(1L, 2L, start + 3 * WINDOW_MILLIS));
+    }
+
+    @Test
+    @DisplayName("should add a key only once with addIfAbsent")
+    void shouldAddIfAbsentOnce() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.001, Duration.ofMillis(WINDOW_MILLIS));
+        long start = System.currentTimeMillis();
+
+        assertTrue(filter.addIfAbsent(1L, 2L, start));
+        assertFalse(filter.addIfAbsent(1L, 2L, start + 1));
+        assertTrue(filter.mightContain(1L, 2L, start + 1));
+        assertTrue(filter.addIfAbsent(1L, 2L, start + 3 * WINDOW_MILLIS));
+    }
+}